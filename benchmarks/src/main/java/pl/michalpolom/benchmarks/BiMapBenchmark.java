@@ -0,0 +1,76 @@
+package pl.michalpolom.benchmarks;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import com.google.common.collect.Maps;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.michalpolom.collections.ConcurrentBiMap;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapowanie sesja &lt;-&gt; połączenie: Maps.synchronizedBiMap(HashBiMap) vs ConcurrentBiMap.<p>
+ * 6 wątków czyta w obu kierunkach (get i inverse().get), 2 wątki przepinają sesje na nowe połączenia przez forcePut.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BiMapBenchmark {
+
+    public enum BiMapType {
+        SYNCHRONIZED, CONCURRENT
+    }
+
+    @Param({"10000"})
+    int sessions;
+
+    @Param
+    BiMapType type;
+
+    private BiMap<Integer, Integer> biMap;
+
+    @Setup
+    public void setUp() {
+        biMap = switch (type) {
+            case SYNCHRONIZED -> Maps.synchronizedBiMap(HashBiMap.create());
+            case CONCURRENT -> new ConcurrentBiMap<>();
+        };
+        for (int i = 0; i < sessions; i++) {
+            biMap.put(i, i);
+        }
+    }
+
+    @Benchmark
+    @Group("sessions")
+    @GroupThreads(6)
+    public Integer read() {
+        final var random = ThreadLocalRandom.current();
+        return random.nextBoolean()
+                ? biMap.get(random.nextInt(sessions))
+                : biMap.inverse().get(random.nextInt(2 * sessions));
+    }
+
+    @Benchmark
+    @Group("sessions")
+    @GroupThreads(2)
+    public Integer reconnect() {
+        final var random = ThreadLocalRandom.current();
+        return biMap.forcePut(random.nextInt(sessions), random.nextInt(2 * sessions));
+    }
+}
@@ -0,0 +1,106 @@
+package pl.michalpolom.benchmarks;
+
+import com.google.common.collect.Queues;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.michalpolom.collections.MpmcArrayBlockingQueue;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Przepustowość kolejek blokujących: producers wątków wstawia łącznie MESSAGES elementów,
+ * a wątek benchmarku odbiera je paczkami przez drainTo (z take(), gdy kolejka jest pusta).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockingQueueBenchmark {
+
+    private static final int MESSAGES = 1_000_000;
+    private static final Integer MESSAGE = 42;
+
+    public enum QueueType {
+        MPMC, ARRAY_BLOCKING, LINKED_BLOCKING, GUAVA_ARRAY_BLOCKING
+    }
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    int producers;
+
+    @Param({"1024"})
+    int capacity;
+
+    @Param
+    QueueType type;
+
+    private BlockingQueue<Integer> queue;
+    private ExecutorService executor;
+    private final ArrayList<Integer> batch = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queue = switch (type) {
+            case MPMC -> new MpmcArrayBlockingQueue<>(capacity);
+            case ARRAY_BLOCKING -> new ArrayBlockingQueue<>(capacity);
+            case LINKED_BLOCKING -> new LinkedBlockingQueue<>(capacity);
+            case GUAVA_ARRAY_BLOCKING -> Queues.newArrayBlockingQueue(capacity);
+        };
+        executor = Executors.newFixedThreadPool(producers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int transfer() throws Exception {
+        final var futures = new ArrayList<Future<?>>(producers);
+        final int perProducer = MESSAGES / producers;
+        for (int p = 0; p < producers; p++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    queue.put(MESSAGE);
+                }
+                return null;
+            }));
+        }
+        int received = 0;
+        final int expected = perProducer * producers;
+        while (received < expected) {
+            batch.clear();
+            final int drained = queue.drainTo(batch, 256);
+            if (drained == 0) {
+                queue.take();
+                received++;
+            }
+            received += drained;
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return received;
+    }
+}
@@ -0,0 +1,144 @@
+package pl.michalpolom.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.michalpolom.collections.BoundedCache;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Odtwarzanie śladu dostępów: rozkład Zipfa (popularne klucze) przerywany skanowaniem nowych kluczy - LRU na LinkedHashMap
+ * (accessOrder + removeEldestEntry) vs BoundedCache z W-TinyLFU.<p>
+ * Jedno wywołanie to całe odtworzenie śladu na pustym cache. Liczniki hits/misses (AuxCounters) pokazują współczynnik trafień,
+ * a czas - koszt odtworzenia. Same współczynniki trafień bez JMH wypisuje {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = 1)
+@Measurement(iterations = 5, batchSize = 1)
+@Fork(1)
+public class CacheTraceBenchmark {
+
+    private static final int REQUESTS = 500_000;
+    private static final int KEYS = 100_000;
+    private static final int SCAN_EVERY = 50_000;
+    private static final int SCAN_LENGTH = 20_000;
+
+    @Param({"1000", "10000"})
+    int maximumSize;
+
+    private int[] trace;
+
+    @Setup
+    public void setUp() {
+        trace = trace(REQUESTS, KEYS, 0.9, 42);
+    }
+
+    @Benchmark
+    public void linkedHashMapLru(Counters counters) {
+        final Map<Integer, Integer> lru = lru(maximumSize);
+        for (int key : trace) {
+            if (lru.get(key) == null) {
+                counters.misses++;
+                lru.put(key, key);
+            } else {
+                counters.hits++;
+            }
+        }
+    }
+
+    @Benchmark
+    public void boundedCache(Counters counters) {
+        final BoundedCache<Integer, Integer> cache = BoundedCache.<Integer, Integer>builder().maximumSize(maximumSize).build();
+        for (int key : trace) {
+            if (cache.getIfPresent(key) == null) {
+                counters.misses++;
+                cache.put(key, key);
+            } else {
+                counters.hits++;
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public long hits;
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    public static void main(String[] args) {
+        final int[] trace = trace(REQUESTS, KEYS, 0.9, 42);
+        for (int maximumSize : new int[]{1_000, 10_000}) {
+            final Map<Integer, Integer> lru = lru(maximumSize);
+            final BoundedCache<Integer, Integer> cache = BoundedCache.<Integer, Integer>builder().maximumSize(maximumSize).build();
+            long lruHits = 0;
+            for (int key : trace) {
+                if (lru.get(key) == null) {
+                    lru.put(key, key);
+                } else {
+                    lruHits++;
+                }
+                cache.get(key, k -> k);
+            }
+            System.out.printf("maximumSize=%d  LinkedHashMap LRU: %.2f%%  BoundedCache W-TinyLFU: %.2f%%%n",
+                    maximumSize, 100.0 * lruHits / trace.length, 100.0 * cache.stats().hitRate());
+        }
+    }
+
+    private static Map<Integer, Integer> lru(int maximumSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Ślad: klucze z rozkładu Zipfa o wykładniku skew, a co SCAN_EVERY żądań seria SCAN_LENGTH kluczy spoza tego rozkładu.
+     */
+    private static int[] trace(int requests, int keys, double skew, long seed) {
+        final double[] cumulative = new double[keys];
+        double sum = 0;
+        for (int i = 0; i < keys; i++) {
+            sum += 1.0 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        final SplittableRandom random = new SplittableRandom(seed);
+        final int[] trace = new int[requests];
+        int scanned = keys;
+        for (int i = 0; i < requests; i++) {
+            if (i % SCAN_EVERY < SCAN_LENGTH && i >= SCAN_EVERY) {
+                trace[i] = scanned++;
+                continue;
+            }
+            final int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            trace[i] = index >= 0 ? index : Math.min(-index - 1, keys - 1);
+        }
+        return trace;
+    }
+}
@@ -0,0 +1,69 @@
+package pl.michalpolom.benchmarks;
+
+import com.google.common.collect.Lists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.michalpolom.collections.ParallelCollections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suma po iloczynie kartezjańskim dwóch list (side x side par): Lists.cartesianProduct vs ParallelCollections,
+ * sekwencyjnie i przez parallelStream().<p>
+ * Uruchom z -p side=10000, żeby odtworzyć iloczyn 10k x 10k.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartesianProductBenchmark {
+
+    @Param({"1000", "3000"})
+    int side;
+
+    private List<List<Integer>> guava;
+    private List<List<Integer>> parallel;
+
+    @Setup
+    public void setUp() {
+        final var axis = new ArrayList<Integer>(side);
+        for (int i = 0; i < side; i++) {
+            axis.add(i);
+        }
+        guava = Lists.cartesianProduct(axis, axis);
+        parallel = ParallelCollections.cartesianProduct(List.of(axis, axis));
+    }
+
+    @Benchmark
+    public long guavaSequential() {
+        return guava.stream().mapToLong(pair -> pair.get(0) ^ pair.get(1)).sum();
+    }
+
+    @Benchmark
+    public long guavaParallel() {
+        return guava.parallelStream().mapToLong(pair -> pair.get(0) ^ pair.get(1)).sum();
+    }
+
+    @Benchmark
+    public long parallelCollectionsSequential() {
+        return parallel.stream().mapToLong(pair -> pair.get(0) ^ pair.get(1)).sum();
+    }
+
+    @Benchmark
+    public long parallelCollectionsParallel() {
+        return parallel.parallelStream().mapToLong(pair -> pair.get(0) ^ pair.get(1)).sum();
+    }
+}
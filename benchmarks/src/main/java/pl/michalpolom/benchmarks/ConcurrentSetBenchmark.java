@@ -0,0 +1,111 @@
+package pl.michalpolom.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.michalpolom.collections.ConcurrentStripedHashSet;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Wielowątkowe porównanie ConcurrentStripedHashSet, CopyOnWriteArraySet i ConcurrentHashMap.newKeySet().<p>
+ * Każda grupa to inny stosunek odczytów do zapisów (wątki czytające : piszące) - 7:1, 4:4 i 1:7.
+ * Zapis to add losowego elementu i remove innego, więc rozmiar zbioru pozostaje w przybliżeniu stały.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentSetBenchmark {
+
+    public enum SetType {
+        STRIPED, COPY_ON_WRITE, CHM_KEY_SET
+    }
+
+    @Param({"1000", "50000"})
+    int size;
+
+    @Param
+    SetType type;
+
+    private Set<Integer> set;
+
+    @Setup
+    public void setUp() {
+        set = switch (type) {
+            case STRIPED -> new ConcurrentStripedHashSet<>();
+            case COPY_ON_WRITE -> new CopyOnWriteArraySet<>();
+            case CHM_KEY_SET -> ConcurrentHashMap.newKeySet();
+        };
+        set.addAll(IntStream.range(0, size).boxed().toList());
+    }
+
+    private boolean read() {
+        return set.contains(ThreadLocalRandom.current().nextInt(2 * size));
+    }
+
+    private boolean write() {
+        final var random = ThreadLocalRandom.current();
+        set.add(random.nextInt(2 * size));
+        return set.remove(random.nextInt(2 * size));
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(7)
+    public boolean readMostlyRead() {
+        return read();
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public boolean readMostlyWrite() {
+        return write();
+    }
+
+    @Benchmark
+    @Group("balanced")
+    @GroupThreads(4)
+    public boolean balancedRead() {
+        return read();
+    }
+
+    @Benchmark
+    @Group("balanced")
+    @GroupThreads(4)
+    public boolean balancedWrite() {
+        return write();
+    }
+
+    @Benchmark
+    @Group("writeMostly")
+    @GroupThreads(1)
+    public boolean writeMostlyRead() {
+        return read();
+    }
+
+    @Benchmark
+    @Group("writeMostly")
+    @GroupThreads(7)
+    public boolean writeMostlyWrite() {
+        return write();
+    }
+}
@@ -0,0 +1,105 @@
+package pl.michalpolom.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.michalpolom.collections.IndexedSet;
+import pl.michalpolom.collections.KeyUniverse;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Algebra zbiorów na uniwersum do 10 mln kluczy: IndexedSet.and/or/andNot vs java.util.BitSet.<p>
+ * Każda operacja kopiuje lewy argument, więc wynik obejmuje przepisanie całego bitsetu - porównaj z przepustowością pamięci.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexedSetBenchmark {
+
+    @Param({"100000", "1000000", "10000000"})
+    int universeSize;
+
+    private IndexedSet<Integer> left;
+    private IndexedSet<Integer> right;
+    private BitSet leftBits;
+    private BitSet rightBits;
+
+    @Setup
+    public void setUp() {
+        final var universe = new KeyUniverse<Integer>();
+        for (int i = 0; i < universeSize; i++) {
+            universe.intern(i);
+        }
+        left = IndexedSet.noneOf(universe);
+        right = IndexedSet.noneOf(universe);
+        leftBits = new BitSet(universeSize);
+        rightBits = new BitSet(universeSize);
+        final var random = new SplittableRandom(42);
+        for (int i = 0; i < universeSize; i++) {
+            if (random.nextBoolean()) {
+                left.add(i);
+                leftBits.set(i);
+            }
+            if (random.nextBoolean()) {
+                right.add(i);
+                rightBits.set(i);
+            }
+        }
+    }
+
+    @Benchmark
+    public int indexedAnd() {
+        final var result = left.copy();
+        result.and(right);
+        return result.size();
+    }
+
+    @Benchmark
+    public int indexedOr() {
+        final var result = left.copy();
+        result.or(right);
+        return result.size();
+    }
+
+    @Benchmark
+    public int indexedAndNot() {
+        final var result = left.copy();
+        result.andNot(right);
+        return result.size();
+    }
+
+    @Benchmark
+    public int bitSetAnd() {
+        final var result = (BitSet) leftBits.clone();
+        result.and(rightBits);
+        return result.cardinality();
+    }
+
+    @Benchmark
+    public int bitSetOr() {
+        final var result = (BitSet) leftBits.clone();
+        result.or(rightBits);
+        return result.cardinality();
+    }
+
+    @Benchmark
+    public int bitSetAndNot() {
+        final var result = (BitSet) leftBits.clone();
+        result.andNot(rightBits);
+        return result.cardinality();
+    }
+}
@@ -0,0 +1,100 @@
+package pl.michalpolom.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.michalpolom.collections.ConcurrentLinkedHashMap;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapy z kolejnością dodawania: Collections.synchronizedMap(LinkedHashMap) vs ConcurrentLinkedHashMap.<p>
+ * parallelSum - suma wartości przez entrySet().parallelStream() (synchronizedMap trzeba iterować pod blokadą),
+ * mixed - 3 wątki czytające i 1 piszący (put + remove losowych kluczy) jednocześnie.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkedMapBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    private Map<Integer, Integer> synchronizedMap;
+    private ConcurrentLinkedHashMap<Integer, Integer> concurrentMap;
+
+    @Setup
+    public void setUp() {
+        synchronizedMap = Collections.synchronizedMap(new LinkedHashMap<>());
+        concurrentMap = new ConcurrentLinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            synchronizedMap.put(i, i);
+            concurrentMap.put(i, i);
+        }
+    }
+
+    @Benchmark
+    public long synchronizedParallelSum() {
+        synchronized (synchronizedMap) {
+            return synchronizedMap.entrySet().parallelStream().mapToLong(Map.Entry::getValue).sum();
+        }
+    }
+
+    @Benchmark
+    public long concurrentParallelSum() {
+        return concurrentMap.entrySet().parallelStream().mapToLong(Map.Entry::getValue).sum();
+    }
+
+    @Benchmark
+    @Group("synchronizedMixed")
+    @GroupThreads(3)
+    public Integer synchronizedRead() {
+        return synchronizedMap.get(randomKey());
+    }
+
+    @Benchmark
+    @Group("synchronizedMixed")
+    @GroupThreads(1)
+    public Integer synchronizedWrite() {
+        final int key = randomKey();
+        synchronizedMap.remove(key);
+        return synchronizedMap.put(key, key);
+    }
+
+    @Benchmark
+    @Group("concurrentMixed")
+    @GroupThreads(3)
+    public Integer concurrentRead() {
+        return concurrentMap.get(randomKey());
+    }
+
+    @Benchmark
+    @Group("concurrentMixed")
+    @GroupThreads(1)
+    public Integer concurrentWrite() {
+        final int key = randomKey();
+        concurrentMap.remove(key);
+        return concurrentMap.put(key, key);
+    }
+
+    private int randomKey() {
+        return ThreadLocalRandom.current().nextInt(size);
+    }
+}
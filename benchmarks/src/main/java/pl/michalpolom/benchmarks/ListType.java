@@ -0,0 +1,61 @@
+package pl.michalpolom.benchmarks;
+
+import com.google.common.collect.Lists;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Vector;
+import java.util.stream.IntStream;
+
+/**
+ * Implementacje List porównywane w benchmarkach - te same, które opisuje ListTest.
+ */
+public enum ListType {
+
+    ARRAY_LIST {
+        @Override
+        List<Integer> empty(int expectedSize) {
+            return new ArrayList<>();
+        }
+    },
+    LINKED_LIST {
+        @Override
+        List<Integer> empty(int expectedSize) {
+            return new LinkedList<>();
+        }
+    },
+    VECTOR {
+        @Override
+        List<Integer> empty(int expectedSize) {
+            return new Vector<>();
+        }
+    },
+    LIST_OF {
+        @Override
+        List<Integer> empty(int expectedSize) {
+            throw new UnsupportedOperationException("List.of() is immutable");
+        }
+
+        @Override
+        List<Integer> filled(int size) {
+            return List.of(IntStream.range(0, size).boxed().toArray(Integer[]::new));
+        }
+    },
+    GUAVA_EXPECTED_SIZE {
+        @Override
+        List<Integer> empty(int expectedSize) {
+            return Lists.newArrayListWithExpectedSize(expectedSize);
+        }
+    };
+
+    abstract List<Integer> empty(int expectedSize);
+
+    List<Integer> filled(int size) {
+        final var list = empty(size);
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,63 @@
+package pl.michalpolom.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zapis (add, wstawianie i usuwanie pod indeksem) dla modyfikowalnych implementacji z ListTest.<p>
+ * insertAtIndex i remove są parowane z tanią operacją na końcu listy, dzięki czemu rozmiar listy
+ * pozostaje stały, a wynik zdominowany jest przez mierzoną operację.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ListWriteBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"ARRAY_LIST", "LINKED_LIST", "VECTOR", "GUAVA_EXPECTED_SIZE"})
+    ListType type;
+
+    private List<Integer> list;
+
+    @Setup
+    public void setUp() {
+        list = type.filled(size);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Integer> add() {
+        return type.filled(size);
+    }
+
+    @Benchmark
+    public List<Integer> insertAtIndex() {
+        list.add(size / 2, -1);
+        list.remove(list.size() - 1);
+        return list;
+    }
+
+    @Benchmark
+    public List<Integer> remove() {
+        list.remove(size / 2);
+        list.add(-1);
+        return list;
+    }
+}
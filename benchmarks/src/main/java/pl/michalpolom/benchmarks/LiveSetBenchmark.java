@@ -0,0 +1,87 @@
+package pl.michalpolom.benchmarks;
+
+import com.google.common.collect.Sets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.michalpolom.collections.LiveSetExpression;
+import pl.michalpolom.collections.ObservableSet;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sprawdzanie uprawnień: (role ∪ grupy ∪ nadane) \ odebrane - zagnieżdżone widoki Guavy vs LiveSetExpression.<p>
+ * Odczyty (size, contains) powtarzane w pętli oraz pojedyncza zmiana źródła, która w LiveSetExpression kosztuje aktualizację wyniku.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LiveSetBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    int size;
+
+    private ObservableSet<Integer> granted;
+    private Set<Integer> guava;
+    private LiveSetExpression<Integer> live;
+
+    @Setup
+    public void setUp() {
+        final var roles = new ObservableSet<Integer>();
+        final var groups = new ObservableSet<Integer>();
+        granted = new ObservableSet<>();
+        final var revoked = new ObservableSet<Integer>();
+        for (int i = 0; i < size; i++) {
+            roles.add(i);
+            groups.add(i + size / 2);
+            granted.add(i * 3);
+            if (i % 10 == 0) {
+                revoked.add(i);
+            }
+        }
+        guava = Sets.difference(Sets.union(Sets.union(roles, groups), granted), revoked);
+        live = LiveSetExpression.of(roles)
+                .union(LiveSetExpression.of(groups))
+                .union(LiveSetExpression.of(granted))
+                .difference(LiveSetExpression.of(revoked));
+    }
+
+    @Benchmark
+    public int guavaSize() {
+        return guava.size();
+    }
+
+    @Benchmark
+    public int liveSize() {
+        return live.size();
+    }
+
+    @Benchmark
+    public boolean guavaContains() {
+        return guava.contains(ThreadLocalRandom.current().nextInt(size * 3));
+    }
+
+    @Benchmark
+    public boolean liveContains() {
+        return live.contains(ThreadLocalRandom.current().nextInt(size * 3));
+    }
+
+    @Benchmark
+    public boolean liveUpdate() {
+        final int element = size * 3 + ThreadLocalRandom.current().nextInt(size);
+        return granted.add(element) || granted.remove(element);
+    }
+}
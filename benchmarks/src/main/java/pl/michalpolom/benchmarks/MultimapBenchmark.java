@@ -0,0 +1,76 @@
+package pl.michalpolom.benchmarks;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimaps;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.michalpolom.collections.ConcurrentListMultimap;
+import pl.michalpolom.collections.LongValuesMultimap;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Budowa indeksu odwróconego z 16 wątków: Multimaps.synchronizedListMultimap vs ConcurrentListMultimap vs LongValuesMultimap.<p>
+ * Każda operacja dopisuje jedno wystąpienie do losowego z 10 000 terminów. Mapy są tworzone od nowa przed każdą iteracją.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class MultimapBenchmark {
+
+    private static final int TERMS = 10_000;
+
+    private String[] terms;
+    private ListMultimap<String, Long> synchronizedMultimap;
+    private ConcurrentListMultimap<String, Long> concurrentMultimap;
+    private LongValuesMultimap<String> longValuesMultimap;
+
+    @Setup(Level.Trial)
+    public void setUpTerms() {
+        terms = new String[TERMS];
+        for (int i = 0; i < TERMS; i++) {
+            terms[i] = "term" + i;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        synchronizedMultimap = Multimaps.synchronizedListMultimap(ArrayListMultimap.create());
+        concurrentMultimap = new ConcurrentListMultimap<>(TERMS);
+        longValuesMultimap = new LongValuesMultimap<>(TERMS);
+    }
+
+    @Benchmark
+    public boolean synchronizedMultimap() {
+        final var random = ThreadLocalRandom.current();
+        return synchronizedMultimap.put(terms[random.nextInt(TERMS)], random.nextLong());
+    }
+
+    @Benchmark
+    public boolean concurrentListMultimap() {
+        final var random = ThreadLocalRandom.current();
+        return concurrentMultimap.put(terms[random.nextInt(TERMS)], random.nextLong());
+    }
+
+    @Benchmark
+    public void longValuesMultimap() {
+        final var random = ThreadLocalRandom.current();
+        longValuesMultimap.put(terms[random.nextInt(TERMS)], random.nextLong());
+    }
+}
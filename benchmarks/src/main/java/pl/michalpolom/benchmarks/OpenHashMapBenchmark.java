@@ -0,0 +1,114 @@
+package pl.michalpolom.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.michalpolom.collections.Int2IntOpenHashMap;
+import pl.michalpolom.collections.Object2IntOpenHashMap;
+
+import java.util.HashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HashMap&lt;String, Integer&gt; / HashMap&lt;Integer, Integer&gt; vs mapy z adresowaniem otwartym.<p>
+ * Zużycie pamięci na wpis widać z profilerem <code>-prof gc</code> dla benchmarków fill*,
+ * chybienia w cache dla get* z <code>-prof perfnorm</code> (Linux).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class OpenHashMapBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    int size;
+
+    private String[] names;
+    private HashMap<String, Integer> boxedByName;
+    private Object2IntOpenHashMap<String> openByName;
+    private HashMap<Integer, Integer> boxedById;
+    private Int2IntOpenHashMap openById;
+
+    @Setup
+    public void setUp() {
+        names = new String[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = "name-" + i;
+        }
+        boxedByName = fillBoxedByName();
+        openByName = fillOpenByName();
+        boxedById = fillBoxedById();
+        openById = fillOpenById();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public HashMap<String, Integer> fillBoxedByName() {
+        final var map = new HashMap<String, Integer>();
+        for (int i = 0; i < size; i++) {
+            map.put(names[i], i);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object2IntOpenHashMap<String> fillOpenByName() {
+        final var map = new Object2IntOpenHashMap<String>();
+        for (int i = 0; i < size; i++) {
+            map.put(names[i], i);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public HashMap<Integer, Integer> fillBoxedById() {
+        final var map = new HashMap<Integer, Integer>();
+        for (int i = 0; i < size; i++) {
+            map.put(i, i);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Int2IntOpenHashMap fillOpenById() {
+        final var map = new Int2IntOpenHashMap();
+        for (int i = 0; i < size; i++) {
+            map.put(i, i);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Integer getBoxedByName() {
+        return boxedByName.get(names[ThreadLocalRandom.current().nextInt(size)]);
+    }
+
+    @Benchmark
+    public int getOpenByName() {
+        return openByName.getInt(names[ThreadLocalRandom.current().nextInt(size)]);
+    }
+
+    @Benchmark
+    public Integer getBoxedById() {
+        return boxedById.get(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public int getOpenById() {
+        return openById.getOrDefault(ThreadLocalRandom.current().nextInt(size), -1);
+    }
+}
@@ -0,0 +1,78 @@
+package pl.michalpolom.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.michalpolom.collections.PersistentHashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aktualizacja niemodyfikowalnej migawki konfiguracji: kopia przez Map.copyOf / ImmutableMap vs PersistentHashMap.with.<p>
+ * Każda operacja zmienia jedną wartość i publikuje nową migawkę.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistentSnapshotBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    int size;
+
+    private String[] keys;
+    private Map<String, Integer> copied;
+    private ImmutableMap<String, Integer> guava;
+    private PersistentHashMap<String, Integer> persistent;
+
+    @Setup
+    public void setUp() {
+        keys = new String[size];
+        final var source = new HashMap<String, Integer>();
+        for (int i = 0; i < size; i++) {
+            keys[i] = "config.key." + i;
+            source.put(keys[i], i);
+        }
+        copied = Map.copyOf(source);
+        guava = ImmutableMap.copyOf(source);
+        persistent = PersistentHashMap.copyOf(source);
+    }
+
+    @Benchmark
+    public Map<String, Integer> mapCopyOf() {
+        final var next = new HashMap<>(copied);
+        next.put(keys[ThreadLocalRandom.current().nextInt(size)], ThreadLocalRandom.current().nextInt());
+        return copied = Map.copyOf(next);
+    }
+
+    @Benchmark
+    public ImmutableMap<String, Integer> immutableMap() {
+        final var next = new HashMap<>(guava);
+        next.put(keys[ThreadLocalRandom.current().nextInt(size)], ThreadLocalRandom.current().nextInt());
+        return guava = ImmutableMap.copyOf(next);
+    }
+
+    @Benchmark
+    public PersistentHashMap<String, Integer> persistentHashMap() {
+        return persistent = persistent.with(keys[ThreadLocalRandom.current().nextInt(size)], ThreadLocalRandom.current().nextInt());
+    }
+
+    @Benchmark
+    public Integer read() {
+        return persistent.get(keys[ThreadLocalRandom.current().nextInt(size)]);
+    }
+}
@@ -0,0 +1,78 @@
+package pl.michalpolom.benchmarks;
+
+import com.google.common.collect.Lists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.michalpolom.collections.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ArrayList&lt;Integer&gt; z Lists.newArrayListWithExpectedSize vs IntArrayList.<p>
+ * Oszczędności na stercie i w GC widać po uruchomieniu z profilerem: <code>-prof gc</code>
+ * (gc.alloc.rate.norm - bajty zaalokowane na operację).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PrimitiveListBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int size;
+
+    private ArrayList<Integer> boxed;
+    private IntArrayList primitive;
+
+    @Setup
+    public void setUp() {
+        boxed = fillBoxed();
+        primitive = fillPrimitive();
+    }
+
+    @Benchmark
+    public ArrayList<Integer> fillBoxed() {
+        final ArrayList<Integer> list = Lists.newArrayListWithExpectedSize(size);
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public IntArrayList fillPrimitive() {
+        final var list = IntArrayList.withExpectedSize(size);
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public long sumBoxed() {
+        long sum = 0;
+        for (Integer value : boxed) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sumPrimitive() {
+        final var sum = new long[1];
+        primitive.forEachInt(value -> sum[0] += value);
+        return sum[0];
+    }
+}
@@ -0,0 +1,122 @@
+package pl.michalpolom.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.michalpolom.collections.ConcurrentLongSkipListMap;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Skanowanie zakresu width kluczy (rosnąco i malejąco) przy współbieżnych zapisach: ConcurrentSkipListMap&lt;Long, V&gt;
+ * (subMap + iterator) vs ConcurrentLongSkipListMap (kursor wielokrotnego użytku).<p>
+ * Uruchom z -prof gc, żeby porównać alokację na operację - kursor nie alokuje nic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RangeScanBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"100"})
+    int width;
+
+    private ConcurrentSkipListMap<Long, String> boxed;
+    private ConcurrentLongSkipListMap<String> primitive;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        ConcurrentLongSkipListMap.RangeCursor<String> cursor;
+
+        @Setup
+        public void setUp(RangeScanBenchmark benchmark) {
+            cursor = benchmark.primitive.cursor();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        boxed = new ConcurrentSkipListMap<>();
+        primitive = new ConcurrentLongSkipListMap<>();
+        for (long key = 0; key < size; key++) {
+            boxed.put(key * 2, "value");
+            primitive.put(key * 2, "value");
+        }
+    }
+
+    @Benchmark
+    public long boxedScan() {
+        final long from = randomKey();
+        long sum = 0;
+        for (Long key : boxed.subMap(from, true, from + width, false).keySet()) {
+            sum += key;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long boxedDescendingScan() {
+        final long from = randomKey();
+        long sum = 0;
+        for (Long key : boxed.subMap(from, true, from + width, false).descendingKeySet()) {
+            sum += key;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long primitiveScan(Cursor state) {
+        final long from = randomKey();
+        final var cursor = state.cursor.subMap(from, true, from + width, false);
+        long sum = 0;
+        while (cursor.next()) {
+            sum += cursor.key();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long primitiveDescendingScan(Cursor state) {
+        final long from = randomKey();
+        final var cursor = state.cursor.subMap(from, true, from + width, false).descending();
+        long sum = 0;
+        while (cursor.next()) {
+            sum += cursor.key();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Object boxedWrite() {
+        final long key = randomKey() | 1;
+        return boxed.put(key, "value") == null ? boxed.remove(key) : null;
+    }
+
+    @Benchmark
+    public Object primitiveWrite() {
+        final long key = randomKey() | 1;
+        return primitive.put(key, "value") == null ? primitive.remove(key) : null;
+    }
+
+    private long randomKey() {
+        return ThreadLocalRandom.current().nextLong(size * 2L);
+    }
+}
@@ -0,0 +1,209 @@
+package pl.michalpolom.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.michalpolom.collections.ArrayBlockingDeque;
+import pl.michalpolom.collections.LockedList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * threads wątków wirtualnych (domyślnie milion) naraz korzysta z jednej kolekcji - czas całego przebiegu.<p>
+ * *Add - każdy wątek dodaje element do listy: Vector i Collections.synchronizedList (synchronized) vs LockedList.
+ * *Handoff - połowa wątków wstawia, połowa zabiera element przez bufor o pojemności capacity: Vector i synchronizedList
+ * pod synchronized vs ArrayBlockingDeque i LinkedBlockingDeque (ReentrantLock + Condition).<p>
+ * Wymaga Javy 21 (profil java21 włącza się sam na JDK 21). Czekanie na wejście do synchronized przypina wątek wirtualny
+ * do nośnika - uruchom z -jvmArgsAppend -Djdk.tracePinnedThreads=short, żeby zobaczyć miejsca przypięcia.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    @Param({"1000000"})
+    int threads;
+
+    @Param({"1024"})
+    int capacity;
+
+    @Benchmark
+    public int vectorAdd() throws InterruptedException {
+        final List<Integer> list = new Vector<>();
+        run(list::add);
+        return list.size();
+    }
+
+    @Benchmark
+    public int synchronizedListAdd() throws InterruptedException {
+        final List<Integer> list = Collections.synchronizedList(new ArrayList<>());
+        run(list::add);
+        return list.size();
+    }
+
+    @Benchmark
+    public int lockedListAdd() throws InterruptedException {
+        final List<Integer> list = new LockedList<>();
+        run(list::add);
+        return list.size();
+    }
+
+    @Benchmark
+    public int vectorHandoff() throws InterruptedException {
+        return handoff(new MonitorBuffer(new Vector<>(), capacity));
+    }
+
+    @Benchmark
+    public int synchronizedListHandoff() throws InterruptedException {
+        return handoff(new MonitorBuffer(Collections.synchronizedList(new ArrayList<>()), capacity));
+    }
+
+    @Benchmark
+    public int arrayBlockingDequeHandoff() throws InterruptedException {
+        return handoff(new DequeBuffer(new ArrayBlockingDeque<>(capacity)));
+    }
+
+    @Benchmark
+    public int linkedBlockingDequeHandoff() throws InterruptedException {
+        return handoff(new DequeBuffer(new LinkedBlockingDeque<>(capacity)));
+    }
+
+    private int handoff(Buffer buffer) throws InterruptedException {
+        run(i -> {
+            if ((i & 1) == 0) {
+                buffer.put(i);
+            } else {
+                buffer.take();
+            }
+        });
+        return buffer.size();
+    }
+
+    private void run(Task task) throws InterruptedException {
+        final ExecutorService executor = virtualThreads();
+        for (int i = 0; i < threads; i++) {
+            final int value = i;
+            executor.execute(() -> {
+                try {
+                    task.run(value);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("virtual threads did not finish");
+        }
+    }
+
+    private static ExecutorService virtualThreads() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("VirtualThreadBenchmark requires Java 21", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run(int value) throws InterruptedException;
+    }
+
+    private interface Buffer {
+
+        void put(Integer value) throws InterruptedException;
+
+        Integer take() throws InterruptedException;
+
+        int size();
+    }
+
+    /**
+     * Ograniczony bufor na monitorze listy. Nie czeka przez wait/notifyAll: Object.wait przypina wątek wirtualny, więc przy
+     * milionie wątków czekający producenci mogą zająć wszystkie nośniki i konsumenci nigdy nie ruszą. Zamiast tego ponawia
+     * próbę po Thread.yield() poza monitorem - przypięcie zostaje tylko przy rywalizacji o wejście do synchronized.
+     */
+    private static final class MonitorBuffer implements Buffer {
+
+        private final List<Integer> list;
+        private final int capacity;
+
+        MonitorBuffer(List<Integer> list, int capacity) {
+            this.list = list;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void put(Integer value) {
+            for (;;) {
+                synchronized (list) {
+                    if (list.size() < capacity) {
+                        list.add(value);
+                        return;
+                    }
+                }
+                Thread.yield();
+            }
+        }
+
+        @Override
+        public Integer take() {
+            for (;;) {
+                synchronized (list) {
+                    if (!list.isEmpty()) {
+                        return list.remove(list.size() - 1);
+                    }
+                }
+                Thread.yield();
+            }
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+    }
+
+    private static final class DequeBuffer implements Buffer {
+
+        private final BlockingDeque<Integer> deque;
+
+        DequeBuffer(BlockingDeque<Integer> deque) {
+            this.deque = deque;
+        }
+
+        @Override
+        public void put(Integer value) throws InterruptedException {
+            deque.putLast(value);
+        }
+
+        @Override
+        public Integer take() throws InterruptedException {
+            return deque.takeFirst();
+        }
+
+        @Override
+        public int size() {
+            return deque.size();
+        }
+    }
+}
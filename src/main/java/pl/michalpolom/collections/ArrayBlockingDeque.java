@@ -0,0 +1,568 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <h1>ArrayBlockingDeque</h1>
+ * Ograniczona kolejka dwustronna blokująca na buforze cyklicznym (ArrayDeque) - tablicowy odpowiednik LinkedBlockingDeque,
+ * bez węzła na każdy element.<p>
+ * Zamiast synchronized i wait/notify używa ReentrantLock z dwoma warunkami (notEmpty, notFull). Czekający wątek jest
+ * parkowany przez LockSupport, więc wątek wirtualny (Java 21) zwalnia wtedy swój wątek nośny - synchronized i Object.wait
+ * przypinają go (pinning) i blokują nośnik na czas oczekiwania.<p>
+ * Iterator działa na kopii zawartości z chwili jego utworzenia. Nie pozwala na null.
+ */
+public final class ArrayBlockingDeque<E> extends AbstractQueue<E> implements BlockingDeque<E> {
+
+    private final ArrayDeque<E> items;
+    private final int capacity;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+
+    public ArrayBlockingDeque(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * fair = true obsługuje czekających w kolejności przybycia (kosztem przepustowości).
+     */
+    public ArrayBlockingDeque(int capacity, boolean fair) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.items = new ArrayDeque<>(Math.min(capacity, 1 << 16));
+        this.lock = new ReentrantLock(fair);
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public boolean offerFirst(E e) {
+        Objects.requireNonNull(e);
+        lock.lock();
+        try {
+            return items.size() < capacity && linkFirst(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offerLast(E e) {
+        Objects.requireNonNull(e);
+        lock.lock();
+        try {
+            return items.size() < capacity && linkLast(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void addFirst(E e) {
+        if (!offerFirst(e)) {
+            throw new IllegalStateException("Deque full");
+        }
+    }
+
+    @Override
+    public void addLast(E e) {
+        if (!offerLast(e)) {
+            throw new IllegalStateException("Deque full");
+        }
+    }
+
+    @Override
+    public void putFirst(E e) throws InterruptedException {
+        Objects.requireNonNull(e);
+        lock.lockInterruptibly();
+        try {
+            while (items.size() == capacity) {
+                notFull.await();
+            }
+            linkFirst(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void putLast(E e) throws InterruptedException {
+        Objects.requireNonNull(e);
+        lock.lockInterruptibly();
+        try {
+            while (items.size() == capacity) {
+                notFull.await();
+            }
+            linkLast(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offerFirst(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(e);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (items.size() == capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            return linkFirst(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offerLast(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(e);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (items.size() == capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            return linkLast(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E pollFirst() {
+        lock.lock();
+        try {
+            return unlinkFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E pollLast() {
+        lock.lock();
+        try {
+            return unlinkLast();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E removeFirst() {
+        final E e = pollFirst();
+        if (e == null) {
+            throw new NoSuchElementException();
+        }
+        return e;
+    }
+
+    @Override
+    public E removeLast() {
+        final E e = pollLast();
+        if (e == null) {
+            throw new NoSuchElementException();
+        }
+        return e;
+    }
+
+    @Override
+    public E takeFirst() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            E e;
+            while ((e = unlinkFirst()) == null) {
+                notEmpty.await();
+            }
+            return e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E takeLast() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            E e;
+            while ((e = unlinkLast()) == null) {
+                notEmpty.await();
+            }
+            return e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E pollFirst(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            E e;
+            while ((e = unlinkFirst()) == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E pollLast(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            E e;
+            while ((e = unlinkLast()) == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E getFirst() {
+        final E e = peekFirst();
+        if (e == null) {
+            throw new NoSuchElementException();
+        }
+        return e;
+    }
+
+    @Override
+    public E getLast() {
+        final E e = peekLast();
+        if (e == null) {
+            throw new NoSuchElementException();
+        }
+        return e;
+    }
+
+    @Override
+    public E peekFirst() {
+        lock.lock();
+        try {
+            return items.peekFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E peekLast() {
+        lock.lock();
+        try {
+            return items.peekLast();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+        if (o == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            return items.removeFirstOccurrence(o) && signalNotFull();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+        if (o == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            return items.removeLastOccurrence(o) && signalNotFull();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean add(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        return offerLast(e);
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        putLast(e);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        return offerLast(e, timeout, unit);
+    }
+
+    @Override
+    public E remove() {
+        return removeFirst();
+    }
+
+    @Override
+    public E poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return takeFirst();
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return pollFirst(timeout, unit);
+    }
+
+    @Override
+    public E element() {
+        return getFirst();
+    }
+
+    @Override
+    public E peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public void push(E e) {
+        addFirst(e);
+    }
+
+    @Override
+    public E pop() {
+        return removeFirst();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return removeFirstOccurrence(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            return items.contains(o);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return items.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - items.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            items.clear();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        lock.lock();
+        try {
+            int drained = 0;
+            while (drained < maxElements && !items.isEmpty()) {
+                c.add(items.pollFirst());
+                drained++;
+            }
+            if (drained > 0) {
+                notFull.signalAll();
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        lock.lock();
+        try {
+            return items.toArray();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        lock.lock();
+        try {
+            return items.toArray(a);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return items.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Iteruje po kopii - remove() usuwa pierwsze wystąpienie zwróconego elementu z kolejki.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new SnapshotIterator(toArray(), false);
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return new SnapshotIterator(toArray(), true);
+    }
+
+    private boolean linkFirst(E e) {
+        items.addFirst(e);
+        notEmpty.signal();
+        return true;
+    }
+
+    private boolean linkLast(E e) {
+        items.addLast(e);
+        notEmpty.signal();
+        return true;
+    }
+
+    private E unlinkFirst() {
+        final E e = items.pollFirst();
+        if (e != null) {
+            notFull.signal();
+        }
+        return e;
+    }
+
+    private E unlinkLast() {
+        final E e = items.pollLast();
+        if (e != null) {
+            notFull.signal();
+        }
+        return e;
+    }
+
+    private boolean signalNotFull() {
+        notFull.signal();
+        return true;
+    }
+
+    private final class SnapshotIterator implements Iterator<E> {
+
+        private final Object[] snapshot;
+        private final boolean descending;
+        private int cursor;
+        private Object last;
+
+        SnapshotIterator(Object[] snapshot, boolean descending) {
+            this.snapshot = snapshot;
+            this.descending = descending;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < snapshot.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= snapshot.length) {
+                throw new NoSuchElementException();
+            }
+            last = snapshot[descending ? snapshot.length - 1 - cursor++ : cursor++];
+            return (E) last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            removeFirstOccurrence(last);
+            last = null;
+        }
+    }
+}
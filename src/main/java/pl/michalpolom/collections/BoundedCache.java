@@ -0,0 +1,647 @@
+package pl.michalpolom.collections;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * <h1>BoundedCache</h1>
+ * Pamięć podręczna ograniczona liczbą wpisów lub sumaryczną wagą, z polityką W-TinyLFU zamiast czystego LRU
+ * (jak w LinkedHashMap z accessOrder i removeEldestEntry).<p>
+ * Nowe wpisy trafiają do małego okna LRU (1% pojemności). Wpis wypychany z okna musi wygrać z ofiarą z głównej części
+ * (segmentowane LRU: probation i protected) w porównaniu częstości liczonych przez szkic count-min - dzięki temu jednorazowe
+ * skanowanie wielu kluczy nie wypiera często używanych wpisów.<p>
+ * Odczyty są bez blokad: dostęp trafia do jednego z pasków bufora odczytów i jest stosowany do polityki dopiero przy opróżnianiu
+ * bufora (pod blokadą). Bufor jest stratny - przy dużej rywalizacji część dostępów jest pomijana, co nie wpływa na poprawność,
+ * a jedynie na dokładność polityki. Zapisy są szeregowane jedną blokadą.<p>
+ * Wpisy mogą wygasać po czasie od zapisu i/lub od ostatniego dostępu. Wygasły wpis nie jest zwracany, a usuwany jest przy odczycie,
+ * przy obsłudze kolejnych zapisów albo przez {@link #cleanUp()}. Przy expireAfterWrite wpisy są dodatkowo połączone w kolejkę
+ * według czasu zapisu, więc obsługa zapisów usuwa wszystkie wpisy wygasłe od zapisu, a nie tylko te z czół kolejek dostępu.
+ * Nie pozwala na null.
+ */
+public final class BoundedCache<K, V> {
+
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int MAX_STRIPES = 64;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final LongSupplier ticker;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final ReadBuffer[] readBuffers;
+    private final int stripeMask;
+
+    private final FrequencySketch sketch;
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedQueue = new AccessOrderDeque<>();
+    private final WriteOrderDeque<K, V> writeOrder = new WriteOrderDeque<>();
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long mainMaximum;
+    private final long protectedMaximum;
+    private long totalWeight;
+    private long windowWeight;
+    private long protectedWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder evictedWeight = new LongAdder();
+
+    private BoundedCache(Builder<K, V> builder) {
+        this.maximumWeight = builder.maximumWeight;
+        this.weigher = builder.weigher;
+        this.ticker = builder.ticker;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        this.windowMaximum = Math.min(maximumWeight, Math.max(1, maximumWeight / 100));
+        this.mainMaximum = maximumWeight - windowMaximum;
+        this.protectedMaximum = mainMaximum * 8 / 10;
+        this.sketch = new FrequencySketch(maximumWeight);
+
+        int stripes = 1;
+        while (stripes < Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES)) {
+            stripes <<= 1;
+        }
+        this.readBuffers = new ReadBuffer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            readBuffers[i] = new ReadBuffer();
+        }
+        this.stripeMask = stripes - 1;
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Wartość dla klucza albo null, jeśli jej nie ma lub wygasła. Liczy trafienie albo chybienie.
+     */
+    public V getIfPresent(Object key) {
+        final Node<K, V> node = data.get(Objects.requireNonNull(key));
+        final V value = node == null ? null : node.value;
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        final long now = expires() ? ticker.getAsLong() : 0L;
+        if (isExpired(node, now)) {
+            misses.increment();
+            expire(node);
+            return null;
+        }
+        if (expireAfterAccessNanos > 0) {
+            node.accessTime = now;
+        }
+        hits.increment();
+        recordRead(node);
+        return value;
+    }
+
+    /**
+     * Wartość dla klucza - przy chybieniu wyliczana przez loader i zapisywana. Czas ładowania trafia do statystyk.<p>
+     * Współbieżne chybienia tego samego klucza mogą wywołać loader kilka razy, zapisana zostaje ostatnia wartość.
+     * Loader zwracający null nie zmienia zawartości.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        final V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        final long start = System.nanoTime();
+        final V loaded;
+        try {
+            loaded = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            loadFailures.increment();
+            totalLoadTime.add(System.nanoTime() - start);
+            throw e;
+        }
+        totalLoadTime.add(System.nanoTime() - start);
+        if (loaded == null) {
+            loadFailures.increment();
+            return null;
+        }
+        loadSuccesses.increment();
+        put(key, loaded);
+        return loaded;
+    }
+
+    /**
+     * Zapisuje wartość i zwraca poprzednią (null, jeśli jej nie było lub wygasła). Może wymusić eksmisję innych wpisów.
+     */
+    public V put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        final int weight = weigher.applyAsInt(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("negative weight: " + weight);
+        }
+        final long now = expires() ? ticker.getAsLong() : 0L;
+        evictionLock.lock();
+        try {
+            final Node<K, V> existing = data.get(key);
+            V previous = null;
+            if (existing == null) {
+                final Node<K, V> node = new Node<>(key, value, weight, now);
+                data.put(key, node);
+                sketch.increment(key);
+                node.region = Region.WINDOW;
+                window.addLast(node);
+                if (expireAfterWriteNanos > 0) {
+                    writeOrder.addLast(node);
+                }
+                windowWeight += weight;
+                totalWeight += weight;
+            } else {
+                previous = isExpired(existing, now) ? null : existing.value;
+                existing.value = value;
+                existing.writeTime = now;
+                existing.accessTime = now;
+                if (expireAfterWriteNanos > 0) {
+                    writeOrder.moveToBack(existing);
+                }
+                final int delta = weight - existing.weight;
+                existing.weight = weight;
+                totalWeight += delta;
+                if (existing.region == Region.WINDOW) {
+                    windowWeight += delta;
+                } else if (existing.region == Region.PROTECTED) {
+                    protectedWeight += delta;
+                }
+                onAccess(existing);
+            }
+            maintenance(now);
+            return previous;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidate(Object key) {
+        evictionLock.lock();
+        try {
+            final Node<K, V> node = data.remove(Objects.requireNonNull(key));
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            for (Node<K, V> node : data.values()) {
+                unlink(node);
+            }
+            data.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Liczba wpisów - może obejmować wpisy wygasłe, jeszcze nieusunięte.
+     */
+    public long estimatedSize() {
+        return data.size();
+    }
+
+    /**
+     * Suma wag wpisów (przy maximumSize - liczba wpisów).
+     */
+    public long weightedSize() {
+        evictionLock.lock();
+        try {
+            return totalWeight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Stosuje zaległe odczyty do polityki i usuwa wszystkie wygasłe wpisy - O(n).
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            final long now = expires() ? ticker.getAsLong() : 0L;
+            maintenance(now);
+            if (expires()) {
+                for (Node<K, V> node : data.values()) {
+                    if (isExpired(node, now)) {
+                        evict(node);
+                    }
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), loadSuccesses.sum(), loadFailures.sum(),
+                totalLoadTime.sum(), evictions.sum(), evictedWeight.sum());
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedCache{size=" + data.size() + ", maximumWeight=" + maximumWeight + ", " + stats() + "}";
+    }
+
+    private boolean expires() {
+        return expireAfterWriteNanos > 0 || expireAfterAccessNanos > 0;
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return (expireAfterWriteNanos > 0 && now - node.writeTime >= expireAfterWriteNanos)
+                || (expireAfterAccessNanos > 0 && now - node.accessTime >= expireAfterAccessNanos);
+    }
+
+    private void recordRead(Node<K, V> node) {
+        final ReadBuffer buffer = readBuffers[spread(Thread.currentThread().hashCode()) & stripeMask];
+        if (!buffer.offer(node) && evictionLock.tryLock()) {
+            try {
+                maintenance(expires() ? ticker.getAsLong() : 0L);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void expire(Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            if (node.region != Region.DEAD) {
+                evict(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Opróżnia bufory odczytów, usuwa wygasłe wpisy i przywraca limit wagi. Wywoływane pod blokadą.<p>
+     * Kolejka zapisu jest uporządkowana według writeTime, więc jej czoło wyznacza wszystkie wpisy wygasłe od zapisu.
+     * Wygasanie od dostępu sprawdza czoła kolejek dostępu (kolejność przybliżona - bufor odczytów jest stratny).
+     */
+    @SuppressWarnings("unchecked")
+    private void maintenance(long now) {
+        for (ReadBuffer buffer : readBuffers) {
+            buffer.drain(node -> onAccess((Node<K, V>) node));
+        }
+        if (expireAfterWriteNanos > 0) {
+            Node<K, V> head = writeOrder.first;
+            while (head != null && now - head.writeTime >= expireAfterWriteNanos) {
+                evict(head);
+                head = writeOrder.first;
+            }
+        }
+        if (expireAfterAccessNanos > 0) {
+            expireHeads(window, now);
+            expireHeads(probation, now);
+            expireHeads(protectedQueue, now);
+        }
+        evictFromWindow();
+        while (totalWeight > maximumWeight) {
+            evict(victim());
+        }
+    }
+
+    private void expireHeads(AccessOrderDeque<K, V> deque, long now) {
+        Node<K, V> head = deque.first;
+        while (head != null && isExpired(head, now)) {
+            evict(head);
+            head = deque.first;
+        }
+    }
+
+    /**
+     * Przenosi nadmiar okna do części głównej. Gdy ta jest pełna, kandydat z okna wchodzi tylko wtedy,
+     * gdy jest częściej używany niż ofiara z czoła probation - inaczej to on jest eksmitowany.
+     */
+    private void evictFromWindow() {
+        while (windowWeight > windowMaximum) {
+            final Node<K, V> candidate = window.first;
+            window.unlink(candidate);
+            windowWeight -= candidate.weight;
+            candidate.region = Region.PROBATION;
+            probation.addLast(candidate);
+            if (candidate.weight > mainMaximum) {
+                evict(candidate);
+                continue;
+            }
+            while (totalWeight - windowWeight > mainMaximum) {
+                final Node<K, V> victim = victim();
+                if (victim == candidate || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                    evict(candidate);
+                    break;
+                }
+                evict(victim);
+            }
+        }
+    }
+
+    private Node<K, V> victim() {
+        if (probation.first != null) {
+            return probation.first;
+        }
+        return protectedQueue.first != null ? protectedQueue.first : window.first;
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (node.region == Region.DEAD) {
+            return;
+        }
+        sketch.increment(node.key);
+        switch (node.region) {
+            case WINDOW -> window.moveToBack(node);
+            case PROTECTED -> protectedQueue.moveToBack(node);
+            case PROBATION -> {
+                probation.unlink(node);
+                node.region = Region.PROTECTED;
+                protectedQueue.addLast(node);
+                protectedWeight += node.weight;
+                while (protectedWeight > protectedMaximum && protectedQueue.first != node) {
+                    final Node<K, V> demoted = protectedQueue.first;
+                    protectedQueue.unlink(demoted);
+                    protectedWeight -= demoted.weight;
+                    demoted.region = Region.PROBATION;
+                    probation.addLast(demoted);
+                }
+            }
+            default -> throw new IllegalStateException("unexpected region: " + node.region);
+        }
+    }
+
+    private void evict(Node<K, V> node) {
+        if (data.remove(node.key, node)) {
+            evictions.increment();
+            evictedWeight.add(node.weight);
+        }
+        unlink(node);
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.region) {
+            case WINDOW -> {
+                window.unlink(node);
+                windowWeight -= node.weight;
+            }
+            case PROBATION -> probation.unlink(node);
+            case PROTECTED -> {
+                protectedQueue.unlink(node);
+                protectedWeight -= node.weight;
+            }
+            case DEAD -> {
+                return;
+            }
+        }
+        if (expireAfterWriteNanos > 0) {
+            writeOrder.unlink(node);
+        }
+        totalWeight -= node.weight;
+        node.region = Region.DEAD;
+        node.value = null;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+
+    private enum Region {
+        WINDOW, PROBATION, PROTECTED, DEAD
+    }
+
+    /**
+     * Wpis mapy, a jednocześnie węzeł listy dostępu. Pola listy, region i waga są chronione blokadą.
+     * Wartość null oznacza wpis usunięty.
+     */
+    private static final class Node<K, V> {
+
+        final K key;
+        volatile V value;
+        volatile long writeTime;
+        volatile long accessTime;
+        int weight;
+        Region region;
+        Node<K, V> prev;
+        Node<K, V> next;
+        Node<K, V> writePrev;
+        Node<K, V> writeNext;
+
+        Node(K key, V value, int weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    /**
+     * Lista dwukierunkowa wpływająca na pola węzłów - czoło to najdawniej używany wpis.
+     */
+    private static final class AccessOrderDeque<K, V> {
+
+        Node<K, V> first;
+        Node<K, V> last;
+
+        void addLast(Node<K, V> node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void unlink(Node<K, V> node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != last) {
+                unlink(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * Lista dwukierunkowa po polach writePrev/writeNext - czoło to wpis najdawniej zapisany.
+     */
+    private static final class WriteOrderDeque<K, V> {
+
+        Node<K, V> first;
+        Node<K, V> last;
+
+        void addLast(Node<K, V> node) {
+            node.writePrev = last;
+            node.writeNext = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.writeNext = node;
+            }
+            last = node;
+        }
+
+        void unlink(Node<K, V> node) {
+            if (node.writePrev == null) {
+                first = node.writeNext;
+            } else {
+                node.writePrev.writeNext = node.writeNext;
+            }
+            if (node.writeNext == null) {
+                last = node.writePrev;
+            } else {
+                node.writeNext.writePrev = node.writePrev;
+            }
+            node.writePrev = null;
+            node.writeNext = null;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != last) {
+                unlink(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * Stratny bufor pierścieniowy dostępów jednego paska. Wielu producentów rezerwuje sloty przez CAS,
+     * opróżnia go tylko właściciel blokady. Pełny bufor albo przegrany CAS oznacza pominięcie dostępu.
+     */
+    private static final class ReadBuffer {
+
+        private final AtomicReferenceArray<Object> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+
+        /**
+         * @return false, gdy bufor jest pełny i trzeba go opróżnić
+         */
+        boolean offer(Object node) {
+            final long head = readCounter;
+            final long tail = writeCounter.get();
+            if (tail - head >= READ_BUFFER_SIZE) {
+                return false;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                slots.lazySet((int) tail & READ_BUFFER_MASK, node);
+            }
+            return true;
+        }
+
+        void drain(Consumer<Object> consumer) {
+            long head = readCounter;
+            final long tail = writeCounter.get();
+            for (; head < tail; head++) {
+                final int index = (int) head & READ_BUFFER_MASK;
+                final Object node = slots.get(index);
+                if (node == null) {
+                    break;
+                }
+                slots.lazySet(index, null);
+                consumer.accept(node);
+            }
+            readCounter = head;
+        }
+    }
+
+    /**
+     * Konfiguracja cache - wymagany jest limit maximumSize albo maximumWeight.
+     */
+    public static final class Builder<K, V> {
+
+        private long maximumWeight = -1;
+        private ToIntBiFunction<? super K, ? super V> weigher = (key, value) -> 1;
+        private long expireAfterWriteNanos;
+        private long expireAfterAccessNanos;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        public Builder<K, V> maximumSize(long maximumSize) {
+            return maximumWeight(maximumSize, (key, value) -> 1);
+        }
+
+        /**
+         * Limit sumy wag - waga wpisu jest liczona raz, przy zapisie.
+         */
+        public Builder<K, V> maximumWeight(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher) {
+            if (maximumWeight < 0) {
+                throw new IllegalArgumentException("negative maximum: " + maximumWeight);
+            }
+            this.maximumWeight = maximumWeight;
+            this.weigher = Objects.requireNonNull(weigher);
+            return this;
+        }
+
+        public Builder<K, V> expireAfterWrite(Duration duration) {
+            this.expireAfterWriteNanos = positiveNanos(duration);
+            return this;
+        }
+
+        public Builder<K, V> expireAfterAccess(Duration duration) {
+            this.expireAfterAccessNanos = positiveNanos(duration);
+            return this;
+        }
+
+        /**
+         * Źródło czasu w nanosekundach dla wygasania (domyślnie System::nanoTime) - w testach można podać sztuczny zegar.
+         */
+        public Builder<K, V> ticker(LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker);
+            return this;
+        }
+
+        public BoundedCache<K, V> build() {
+            if (maximumWeight < 0) {
+                throw new IllegalStateException("maximumSize or maximumWeight is required");
+            }
+            return new BoundedCache<>(this);
+        }
+
+        private static long positiveNanos(Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("duration must be positive: " + duration);
+            }
+            return duration.toNanos();
+        }
+    }
+}
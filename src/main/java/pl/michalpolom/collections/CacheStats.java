@@ -0,0 +1,40 @@
+package pl.michalpolom.collections;
+
+/**
+ * <h1>CacheStats</h1>
+ * Niezmienna migawka statystyk BoundedCache: trafienia, chybienia, ładowania (z łącznym czasem w nanosekundach) i eksmisje.<p>
+ * Eksmisje obejmują wpisy usunięte z powodu rozmiaru lub wagi oraz wpisy, którym upłynął czas życia.
+ */
+public record CacheStats(long hitCount,
+                         long missCount,
+                         long loadSuccessCount,
+                         long loadFailureCount,
+                         long totalLoadTime,
+                         long evictionCount,
+                         long evictionWeight) {
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * Udział trafień w odczytach - 1.0, gdy nie było żadnego odczytu.
+     */
+    public double hitRate() {
+        final long requests = requestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    public double missRate() {
+        final long requests = requestCount();
+        return requests == 0 ? 0.0 : (double) missCount / requests;
+    }
+
+    /**
+     * Średni czas ładowania w nanosekundach.
+     */
+    public double averageLoadPenalty() {
+        final long loads = loadSuccessCount + loadFailureCount;
+        return loads == 0 ? 0.0 : (double) totalLoadTime / loads;
+    }
+}
@@ -0,0 +1,366 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * <h1>ChunkedDeque</h1>
+ * Deque z dostępem indeksowanym - zastępstwo dla LinkedList używanej jako Deque i dla ArrayDeque, której brakuje get(int).<p>
+ * Elementy leżą w tablicach (kawałkach) po 64 elementy, a kawałki w pierścieniowym katalogu - jak std::deque z C++.
+ * Dodawanie i usuwanie na obu końcach to O(1) bez kopiowania całej tablicy, get(int) to O(1), a iteracja przechodzi po ciągłej pamięci.<p>
+ * Wstawianie i usuwanie w środku przesuwa elementy w stronę bliższego końca - O(min(i, n - i)).<p>
+ * Implementuje List i Deque (a w Javie 21 również SequencedCollection). Nie pozwala na null. Nie jest bezpieczna dla wielowątkowości.
+ */
+public final class ChunkedDeque<E> extends AbstractList<E> implements ListDeque<E>, RandomAccess {
+
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int INITIAL_CHUNKS = 4;
+
+    /**
+     * Pierścień kawałków - kawałek j leży pod indeksem (firstChunk + j) &amp; (chunks.length - 1).
+     */
+    private Object[][] chunks = new Object[INITIAL_CHUNKS][];
+    private int firstChunk;
+    private int chunkCount;
+    /**
+     * Pozycja pierwszego elementu w pierwszym kawałku.
+     */
+    private int head;
+    private int size;
+    /**
+     * Ostatnio zwolniony kawałek - kolejka FIFO zwalnia kawałki na początku i zajmuje na końcu bez nowych alokacji.
+     */
+    private Object[] spare;
+
+    public ChunkedDeque() {
+    }
+
+    public ChunkedDeque(Collection<? extends E> elements) {
+        addAll(elements);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return (E) slot(head + index)[(head + index) & CHUNK_MASK];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        Objects.checkIndex(index, size);
+        Objects.requireNonNull(element);
+        final Object[] chunk = slot(head + index);
+        final int offset = (head + index) & CHUNK_MASK;
+        final E previous = (E) chunk[offset];
+        chunk[offset] = element;
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public void addLast(E e) {
+        Objects.requireNonNull(e);
+        if (size == 0) {
+            startEmpty();
+        } else if (((head + size) >>> CHUNK_SHIFT) == chunkCount) {
+            appendChunk();
+        }
+        final int position = head + size;
+        slot(position)[position & CHUNK_MASK] = e;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public void addFirst(E e) {
+        Objects.requireNonNull(e);
+        if (size == 0) {
+            startEmpty();
+        } else if (head == 0) {
+            prependChunk();
+            head = CHUNK_SIZE;
+        }
+        head--;
+        slot(head)[head] = e;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E removeFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        final Object[] chunk = slot(head);
+        final E element = (E) chunk[head];
+        chunk[head] = null;
+        head++;
+        size--;
+        modCount++;
+        if (size == 0) {
+            releaseAll();
+        } else if (head == CHUNK_SIZE) {
+            releaseFirstChunk();
+            head = 0;
+        }
+        return element;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        final int position = head + size - 1;
+        final Object[] chunk = slot(position);
+        final E element = (E) chunk[position & CHUNK_MASK];
+        chunk[position & CHUNK_MASK] = null;
+        size--;
+        modCount++;
+        if (size == 0) {
+            releaseAll();
+        } else if ((position & CHUNK_MASK) == 0) {
+            releaseLastChunk();
+        }
+        return element;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E getFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return (E) slot(head)[head];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        final int position = head + size - 1;
+        return (E) slot(position)[position & CHUNK_MASK];
+    }
+
+    /**
+     * Wstawia element na pozycji index, przesuwając krótszą część kolekcji.
+     */
+    @Override
+    public void add(int index, E element) {
+        Objects.checkIndex(index, size + 1);
+        Objects.requireNonNull(element);
+        if (index < size - index) {
+            addFirst(element);
+            for (int i = 0; i < index; i++) {
+                store(i, load(i + 1));
+            }
+        } else {
+            addLast(element);
+            for (int i = size - 1; i > index; i--) {
+                store(i, load(i - 1));
+            }
+        }
+        store(index, element);
+    }
+
+    /**
+     * Usuwa element z pozycji index, przesuwając krótszą część kolekcji.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        Objects.checkIndex(index, size);
+        final E removed = (E) load(index);
+        if (index < size - 1 - index) {
+            for (int i = index; i > 0; i--) {
+                store(i, load(i - 1));
+            }
+            removeFirst();
+        } else {
+            for (int i = index; i < size - 1; i++) {
+                store(i, load(i + 1));
+            }
+            removeLast();
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[(firstChunk + i) & (chunks.length - 1)] = null;
+        }
+        chunkCount = 0;
+        head = 0;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public ListDeque<E> reversed() {
+        return new ReversedView<>(this);
+    }
+
+    private Object load(int index) {
+        return slot(head + index)[(head + index) & CHUNK_MASK];
+    }
+
+    private void store(int index, Object element) {
+        slot(head + index)[(head + index) & CHUNK_MASK] = element;
+    }
+
+    private Object[] slot(int position) {
+        return chunks[(firstChunk + (position >>> CHUNK_SHIFT)) & (chunks.length - 1)];
+    }
+
+    private void startEmpty() {
+        if (chunkCount == 0) {
+            appendChunk();
+        }
+        head = CHUNK_SIZE / 2;
+    }
+
+    private void appendChunk() {
+        ensureDirectory();
+        chunks[(firstChunk + chunkCount) & (chunks.length - 1)] = newChunk();
+        chunkCount++;
+    }
+
+    private void prependChunk() {
+        ensureDirectory();
+        firstChunk = (firstChunk - 1) & (chunks.length - 1);
+        chunks[firstChunk] = newChunk();
+        chunkCount++;
+    }
+
+    private void releaseFirstChunk() {
+        spare = chunks[firstChunk];
+        chunks[firstChunk] = null;
+        firstChunk = (firstChunk + 1) & (chunks.length - 1);
+        chunkCount--;
+    }
+
+    private void releaseLastChunk() {
+        final int last = (firstChunk + chunkCount - 1) & (chunks.length - 1);
+        spare = chunks[last];
+        chunks[last] = null;
+        chunkCount--;
+    }
+
+    /**
+     * Pusta kolekcja zatrzymuje jeden kawałek, żeby naprzemienne dodawanie i usuwanie nie alokowało pamięci.
+     */
+    private void releaseAll() {
+        while (chunkCount > 1) {
+            releaseLastChunk();
+        }
+        head = CHUNK_SIZE / 2;
+    }
+
+    private Object[] newChunk() {
+        final Object[] chunk = spare != null ? spare : new Object[CHUNK_SIZE];
+        spare = null;
+        return chunk;
+    }
+
+    private void ensureDirectory() {
+        if (chunkCount < chunks.length) {
+            return;
+        }
+        final Object[][] grown = new Object[chunks.length << 1][];
+        for (int i = 0; i < chunkCount; i++) {
+            grown[i] = chunks[(firstChunk + i) & (chunks.length - 1)];
+        }
+        chunks = grown;
+        firstChunk = 0;
+    }
+
+    /**
+     * Widok w odwrotnej kolejności - indeks i odpowiada elementowi size - 1 - i oryginału.
+     */
+    private static final class ReversedView<E> extends AbstractList<E> implements ListDeque<E>, RandomAccess {
+
+        private final ChunkedDeque<E> deque;
+
+        ReversedView(ChunkedDeque<E> deque) {
+            this.deque = deque;
+        }
+
+        @Override
+        public E get(int index) {
+            return deque.get(reversedIndex(index));
+        }
+
+        @Override
+        public E set(int index, E element) {
+            return deque.set(reversedIndex(index), element);
+        }
+
+        @Override
+        public void add(int index, E element) {
+            Objects.checkIndex(index, size() + 1);
+            deque.add(deque.size() - index, element);
+        }
+
+        @Override
+        public E remove(int index) {
+            return deque.remove(reversedIndex(index));
+        }
+
+        @Override
+        public int size() {
+            return deque.size();
+        }
+
+        @Override
+        public void addFirst(E e) {
+            deque.addLast(e);
+        }
+
+        @Override
+        public void addLast(E e) {
+            deque.addFirst(e);
+        }
+
+        @Override
+        public E removeFirst() {
+            return deque.removeLast();
+        }
+
+        @Override
+        public E removeLast() {
+            return deque.removeFirst();
+        }
+
+        @Override
+        public ListDeque<E> reversed() {
+            return deque;
+        }
+
+        private int reversedIndex(int index) {
+            Objects.checkIndex(index, deque.size());
+            return deque.size() - 1 - index;
+        }
+    }
+}
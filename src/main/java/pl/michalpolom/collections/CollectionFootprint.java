@@ -0,0 +1,202 @@
+package pl.michalpolom.collections;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <h1>CollectionFootprint</h1>
+ * Szacowany rozmiar sterty zajmowanej przez kolekcję - suma rozmiarów wszystkich obiektów osiągalnych z kolekcji
+ * (jak GraphLayout z JOL), liczona na podstawie układu pól, bez agenta Instrumentation.<p>
+ * totalBytes obejmuje elementy (klucze i wartości mapy), a structureBytes tylko samą strukturę - różnica między
+ * implementacjami, np. ArrayList i LinkedList, to przede wszystkim structureBytes / elements.<p>
+ * Rozmiar obiektu to nagłówek plus pola z całej hierarchii klas, wyrównany do ObjectAlignmentInBytes - z uwzględnieniem
+ * skompresowanych wskaźników, ale bez upychania pól w lukach nadklas, więc wynik może być nieco zawyżony.
+ * Pamięć poza stertą (OffHeapHashMap) nie jest liczona. Pola klas JDK są czytelne tylko z --add-opens java.base/java.util
+ * i java.base/java.lang - bez tego nieosiągalne części grafu są pomijane, a wynik zaniżony.
+ */
+public record CollectionFootprint(long totalBytes, long structureBytes, long objects, int elements) {
+
+    private static final Layout LAYOUT = Layout.detect();
+    private static final ClassValue<ClassInfo> CLASS_INFO = new ClassValue<>() {
+        @Override
+        protected ClassInfo computeValue(Class<?> type) {
+            return ClassInfo.of(type);
+        }
+    };
+
+    public static CollectionFootprint of(Collection<?> collection) {
+        return measure(collection, collection, collection.size());
+    }
+
+    public static CollectionFootprint of(Map<?, ?> map) {
+        final List<Object> contents = new ArrayList<>(map.size() * 2);
+        map.forEach((key, value) -> {
+            contents.add(key);
+            contents.add(value);
+        });
+        return measure(map, contents, map.size());
+    }
+
+    /**
+     * Rozmiar w bajtach wszystkich obiektów osiągalnych z root.
+     */
+    public static long retainedSize(Object root) {
+        return walk(root, Collections.emptySet())[0];
+    }
+
+    public double bytesPerElement() {
+        return elements == 0 ? 0.0 : (double) totalBytes / elements;
+    }
+
+    /**
+     * Narzut struktury na jeden element - bez rozmiaru samych elementów.
+     */
+    public double overheadPerElement() {
+        return elements == 0 ? 0.0 : (double) structureBytes / elements;
+    }
+
+    private static CollectionFootprint measure(Object root, Collection<?> contents, int elements) {
+        final Set<Object> excluded = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Object element : contents) {
+            if (element != null) {
+                excluded.add(element);
+            }
+        }
+        excluded.remove(root);
+        final long[] total = walk(root, Collections.emptySet());
+        final long[] structure = walk(root, excluded);
+        return new CollectionFootprint(total[0], structure[0], total[1], elements);
+    }
+
+    /**
+     * Przechodzi graf obiektów wszerz, każdy obiekt liczony raz - zwraca {bajty, liczba obiektów}.
+     */
+    private static long[] walk(Object root, Set<Object> excluded) {
+        final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        final ArrayDeque<Object> pending = new ArrayDeque<>();
+        long bytes = 0;
+        long objects = 0;
+        if (root != null) {
+            pending.add(root);
+            visited.add(root);
+        }
+        while (!pending.isEmpty()) {
+            final Object current = pending.poll();
+            final Class<?> type = current.getClass();
+            objects++;
+            if (type.isArray()) {
+                final int length = Array.getLength(current);
+                final Class<?> component = type.getComponentType();
+                bytes += LAYOUT.align(LAYOUT.arrayHeader + (long) length * LAYOUT.sizeOf(component));
+                if (!component.isPrimitive()) {
+                    for (Object element : (Object[]) current) {
+                        follow(element, visited, excluded, pending);
+                    }
+                }
+                continue;
+            }
+            final ClassInfo info = CLASS_INFO.get(type);
+            bytes += info.shallowSize;
+            for (Field field : info.references) {
+                try {
+                    follow(field.get(current), visited, excluded, pending);
+                } catch (IllegalAccessException e) {
+                    // pole niedostępne - ClassInfo pomija takie pola, więc tu nie powinno się zdarzyć
+                }
+            }
+        }
+        return new long[]{bytes, objects};
+    }
+
+    private static void follow(Object next, Set<Object> visited, Set<Object> excluded, ArrayDeque<Object> pending) {
+        if (next == null || next instanceof Class || next instanceof ClassLoader || next instanceof Thread
+                || excluded.contains(next) || !visited.add(next)) {
+            return;
+        }
+        pending.add(next);
+    }
+
+    /**
+     * Rozmiar instancji klasy i jej pola referencyjne, które da się odczytać.
+     */
+    private record ClassInfo(long shallowSize, List<Field> references) {
+
+        static ClassInfo of(Class<?> type) {
+            long size = LAYOUT.objectHeader;
+            final List<Field> references = new ArrayList<>();
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    size += LAYOUT.sizeOf(field.getType());
+                    if (!field.getType().isPrimitive() && accessible(field)) {
+                        references.add(field);
+                    }
+                }
+            }
+            return new ClassInfo(LAYOUT.align(size), List.copyOf(references));
+        }
+
+        private static boolean accessible(Field field) {
+            try {
+                field.setAccessible(true);
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Parametry JVM wpływające na rozmiary obiektów - odczytywane z HotSpotDiagnosticMXBean, a domyślnie
+     * 64-bitowa JVM ze skompresowanymi wskaźnikami.
+     */
+    private record Layout(int objectHeader, int arrayHeader, int referenceSize, int alignment) {
+
+        static Layout detect() {
+            boolean compressedOops = true;
+            boolean compressedClassPointers = true;
+            int alignment = 8;
+            try {
+                final HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+                compressedOops = Boolean.parseBoolean(hotSpot.getVMOption("UseCompressedOops").getValue());
+                compressedClassPointers = Boolean.parseBoolean(hotSpot.getVMOption("UseCompressedClassPointers").getValue());
+                alignment = Integer.parseInt(hotSpot.getVMOption("ObjectAlignmentInBytes").getValue());
+            } catch (RuntimeException | LinkageError e) {
+                // inna JVM niż HotSpot - zostają wartości domyślne
+            }
+            final int header = compressedClassPointers ? 12 : 16;
+            return new Layout(header, header + 4, compressedOops ? 4 : 8, alignment);
+        }
+
+        long align(long size) {
+            return (size + alignment - 1) / alignment * alignment;
+        }
+
+        int sizeOf(Class<?> type) {
+            if (!type.isPrimitive()) {
+                return referenceSize;
+            }
+            if (type == long.class || type == double.class) {
+                return 8;
+            }
+            if (type == int.class || type == float.class) {
+                return 4;
+            }
+            return type == short.class || type == char.class ? 2 : 1;
+        }
+    }
+}
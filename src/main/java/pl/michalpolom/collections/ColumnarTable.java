@@ -0,0 +1,697 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>ColumnarTable</h1>
+ * Gęsta tabela dwuwymiarowa (jak Guava ArrayTable) przechowywana kolumnami - zamiast mapy map HashBasedTable.<p>
+ * Klucze wierszy i kolumn dostają kolejne numery z {@link KeyUniverse}, a każda kolumna to jedna tablica indeksowana numerem wiersza.
+ * Komórka to jeden element tablicy i jeden bit obecności zamiast dwóch wpisów w tablicach mieszających.<p>
+ * column(c) i row(r) to widoki bez kopiowania. Odmiany {@link OfInt}, {@link OfLong} i {@link OfDouble} trzymają prymitywy
+ * i mają operacje zbiorcze (sumColumn, mapColumn) - proste pętle po tablicy, które JIT wektoryzuje. sumColumns liczy kolumny równolegle.<p>
+ * Kolejność wierszy i kolumn to kolejność ich dodania. Nie pozwala na null. Nie jest bezpieczna dla wielowątkowości.
+ */
+public abstract class ColumnarTable<R, C, V> {
+
+    private static final int INITIAL_ROWS = 16;
+    private static final int INITIAL_COLUMNS = 4;
+
+    final KeyUniverse<R> rowKeys = new KeyUniverse<>();
+    final KeyUniverse<C> columnKeys = new KeyUniverse<>();
+    int rowCapacity = INITIAL_ROWS;
+    private long[][] present = new long[0][];
+    private int columnCount;
+    private int size;
+
+    private ColumnarTable() {
+    }
+
+    public static <R, C, V> OfObject<R, C, V> create() {
+        return new OfObject<>();
+    }
+
+    public static <R, C> OfInt<R, C> ofInts() {
+        return new OfInt<>();
+    }
+
+    public static <R, C> OfLong<R, C> ofLongs() {
+        return new OfLong<>();
+    }
+
+    public static <R, C> OfDouble<R, C> ofDoubles() {
+        return new OfDouble<>();
+    }
+
+    public V put(R rowKey, C columnKey, V value) {
+        Objects.requireNonNull(value);
+        final int row = rowIndex(rowKey);
+        final int column = columnIndex(columnKey);
+        final V previous = isPresent(column, row) ? boxed(column, row) : null;
+        store(column, row, value);
+        markPresent(column, row);
+        return previous;
+    }
+
+    public V get(Object rowKey, Object columnKey) {
+        final int row = rowKeys.ordinal(rowKey);
+        final int column = columnKeys.ordinal(columnKey);
+        return row >= 0 && column >= 0 && isPresent(column, row) ? boxed(column, row) : null;
+    }
+
+    public boolean contains(Object rowKey, Object columnKey) {
+        final int row = rowKeys.ordinal(rowKey);
+        final int column = columnKeys.ordinal(columnKey);
+        return row >= 0 && column >= 0 && isPresent(column, row);
+    }
+
+    public V remove(Object rowKey, Object columnKey) {
+        final int row = rowKeys.ordinal(rowKey);
+        final int column = columnKeys.ordinal(columnKey);
+        if (row < 0 || column < 0 || !isPresent(column, row)) {
+            return null;
+        }
+        final V previous = boxed(column, row);
+        clearCell(column, row);
+        present[column][row >>> 6] &= ~(1L << row);
+        size--;
+        return previous;
+    }
+
+    /**
+     * Liczba wypełnionych komórek.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Widok wiersza: klucz kolumny -&gt; wartość (tylko do odczytu, odzwierciedla późniejsze zmiany).
+     */
+    public Map<C, V> row(R rowKey) {
+        final int row = rowKeys.ordinal(rowKey);
+        return new CellsView<>(columnKeys, column -> row >= 0 && isPresent(column, row), column -> boxed(column, row));
+    }
+
+    /**
+     * Widok kolumny: klucz wiersza -&gt; wartość (tylko do odczytu, odzwierciedla późniejsze zmiany).
+     */
+    public Map<R, V> column(C columnKey) {
+        final int column = columnKeys.ordinal(columnKey);
+        return new CellsView<>(rowKeys, row -> column >= 0 && isPresent(column, row), row -> boxed(column, row));
+    }
+
+    public Set<R> rowKeySet() {
+        return keySet(rowKeys, row -> !row(rowKeys.key(row)).isEmpty());
+    }
+
+    public Set<C> columnKeySet() {
+        return keySet(columnKeys, column -> !column(columnKeys.key(column)).isEmpty());
+    }
+
+    /**
+     * Format jak w HashBasedTable: {R1={C1=1, C2=2}, R2={C1=3}}.
+     */
+    @Override
+    public String toString() {
+        final var builder = new StringBuilder("{");
+        for (R rowKey : rowKeySet()) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(rowKey).append('=').append(row(rowKey));
+        }
+        return builder.append('}').toString();
+    }
+
+    abstract V boxed(int column, int row);
+
+    abstract void store(int column, int row, V value);
+
+    abstract void clearCell(int column, int row);
+
+    /**
+     * Powiększa tablicę kolumn do count miejsc - rośnie geometrycznie jak wiersze, więc dodanie C kolumn kosztuje O(C).
+     */
+    abstract void growColumns(int count);
+
+    abstract void addColumnStorage(int column, int capacity);
+
+    abstract void resizeRows(int capacity);
+
+    final boolean isPresent(int column, int row) {
+        return column < columnCount && (present[column][row >>> 6] & (1L << row)) != 0;
+    }
+
+    final void markPresent(int column, int row) {
+        final long before = present[column][row >>> 6];
+        present[column][row >>> 6] = before | (1L << row);
+        if (before != present[column][row >>> 6]) {
+            size++;
+        }
+    }
+
+    final int rowIndex(R rowKey) {
+        final int row = rowKeys.intern(rowKey);
+        if (row >= rowCapacity) {
+            final int capacity = Math.max(row + 1, rowCapacity << 1);
+            resizeRows(capacity);
+            for (int column = 0; column < columnCount; column++) {
+                present[column] = Arrays.copyOf(present[column], (capacity + 63) >>> 6);
+            }
+            rowCapacity = capacity;
+        }
+        return row;
+    }
+
+    final int columnIndex(C columnKey) {
+        final int column = columnKeys.intern(columnKey);
+        while (column >= columnCount) {
+            if (columnCount == present.length) {
+                final int columns = Math.max(INITIAL_COLUMNS, present.length << 1);
+                present = Arrays.copyOf(present, columns);
+                growColumns(columns);
+            }
+            present[columnCount] = new long[(rowCapacity + 63) >>> 6];
+            addColumnStorage(columnCount, rowCapacity);
+            columnCount++;
+        }
+        return column;
+    }
+
+    /**
+     * Numer istniejącej kolumny - operacje zbiorcze nie tworzą nowych kolumn.
+     */
+    final int existingColumn(Object columnKey) {
+        final int column = columnKeys.ordinal(columnKey);
+        if (column < 0 || column >= columnCount) {
+            throw new IllegalArgumentException("Unknown column: " + columnKey);
+        }
+        return column;
+    }
+
+    final int existingRow(Object rowKey) {
+        final int row = rowKeys.ordinal(rowKey);
+        if (row < 0) {
+            throw new IllegalArgumentException("Unknown row: " + rowKey);
+        }
+        return row;
+    }
+
+    final int columnCount() {
+        return columnCount;
+    }
+
+    final int rowCount() {
+        return rowKeys.size();
+    }
+
+    /**
+     * Agregat każdej kolumny liczony równolegle (kolumna to osobne zadanie) - wynik w kolejności kolumn.
+     */
+    final <T> Map<C, T> perColumn(IntFunction<T> aggregate) {
+        final Object[] results = new Object[columnCount()];
+        IntStream.range(0, results.length).parallel().forEach(column -> results[column] = aggregate.apply(column));
+        final var map = new LinkedHashMap<C, T>();
+        for (int column = 0; column < results.length; column++) {
+            @SuppressWarnings("unchecked") final T result = (T) results[column];
+            map.put(columnKeys.key(column), result);
+        }
+        return map;
+    }
+
+    private static <K> Set<K> keySet(KeyUniverse<K> keys, IntPredicate nonEmpty) {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<K> iterator() {
+                return new OrdinalIterator<>(keys, nonEmpty, keys::key);
+            }
+
+            @Override
+            public int size() {
+                int count = 0;
+                for (int i = 0; i < keys.size(); i++) {
+                    if (nonEmpty.test(i)) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+        };
+    }
+
+    private static final class CellsView<K, V> extends AbstractMap<K, V> {
+
+        private final KeyUniverse<K> keys;
+        private final IntPredicate present;
+        private final IntFunction<V> value;
+
+        CellsView(KeyUniverse<K> keys, IntPredicate present, IntFunction<V> value) {
+            this.keys = keys;
+            this.present = present;
+            this.value = value;
+        }
+
+        @Override
+        public V get(Object key) {
+            final int index = keys.ordinal(key);
+            return index >= 0 && present.test(index) ? value.apply(index) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            final int index = keys.ordinal(key);
+            return index >= 0 && present.test(index);
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new OrdinalIterator<>(keys, present, index -> new SimpleImmutableEntry<>(keys.key(index), value.apply(index)));
+                }
+
+                @Override
+                public int size() {
+                    int count = 0;
+                    for (int i = 0; i < keys.size(); i++) {
+                        if (present.test(i)) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }
+            };
+        }
+    }
+
+    private static final class OrdinalIterator<K, T> implements Iterator<T> {
+
+        private final KeyUniverse<K> keys;
+        private final IntPredicate present;
+        private final IntFunction<T> mapper;
+        private int next;
+
+        OrdinalIterator(KeyUniverse<K> keys, IntPredicate present, IntFunction<T> mapper) {
+            this.keys = keys;
+            this.present = present;
+            this.mapper = mapper;
+            this.next = advance(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < keys.size();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final T result = mapper.apply(next);
+            next = advance(next + 1);
+            return result;
+        }
+
+        private int advance(int from) {
+            int index = from;
+            while (index < keys.size() && !present.test(index)) {
+                index++;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Tabela wartości obiektowych - kolumna to Object[].
+     */
+    public static final class OfObject<R, C, V> extends ColumnarTable<R, C, V> {
+
+        private Object[][] columns = new Object[0][];
+
+        private OfObject() {
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        V boxed(int column, int row) {
+            return (V) columns[column][row];
+        }
+
+        @Override
+        void store(int column, int row, V value) {
+            columns[column][row] = value;
+        }
+
+        @Override
+        void clearCell(int column, int row) {
+            columns[column][row] = null;
+        }
+
+        @Override
+        void growColumns(int count) {
+            columns = Arrays.copyOf(columns, count);
+        }
+
+        @Override
+        void addColumnStorage(int column, int capacity) {
+            columns[column] = new Object[capacity];
+        }
+
+        @Override
+        void resizeRows(int capacity) {
+            for (int i = 0; i < columnCount(); i++) {
+                columns[i] = Arrays.copyOf(columns[i], capacity);
+            }
+        }
+    }
+
+    /**
+     * Tabela wartości int - kolumna to int[], a puste komórki mają wartość 0, więc sumy nie sprawdzają obecności.
+     */
+    public static final class OfInt<R, C> extends ColumnarTable<R, C, Integer> {
+
+        private int[][] columns = new int[0][];
+
+        private OfInt() {
+        }
+
+        public void putInt(R rowKey, C columnKey, int value) {
+            final int row = rowIndex(rowKey);
+            final int column = columnIndex(columnKey);
+            columns[column][row] = value;
+            markPresent(column, row);
+        }
+
+        /**
+         * Wartość komórki lub 0, gdy komórka jest pusta.
+         */
+        public int getInt(Object rowKey, Object columnKey) {
+            final int row = rowKeys.ordinal(rowKey);
+            final int column = columnKeys.ordinal(columnKey);
+            return row >= 0 && column >= 0 && isPresent(column, row) ? columns[column][row] : 0;
+        }
+
+        public long sumColumn(Object columnKey) {
+            return sum(existingColumn(columnKey));
+        }
+
+        public long sumRow(Object rowKey) {
+            final int row = existingRow(rowKey);
+            long sum = 0;
+            for (int column = 0; column < columnCount(); column++) {
+                sum += columns[column][row];
+            }
+            return sum;
+        }
+
+        public Map<C, Long> sumColumns() {
+            return perColumn(this::sum);
+        }
+
+        /**
+         * Zastępuje w miejscu każdą wypełnioną komórkę kolumny wynikiem funkcji.
+         */
+        public void mapColumn(Object columnKey, IntUnaryOperator function) {
+            final int column = existingColumn(columnKey);
+            final int[] values = columns[column];
+            for (int row = 0; row < rowCount(); row++) {
+                if (isPresent(column, row)) {
+                    values[row] = function.applyAsInt(values[row]);
+                }
+            }
+        }
+
+        private long sum(int column) {
+            final int[] values = columns[column];
+            final int rows = rowCount();
+            long sum = 0;
+            for (int row = 0; row < rows; row++) {
+                sum += values[row];
+            }
+            return sum;
+        }
+
+        @Override
+        Integer boxed(int column, int row) {
+            return columns[column][row];
+        }
+
+        @Override
+        void store(int column, int row, Integer value) {
+            columns[column][row] = value;
+        }
+
+        @Override
+        void clearCell(int column, int row) {
+            columns[column][row] = 0;
+        }
+
+        @Override
+        void growColumns(int count) {
+            columns = Arrays.copyOf(columns, count);
+        }
+
+        @Override
+        void addColumnStorage(int column, int capacity) {
+            columns[column] = new int[capacity];
+        }
+
+        @Override
+        void resizeRows(int capacity) {
+            for (int i = 0; i < columnCount(); i++) {
+                columns[i] = Arrays.copyOf(columns[i], capacity);
+            }
+        }
+    }
+
+    /**
+     * Tabela wartości long - kolumna to long[], a puste komórki mają wartość 0.
+     */
+    public static final class OfLong<R, C> extends ColumnarTable<R, C, Long> {
+
+        private long[][] columns = new long[0][];
+
+        private OfLong() {
+        }
+
+        public void putLong(R rowKey, C columnKey, long value) {
+            final int row = rowIndex(rowKey);
+            final int column = columnIndex(columnKey);
+            columns[column][row] = value;
+            markPresent(column, row);
+        }
+
+        /**
+         * Wartość komórki lub 0, gdy komórka jest pusta.
+         */
+        public long getLong(Object rowKey, Object columnKey) {
+            final int row = rowKeys.ordinal(rowKey);
+            final int column = columnKeys.ordinal(columnKey);
+            return row >= 0 && column >= 0 && isPresent(column, row) ? columns[column][row] : 0L;
+        }
+
+        public long sumColumn(Object columnKey) {
+            return sum(existingColumn(columnKey));
+        }
+
+        public long sumRow(Object rowKey) {
+            final int row = existingRow(rowKey);
+            long sum = 0;
+            for (int column = 0; column < columnCount(); column++) {
+                sum += columns[column][row];
+            }
+            return sum;
+        }
+
+        public Map<C, Long> sumColumns() {
+            return perColumn(this::sum);
+        }
+
+        /**
+         * Zastępuje w miejscu każdą wypełnioną komórkę kolumny wynikiem funkcji.
+         */
+        public void mapColumn(Object columnKey, LongUnaryOperator function) {
+            final int column = existingColumn(columnKey);
+            final long[] values = columns[column];
+            for (int row = 0; row < rowCount(); row++) {
+                if (isPresent(column, row)) {
+                    values[row] = function.applyAsLong(values[row]);
+                }
+            }
+        }
+
+        private long sum(int column) {
+            final long[] values = columns[column];
+            final int rows = rowCount();
+            long sum = 0;
+            for (int row = 0; row < rows; row++) {
+                sum += values[row];
+            }
+            return sum;
+        }
+
+        @Override
+        Long boxed(int column, int row) {
+            return columns[column][row];
+        }
+
+        @Override
+        void store(int column, int row, Long value) {
+            columns[column][row] = value;
+        }
+
+        @Override
+        void clearCell(int column, int row) {
+            columns[column][row] = 0L;
+        }
+
+        @Override
+        void growColumns(int count) {
+            columns = Arrays.copyOf(columns, count);
+        }
+
+        @Override
+        void addColumnStorage(int column, int capacity) {
+            columns[column] = new long[capacity];
+        }
+
+        @Override
+        void resizeRows(int capacity) {
+            for (int i = 0; i < columnCount(); i++) {
+                columns[i] = Arrays.copyOf(columns[i], capacity);
+            }
+        }
+    }
+
+    /**
+     * Tabela wartości double - kolumna to double[], a puste komórki mają wartość 0.0.
+     */
+    public static final class OfDouble<R, C> extends ColumnarTable<R, C, Double> {
+
+        private double[][] columns = new double[0][];
+
+        private OfDouble() {
+        }
+
+        public void putDouble(R rowKey, C columnKey, double value) {
+            final int row = rowIndex(rowKey);
+            final int column = columnIndex(columnKey);
+            columns[column][row] = value;
+            markPresent(column, row);
+        }
+
+        /**
+         * Wartość komórki lub 0.0, gdy komórka jest pusta.
+         */
+        public double getDouble(Object rowKey, Object columnKey) {
+            final int row = rowKeys.ordinal(rowKey);
+            final int column = columnKeys.ordinal(columnKey);
+            return row >= 0 && column >= 0 && isPresent(column, row) ? columns[column][row] : 0.0;
+        }
+
+        public double sumColumn(Object columnKey) {
+            return sum(existingColumn(columnKey));
+        }
+
+        public double sumRow(Object rowKey) {
+            final int row = existingRow(rowKey);
+            double sum = 0;
+            for (int column = 0; column < columnCount(); column++) {
+                sum += columns[column][row];
+            }
+            return sum;
+        }
+
+        public Map<C, Double> sumColumns() {
+            return perColumn(this::sum);
+        }
+
+        /**
+         * Zastępuje w miejscu każdą wypełnioną komórkę kolumny wynikiem funkcji.
+         */
+        public void mapColumn(Object columnKey, DoubleUnaryOperator function) {
+            final int column = existingColumn(columnKey);
+            final double[] values = columns[column];
+            for (int row = 0; row < rowCount(); row++) {
+                if (isPresent(column, row)) {
+                    values[row] = function.applyAsDouble(values[row]);
+                }
+            }
+        }
+
+        /**
+         * Suma w czterech niezależnych akumulatorach - dodawanie double nie jest łączne, więc JIT sam nie rozdzieli pętli.
+         */
+        private double sum(int column) {
+            final double[] values = columns[column];
+            final int rows = rowCount();
+            double s0 = 0;
+            double s1 = 0;
+            double s2 = 0;
+            double s3 = 0;
+            int row = 0;
+            for (; row + 3 < rows; row += 4) {
+                s0 += values[row];
+                s1 += values[row + 1];
+                s2 += values[row + 2];
+                s3 += values[row + 3];
+            }
+            for (; row < rows; row++) {
+                s0 += values[row];
+            }
+            return (s0 + s1) + (s2 + s3);
+        }
+
+        @Override
+        Double boxed(int column, int row) {
+            return columns[column][row];
+        }
+
+        @Override
+        void store(int column, int row, Double value) {
+            columns[column][row] = value;
+        }
+
+        @Override
+        void clearCell(int column, int row) {
+            columns[column][row] = 0.0;
+        }
+
+        @Override
+        void growColumns(int count) {
+            columns = Arrays.copyOf(columns, count);
+        }
+
+        @Override
+        void addColumnStorage(int column, int capacity) {
+            columns[column] = new double[capacity];
+        }
+
+        @Override
+        void resizeRows(int capacity) {
+            for (int i = 0; i < columnCount(); i++) {
+                columns[i] = Arrays.copyOf(columns[i], capacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <h1>CompactStringMap</h1>
+ * Mapa o kluczach String przechowywanych jak w {@link CompactStringSet}: UTF-8 w jednej arenie bajtów, adresowanie otwarte
+ * po przesunięciach. Wartości leżą w tablicy równoległej do slotów, więc na wpis nie przypada żaden obiekt węzła.<p>
+ * Klucze są materializowane jako String dopiero przy iteracji (getKey()). Wpisy z iteratora zapisują przez setValue do mapy.
+ * Nie pozwala na null jako klucz, pozwala na null jako wartość. Nie jest bezpieczna dla wielowątkowości.
+ */
+public final class CompactStringMap<V> extends AbstractMap<String, V> {
+
+    private final Utf8Table table;
+    private EntrySet entrySet;
+
+    public CompactStringMap() {
+        this(16);
+    }
+
+    public CompactStringMap(int expectedSize) {
+        this.table = new Utf8Table(expectedSize, true);
+    }
+
+    @Override
+    public V get(Object key) {
+        final int slot = slotOf(key);
+        return slot < 0 ? null : valueAt(slot);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return slotOf(key) >= 0;
+    }
+
+    @Override
+    public V put(String key, V value) {
+        final int slot = table.insert(Utf8Table.encode(Objects.requireNonNull(key)));
+        if (slot < 0) {
+            table.setValueAt(-slot - 1, value);
+            return null;
+        }
+        final V previous = valueAt(slot);
+        table.setValueAt(slot, value);
+        return previous;
+    }
+
+    @Override
+    public V remove(Object key) {
+        final int slot = slotOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        final V previous = valueAt(slot);
+        table.removeAt(slot);
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return table.size();
+    }
+
+    @Override
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Bajty zajęte przez klucze w arenie (UTF-8 z prefiksem długości).
+     */
+    public int arenaBytes() {
+        return table.arenaBytes();
+    }
+
+    public void trimToSize() {
+        table.trimToSize();
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        final EntrySet set = entrySet;
+        return set != null ? set : (entrySet = new EntrySet());
+    }
+
+    private int slotOf(Object key) {
+        final byte[] bytes = Utf8Table.encode(key);
+        return bytes == null ? -1 : table.find(bytes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int slot) {
+        return (V) table.valueAt(slot);
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, V>> {
+
+        @Override
+        public int size() {
+            return table.size();
+        }
+
+        @Override
+        public void clear() {
+            table.clear();
+        }
+
+        @Override
+        public Iterator<Entry<String, V>> iterator() {
+            return new Iterator<>() {
+                private int expectedModCount = table.modCount;
+                private int next = table.nextSlot(0);
+                private int last = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public Entry<String, V> next() {
+                    if (expectedModCount != table.modCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    last = next;
+                    next = table.nextSlot(next + 1);
+                    return new SlotEntry(last);
+                }
+
+                @Override
+                public void remove() {
+                    if (last < 0) {
+                        throw new IllegalStateException();
+                    }
+                    if (expectedModCount != table.modCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    table.removeAt(last);
+                    expectedModCount = table.modCount;
+                    last = -1;
+                }
+            };
+        }
+    }
+
+    /**
+     * Wpis iteratora - czyta i zapisuje wartość w tablicy mapy. Zapamiętuje slot, ale po zmianie mapy (przebudowa
+     * przenosi klucze) szuka klucza ponownie.
+     */
+    private final class SlotEntry implements Entry<String, V> {
+
+        private final String key;
+        private int slot;
+        private int expectedModCount = table.modCount;
+
+        SlotEntry(int slot) {
+            this.key = table.keyAt(slot);
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return valueAt(currentSlot());
+        }
+
+        @Override
+        public V setValue(V value) {
+            final int current = currentSlot();
+            final V previous = valueAt(current);
+            table.setValueAt(current, value);
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry<?, ?> entry && key.equals(entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+
+        private int currentSlot() {
+            if (expectedModCount != table.modCount) {
+                slot = slotOf(key);
+                expectedModCount = table.modCount;
+            }
+            if (slot < 0) {
+                throw new IllegalStateException("entry was removed from the map: " + key);
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * <h1>CompactStringSet</h1>
+ * Zbiór napisów bez obiektów String w środku: klucze są zakodowane w UTF-8 jeden za drugim w jednej tablicy bajtów,
+ * a tablica mieszająca z adresowaniem otwartym trzyma tylko ich przesunięcia i hashe.<p>
+ * Krótki klucz kosztuje tu kilkanaście bajtów zamiast około 80 w HashSet&lt;String&gt; (nagłówek String, tablica byte[],
+ * węzeł HashMap). Obiekty String powstają dopiero przy iteracji. Wyszukiwanie koduje pytany napis do UTF-8 i porównuje bajty.<p>
+ * freeze() zwraca niemodyfikowalny, posortowany {@link FrontCodedStringSet} - jeszcze mniejszy i z zapytaniami o prefiks.
+ * Arena ma najwyżej 2 GB. Nie pozwala na null. Nie jest bezpieczny dla wielowątkowości.
+ */
+public final class CompactStringSet extends AbstractSet<String> {
+
+    private final Utf8Table table;
+
+    public CompactStringSet() {
+        this(16);
+    }
+
+    public CompactStringSet(int expectedSize) {
+        this.table = new Utf8Table(expectedSize, false);
+    }
+
+    public static CompactStringSet copyOf(Collection<? extends CharSequence> keys) {
+        final CompactStringSet set = new CompactStringSet(keys.size());
+        for (CharSequence key : keys) {
+            set.add(key.toString());
+        }
+        return set;
+    }
+
+    @Override
+    public boolean add(String key) {
+        return table.insert(Utf8Table.encode(Objects.requireNonNull(key))) < 0;
+    }
+
+    /**
+     * Przyjmuje każdy CharSequence - porównywana jest treść, a nie typ.
+     */
+    @Override
+    public boolean contains(Object key) {
+        final byte[] bytes = Utf8Table.encode(key);
+        return bytes != null && table.find(bytes) >= 0;
+    }
+
+    @Override
+    public boolean remove(Object key) {
+        final byte[] bytes = Utf8Table.encode(key);
+        final int slot = bytes == null ? -1 : table.find(bytes);
+        if (slot < 0) {
+            return false;
+        }
+        table.removeAt(slot);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return table.size();
+    }
+
+    @Override
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Bajty zajęte przez klucze w arenie (UTF-8 z prefiksem długości).
+     */
+    public int arenaBytes() {
+        return table.arenaBytes();
+    }
+
+    /**
+     * Dopasowuje tablicę i arenę do obecnego rozmiaru - po zakończeniu ładowania lub po wielu usunięciach.
+     */
+    public void trimToSize() {
+        table.trimToSize();
+    }
+
+    public FrontCodedStringSet freeze() {
+        return FrontCodedStringSet.copyOf(this);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private int expectedModCount = table.modCount;
+            private int next = table.nextSlot(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public String next() {
+                if (expectedModCount != table.modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = table.nextSlot(next + 1);
+                return table.keyAt(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (expectedModCount != table.modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                table.removeAt(last);
+                expectedModCount = table.modCount;
+                last = -1;
+            }
+        };
+    }
+}
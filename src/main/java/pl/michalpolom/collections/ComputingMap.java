@@ -0,0 +1,352 @@
+package pl.michalpolom.collections;
+
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * <h1>ComputingMap</h1>
+ * Mapa wyliczająca wartości funkcją, tak jak Maps.asMap(keys, function), ale zapamiętująca wynik - loader jest wołany
+ * raz na klucz, a nie przy każdym get.<p>
+ * Współbieżne chybienia tego samego klucza są łączone: pierwszy wątek wylicza wartość, pozostałe czekają na ten sam wynik.
+ * Wyjątek loadera trafia do wszystkich czekających, a klucz nie zostaje zapamiętany. Loader nie może odczytywać
+ * tego samego klucza z tej mapy.<p>
+ * Opcjonalnie wartość starsza niż refreshAfterWrite jest przeładowywana asynchronicznie (domyślnie na wątkach wirtualnych,
+ * jeśli JVM je ma) - do czasu zakończenia get zwraca poprzednią wartość. getAll łączy wszystkie chybienia w jedno wywołanie
+ * bulkLoadera.<p>
+ * Mapa nie ma limitu rozmiaru - do ograniczonej pamięci podręcznej służy BoundedCache. Nie pozwala na null.
+ */
+public final class ComputingMap<K, V> extends AbstractMap<K, V> {
+
+    private final ConcurrentHashMap<K, Loading<V>> data = new ConcurrentHashMap<>();
+    private final Function<? super K, ? extends V> loader;
+    private final Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> bulkLoader;
+    private final long refreshAfterWriteNanos;
+    private final Executor executor;
+    private final LongSupplier ticker;
+
+    private ComputingMap(Builder<K, V> builder) {
+        this.loader = builder.loader;
+        this.bulkLoader = builder.bulkLoader;
+        this.refreshAfterWriteNanos = builder.refreshAfterWriteNanos;
+        this.executor = builder.executor;
+        this.ticker = builder.ticker;
+    }
+
+    public static <K, V> ComputingMap<K, V> of(Function<? super K, ? extends V> loader) {
+        return ComputingMap.<K, V>builder(loader).build();
+    }
+
+    public static <K, V> Builder<K, V> builder(Function<? super K, ? extends V> loader) {
+        return new Builder<>(loader);
+    }
+
+    /**
+     * Zapamiętana wartość albo wynik loadera (null, jeśli loader zwrócił null). Przy przeterminowanej wartości
+     * zleca odświeżenie w tle i zwraca dotychczasową.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        final K typed = (K) Objects.requireNonNull(key);
+        Loading<V> loading = data.get(typed);
+        if (loading == null) {
+            final Loading<V> created = new Loading<>(new CompletableFuture<>(), now());
+            loading = data.putIfAbsent(typed, created);
+            if (loading == null) {
+                return load(typed, created);
+            }
+        }
+        final V value = join(loading.future);
+        if (value != null) {
+            refreshIfStale(typed, loading);
+        }
+        return value;
+    }
+
+    /**
+     * Wartości dla wszystkich kluczy, w kolejności kluczy - klucze bez wartości są pominięte. Chybienia, których nikt inny
+     * właśnie nie ładuje, są wyliczane jednym wywołaniem bulkLoadera (bez bulkLoadera - po kolei loaderem).
+     */
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        final Map<K, Loading<V>> pending = new LinkedHashMap<>();
+        final Map<K, Loading<V>> owned = new LinkedHashMap<>();
+        Throwable failure = null;
+        try {
+            for (K key : keys) {
+                Objects.requireNonNull(key);
+                if (pending.containsKey(key)) {
+                    continue;
+                }
+                Loading<V> loading = data.get(key);
+                if (loading == null) {
+                    final Loading<V> created = new Loading<>(new CompletableFuture<>(), now());
+                    loading = data.putIfAbsent(key, created);
+                    if (loading == null) {
+                        loading = created;
+                        owned.put(key, created);
+                    }
+                }
+                pending.put(key, loading);
+            }
+            if (!owned.isEmpty()) {
+                if (bulkLoader == null) {
+                    owned.forEach(this::loadQuietly);
+                } else {
+                    loadAll(owned);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            abandon(owned, failure);
+        }
+        final Map<K, V> result = new LinkedHashMap<>();
+        pending.forEach((key, loading) -> {
+            final V value = join(loading.future);
+            if (value != null) {
+                result.put(key, value);
+            }
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Zapisuje wartość z pominięciem loadera.
+     */
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        final Loading<V> previous = data.put(key, new Loading<>(CompletableFuture.completedFuture(value), now()));
+        return previous == null ? null : valueNow(previous);
+    }
+
+    /**
+     * Zapomina wartość - kolejny get wywoła loader. Trwające ładowanie tego klucza nie jest przerywane.
+     */
+    @Override
+    public V remove(Object key) {
+        final Loading<V> previous = data.remove(Objects.requireNonNull(key));
+        return previous == null ? null : valueNow(previous);
+    }
+
+    @Override
+    public void clear() {
+        data.clear();
+    }
+
+    /**
+     * Czy wartość jest już wyliczona - nie wywołuje loadera.
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        final Loading<V> loading = data.get(Objects.requireNonNull(key));
+        return loading != null && valueNow(loading) != null;
+    }
+
+    /**
+     * Widok tylko do odczytu na wyliczone wpisy - pomija ładowania w toku.
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return data.entrySet().stream()
+                        .filter(entry -> valueNow(entry.getValue()) != null)
+                        .map(entry -> (Map.Entry<K, V>) new SimpleImmutableEntry<>(entry.getKey(), valueNow(entry.getValue())))
+                        .iterator();
+            }
+
+            @Override
+            public int size() {
+                return (int) data.values().stream().filter(loading -> valueNow(loading) != null).count();
+            }
+        };
+    }
+
+    private V load(K key, Loading<V> loading) {
+        try {
+            final V value = loader.apply(key);
+            complete(key, loading, value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            data.remove(key, loading);
+            loading.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void loadQuietly(K key, Loading<V> loading) {
+        try {
+            load(key, loading);
+        } catch (RuntimeException e) {
+            // wyjątek trafia do czekających przez future
+        }
+    }
+
+    /**
+     * Wynik null z bulkLoadera to błąd ładowania - getAll kończy wtedy wszystkie swoje ładowania wyjątkiem.
+     */
+    private void loadAll(Map<K, Loading<V>> owned) {
+        final Map<? extends K, ? extends V> loaded = bulkLoader.apply(Collections.unmodifiableSet(new LinkedHashSet<>(owned.keySet())));
+        if (loaded == null) {
+            throw new NullPointerException("bulkLoader returned null for keys: " + owned.keySet());
+        }
+        owned.forEach((key, loading) -> complete(key, loading, loaded.get(key)));
+    }
+
+    /**
+     * Kończy wyjątkiem i usuwa z mapy ładowania z getAll, których nic nie zakończyło (wyjątek bulkLoadera, Error
+     * z loadera, klucz null w połowie listy) - inaczej każdy późniejszy get tych kluczy czekałby w nieskończoność.
+     */
+    private void abandon(Map<K, Loading<V>> owned, Throwable failure) {
+        owned.forEach((key, loading) -> {
+            if (!loading.future.isDone()) {
+                data.remove(key, loading);
+                loading.future.completeExceptionally(failure != null ? failure : new IllegalStateException("Key was not loaded: " + key));
+            }
+        });
+    }
+
+    private void complete(K key, Loading<V> loading, V value) {
+        if (value == null) {
+            data.remove(key, loading);
+        }
+        loading.future.complete(value);
+    }
+
+    private void refreshIfStale(K key, Loading<V> loading) {
+        if (refreshAfterWriteNanos <= 0 || now() - loading.writeTime < refreshAfterWriteNanos
+                || !loading.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture.supplyAsync(() -> loader.apply(key), executor).whenComplete((value, error) -> {
+            if (error != null || value == null) {
+                loading.refreshing.set(false);
+            } else {
+                data.replace(key, loading, new Loading<>(CompletableFuture.completedFuture(value), now()));
+            }
+        });
+    }
+
+    private long now() {
+        return refreshAfterWriteNanos > 0 ? ticker.getAsLong() : 0L;
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static <V> V valueNow(Loading<V> loading) {
+        return loading.future.isDone() && !loading.future.isCompletedExceptionally() ? loading.future.join() : null;
+    }
+
+    /**
+     * Wynik (lub trwające ładowanie) jednego klucza wraz z czasem zapisu.
+     */
+    private static final class Loading<V> {
+
+        final CompletableFuture<V> future;
+        final long writeTime;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Loading(CompletableFuture<V> future, long writeTime) {
+            this.future = future;
+            this.writeTime = writeTime;
+        }
+    }
+
+    /**
+     * Domyślny wykonawca odświeżeń - wątek wirtualny na zadanie (Java 21+), a na starszych JVM wspólna pula ForkJoinPool.
+     */
+    private static final class RefreshExecutor {
+
+        static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            try {
+                return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+                return ForkJoinPool.commonPool();
+            }
+        }
+    }
+
+    public static final class Builder<K, V> {
+
+        private final Function<? super K, ? extends V> loader;
+        private Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> bulkLoader;
+        private long refreshAfterWriteNanos;
+        private Executor executor;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder(Function<? super K, ? extends V> loader) {
+            this.loader = Objects.requireNonNull(loader);
+        }
+
+        /**
+         * Ładowanie wielu kluczy naraz dla getAll - brak klucza w wyniku oznacza brak wartości.
+         */
+        public Builder<K, V> bulkLoader(Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> bulkLoader) {
+            this.bulkLoader = Objects.requireNonNull(bulkLoader);
+            return this;
+        }
+
+        public Builder<K, V> refreshAfterWrite(Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("duration must be positive: " + duration);
+            }
+            this.refreshAfterWriteNanos = duration.toNanos();
+            return this;
+        }
+
+        /**
+         * Wykonawca odświeżeń w tle - np. Runnable::run w testach.
+         */
+        public Builder<K, V> executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor);
+            return this;
+        }
+
+        public Builder<K, V> ticker(LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker);
+            return this;
+        }
+
+        public ComputingMap<K, V> build() {
+            if (executor == null) {
+                executor = RefreshExecutor.INSTANCE;
+            }
+            return new ComputingMap<>(this);
+        }
+    }
+}
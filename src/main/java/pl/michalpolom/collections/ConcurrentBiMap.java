@@ -0,0 +1,287 @@
+package pl.michalpolom.collections;
+
+import com.google.common.collect.BiMap;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <h1>ConcurrentBiMap</h1>
+ * Bezpieczny wielowątkowo odpowiednik HashBiMap - dwa indeksy ConcurrentHashMap (klucz -&gt; wpis i wartość -&gt; wpis)
+ * wskazujące na wspólny obiekt wpisu.<p>
+ * Odczyty w obu kierunkach (get, inverse().get) są bez blokad. Zapisy (put, forcePut, remove) są szeregowane jedną blokadą,
+ * a ich efekt staje się widoczny w obu kierunkach naraz - jednym zapisem pola volatile we wspólnym wpisie.
+ * Czytelnik nigdy nie zobaczy wartości przypisanej do dwóch kluczy. Podczas forcePut wyparty klucz znika chwilę przed tym,
+ * jak wartość pojawi się pod nowym kluczem.<p>
+ * Tak jak HashBiMap: put rzuca IllegalArgumentException, jeśli wartość należy już do innego klucza. Nie pozwala na null.
+ */
+public final class ConcurrentBiMap<K, V> extends AbstractMap<K, V> implements BiMap<K, V> {
+
+    private final ConcurrentHashMap<Object, Entry> byKey;
+    private final ConcurrentHashMap<Object, Entry> byValue;
+    private final ReentrantLock writeLock;
+    private final boolean inverted;
+    private final ConcurrentBiMap<V, K> inverse;
+
+    public ConcurrentBiMap() {
+        this.byKey = new ConcurrentHashMap<>();
+        this.byValue = new ConcurrentHashMap<>();
+        this.writeLock = new ReentrantLock();
+        this.inverted = false;
+        this.inverse = new ConcurrentBiMap<>(this);
+    }
+
+    private ConcurrentBiMap(ConcurrentBiMap<V, K> inverse) {
+        this.byKey = inverse.byValue;
+        this.byValue = inverse.byKey;
+        this.writeLock = inverse.writeLock;
+        this.inverted = !inverse.inverted;
+        this.inverse = inverse;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        final Entry entry = live(byKey, key, !inverted);
+        return entry == null ? null : (V) valueOf(entry);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return live(byKey, key, !inverted) != null;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return live(byValue, value, inverted) != null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return put(key, value, false);
+    }
+
+    /**
+     * Jak put, ale jeśli wartość należy do innego klucza, tamto powiązanie jest najpierw usuwane.
+     */
+    @Override
+    public V forcePut(K key, V value) {
+        return put(key, value, true);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        map.forEach(this::put);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        Objects.requireNonNull(key);
+        writeLock.lock();
+        try {
+            final Entry entry = live(byKey, key, !inverted);
+            if (entry == null) {
+                return null;
+            }
+            final V previous = (V) valueOf(entry);
+            kill(entry);
+            return previous;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        writeLock.lock();
+        try {
+            for (Entry entry : byKey.values()) {
+                kill(entry);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Liczba powiązań - przy współbieżnych zmianach przybliżona (jak ConcurrentHashMap.size()).
+     */
+    @Override
+    public int size() {
+        return byKey.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return byKey.isEmpty();
+    }
+
+    @Override
+    public Set<V> values() {
+        return inverse.keySet();
+    }
+
+    /**
+     * Widok odwrotny współdzielący dane - inverse().get(value) jest bez blokad i kosztuje O(1).
+     */
+    @Override
+    public ConcurrentBiMap<V, K> inverse() {
+        return inverse;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                final Iterator<Entry> entries = byKey.values().iterator();
+                return new Iterator<>() {
+                    private Map.Entry<K, V> next = advance();
+                    private K last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next != null;
+                    }
+
+                    @Override
+                    public Map.Entry<K, V> next() {
+                        if (next == null) {
+                            throw new NoSuchElementException();
+                        }
+                        final Map.Entry<K, V> current = next;
+                        last = current.getKey();
+                        next = advance();
+                        return current;
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        ConcurrentBiMap.this.remove(last);
+                        last = null;
+                    }
+
+                    @SuppressWarnings("unchecked")
+                    private Map.Entry<K, V> advance() {
+                        while (entries.hasNext()) {
+                            final Entry entry = entries.next();
+                            final Object key = keyOf(entry);
+                            final Object value = valueOf(entry);
+                            if (key != null && value != null) {
+                                return new SimpleImmutableEntry<>((K) key, (V) value);
+                            }
+                        }
+                        return null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentBiMap.this.size();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private V put(K key, V value, boolean force) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        writeLock.lock();
+        try {
+            final Entry current = live(byKey, key, !inverted);
+            if (current != null && value.equals(valueOf(current))) {
+                return value;
+            }
+            final Entry owner = live(byValue, value, inverted);
+            if (owner != null) {
+                if (!force) {
+                    throw new IllegalArgumentException("value already present: " + value);
+                }
+                kill(owner);
+            }
+            if (current == null) {
+                final Entry entry = new Entry();
+                setKey(entry, key);
+                byValue.put(value, entry);
+                byKey.put(key, entry);
+                setValue(entry, value);
+                return null;
+            }
+            final V previous = (V) valueOf(current);
+            byValue.put(value, current);
+            setValue(current, value);
+            byValue.remove(previous, current);
+            return previous;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Wpis z indeksu, o ile nadal opisuje szukany obiekt - wpis, który zmienił wartość lub został usunięty, jest ignorowany.
+     */
+    private static Entry live(ConcurrentHashMap<Object, Entry> index, Object lookup, boolean lookupIsLeft) {
+        final Entry entry = index.get(Objects.requireNonNull(lookup));
+        if (entry == null) {
+            return null;
+        }
+        final Object indexed = lookupIsLeft ? entry.left : entry.right;
+        final Object other = lookupIsLeft ? entry.right : entry.left;
+        return lookup.equals(indexed) && other != null ? entry : null;
+    }
+
+    private void kill(Entry entry) {
+        final Object key = keyOf(entry);
+        final Object value = valueOf(entry);
+        entry.left = null;
+        entry.right = null;
+        byKey.remove(key, entry);
+        byValue.remove(value, entry);
+    }
+
+    private Object keyOf(Entry entry) {
+        return inverted ? entry.right : entry.left;
+    }
+
+    private Object valueOf(Entry entry) {
+        return inverted ? entry.left : entry.right;
+    }
+
+    private void setKey(Entry entry, Object key) {
+        if (inverted) {
+            entry.right = key;
+        } else {
+            entry.left = key;
+        }
+    }
+
+    private void setValue(Entry entry, Object value) {
+        if (inverted) {
+            entry.left = value;
+        } else {
+            entry.right = value;
+        }
+    }
+
+    /**
+     * Wspólny wpis obu indeksów: left to klucz, right to wartość (z perspektywy mapy, która nie jest odwrócona).
+     * Wpis jest aktywny, gdy obie strony są ustawione.
+     */
+    private static final class Entry {
+
+        volatile Object left;
+        volatile Object right;
+    }
+}
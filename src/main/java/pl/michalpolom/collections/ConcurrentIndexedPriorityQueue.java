@@ -0,0 +1,234 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractQueue;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>ConcurrentIndexedPriorityQueue</h1>
+ * Bezpieczna wielowątkowo kolejka priorytetowa ze zmianą priorytetu przez uchwyt - współbieżny odpowiednik IndexedPriorityQueue.<p>
+ * Elementy leżą w ConcurrentSkipListMap (operacje przez CAS, bez globalnej blokady) pod kluczem (element, numer sekwencyjny),
+ * więc równe priorytety obsługiwane są w kolejności FIFO.<p>
+ * updatePriority zamienia klucz uchwytu przez CAS, a poll zabiera element tylko wtedy, gdy zdjęty klucz jest nadal aktualnym
+ * kluczem uchwytu - równoległe poll i zmiana priorytetu nigdy nie zwrócą tego samego elementu dwa razy.<p>
+ * Porządek naturalny lub Comparator - tak jak w PriorityQueue. Nie pozwala na null. Iteratory są słabo spójne.
+ */
+public final class ConcurrentIndexedPriorityQueue<E> extends AbstractQueue<E> {
+
+    private final Comparator<? super E> comparator;
+    private final ConcurrentSkipListMap<Key<E>, Handle<E>> entries;
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder size = new LongAdder();
+
+    public ConcurrentIndexedPriorityQueue() {
+        this(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentIndexedPriorityQueue(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        final Comparator<? super E> elementOrder = comparator != null
+                ? comparator
+                : (a, b) -> ((Comparable<? super E>) a).compareTo(b);
+        this.entries = new ConcurrentSkipListMap<>(Comparator.<Key<E>, E>comparing(key -> key.element, elementOrder)
+                .thenComparingLong(key -> key.sequence));
+    }
+
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        offerWithHandle(e);
+        return true;
+    }
+
+    /**
+     * Dodaje element i zwraca uchwyt, przez który można później zmienić jego priorytet lub go usunąć.
+     */
+    public Handle<E> offerWithHandle(E e) {
+        final var key = newKey(e);
+        final var handle = new Handle<>(this, key);
+        size.increment();
+        entries.put(key, handle);
+        return handle;
+    }
+
+    @Override
+    public E poll() {
+        Map.Entry<Key<E>, Handle<E>> first;
+        while ((first = entries.pollFirstEntry()) != null) {
+            if (first.getValue().key.compareAndSet(first.getKey(), null)) {
+                size.decrement();
+                return first.getKey().element;
+            }
+            // klucz zdjęty w trakcie zmiany priorytetu - nowy klucz wstawi wątek, który go zmienia
+        }
+        return null;
+    }
+
+    @Override
+    public E peek() {
+        while (true) {
+            final Map.Entry<Key<E>, Handle<E>> first = entries.firstEntry();
+            if (first == null) {
+                return null;
+            }
+            if (first.getValue().key.get() == first.getKey()) {
+                return first.getKey().element;
+            }
+            entries.remove(first.getKey(), first.getValue());
+        }
+    }
+
+    /**
+     * Zastępuje element uchwytu nowym (zmiana priorytetu w O(log n)). Zwraca false, jeśli element opuścił już kolejkę.
+     */
+    public boolean updatePriority(Handle<E> handle, E element) {
+        checkHandle(handle);
+        final var newKey = newKey(element);
+        while (true) {
+            final Key<E> current = handle.key.get();
+            if (current == null) {
+                return false;
+            }
+            if (handle.key.compareAndSet(current, newKey)) {
+                entries.remove(current, handle);
+                entries.put(newKey, handle);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Usuwa element wskazywany przez uchwyt w O(log n). Zwraca false, jeśli element opuścił już kolejkę.
+     */
+    public boolean remove(Handle<E> handle) {
+        checkHandle(handle);
+        while (true) {
+            final Key<E> current = handle.key.get();
+            if (current == null) {
+                return false;
+            }
+            if (handle.key.compareAndSet(current, null)) {
+                entries.remove(current, handle);
+                size.decrement();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Usuwa element równy o - CAS z klucza wpisu na null, więc wpis nieaktualny po zmianie priorytetu nie usunie uchwytu,
+     * którego bieżący element jest inny.
+     */
+    @Override
+    public boolean remove(Object o) {
+        for (Map.Entry<Key<E>, Handle<E>> entry : entries.entrySet()) {
+            final Key<E> key = entry.getKey();
+            if (key.element.equals(o) && entry.getValue().key.compareAndSet(key, null)) {
+                entries.remove(key, entry.getValue());
+                size.decrement();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, size.sum()));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    /**
+     * Iteracja w kolejności priorytetów (słabo spójna).
+     */
+    @Override
+    public Iterator<E> iterator() {
+        final Iterator<Map.Entry<Key<E>, Handle<E>>> iterator = entries.entrySet().iterator();
+        return new Iterator<>() {
+            private Map.Entry<Key<E>, Handle<E>> next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                final E element = next.getKey().element;
+                next = advance();
+                return element;
+            }
+
+            private Map.Entry<Key<E>, Handle<E>> advance() {
+                while (iterator.hasNext()) {
+                    final var entry = iterator.next();
+                    if (entry.getValue().key.get() == entry.getKey()) {
+                        return entry;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    private Key<E> newKey(E element) {
+        Objects.requireNonNull(element);
+        if (comparator == null && !(element instanceof Comparable)) {
+            throw new ClassCastException(element.getClass().getName() + " cannot be cast to java.lang.Comparable");
+        }
+        return new Key<>(element, sequence.getAndIncrement());
+    }
+
+    private void checkHandle(Handle<E> handle) {
+        if (handle.queue != this) {
+            throw new IllegalArgumentException("Handle belongs to a different queue");
+        }
+    }
+
+    private record Key<E>(E element, long sequence) {
+    }
+
+    /**
+     * Uchwyt elementu w kolejce - wskazuje aktualny klucz elementu albo null, gdy element opuścił kolejkę.
+     */
+    public static final class Handle<E> {
+
+        private final ConcurrentIndexedPriorityQueue<E> queue;
+        private final AtomicReference<Key<E>> key;
+
+        private Handle(ConcurrentIndexedPriorityQueue<E> queue, Key<E> key) {
+            this.queue = queue;
+            this.key = new AtomicReference<>(key);
+        }
+
+        /**
+         * Aktualny element uchwytu lub null, gdy element opuścił kolejkę.
+         */
+        public E element() {
+            final Key<E> current = key.get();
+            return current == null ? null : current.element;
+        }
+
+        public boolean isQueued() {
+            return key.get() != null;
+        }
+    }
+}
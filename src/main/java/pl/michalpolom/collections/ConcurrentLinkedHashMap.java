@@ -0,0 +1,552 @@
+package pl.michalpolom.collections;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.BiFunction;
+
+/**
+ * <h1>ConcurrentLinkedHashMap</h1>
+ * Bezpieczny wielowątkowo odpowiednik LinkedHashMap - iteracja w kolejności dodawania kluczy, bez serializowania
+ * wszystkich operacji jak Collections.synchronizedMap.<p>
+ * Obok indeksu ConcurrentHashMap trzymany jest dziennik kolejności: tablica, do której nowe wpisy są dopisywane bez blokad
+ * (rezerwacja pozycji przez getAndIncrement). Usunięcie zeruje wartość wpisu, a dziennik jest kompaktowany, gdy usuniętych
+ * wpisów jest więcej niż żywych lub gdy brakuje miejsca - tylko wtedy piszący czekają chwilę na przebudowę.<p>
+ * Ponowne put istniejącego klucza nie zmienia jego pozycji, a klucz usunięty i dodany ponownie trafia na koniec - jak w LinkedHashMap.
+ * Spliterator dzieli dziennik po równo, więc entrySet().parallelStream() skaluje się na rdzenie. Iteratory są słabo spójne
+ * i nigdy nie rzucają ConcurrentModificationException. Nie pozwala na null jako klucz ani wartość.
+ */
+public final class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MIN_DEAD_FOR_COMPACTION = 32;
+    private static final int SEALED = Integer.MAX_VALUE / 2;
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Node.class, "value", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final ConcurrentHashMap<K, Node<K, V>> index;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile Log<K, V> log;
+    private EntrySet entrySet;
+    private KeySet keySet;
+    private Values values;
+
+    public ConcurrentLinkedHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public ConcurrentLinkedHashMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity must not be negative: " + initialCapacity);
+        }
+        this.index = new ConcurrentHashMap<>(initialCapacity);
+        this.log = new Log<>(Math.max(MIN_CAPACITY, initialCapacity));
+    }
+
+    /**
+     * Współbieżny odpowiednik LinkedHashSet - jak ConcurrentHashMap.newKeySet(), ale z kolejnością dodawania.
+     */
+    public static <E> Set<E> newKeySet() {
+        return Collections.newSetFromMap(new ConcurrentLinkedHashMap<>());
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return index.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        final Node<K, V> node = index.get(key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return doPut(key, value, false);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return doPut(key, value, true);
+    }
+
+    @Override
+    public V remove(Object key) {
+        final Node<K, V> node = index.get(key);
+        return node == null ? null : removeNode(node, null);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        final Node<K, V> node = index.get(key);
+        return node != null && value != null && removeNode(node, value) != null;
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        Objects.requireNonNull(value);
+        final Node<K, V> node = index.get(key);
+        if (node == null) {
+            return null;
+        }
+        for (;;) {
+            final V current = node.value;
+            if (current == null || VALUE.compareAndSet(node, current, value)) {
+                return current;
+            }
+        }
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(oldValue);
+        Objects.requireNonNull(newValue);
+        final Node<K, V> node = index.get(key);
+        if (node == null) {
+            return false;
+        }
+        for (;;) {
+            final V current = node.value;
+            if (current == null || !current.equals(oldValue)) {
+                return false;
+            }
+            if (VALUE.compareAndSet(node, current, newValue)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Node<K, V> node : index.values()) {
+            removeNode(node, null);
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        final EntrySet set = entrySet;
+        return set != null ? set : (entrySet = new EntrySet());
+    }
+
+    @Override
+    public Set<K> keySet() {
+        final KeySet set = keySet;
+        return set != null ? set : (keySet = new KeySet());
+    }
+
+    @Override
+    public Collection<V> values() {
+        final Values collection = values;
+        return collection != null ? collection : (values = new Values());
+    }
+
+    private V doPut(K key, V value, boolean onlyIfAbsent) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        for (;;) {
+            Node<K, V> node = index.get(key);
+            if (node == null) {
+                final Node<K, V> created = new Node<>(key, value);
+                node = index.putIfAbsent(key, created);
+                if (node == null) {
+                    append(created);
+                    return null;
+                }
+            }
+            final V current = node.value;
+            if (current == null) {
+                // wpis jest właśnie usuwany - pomaga go wypiąć z indeksu (remove(key, node) jest idempotentne) i próbuje ponownie
+                index.remove(key, node);
+                continue;
+            }
+            if (onlyIfAbsent || VALUE.compareAndSet(node, current, value)) {
+                return current;
+            }
+        }
+    }
+
+    private V removeNode(Node<K, V> node, Object expected) {
+        for (;;) {
+            final V current = node.value;
+            if (current == null || (expected != null && !expected.equals(current))) {
+                return null;
+            }
+            if (VALUE.compareAndSet(node, current, null)) {
+                index.remove(node.key, node);
+                final Log<K, V> currentLog = log;
+                final int dead = currentLog.dead.incrementAndGet();
+                if (dead >= MIN_DEAD_FOR_COMPACTION && dead > index.size()) {
+                    rebuild(currentLog);
+                }
+                return current;
+            }
+        }
+    }
+
+    private void append(Node<K, V> node) {
+        for (;;) {
+            final Log<K, V> current = log;
+            final int position = current.tail.getAndIncrement();
+            if (position < current.slots.length()) {
+                current.slots.set(position, node);
+                return;
+            }
+            rebuild(current);
+        }
+    }
+
+    /**
+     * Zamyka dziennik dla nowych rezerwacji, czeka na zapis już zarezerwowanych pozycji i przepisuje żywe wpisy do nowej tablicy.
+     */
+    private void rebuild(Log<K, V> expected) {
+        rebuildLock.lock();
+        try {
+            if (log != expected) {
+                return;
+            }
+            final int reserved = Math.min(expected.tail.getAndSet(SEALED), expected.slots.length());
+            final Node<K, V>[] live = newArray(reserved);
+            int count = 0;
+            for (int i = 0; i < reserved; i++) {
+                Node<K, V> node;
+                while ((node = expected.slots.get(i)) == null) {
+                    Thread.onSpinWait();
+                }
+                if (node.value != null) {
+                    live[count++] = node;
+                }
+            }
+            final Log<K, V> rebuilt = new Log<>(Math.max(MIN_CAPACITY, Math.max(count, index.size()) * 2));
+            for (int i = 0; i < count; i++) {
+                rebuilt.slots.set(i, live[i]);
+            }
+            rebuilt.tail.set(count);
+            log = rebuilt;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> Node<K, V>[] newArray(int length) {
+        return (Node<K, V>[]) new Node[length];
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public int size() {
+            return index.size();
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return object instanceof Map.Entry<?, ?> entry && entry.getValue() != null
+                    && entry.getValue().equals(get(entry.getKey()));
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            return object instanceof Map.Entry<?, ?> entry && ConcurrentLinkedHashMap.this.remove(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentLinkedHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new LogIterator<>((node, value) -> node);
+        }
+
+        @Override
+        public Spliterator<Entry<K, V>> spliterator() {
+            return LogSpliterator.of(log, (node, value) -> node);
+        }
+    }
+
+    private final class KeySet extends AbstractSet<K> {
+
+        @Override
+        public int size() {
+            return index.size();
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return containsKey(object);
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            return ConcurrentLinkedHashMap.this.remove(object) != null;
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentLinkedHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return new LogIterator<>((node, value) -> node.key);
+        }
+
+        @Override
+        public Spliterator<K> spliterator() {
+            return LogSpliterator.of(log, (node, value) -> node.key);
+        }
+    }
+
+    private final class Values extends AbstractCollection<V> {
+
+        @Override
+        public int size() {
+            return index.size();
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentLinkedHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new LogIterator<>((node, value) -> value);
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            return LogSpliterator.of(log, (node, value) -> value);
+        }
+    }
+
+    /**
+     * Przechodzi dziennik z chwili utworzenia - dopisane później wpisy widzi, dopóki dziennik nie zostanie przebudowany.
+     * Wartość węzła jest czytana raz i ta sama trafia do mappera, więc współbieżne usunięcie nie da wartości null.
+     */
+    private final class LogIterator<T> implements Iterator<T> {
+
+        private final Log<K, V> snapshot = log;
+        private final BiFunction<Node<K, V>, V, T> mapper;
+        private int position;
+        private Node<K, V> next;
+        private T nextItem;
+        private Node<K, V> last;
+
+        LogIterator(BiFunction<Node<K, V>, V, T> mapper) {
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && position < snapshot.limit()) {
+                final Node<K, V> node = snapshot.slots.get(position++);
+                final V value = node == null ? null : node.value;
+                if (value != null) {
+                    next = node;
+                    nextItem = mapper.apply(node, value);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final T item = nextItem;
+            last = next;
+            next = null;
+            nextItem = null;
+            return item;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            removeNode(last, null);
+            last = null;
+        }
+    }
+
+    /**
+     * Zakres [position, end) dziennika - trySplit oddaje pierwszą połowę, więc podział jest równy i zachowuje kolejność.
+     */
+    private static final class LogSpliterator<K, V, T> implements Spliterator<T> {
+
+        private final Log<K, V> snapshot;
+        private final BiFunction<Node<K, V>, V, T> mapper;
+        private int position;
+        private final int end;
+
+        private LogSpliterator(Log<K, V> snapshot, int position, int end, BiFunction<Node<K, V>, V, T> mapper) {
+            this.snapshot = snapshot;
+            this.position = position;
+            this.end = end;
+            this.mapper = mapper;
+        }
+
+        static <K, V, T> LogSpliterator<K, V, T> of(Log<K, V> snapshot, BiFunction<Node<K, V>, V, T> mapper) {
+            return new LogSpliterator<>(snapshot, 0, snapshot.limit(), mapper);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (position < end) {
+                final Node<K, V> node = snapshot.slots.get(position++);
+                final V value = node == null ? null : node.value;
+                if (value != null) {
+                    action.accept(mapper.apply(node, value));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            final int from = position;
+            position = end;
+            for (int i = from; i < end; i++) {
+                final Node<K, V> node = snapshot.slots.get(i);
+                final V value = node == null ? null : node.value;
+                if (value != null) {
+                    action.accept(mapper.apply(node, value));
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            final int middle = (position + end) >>> 1;
+            if (middle <= position) {
+                return null;
+            }
+            final LogSpliterator<K, V, T> prefix = new LogSpliterator<>(snapshot, position, middle, mapper);
+            position = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - position;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL | CONCURRENT;
+        }
+    }
+
+    /**
+     * Dziennik kolejności: slots[0, tail) to wpisy w kolejności dodania (także usunięte - z wartością null).
+     */
+    private static final class Log<K, V> {
+
+        final AtomicReferenceArray<Node<K, V>> slots;
+        final AtomicInteger tail = new AtomicInteger();
+        final AtomicInteger dead = new AtomicInteger();
+
+        Log(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        int limit() {
+            return Math.min(tail.get(), slots.length());
+        }
+    }
+
+    private static final class Node<K, V> implements Map.Entry<K, V> {
+
+        final K key;
+        volatile V value;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        /**
+         * Zapis przez wpis trafia do mapy - jak Map.Entry z iteratora LinkedHashMap.
+         */
+        @Override
+        public V setValue(V newValue) {
+            Objects.requireNonNull(newValue);
+            for (;;) {
+                final V current = value;
+                if (current == null) {
+                    throw new IllegalStateException("entry was removed");
+                }
+                if (VALUE.compareAndSet(this, current, newValue)) {
+                    return current;
+                }
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Map.Entry<?, ?> entry
+                    && key.equals(entry.getKey()) && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+}
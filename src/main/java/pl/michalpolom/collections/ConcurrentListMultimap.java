@@ -0,0 +1,257 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * <h1>ConcurrentListMultimap</h1>
+ * Bezpieczny wielowątkowo odpowiednik ArrayListMultimap - zamiast jednej blokady Multimaps.synchronizedMultimap każdy klucz ma
+ * własny kubełek w ConcurrentHashMap, a dopisanie blokuje tylko jeden kosz (bin) mapy. Dopisywanie do różnych kluczy nie czeka na siebie.<p>
+ * Kubełek to tablica dopisywana na końcu. get(key) jest bez blokad i zwraca spójną migawkę w O(1) - bez kopiowania, bo elementy
+ * poniżej zapamiętanego rozmiaru nigdy się nie zmieniają (usuwanie tworzy nowy kubełek).<p>
+ * Nie pozwala na klucze i wartości null.
+ */
+public final class ConcurrentListMultimap<K, V> {
+
+    private final ConcurrentHashMap<K, Bucket> buckets;
+    private final LongAdder size = new LongAdder();
+
+    public ConcurrentListMultimap() {
+        this.buckets = new ConcurrentHashMap<>();
+    }
+
+    public ConcurrentListMultimap(int expectedKeys) {
+        this.buckets = new ConcurrentHashMap<>(expectedKeys);
+    }
+
+    /**
+     * Dopisuje wartość na końcu listy klucza. Zawsze zwraca true (jak ArrayListMultimap).
+     */
+    public boolean put(K key, V value) {
+        Objects.requireNonNull(value);
+        buckets.compute(Objects.requireNonNull(key), (k, bucket) -> {
+            final Bucket target = bucket != null ? bucket : new Bucket(new Object[4], 0);
+            target.append(value);
+            return target;
+        });
+        size.increment();
+        return true;
+    }
+
+    public boolean putAll(K key, Iterable<? extends V> values) {
+        final Object[] added = toArray(values);
+        if (added.length == 0) {
+            return false;
+        }
+        buckets.compute(Objects.requireNonNull(key), (k, bucket) -> {
+            final Bucket target = bucket != null ? bucket : new Bucket(new Object[added.length], 0);
+            target.appendAll(added);
+            return target;
+        });
+        size.add(added.length);
+        return true;
+    }
+
+    /**
+     * Niemodyfikowalna migawka wartości klucza (pusta lista, gdy klucza nie ma). Późniejsze zmiany nie są w niej widoczne.
+     */
+    public List<V> get(K key) {
+        final Bucket bucket = buckets.get(key);
+        return bucket == null ? List.of() : bucket.<V>snapshot();
+    }
+
+    /**
+     * Usuwa pierwsze wystąpienie wartości z listy klucza.
+     */
+    public boolean remove(Object key, Object value) {
+        final boolean[] removed = new boolean[1];
+        buckets.computeIfPresent(castKey(key), (k, bucket) -> {
+            final Bucket replacement = bucket.without(value);
+            removed[0] = replacement != bucket;
+            return replacement.size == 0 ? null : replacement;
+        });
+        if (removed[0]) {
+            size.decrement();
+        }
+        return removed[0];
+    }
+
+    /**
+     * Usuwa klucz i zwraca wszystkie jego wartości.
+     */
+    public List<V> removeAll(Object key) {
+        final Bucket removed = buckets.remove(key);
+        if (removed == null) {
+            return List.of();
+        }
+        final List<V> values = removed.<V>snapshot();
+        size.add(-values.size());
+        return values;
+    }
+
+    public boolean containsKey(Object key) {
+        return buckets.containsKey(key);
+    }
+
+    public boolean containsEntry(Object key, Object value) {
+        final Bucket bucket = buckets.get(key);
+        return bucket != null && bucket.snapshot().contains(value);
+    }
+
+    /**
+     * Łączna liczba wartości - przy współbieżnych zmianach przybliżona (jak ConcurrentHashMap.size()).
+     */
+    public long size() {
+        return Math.max(0, size.sum());
+    }
+
+    public boolean isEmpty() {
+        return buckets.isEmpty();
+    }
+
+    /**
+     * Widok kluczy (słabo spójny, jak ConcurrentHashMap.keySet()).
+     */
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(buckets.keySet());
+    }
+
+    /**
+     * Przechodzi po kluczach i migawkach ich wartości.
+     */
+    public void forEach(BiConsumer<? super K, ? super List<V>> action) {
+        buckets.forEach((key, bucket) -> action.accept(key, bucket.<V>snapshot()));
+    }
+
+    /**
+     * Usuwa klucze po kolei i odejmuje liczbę ich wartości, jak removeAll - put wykonane w trakcie czyszczenia zostaje
+     * policzone, zamiast zniknąć z size() przy zerowaniu licznika.
+     */
+    public void clear() {
+        for (K key : buckets.keySet()) {
+            final Bucket removed = buckets.remove(key);
+            if (removed != null) {
+                size.add(-removed.size);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final var builder = new StringBuilder("{");
+        forEach((key, values) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key).append('=').append(values);
+        });
+        return builder.append('}').toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private K castKey(Object key) {
+        return (K) Objects.requireNonNull(key);
+    }
+
+    private static Object[] toArray(Iterable<?> values) {
+        Object[] array = new Object[8];
+        int count = 0;
+        for (Object value : values) {
+            if (count == array.length) {
+                array = Arrays.copyOf(array, count << 1);
+            }
+            array[count++] = Objects.requireNonNull(value);
+        }
+        return Arrays.copyOf(array, count);
+    }
+
+    /**
+     * Kubełek zmieniany tylko pod blokadą kosza ConcurrentHashMap (compute). Zapis: najpierw element (i ewentualnie nowa tablica),
+     * potem volatile size - czytelnik, który odczytał size, widzi wszystkie elementy poniżej niego.
+     */
+    private static final class Bucket {
+
+        private volatile Object[] items;
+        private volatile int size;
+
+        Bucket(Object[] items, int size) {
+            this.items = items;
+            this.size = size;
+        }
+
+        void append(Object value) {
+            Object[] current = items;
+            final int count = size;
+            if (count == current.length) {
+                current = Arrays.copyOf(current, count + (count >> 1) + 1);
+            }
+            current[count] = value;
+            items = current;
+            size = count + 1;
+        }
+
+        void appendAll(Object[] values) {
+            Object[] current = items;
+            final int count = size;
+            if (count + values.length > current.length) {
+                current = Arrays.copyOf(current, Math.max(count + values.length, count + (count >> 1)));
+            }
+            System.arraycopy(values, 0, current, count, values.length);
+            items = current;
+            size = count + values.length;
+        }
+
+        /**
+         * Nowy kubełek bez pierwszego wystąpienia wartości albo ten sam, jeśli wartości nie ma.
+         */
+        Bucket without(Object value) {
+            final int count = size;
+            final Object[] current = items;
+            for (int i = 0; i < count; i++) {
+                if (current[i].equals(value)) {
+                    final Object[] copy = new Object[Math.max(count - 1, 1)];
+                    System.arraycopy(current, 0, copy, 0, i);
+                    System.arraycopy(current, i + 1, copy, i, count - i - 1);
+                    return new Bucket(copy, count - 1);
+                }
+            }
+            return this;
+        }
+
+        <V> List<V> snapshot() {
+            final int count = size;
+            return new Snapshot<>(items, count);
+        }
+    }
+
+    private static final class Snapshot<V> extends AbstractList<V> implements RandomAccess {
+
+        private final Object[] items;
+        private final int size;
+
+        Snapshot(Object[] items, int size) {
+            this.items = items;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(int index) {
+            Objects.checkIndex(index, size);
+            return (V) items[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,527 @@
+package pl.michalpolom.collections;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>ConcurrentLongSkipListMap</h1>
+ * Bezpieczna wielowątkowo, posortowana mapa o kluczach long - ten sam bezblokadowy algorytm listy z przeskokami co
+ * ConcurrentSkipListMap (usuwanie: wyzerowanie wartości, węzeł-znacznik, odłączenie), ale bez opakowywania kluczy w Long.<p>
+ * Zakresy przegląda się przez {@link RangeCursor} - kursor wielokrotnego użytku, ustawiany na subMap / headMap / tailMap,
+ * także w porządku malejącym (jak descendingMap lub TreeMap z Comparator.reverseOrder()). Przejście kursora nie alokuje
+ * obiektów, więc skanowanie zakresów nie produkuje śmieci dla GC.<p>
+ * Kursor jest słabo spójny jak iteratory ConcurrentSkipListMap: widzi stan mapy z chwili przejścia przez dany węzeł.
+ * Przejście malejące kosztuje O(log n) na element (jak w ConcurrentSkipListMap). Nie pozwala na wartości null.
+ */
+public final class ConcurrentLongSkipListMap<V> {
+
+    private static final Object HEADER = new Object();
+    private static final VarHandle HEAD;
+    private static final VarHandle NEXT;
+    private static final VarHandle VALUE;
+    private static final VarHandle RIGHT;
+
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(ConcurrentLongSkipListMap.class, "head", Index.class);
+            NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+            VALUE = lookup.findVarHandle(Node.class, "value", Object.class);
+            RIGHT = lookup.findVarHandle(Index.class, "right", Index.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Node base = new Node(Long.MIN_VALUE, HEADER, null, false);
+    private final LongAdder size = new LongAdder();
+    private volatile Index head = new Index(base, null, null);
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        final Node node = ceilingNode(key);
+        if (node == null || node.key != key) {
+            return null;
+        }
+        return (V) node.value;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public V put(long key, V value) {
+        return doPut(key, Objects.requireNonNull(value), false);
+    }
+
+    public V putIfAbsent(long key, V value) {
+        return doPut(key, Objects.requireNonNull(value), true);
+    }
+
+    public V remove(long key) {
+        return doRemove(key, null);
+    }
+
+    public boolean remove(long key, Object value) {
+        return value != null && doRemove(key, value) != null;
+    }
+
+    /**
+     * Liczba wpisów - przy współbieżnych zmianach przybliżona.
+     */
+    public long size() {
+        return Math.max(0, size.sum());
+    }
+
+    public boolean isEmpty() {
+        return firstNode() == null;
+    }
+
+    public long firstKey() {
+        final Node node = firstNode();
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        return node.key;
+    }
+
+    public long lastKey() {
+        final Node node = lowerNode(Long.MAX_VALUE, true);
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        return node.key;
+    }
+
+    /**
+     * Nowy kursor ustawiony na całą mapę rosnąco - można go potem wielokrotnie przestawiać na inne zakresy.
+     */
+    public RangeCursor<V> cursor() {
+        return new RangeCursor<>(this);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("{");
+        final RangeCursor<V> cursor = cursor();
+        while (cursor.next()) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(cursor.key()).append('=').append(cursor.value());
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Kursor po zakresie kluczy. Przykład: {@code cursor.subMap(from, true, to, false); while (cursor.next()) use(cursor.key(), cursor.value());}
+     * Metody ustawiające zakres zaczynają przejście od nowa, descending() odwraca kierunek bieżącego zakresu.
+     * Kursor nie jest bezpieczny wielowątkowo - każdy wątek używa własnego.
+     */
+    public static final class RangeCursor<V> {
+
+        private final ConcurrentLongSkipListMap<V> map;
+        private long low;
+        private long high;
+        private boolean empty;
+        private boolean descending;
+        private boolean started;
+        private boolean exhausted;
+        private Node current;
+        private long key;
+        private Object value;
+
+        private RangeCursor(ConcurrentLongSkipListMap<V> map) {
+            this.map = map;
+            all();
+        }
+
+        public RangeCursor<V> all() {
+            return range(Long.MIN_VALUE, Long.MAX_VALUE, false);
+        }
+
+        public RangeCursor<V> subMap(long from, boolean fromInclusive, long to, boolean toInclusive) {
+            final boolean emptyFrom = !fromInclusive && from == Long.MAX_VALUE;
+            final boolean emptyTo = !toInclusive && to == Long.MIN_VALUE;
+            return range(fromInclusive ? from : from + 1, toInclusive ? to : to - 1, emptyFrom || emptyTo);
+        }
+
+        public RangeCursor<V> headMap(long to, boolean inclusive) {
+            return subMap(Long.MIN_VALUE, true, to, inclusive);
+        }
+
+        public RangeCursor<V> tailMap(long from, boolean inclusive) {
+            return subMap(from, inclusive, Long.MAX_VALUE, true);
+        }
+
+        /**
+         * Odwraca kierunek przejścia bieżącego zakresu i zaczyna je od nowa.
+         */
+        public RangeCursor<V> descending() {
+            descending = !descending;
+            return reset();
+        }
+
+        /**
+         * Przechodzi do następnego wpisu w zakresie - false, gdy zakres się skończył.
+         */
+        public boolean next() {
+            if (exhausted) {
+                return false;
+            }
+            Node node;
+            if (descending) {
+                node = started ? map.lowerNode(key, false) : map.lowerNode(high, true);
+            } else {
+                node = started ? current.next : map.ceilingNode(low);
+                while (node != null && (node.marker || node.value == null)) {
+                    node = node.next;
+                }
+            }
+            started = true;
+            while (node != null) {
+                final Object nodeValue = node.value;
+                if (node.key < low || node.key > high) {
+                    break;
+                }
+                if (nodeValue != null && !node.marker) {
+                    current = node;
+                    key = node.key;
+                    value = nodeValue;
+                    return true;
+                }
+                node = descending ? map.lowerNode(node.key, false) : node.next;
+            }
+            exhausted = true;
+            current = null;
+            value = null;
+            return false;
+        }
+
+        public long key() {
+            ensurePositioned();
+            return key;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V value() {
+            ensurePositioned();
+            return (V) value;
+        }
+
+        private RangeCursor<V> range(long low, long high, boolean empty) {
+            this.low = low;
+            this.high = high;
+            this.empty = empty || low > high;
+            this.descending = false;
+            return reset();
+        }
+
+        private RangeCursor<V> reset() {
+            started = false;
+            exhausted = empty;
+            current = null;
+            value = null;
+            return this;
+        }
+
+        private void ensurePositioned() {
+            if (value == null) {
+                throw new NoSuchElementException();
+            }
+        }
+    }
+
+    /**
+     * Węzeł poziomu podstawowego. value == null oznacza węzeł usunięty, marker - znacznik dołączany za usuniętym węzłem,
+     * który blokuje wstawianie za nim.
+     */
+    private static final class Node {
+
+        final long key;
+        final boolean marker;
+        volatile Object value;
+        volatile Node next;
+
+        Node(long key, Object value, Node next, boolean marker) {
+            this.key = key;
+            this.value = value;
+            this.next = next;
+            this.marker = marker;
+        }
+    }
+
+    private static final class Index {
+
+        final Node node;
+        final Index down;
+        volatile Index right;
+
+        Index(Node node, Index down, Index right) {
+            this.node = node;
+            this.down = down;
+            this.right = right;
+        }
+    }
+
+    /**
+     * Węzeł z największym kluczem mniejszym od key (albo nagłówek) - po drodze odłącza indeksy usuniętych węzłów.
+     */
+    private Node findPredecessor(long key) {
+        Index q = head;
+        for (;;) {
+            final Index r = q.right;
+            if (r != null) {
+                final Node p = r.node;
+                if (p.value == null) {
+                    RIGHT.compareAndSet(q, r, r.right);
+                    continue;
+                }
+                if (key > p.key) {
+                    q = r;
+                    continue;
+                }
+            }
+            final Index d = q.down;
+            if (d == null) {
+                return q.node;
+            }
+            q = d;
+        }
+    }
+
+    private Node firstNode() {
+        Node node = base.next;
+        while (node != null && (node.marker || node.value == null)) {
+            node = node.next;
+        }
+        return node;
+    }
+
+    /**
+     * Pierwszy żywy węzeł o kluczu &gt;= key.
+     */
+    private Node ceilingNode(long key) {
+        Node node = findPredecessor(key).next;
+        while (node != null && (node.marker || node.value == null || node.key < key)) {
+            node = node.next;
+        }
+        return node;
+    }
+
+    /**
+     * Ostatni żywy węzeł o kluczu &lt; key (lub &lt;= key, gdy inclusive).
+     */
+    private Node lowerNode(long key, boolean inclusive) {
+        for (;;) {
+            final Node b = inclusive && key != Long.MAX_VALUE ? findPredecessor(key + 1) : findPredecessor(key);
+            Node found = b != base && b.value != null ? b : null;
+            for (Node n = b.next; n != null; n = n.next) {
+                if (n.marker) {
+                    continue;
+                }
+                if (inclusive ? n.key > key : n.key >= key) {
+                    break;
+                }
+                if (n.value != null) {
+                    found = n;
+                }
+            }
+            if (found != null || b == base) {
+                return found;
+            }
+        }
+    }
+
+    private static void unlinkNode(Node b, Node n) {
+        Node p;
+        for (;;) {
+            final Node f = n.next;
+            if (f != null && f.marker) {
+                p = f.next;
+                break;
+            }
+            if (NEXT.compareAndSet(n, f, new Node(n.key, null, f, true))) {
+                p = f;
+                break;
+            }
+        }
+        NEXT.compareAndSet(b, n, p);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V doPut(long key, Object value, boolean onlyIfAbsent) {
+        for (;;) {
+            Index h = head;
+            int levels = 0;
+            Node b;
+            for (Index q = h; ; ) {
+                final Index r = q.right;
+                if (r != null) {
+                    final Node p = r.node;
+                    if (p.value == null) {
+                        RIGHT.compareAndSet(q, r, r.right);
+                        continue;
+                    }
+                    if (key > p.key) {
+                        q = r;
+                        continue;
+                    }
+                }
+                final Index d = q.down;
+                if (d == null) {
+                    b = q.node;
+                    break;
+                }
+                levels++;
+                q = d;
+            }
+            Node inserted = null;
+            for (;;) {
+                final Node n = b.next;
+                if (n != null) {
+                    if (n.marker) {
+                        break;
+                    }
+                    final Object current = n.value;
+                    if (current == null) {
+                        unlinkNode(b, n);
+                        continue;
+                    }
+                    if (key > n.key) {
+                        b = n;
+                        continue;
+                    }
+                    if (key == n.key) {
+                        if (onlyIfAbsent || VALUE.compareAndSet(n, current, value)) {
+                            return (V) current;
+                        }
+                        continue;
+                    }
+                }
+                final Node z = new Node(key, value, n, false);
+                if (NEXT.compareAndSet(b, n, z)) {
+                    inserted = z;
+                    break;
+                }
+            }
+            if (inserted == null) {
+                continue;
+            }
+            size.increment();
+            addIndices(inserted, h, levels);
+            return null;
+        }
+    }
+
+    /**
+     * Z prawdopodobieństwem 1/4 dodaje węzłowi indeksy - wysokość jak w ConcurrentSkipListMap (każdy kolejny poziom z p = 1/2).
+     */
+    private void addIndices(Node z, Index h, int levels) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        if ((random.nextInt() & 0x3) != 0) {
+            return;
+        }
+        long bits = random.nextLong();
+        int skips = levels;
+        Index x = null;
+        for (;;) {
+            x = new Index(z, x, null);
+            if (bits >= 0L || --skips < 0) {
+                break;
+            }
+            bits <<= 1;
+        }
+        if (addIndices(h, skips, x) && skips < 0 && head == h) {
+            final Index hx = new Index(z, x, null);
+            final Index nh = new Index(h.node, h, hx);
+            HEAD.compareAndSet(this, h, nh);
+        }
+        if (z.value == null) {
+            findPredecessor(z.key);
+        }
+    }
+
+    /**
+     * Wpina wieżę indeksów x od dołu: najpierw rekurencyjnie niższe poziomy, potem bieżący.
+     */
+    private static boolean addIndices(Index q, int skips, Index x) {
+        final Node z = x.node;
+        final long key = z.key;
+        boolean retrying = false;
+        for (;;) {
+            final Index r = q.right;
+            int c;
+            if (r != null) {
+                final Node p = r.node;
+                if (p.value == null) {
+                    RIGHT.compareAndSet(q, r, r.right);
+                    c = 0;
+                } else {
+                    c = Long.compare(key, p.key);
+                    if (c > 0) {
+                        q = r;
+                    } else if (c == 0) {
+                        return false;
+                    }
+                }
+            } else {
+                c = -1;
+            }
+            if (c < 0) {
+                final Index d = q.down;
+                if (d != null && skips > 0) {
+                    --skips;
+                    q = d;
+                } else if (d != null && !retrying && !addIndices(d, 0, x.down)) {
+                    return false;
+                } else {
+                    x.right = r;
+                    if (RIGHT.compareAndSet(q, r, x)) {
+                        return true;
+                    }
+                    retrying = true;
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V doRemove(long key, Object expected) {
+        outer:
+        for (;;) {
+            Node b = findPredecessor(key);
+            for (;;) {
+                final Node n = b.next;
+                if (n == null) {
+                    return null;
+                }
+                if (n.marker) {
+                    continue outer;
+                }
+                final Object current = n.value;
+                if (current == null) {
+                    unlinkNode(b, n);
+                    continue;
+                }
+                if (key > n.key) {
+                    b = n;
+                    continue;
+                }
+                if (key < n.key || (expected != null && !expected.equals(current))) {
+                    return null;
+                }
+                if (VALUE.compareAndSet(n, current, null)) {
+                    unlinkNode(b, n);
+                    findPredecessor(key);
+                    size.decrement();
+                    return (V) current;
+                }
+            }
+        }
+    }
+}
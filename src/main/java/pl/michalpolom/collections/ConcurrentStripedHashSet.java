@@ -0,0 +1,128 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <h1>ConcurrentStripedHashSet</h1>
+ * Bezpieczny wielowątkowo zbiór zachowujący kolejność wstawiania - alternatywa dla CopyOnWriteArraySet przy dużych zbiorach.<p>
+ * Indeks elementów to ConcurrentHashMap (zapisy blokują tylko jeden kubełek - "striping"), a kolejność wstawiania
+ * przechowuje ConcurrentSkipListMap numerów sekwencyjnych (zapisy przez CAS).<p>
+ * contains() i iteracja nie używają blokad. add/remove kosztują O(log n) zamiast kopiowania całej tablicy,
+ * a contains() to O(1) zamiast O(n).<p>
+ * Iteratory są słabo spójne (weakly consistent) - nie rzucają ConcurrentModificationException. Pozwala na null.
+ */
+public final class ConcurrentStripedHashSet<E> extends AbstractSet<E> {
+
+    private static final Object NULL = new Object();
+
+    private final ConcurrentHashMap<Object, Long> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Object> order = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ConcurrentStripedHashSet() {
+    }
+
+    public ConcurrentStripedHashSet(Collection<? extends E> elements) {
+        addAll(elements);
+    }
+
+    @Override
+    public boolean add(E element) {
+        final Object key = mask(element);
+        final Long seq = sequence.getAndIncrement();
+        if (index.putIfAbsent(key, seq) != null) {
+            return false;
+        }
+        order.put(seq, key);
+        // równoległe remove() mogło usunąć element z indeksu, zanim trafił do kolejności
+        if (!seq.equals(index.get(key))) {
+            order.remove(seq, key);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        final Object key = mask(element);
+        final Long seq = index.remove(key);
+        if (seq == null) {
+            return false;
+        }
+        order.remove(seq, key);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        return index.containsKey(mask(element));
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return index.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        for (Object key : index.keySet()) {
+            remove(unmask(key));
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new OrderIterator();
+    }
+
+    private static Object mask(Object element) {
+        return element == null ? NULL : element;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E unmask(Object key) {
+        return key == NULL ? null : (E) key;
+    }
+
+    private final class OrderIterator implements Iterator<E> {
+
+        private final Iterator<Map.Entry<Long, Object>> entries = order.entrySet().iterator();
+        private Map.Entry<Long, Object> last;
+
+        @Override
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        @Override
+        public E next() {
+            if (!entries.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = entries.next();
+            return unmask(last.getValue());
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            if (index.remove(last.getValue(), last.getKey())) {
+                order.remove(last.getKey(), last.getValue());
+            }
+            last = null;
+        }
+    }
+}
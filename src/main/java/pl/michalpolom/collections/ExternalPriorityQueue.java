@@ -0,0 +1,661 @@
+package pl.michalpolom.collections;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * <h1>ExternalPriorityQueue</h1>
+ * Kolejka priorytetowa dla danych większych niż sterta. W pamięci trzyma najwyżej memoryBudget elementów - po jego przekroczeniu
+ * elementy są sortowane i zapisywane (przez FileChannel, z {@link Serializer}) jako posortowany przebieg w pliku tymczasowym.<p>
+ * poll() zwraca minimum z kopca w pamięci i z czół wszystkich przebiegów (scalanie k-drogowe na kopcu przebiegów).
+ * Każdy otwarty przebieg zajmuje tylko bufor odczytu. Przebiegi mają poziomy, jak w wieloprzebiegowym sortowaniu zewnętrznym:
+ * gdy na jednym poziomie zbierze się maxOpenRuns przebiegów, są scalane w jeden przebieg poziomu wyżej. Każdy element jest
+ * więc przepisywany O(log(n / memoryBudget) / log(maxOpenRuns)) razy, a otwartych przebiegów jest najwyżej
+ * (maxOpenRuns - 1) na poziom.<p>
+ * Porządek jak w PriorityQueue - naturalny albo z Comparator (np. Comparator.reverseOrder()). Kolejność równych elementów
+ * nie jest określona. Iterator przechodzi elementy w dowolnej kolejności (przebiegi czyta z dysku, nie zmieniając stanu kolejki).<p>
+ * remove(Object) usuwa element z pamięci albo - gdy leży w przebiegu na dysku - zapamiętuje go do pominięcia, kiedy dotrze
+ * na czoło przebiegu lub do scalania. Sprawdzenie, czy element jest w przebiegach, czyta je z dysku, więc kosztuje O(n).<p>
+ * close() usuwa pliki przebiegów. Nie pozwala na null. Nie jest bezpieczna dla wielowątkowości.
+ */
+public final class ExternalPriorityQueue<E> extends AbstractQueue<E> implements Closeable {
+
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES;
+
+    private final Serializer<E> serializer;
+    private final Comparator<? super E> comparator;
+    private final int memoryBudget;
+    private final int maxOpenRuns;
+    private final int bufferSize;
+    private final Path directory;
+    private final boolean ownsDirectory;
+
+    private final PriorityQueue<E> memory;
+    private final PriorityQueue<Run> runs;
+    private final Map<Object, Integer> removed = new HashMap<>();
+    private long removedCount;
+    private long spilledRuns;
+    private long mergedElements;
+    private long runSequence;
+    private int modCount;
+    private boolean closed;
+
+    private ExternalPriorityQueue(Builder<E> builder, Path directory, boolean ownsDirectory) {
+        this.serializer = builder.serializer;
+        this.comparator = builder.comparator;
+        this.memoryBudget = builder.memoryBudget;
+        this.maxOpenRuns = builder.maxOpenRuns;
+        this.bufferSize = builder.bufferSize;
+        this.directory = directory;
+        this.ownsDirectory = ownsDirectory;
+        this.memory = new PriorityQueue<>(Math.min(memoryBudget, 1 << 16), comparator);
+        this.runs = new PriorityQueue<>((left, right) -> comparator.compare(left.head, right.head));
+    }
+
+    public static <E extends Comparable<? super E>> Builder<E> builder(Serializer<E> serializer) {
+        return new Builder<>(serializer, Comparator.naturalOrder());
+    }
+
+    public static <E> Builder<E> builder(Serializer<E> serializer, Comparator<? super E> comparator) {
+        return new Builder<>(serializer, comparator);
+    }
+
+    @Override
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+        ensureOpen();
+        modCount++;
+        memory.add(element);
+        if (memory.size() >= memoryBudget) {
+            spill();
+        }
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        ensureOpen();
+        skipRemoved();
+        modCount++;
+        final Run run = runs.peek();
+        final E inMemory = memory.peek();
+        if (run == null || (inMemory != null && comparator.compare(inMemory, run.head) <= 0)) {
+            return memory.poll();
+        }
+        return pollRun();
+    }
+
+    @Override
+    public E peek() {
+        ensureOpen();
+        skipRemoved();
+        final Run run = runs.peek();
+        final E inMemory = memory.peek();
+        if (run == null || (inMemory != null && comparator.compare(inMemory, run.head) <= 0)) {
+            return inMemory;
+        }
+        return run.head;
+    }
+
+    @Override
+    public int size() {
+        final long size = sizeAsLong();
+        return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+    }
+
+    /**
+     * Dokładna liczba elementów - size() obcina ją do Integer.MAX_VALUE.
+     */
+    public long sizeAsLong() {
+        long size = memory.size() - removedCount;
+        for (Run run : runs) {
+            size += run.remaining + 1;
+        }
+        return size;
+    }
+
+    /**
+     * Usuwa jedno wystąpienie elementu - z pamięci od razu, z przebiegu na dysku przy jego odczycie.
+     */
+    @Override
+    public boolean remove(Object o) {
+        ensureOpen();
+        if (o == null) {
+            return false;
+        }
+        if (memory.remove(o)) {
+            modCount++;
+            return true;
+        }
+        long occurrences = -removed.getOrDefault(o, 0);
+        for (Run run : runs) {
+            for (Iterator<E> scan = run.scan(); scan.hasNext() && occurrences <= 0; ) {
+                if (o.equals(scan.next())) {
+                    occurrences++;
+                }
+            }
+        }
+        if (occurrences <= 0) {
+            return false;
+        }
+        markRemoved(o);
+        return true;
+    }
+
+    /**
+     * Liczba przebiegów zapisanych na dysk od utworzenia kolejki (bez wyników scalania).
+     */
+    public long spilledRuns() {
+        return spilledRuns;
+    }
+
+    /**
+     * Liczba elementów przepisanych przy scalaniu przebiegów - miara dodatkowego I/O ponad zapis przebiegów.
+     */
+    public long mergedElements() {
+        return mergedElements;
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        memory.clear();
+        for (Run run : runs) {
+            run.delete();
+        }
+        runs.clear();
+        removed.clear();
+        removedCount = 0;
+    }
+
+    /**
+     * Iterator po kopii pamięci i po przebiegach czytanych z dysku - pomija elementy usunięte przez remove(Object).
+     * Zmiana kolejki w trakcie iteracji (poza remove() iteratora) kończy się ConcurrentModificationException.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        ensureOpen();
+        final List<Iterator<E>> parts = new ArrayList<>();
+        parts.add(new ArrayList<>(memory).iterator());
+        for (Run run : runs) {
+            parts.add(run.scan());
+        }
+        final Map<Object, Integer> skipped = new HashMap<>(removed);
+        return new Iterator<>() {
+            private int expectedModCount = modCount;
+            private int part;
+            private E next;
+            private int nextPart;
+            private E last;
+            private int lastPart;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && part < parts.size()) {
+                    final Iterator<E> current = parts.get(part);
+                    if (!current.hasNext()) {
+                        part++;
+                    } else {
+                        final E element = current.next();
+                        if (part == 0 || !decrement(skipped, element)) {
+                            next = element;
+                            nextPart = part;
+                        }
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                lastPart = nextPart;
+                next = null;
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (lastPart == 0) {
+                    memory.remove(last);
+                    modCount++;
+                } else {
+                    markRemoved(last);
+                }
+                expectedModCount = modCount;
+                last = null;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        clear();
+        closed = true;
+        if (ownsDirectory) {
+            try {
+                Files.deleteIfExists(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("queue is closed");
+        }
+    }
+
+    private E pollRun() {
+        final Run run = runs.poll();
+        final E head = run.head;
+        if (run.advance()) {
+            runs.add(run);
+        } else {
+            run.delete();
+        }
+        return head;
+    }
+
+    /**
+     * Zdejmuje z czół przebiegów elementy usunięte przez remove(Object).
+     */
+    private void skipRemoved() {
+        while (!removed.isEmpty() && !runs.isEmpty() && decrement(removed, runs.peek().head)) {
+            removedCount--;
+            modCount++;
+            pollRun();
+        }
+    }
+
+    private void markRemoved(Object element) {
+        removed.merge(element, 1, Integer::sum);
+        removedCount++;
+        modCount++;
+    }
+
+    private static boolean decrement(Map<Object, Integer> counts, Object element) {
+        final Integer count = counts.get(element);
+        if (count == null) {
+            return false;
+        }
+        if (count == 1) {
+            counts.remove(element);
+        } else {
+            counts.put(element, count - 1);
+        }
+        return true;
+    }
+
+    /**
+     * Sortuje zawartość pamięci i zapisuje ją jako nowy przebieg poziomu 0.
+     */
+    @SuppressWarnings("unchecked")
+    private void spill() {
+        final Object[] sorted = memory.toArray();
+        memory.clear();
+        Arrays.sort(sorted, (left, right) -> comparator.compare((E) left, (E) right));
+        try (RunWriter writer = new RunWriter(0)) {
+            for (Object element : sorted) {
+                writer.write((E) element);
+            }
+            addRun(writer.finish());
+        }
+        spilledRuns++;
+        for (int level = 0; mergeLevel(level); level++) {
+            // wynik scalania może dopełnić następny poziom
+        }
+    }
+
+    /**
+     * Scala maxOpenRuns najstarszych przebiegów danego poziomu w jeden przebieg poziomu wyżej - strumieniowo, z jednym
+     * buforem na przebieg. Wyniki wcześniejszych scaleń nie są przepisywane, dopóki ich poziom się nie zapełni.
+     * Usunięte elementy są pomijane. Zwraca false, jeśli poziom nie jest pełny.
+     */
+    private boolean mergeLevel(int level) {
+        final List<Run> oldest = new ArrayList<>();
+        for (Run run : runs) {
+            if (run.level == level) {
+                oldest.add(run);
+            }
+        }
+        if (oldest.size() < maxOpenRuns) {
+            return false;
+        }
+        oldest.sort(Comparator.comparingLong(run -> run.sequence));
+        final PriorityQueue<Run> merged = new PriorityQueue<>(runs.comparator());
+        for (Run run : oldest.subList(0, maxOpenRuns)) {
+            runs.remove(run);
+            merged.add(run);
+        }
+        try (RunWriter writer = new RunWriter(level + 1)) {
+            while (!merged.isEmpty()) {
+                final Run run = merged.poll();
+                if (!removed.isEmpty() && decrement(removed, run.head)) {
+                    removedCount--;
+                } else {
+                    writer.write(run.head);
+                    mergedElements++;
+                }
+                if (run.advance()) {
+                    merged.add(run);
+                } else {
+                    run.delete();
+                }
+            }
+            addRun(writer.finish());
+        }
+        return true;
+    }
+
+    private void addRun(Run run) {
+        if (run.advance()) {
+            runs.add(run);
+        } else {
+            run.delete();
+        }
+    }
+
+    /**
+     * Zapis przebiegu: rekordy [długość int][bajty] przez bufor bezpośredni.
+     */
+    private final class RunWriter implements AutoCloseable {
+
+        private final Path file;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+        private final int level;
+        private long count;
+        private boolean finished;
+
+        RunWriter(int level) {
+            this.level = level;
+            try {
+                this.file = Files.createTempFile(directory, "run-", ".bin");
+                this.channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void write(E element) {
+            final byte[] bytes = serializer.serialize(element);
+            try {
+                if (buffer.remaining() < RECORD_HEADER_BYTES + bytes.length) {
+                    flush();
+                }
+                if (buffer.remaining() < RECORD_HEADER_BYTES + bytes.length) {
+                    writeFully(ByteBuffer.allocate(RECORD_HEADER_BYTES + bytes.length).putInt(bytes.length).put(bytes).flip());
+                } else {
+                    buffer.putInt(bytes.length).put(bytes);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            count++;
+        }
+
+        Run finish() {
+            try {
+                flush();
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            finished = true;
+            return new Run(file, count, level, runSequence++);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (finished) {
+                return;
+            }
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Posortowany przebieg na dysku - head to bieżące czoło, remaining to liczba rekordów za nim. level to liczba scaleń,
+     * przez które przeszły jego elementy, a sequence - kolejność utworzenia.
+     */
+    private final class Run {
+
+        private final Path file;
+        private final int level;
+        private final long sequence;
+        private FileChannel channel;
+        private ByteBuffer buffer;
+        private long filePosition;
+        private long nextRecordOffset;
+        private long remaining;
+        E head;
+
+        Run(Path file, long count, int level, long sequence) {
+            this.file = file;
+            this.level = level;
+            this.sequence = sequence;
+            this.remaining = count;
+            this.buffer = ByteBuffer.allocate(bufferSize).flip();
+            try {
+                this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Wczytuje kolejny rekord do head - false, gdy przebieg się skończył.
+         */
+        boolean advance() {
+            if (remaining == 0) {
+                head = null;
+                return false;
+            }
+            try {
+                fill(RECORD_HEADER_BYTES);
+                final int length = buffer.getInt();
+                fill(length);
+                final byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                head = serializer.deserialize(bytes);
+                nextRecordOffset += RECORD_HEADER_BYTES + length;
+                remaining--;
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void fill(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocate(bytes).put(buffer).flip();
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                final int read = channel.read(buffer, filePosition);
+                if (read < 0) {
+                    throw new IOException("truncated run file: " + file);
+                }
+                filePosition += read;
+            }
+            buffer.flip();
+        }
+
+        /**
+         * Czoło i nieprzeczytane rekordy - odczyt pozycyjny, który nie zmienia stanu przebiegu.
+         */
+        Iterator<E> scan() {
+            final E first = head;
+            final long count = remaining;
+            return new Iterator<>() {
+                private long offset = nextRecordOffset;
+                private long left = count + 1;
+
+                @Override
+                public boolean hasNext() {
+                    return left > 0;
+                }
+
+                @Override
+                public E next() {
+                    if (left == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    left--;
+                    if (left == count) {
+                        return first;
+                    }
+                    try {
+                        final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+                        readFully(header, offset);
+                        final ByteBuffer bytes = ByteBuffer.allocate(header.flip().getInt());
+                        readFully(bytes, offset + RECORD_HEADER_BYTES);
+                        offset += RECORD_HEADER_BYTES + bytes.capacity();
+                        return serializer.deserialize(bytes.array());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+        }
+
+        private void readFully(ByteBuffer target, long position) throws IOException {
+            while (target.hasRemaining()) {
+                if (channel.read(target, position + target.position()) < 0) {
+                    throw new IOException("truncated run file: " + file);
+                }
+            }
+        }
+
+        void delete() {
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public static final class Builder<E> {
+
+        private final Serializer<E> serializer;
+        private final Comparator<? super E> comparator;
+        private int memoryBudget = 1 << 20;
+        private int maxOpenRuns = 64;
+        private int bufferSize = 64 * 1024;
+        private Path directory;
+
+        private Builder(Serializer<E> serializer, Comparator<? super E> comparator) {
+            this.serializer = Objects.requireNonNull(serializer);
+            this.comparator = Objects.requireNonNull(comparator);
+        }
+
+        /**
+         * Maksymalna liczba elementów trzymanych w pamięci - jej przekroczenie zapisuje przebieg na dysk.
+         */
+        public Builder<E> memoryBudget(int elements) {
+            if (elements <= 0) {
+                throw new IllegalArgumentException("memory budget must be positive: " + elements);
+            }
+            this.memoryBudget = elements;
+            return this;
+        }
+
+        /**
+         * Liczba przebiegów jednego poziomu, po której zebraniu są scalane w jeden przebieg poziomu wyżej.
+         */
+        public Builder<E> maxOpenRuns(int maxOpenRuns) {
+            if (maxOpenRuns < 2) {
+                throw new IllegalArgumentException("at least 2 open runs are required: " + maxOpenRuns);
+            }
+            this.maxOpenRuns = maxOpenRuns;
+            return this;
+        }
+
+        /**
+         * Rozmiar bufora zapisu i bufora odczytu każdego przebiegu w bajtach.
+         */
+        public Builder<E> bufferSize(int bytes) {
+            if (bytes < RECORD_HEADER_BYTES) {
+                throw new IllegalArgumentException("buffer too small: " + bytes);
+            }
+            this.bufferSize = bytes;
+            return this;
+        }
+
+        /**
+         * Katalog na pliki przebiegów - domyślnie nowy katalog tymczasowy usuwany przy close().
+         */
+        public Builder<E> directory(Path directory) {
+            this.directory = Objects.requireNonNull(directory);
+            return this;
+        }
+
+        public ExternalPriorityQueue<E> build() {
+            if (directory != null) {
+                return new ExternalPriorityQueue<>(this, directory, false);
+            }
+            try {
+                return new ExternalPriorityQueue<>(this, Files.createTempDirectory("external-priority-queue"), true);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package pl.michalpolom.collections;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <h1>FrontCodedStringSet</h1>
+ * Niemodyfikowalny, posortowany zbiór napisów w kodowaniu przyrostowym (front coding): klucze w UTF-8 są posortowane
+ * i podzielone na bloki po 16 - pierwszy klucz bloku jest zapisany w całości, każdy następny jako długość wspólnego
+ * prefiksu z poprzednim i reszta bajtów. Przy posortowanych słownikach (nazwy, ścieżki, adresy) to zwykle kilka bajtów na klucz.<p>
+ * contains, indexOf i zapytania o prefiks wyszukują binarnie pierwszy klucz bloku i dekodują najwyżej jeden blok do bufora
+ * bajtów - bez tworzenia obiektów String. countWithPrefix zwraca liczbę kluczy z prefiksem, a withPrefix posortowany widok
+ * listy, który materializuje napisy dopiero w get().<p>
+ * Porządek to porządek bajtów UTF-8, czyli punktów kodowych Unicode - różni się od String.compareTo tylko dla znaków spoza BMP.
+ */
+public final class FrontCodedStringSet extends AbstractSet<String> {
+
+    private static final int BUCKET = 16;
+
+    private final byte[] data;
+    private final int[] buckets;
+    private final int size;
+    private final int maxLength;
+
+    private FrontCodedStringSet(byte[] data, int[] buckets, int size, int maxLength) {
+        this.data = data;
+        this.buckets = buckets;
+        this.size = size;
+        this.maxLength = maxLength;
+    }
+
+    public static FrontCodedStringSet copyOf(Collection<? extends CharSequence> keys) {
+        final byte[][] sorted = new byte[keys.size()][];
+        int count = 0;
+        for (CharSequence key : keys) {
+            sorted[count++] = key.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(sorted, 0, count, Arrays::compareUnsigned);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || !Arrays.equals(sorted[unique - 1], sorted[i])) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        final int[] buckets = new int[(unique + BUCKET - 1) / BUCKET];
+        byte[] data = new byte[64];
+        int position = 0;
+        int maxLength = 0;
+        for (int i = 0; i < unique; i++) {
+            final byte[] key = sorted[i];
+            final int shared = i % BUCKET == 0 ? 0 : commonPrefix(sorted[i - 1], key);
+            final int needed = 10 + key.length - shared;
+            if (position + needed > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, position + needed));
+            }
+            if (i % BUCKET == 0) {
+                buckets[i / BUCKET] = position;
+            } else {
+                position = Utf8Table.writeVarint(data, position, shared);
+            }
+            position = Utf8Table.writeVarint(data, position, key.length - shared);
+            System.arraycopy(key, shared, data, position, key.length - shared);
+            position += key.length - shared;
+            maxLength = Math.max(maxLength, key.length);
+        }
+        return new FrontCodedStringSet(Arrays.copyOf(data, position), buckets, unique, maxLength);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return key instanceof CharSequence text && indexOf(text) >= 0;
+    }
+
+    /**
+     * Pozycja klucza w porządku zbioru albo -1.
+     */
+    public int indexOf(CharSequence key) {
+        final int result = search(key.toString().getBytes(StandardCharsets.UTF_8));
+        return result >= 0 ? result : -1;
+    }
+
+    /**
+     * Klucz na pozycji index - jedyne miejsce, gdzie powstaje String.
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        final Decoder decoder = new Decoder(index / BUCKET);
+        for (int i = index % BUCKET; i >= 0; i--) {
+            decoder.next();
+        }
+        return decoder.string();
+    }
+
+    public int countWithPrefix(CharSequence prefix) {
+        final byte[] bytes = prefix.toString().getBytes(StandardCharsets.UTF_8);
+        return upperBound(bytes) - lowerBound(bytes);
+    }
+
+    /**
+     * Posortowane klucze zaczynające się od prefix - widok, który tworzy napisy dopiero przy odczycie.
+     */
+    public List<String> withPrefix(CharSequence prefix) {
+        final byte[] bytes = prefix.toString().getBytes(StandardCharsets.UTF_8);
+        final int from = lowerBound(bytes);
+        final int to = upperBound(bytes);
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                if (index < 0 || index >= to - from) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return FrontCodedStringSet.this.get(from + index);
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+
+            @Override
+            public Iterator<String> iterator() {
+                return new SortedIterator(from, to);
+            }
+        };
+    }
+
+    /**
+     * Bajty zajęte przez zakodowane klucze.
+     */
+    public int dataBytes() {
+        return data.length;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new SortedIterator(0, size);
+    }
+
+    private int lowerBound(byte[] key) {
+        final int result = search(key);
+        return result >= 0 ? result : -result - 1;
+    }
+
+    /**
+     * Pierwsza pozycja za kluczami z prefiksem - dolna granica najmniejszego ciągu większego od wszystkich takich kluczy.
+     */
+    private int upperBound(byte[] prefix) {
+        int length = prefix.length;
+        while (length > 0 && prefix[length - 1] == (byte) 0xff) {
+            length--;
+        }
+        if (length == 0) {
+            return size;
+        }
+        final byte[] next = Arrays.copyOf(prefix, length);
+        next[length - 1]++;
+        return lowerBound(next);
+    }
+
+    /**
+     * Pozycja klucza albo -(pozycja wstawienia + 1) - jak Arrays.binarySearch.
+     */
+    private int search(byte[] key) {
+        int low = 0;
+        int high = buckets.length - 1;
+        int bucket = -1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final long header = Utf8Table.readVarint(data, buckets[middle]);
+            final int start = (int) (header >>> 32);
+            final int compared = Arrays.compareUnsigned(data, start, start + (int) header, key, 0, key.length);
+            if (compared == 0) {
+                return middle * BUCKET;
+            }
+            if (compared < 0) {
+                bucket = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (bucket < 0) {
+            return -1;
+        }
+        final Decoder decoder = new Decoder(bucket);
+        final int end = Math.min(size, (bucket + 1) * BUCKET);
+        for (int index = bucket * BUCKET; index < end; index++) {
+            decoder.next();
+            final int compared = decoder.compareTo(key);
+            if (compared == 0) {
+                return index;
+            }
+            if (compared > 0) {
+                return -index - 1;
+            }
+        }
+        return -end - 1;
+    }
+
+    private static int commonPrefix(byte[] left, byte[] right) {
+        final int mismatch = Arrays.mismatch(left, right);
+        return mismatch < 0 ? left.length : mismatch;
+    }
+
+    /**
+     * Dekoduje kolejne klucze bloku do jednego bufora - po next() bufor zawiera bieżący klucz.
+     */
+    private final class Decoder {
+
+        private final byte[] buffer = new byte[maxLength];
+        private int position;
+        private int length;
+        private boolean first = true;
+
+        Decoder(int bucket) {
+            start(bucket);
+        }
+
+        Decoder start(int bucket) {
+            position = buckets[bucket];
+            first = true;
+            return this;
+        }
+
+        void next() {
+            int shared = 0;
+            if (!first) {
+                final long header = Utf8Table.readVarint(data, position);
+                shared = (int) header;
+                position = (int) (header >>> 32);
+            }
+            final long header = Utf8Table.readVarint(data, position);
+            final int suffix = (int) header;
+            position = (int) (header >>> 32);
+            System.arraycopy(data, position, buffer, shared, suffix);
+            position += suffix;
+            length = shared + suffix;
+            first = false;
+        }
+
+        int compareTo(byte[] key) {
+            return Arrays.compareUnsigned(buffer, 0, length, key, 0, key.length);
+        }
+
+        String string() {
+            return new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    private final class SortedIterator implements Iterator<String> {
+
+        private final int end;
+        private int index;
+        private Decoder decoder;
+
+        SortedIterator(int from, int end) {
+            this.index = from;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < end;
+        }
+
+        @Override
+        public String next() {
+            if (index >= end) {
+                throw new NoSuchElementException();
+            }
+            if (decoder == null || index % BUCKET == 0) {
+                decoder = decoder == null ? new Decoder(index / BUCKET) : decoder.start(index / BUCKET);
+                for (int i = index % BUCKET; i > 0; i--) {
+                    decoder.next();
+                }
+            }
+            decoder.next();
+            index++;
+            return decoder.string();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <h1>IndexedMap</h1>
+ * Odpowiednik EnumMap dla kluczy znanych dopiero w czasie działania programu - numery nadaje {@link KeyUniverse}.<p>
+ * Wartość leży w tablicy pod numerem klucza, a obecność kluczy opisuje IndexedSet, więc get/put to jedno wyszukanie numeru
+ * i dostęp do tablicy - bez węzłów i bez liczenia hashCode przy każdej kolizji.<p>
+ * Iteracja w kolejności numerów kluczy (jak EnumMap w kolejności deklaracji). Nie pozwala na klucze null, pozwala na wartości null.<p>
+ * Nie jest bezpieczna dla wielowątkowości.
+ */
+public final class IndexedMap<K, V> extends AbstractMap<K, V> {
+
+    private final KeyUniverse<K> universe;
+    private final IndexedSet<K> keys;
+    private Object[] values = new Object[0];
+
+    public IndexedMap(KeyUniverse<K> universe) {
+        this.universe = universe;
+        this.keys = IndexedSet.noneOf(universe);
+    }
+
+    public KeyUniverse<K> universe() {
+        return universe;
+    }
+
+    @Override
+    public int size() {
+        return keys.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return keys.contains(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        final int ordinal = universe.ordinal(Objects.requireNonNull(key));
+        return ordinal >= 0 && ordinal < values.length ? (V) values[ordinal] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        final int ordinal = universe.intern(Objects.requireNonNull(key));
+        if (ordinal >= values.length) {
+            values = Arrays.copyOf(values, Math.max(ordinal + 1, universe.size()));
+        }
+        final V previous = (V) values[ordinal];
+        values[ordinal] = value;
+        keys.add(key);
+        return previous;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        final int ordinal = universe.ordinal(Objects.requireNonNull(key));
+        if (ordinal < 0 || !keys.remove(key)) {
+            return null;
+        }
+        final V previous = (V) values[ordinal];
+        values[ordinal] = null;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        keys.clear();
+        Arrays.fill(values, null);
+    }
+
+    /**
+     * Zbiór kluczy jako IndexedSet (kopia) - gotowy do operacji and/or/andNot z innymi zbiorami tego uniwersum.
+     */
+    public IndexedSet<K> keysCopy() {
+        return keys.copy();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                final Iterator<K> iterator = keys.iterator();
+                return new Iterator<>() {
+                    private K last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        last = iterator.next();
+                        return new IndexedEntry(last, universe.ordinal(last));
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        values[universe.ordinal(last)] = null;
+                        iterator.remove();
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.size();
+            }
+
+            @Override
+            public void clear() {
+                IndexedMap.this.clear();
+            }
+        };
+    }
+
+    private final class IndexedEntry implements Map.Entry<K, V> {
+
+        private final K key;
+        private final int ordinal;
+
+        IndexedEntry(K key, int ordinal) {
+            this.key = key;
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            if (!keys.containsOrdinal(ordinal)) {
+                throw new ConcurrentModificationException();
+            }
+            return (V) values[ordinal];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V setValue(V value) {
+            if (!keys.containsOrdinal(ordinal)) {
+                throw new NoSuchElementException();
+            }
+            final V previous = (V) values[ordinal];
+            values[ordinal] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> entry
+                    && key.equals(entry.getKey())
+                    && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * <h1>IndexedPriorityQueue</h1>
+ * Kolejka priorytetowa na kopcu d-arnym (domyślnie 4 dzieci na węzeł), który jest płytszy niż kopiec binarny PriorityQueue
+ * i lepiej wykorzystuje linie cache przy przesiewaniu w dół.<p>
+ * offerWithHandle zwraca uchwyt (Handle) znający pozycję elementu w kopcu, dzięki czemu zmiana priorytetu (updatePriority,
+ * decreaseKey) i usunięcie elementu kosztują O(log n) zamiast remove + add w O(n).<p>
+ * Porządek naturalny lub Comparator - tak jak w PriorityQueue. Nie pozwala na null. Nie jest bezpieczna dla wielowątkowości.
+ */
+public final class IndexedPriorityQueue<E> extends AbstractQueue<E> {
+
+    private static final int DEFAULT_ARITY = 4;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final Comparator<? super E> comparator;
+    private final int arity;
+    private Handle<E>[] heap;
+    private int size;
+    private int modCount;
+
+    public IndexedPriorityQueue() {
+        this(null, DEFAULT_ARITY);
+    }
+
+    public IndexedPriorityQueue(Comparator<? super E> comparator) {
+        this(comparator, DEFAULT_ARITY);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public IndexedPriorityQueue(Comparator<? super E> comparator, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("arity must be at least 2 but was: " + arity);
+        }
+        this.comparator = comparator;
+        this.arity = arity;
+        this.heap = (Handle<E>[]) new Handle[DEFAULT_CAPACITY];
+    }
+
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        offerWithHandle(e);
+        return true;
+    }
+
+    /**
+     * Dodaje element i zwraca uchwyt, przez który można później zmienić jego priorytet lub go usunąć.
+     */
+    public Handle<E> offerWithHandle(E e) {
+        Objects.requireNonNull(e);
+        if (comparator == null && !(e instanceof Comparable)) {
+            throw new ClassCastException(e.getClass().getName() + " cannot be cast to java.lang.Comparable");
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length + (heap.length >> 1));
+        }
+        final var handle = new Handle<>(this, e);
+        heap[size] = handle;
+        handle.index = size++;
+        siftUp(handle.index);
+        modCount++;
+        return handle;
+    }
+
+    @Override
+    public E poll() {
+        if (size == 0) {
+            return null;
+        }
+        final Handle<E> first = heap[0];
+        removeAt(0);
+        return first.element;
+    }
+
+    @Override
+    public E peek() {
+        return size == 0 ? null : heap[0].element;
+    }
+
+    /**
+     * Przywraca porządek kopca po zmianie priorytetu elementu "w miejscu" (np. zmianie pola w zadaniu).
+     */
+    public void updatePriority(Handle<E> handle) {
+        final int index = checkHandle(handle);
+        if (!siftUp(index)) {
+            siftDown(index);
+        }
+        modCount++;
+    }
+
+    /**
+     * Zastępuje element uchwytu nowym i przesuwa go na właściwe miejsce w O(log n).
+     */
+    public void updatePriority(Handle<E> handle, E element) {
+        checkHandle(handle);
+        handle.element = Objects.requireNonNull(element);
+        updatePriority(handle);
+    }
+
+    /**
+     * Jak {@link #updatePriority(Handle, Object)}, ale nowy element nie może mieć niższego priorytetu od obecnego.
+     */
+    public void decreaseKey(Handle<E> handle, E element) {
+        checkHandle(handle);
+        if (compare(Objects.requireNonNull(element), handle.element) > 0) {
+            throw new IllegalArgumentException("New element has lower priority than the current one");
+        }
+        handle.element = element;
+        siftUp(handle.index);
+        modCount++;
+    }
+
+    /**
+     * Usuwa element wskazywany przez uchwyt w O(log n). Zwraca false, jeśli element już opuścił kolejkę.
+     */
+    public boolean remove(Handle<E> handle) {
+        if (handle.queue != this || handle.index < 0) {
+            return false;
+        }
+        removeAt(handle.index);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        final int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i].index = -1;
+            heap[i] = null;
+        }
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Iteracja w kolejności kopca (jak w PriorityQueue - nie w kolejności priorytetów). remove() usuwa przez uchwyt;
+     * element, który po usunięciu przesunął się w górę przed kursor, jest zwracany na końcu iteracji.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int expectedModCount = modCount;
+            private int cursor;
+            private Handle<E> last;
+            private boolean lastFromHeap;
+            private ArrayDeque<Handle<E>> skipped;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size || (skipped != null && !skipped.isEmpty());
+            }
+
+            @Override
+            public E next() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                lastFromHeap = cursor < size;
+                if (lastFromHeap) {
+                    last = heap[cursor++];
+                } else if (skipped != null && !skipped.isEmpty()) {
+                    last = skipped.poll();
+                } else {
+                    throw new NoSuchElementException();
+                }
+                return last.element;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (last.index >= 0) {
+                    final Handle<E> moved = removeAt(last.index);
+                    if (lastFromHeap && moved == null) {
+                        cursor--;
+                    } else if (lastFromHeap) {
+                        if (skipped == null) {
+                            skipped = new ArrayDeque<>();
+                        }
+                        skipped.add(moved);
+                    }
+                }
+                expectedModCount = modCount;
+                last = null;
+            }
+        };
+    }
+
+    private int indexOf(Object o) {
+        if (o != null) {
+            for (int i = 0; i < size; i++) {
+                if (o.equals(heap[i].element)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int checkHandle(Handle<E> handle) {
+        if (handle.queue != this) {
+            throw new IllegalArgumentException("Handle belongs to a different queue");
+        }
+        if (handle.index < 0) {
+            throw new IllegalStateException("Element is no longer in the queue");
+        }
+        return handle.index;
+    }
+
+    /**
+     * Zwraca ostatni element kopca, jeśli po przeniesieniu na miejsce usuniętego przesunął się w górę - iterator musi go
+     * wtedy oddać osobno, bo kursor jest już za nim.
+     */
+    private Handle<E> removeAt(int index) {
+        final Handle<E> removed = heap[index];
+        final Handle<E> last = heap[--size];
+        heap[size] = null;
+        removed.index = -1;
+        Handle<E> moved = null;
+        if (index != size) {
+            heap[index] = last;
+            last.index = index;
+            if (siftUp(index)) {
+                moved = last;
+            } else {
+                siftDown(index);
+            }
+        }
+        modCount++;
+        return moved;
+    }
+
+    /**
+     * Zwraca true, jeśli element przesunął się w górę kopca.
+     */
+    private boolean siftUp(int index) {
+        final Handle<E> handle = heap[index];
+        final int start = index;
+        while (index > 0) {
+            final int parent = (index - 1) / arity;
+            if (compare(handle.element, heap[parent].element) >= 0) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(handle, index);
+        return index != start;
+    }
+
+    private void siftDown(int index) {
+        final Handle<E> handle = heap[index];
+        while (true) {
+            final int firstChild = arity * index + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int best = firstChild;
+            final int end = Math.min(firstChild + arity, size);
+            for (int child = firstChild + 1; child < end; child++) {
+                if (compare(heap[child].element, heap[best].element) < 0) {
+                    best = child;
+                }
+            }
+            if (compare(heap[best].element, handle.element) >= 0) {
+                break;
+            }
+            place(heap[best], index);
+            index = best;
+        }
+        place(handle, index);
+    }
+
+    private void place(Handle<E> handle, int index) {
+        heap[index] = handle;
+        handle.index = index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(E a, E b) {
+        return comparator == null ? ((Comparable<? super E>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    /**
+     * Uchwyt elementu w kolejce - pamięta aktualną pozycję elementu w kopcu.
+     */
+    public static final class Handle<E> {
+
+        private final IndexedPriorityQueue<E> queue;
+        private E element;
+        private int index;
+
+        private Handle(IndexedPriorityQueue<E> queue, E element) {
+            this.queue = queue;
+            this.element = element;
+        }
+
+        public E element() {
+            return element;
+        }
+
+        public boolean isQueued() {
+            return index >= 0;
+        }
+    }
+}
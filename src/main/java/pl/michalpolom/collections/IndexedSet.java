@@ -0,0 +1,393 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * <h1>IndexedSet</h1>
+ * Odpowiednik EnumSet dla kluczy znanych dopiero w czasie działania programu - numery nadaje {@link KeyUniverse}.<p>
+ * Element to jeden bit w tablicy long[] (tak jak JumboEnumSet), więc 10 mln możliwych elementów zajmuje ok. 1,2 MB.<p>
+ * Metody and/or/andNot to proste pętle po tablicach - JIT (C2) wektoryzuje je instrukcjami SIMD i działają z prędkością
+ * odczytu pamięci. Liczność po operacji zbiorowej liczona jest leniwie.<p>
+ * Nie pozwala dodać null (contains/remove zwracają dla null false). Nie jest bezpieczny dla wielowątkowości.
+ */
+public final class IndexedSet<T> extends AbstractSet<T> {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final KeyUniverse<T> universe;
+    private long[] words;
+    private int size;
+    private boolean sizeKnown;
+    private int modCount;
+
+    private IndexedSet(KeyUniverse<T> universe, long[] words) {
+        this.universe = Objects.requireNonNull(universe);
+        this.words = words;
+        this.sizeKnown = words.length == 0;
+    }
+
+    public static <T> IndexedSet<T> noneOf(KeyUniverse<T> universe) {
+        return new IndexedSet<>(universe, EMPTY);
+    }
+
+    /**
+     * Wszystkie klucze znane uniwersum w chwili wywołania.
+     */
+    public static <T> IndexedSet<T> allOf(KeyUniverse<T> universe) {
+        return range(universe, 0, universe.size());
+    }
+
+    @SafeVarargs
+    public static <T> IndexedSet<T> of(KeyUniverse<T> universe, T... elements) {
+        final var set = noneOf(universe);
+        for (T element : elements) {
+            set.add(element);
+        }
+        return set;
+    }
+
+    public static <T> IndexedSet<T> copyOf(KeyUniverse<T> universe, Collection<? extends T> elements) {
+        final var set = noneOf(universe);
+        set.addAll(elements);
+        return set;
+    }
+
+    /**
+     * Jak EnumSet.range - klucze o numerach od from do to włącznie. Oba klucze muszą już należeć do uniwersum -
+     * range nie nadaje nowych numerów.
+     */
+    public static <T> IndexedSet<T> range(KeyUniverse<T> universe, T from, T to) {
+        final int fromOrdinal = universe.ordinal(Objects.requireNonNull(from));
+        final int toOrdinal = universe.ordinal(Objects.requireNonNull(to));
+        if (fromOrdinal < 0 || toOrdinal < 0) {
+            throw new IllegalArgumentException("Key not in universe: " + (fromOrdinal < 0 ? from : to));
+        }
+        if (fromOrdinal > toOrdinal) {
+            throw new IllegalArgumentException(from + " > " + to);
+        }
+        return range(universe, fromOrdinal, toOrdinal + 1);
+    }
+
+    /**
+     * Klucze uniwersum (znane w chwili wywołania), których nie ma w zbiorze.
+     */
+    public static <T> IndexedSet<T> complementOf(IndexedSet<T> set) {
+        final var complement = allOf(set.universe);
+        complement.andNot(set);
+        return complement;
+    }
+
+    private static <T> IndexedSet<T> range(KeyUniverse<T> universe, int fromOrdinal, int toOrdinal) {
+        final var set = new IndexedSet<>(universe, new long[wordsFor(toOrdinal)]);
+        set.setRange(fromOrdinal, toOrdinal);
+        return set;
+    }
+
+    public KeyUniverse<T> universe() {
+        return universe;
+    }
+
+    public IndexedSet<T> copy() {
+        final var copy = new IndexedSet<>(universe, words.clone());
+        copy.size = size;
+        copy.sizeKnown = sizeKnown;
+        return copy;
+    }
+
+    @Override
+    public boolean add(T t) {
+        final int ordinal = universe.intern(Objects.requireNonNull(t));
+        final int index = ordinal >>> 6;
+        ensureWords(index + 1);
+        final long before = words[index];
+        words[index] = before | (1L << ordinal);
+        if (before == words[index]) {
+            return false;
+        }
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        final int ordinal = universe.ordinal(o);
+        if (ordinal < 0 || (ordinal >>> 6) >= words.length) {
+            return false;
+        }
+        final int index = ordinal >>> 6;
+        final long before = words[index];
+        words[index] = before & ~(1L << ordinal);
+        if (before == words[index]) {
+            return false;
+        }
+        size--;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        final int ordinal = universe.ordinal(o);
+        return ordinal >= 0 && containsOrdinal(ordinal);
+    }
+
+    @Override
+    public int size() {
+        if (!sizeKnown) {
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            size = count;
+            sizeKnown = true;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        if (sizeKnown) {
+            return size == 0;
+        }
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0L);
+        size = 0;
+        sizeKnown = true;
+        modCount++;
+    }
+
+    /**
+     * Część wspólna w miejscu: zostawia tylko elementy obecne również w other.
+     */
+    public void and(IndexedSet<T> other) {
+        checkUniverse(other);
+        final long[] a = words;
+        final long[] b = other.words;
+        final int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            a[i] &= b[i];
+        }
+        Arrays.fill(a, common, a.length, 0L);
+        changed();
+    }
+
+    /**
+     * Suma w miejscu: dodaje wszystkie elementy other.
+     */
+    public void or(IndexedSet<T> other) {
+        checkUniverse(other);
+        ensureWords(other.words.length);
+        final long[] a = words;
+        final long[] b = other.words;
+        for (int i = 0; i < b.length; i++) {
+            a[i] |= b[i];
+        }
+        changed();
+    }
+
+    /**
+     * Różnica w miejscu: usuwa wszystkie elementy other.
+     */
+    public void andNot(IndexedSet<T> other) {
+        checkUniverse(other);
+        final long[] a = words;
+        final long[] b = other.words;
+        final int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            a[i] &= ~b[i];
+        }
+        changed();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean addAll(Collection<? extends T> c) {
+        if (c instanceof IndexedSet<?> other && other.universe == universe) {
+            final int before = size();
+            or((IndexedSet<T>) other);
+            return size() != before;
+        }
+        return super.addAll(c);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean retainAll(Collection<?> c) {
+        if (c instanceof IndexedSet<?> other && other.universe == universe) {
+            final int before = size();
+            and((IndexedSet<T>) other);
+            return size() != before;
+        }
+        return super.retainAll(c);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeAll(Collection<?> c) {
+        if (c instanceof IndexedSet<?> other && other.universe == universe) {
+            final int before = size();
+            andNot((IndexedSet<T>) other);
+            return size() != before;
+        }
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (c instanceof IndexedSet<?> other && other.universe == universe) {
+            final long[] b = other.words;
+            for (int i = 0; i < b.length; i++) {
+                if ((b[i] & ~(i < words.length ? words[i] : 0L)) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.containsAll(c);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof IndexedSet<?> other && other.universe == universe) {
+            final long[] longer = words.length >= other.words.length ? words : other.words;
+            final long[] shorter = longer == words ? other.words : words;
+            for (int i = 0; i < shorter.length; i++) {
+                if (shorter[i] != longer[i]) {
+                    return false;
+                }
+            }
+            for (int i = shorter.length; i < longer.length; i++) {
+                if (longer[i] != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int next = nextOrdinal(0);
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public T next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                last = next;
+                next = nextOrdinal(next + 1);
+                return universe.key(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                IndexedSet.this.remove(universe.key(last));
+                expectedModCount = modCount;
+                last = -1;
+            }
+        };
+    }
+
+    boolean containsOrdinal(int ordinal) {
+        final int index = ordinal >>> 6;
+        return index < words.length && (words[index] & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * Najmniejszy numer elementu zbioru &gt;= from lub -1.
+     */
+    int nextOrdinal(int from) {
+        int index = from >>> 6;
+        if (index >= words.length) {
+            return -1;
+        }
+        long word = words[index] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (index << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++index == words.length) {
+                return -1;
+            }
+            word = words[index];
+        }
+    }
+
+    private void setRange(int fromOrdinal, int toOrdinal) {
+        if (fromOrdinal == toOrdinal) {
+            return;
+        }
+        final int first = fromOrdinal >>> 6;
+        final int last = (toOrdinal - 1) >>> 6;
+        final long firstMask = -1L << fromOrdinal;
+        final long lastMask = -1L >>> -toOrdinal;
+        if (first == last) {
+            words[first] |= firstMask & lastMask;
+        } else {
+            words[first] |= firstMask;
+            Arrays.fill(words, first + 1, last, -1L);
+            words[last] |= lastMask;
+        }
+        changed();
+    }
+
+    private void ensureWords(int required) {
+        if (required > words.length) {
+            words = Arrays.copyOf(words, Math.max(required, wordsFor(universe.size())));
+        }
+    }
+
+    private void changed() {
+        sizeKnown = false;
+        modCount++;
+    }
+
+    private void checkUniverse(IndexedSet<T> other) {
+        if (other.universe != universe) {
+            throw new IllegalArgumentException("Sets belong to different key universes");
+        }
+    }
+
+    private static int wordsFor(int ordinals) {
+        return (ordinals + 63) >>> 6;
+    }
+}
@@ -0,0 +1,235 @@
+package pl.michalpolom.collections;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * <h1>Int2IntOpenHashMap</h1>
+ * Mapa int -&gt; int oparta na dwóch tablicach prymitywów i adresowaniu liniowym (linear probing).<p>
+ * Wpis kosztuje 8 bajtów (podzielone przez współczynnik zapełnienia) zamiast węzła HashMap.Node i dwóch obiektów Integer.<p>
+ * Klucz 0 oznacza wolną komórkę, dlatego jest przechowywany osobno. Nie jest bezpieczna dla wielowątkowości.
+ */
+public final class Int2IntOpenHashMap {
+
+    private static final int FREE = 0;
+
+    private final float loadFactor;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int maxFill;
+    private int size;
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public Int2IntOpenHashMap() {
+        this(OpenHashing.DEFAULT_EXPECTED_SIZE, OpenHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public Int2IntOpenHashMap(int expectedSize) {
+        this(expectedSize, OpenHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public Int2IntOpenHashMap(int expectedSize, float loadFactor) {
+        OpenHashing.checkLoadFactor(loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(OpenHashing.capacityFor(expectedSize, loadFactor));
+    }
+
+    public static Int2IntOpenHashMap toMap(int[] keys, IntUnaryOperator valueFunction) {
+        Objects.requireNonNull(valueFunction);
+        final var map = new Int2IntOpenHashMap(keys.length);
+        for (int key : keys) {
+            map.put(key, valueFunction.applyAsInt(key));
+        }
+        return map;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return key == FREE ? hasZeroKey : find(key) >= 0;
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == FREE) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        final int slot = find(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Zwraca poprzednią wartość lub 0, gdy klucza nie było w mapie.
+     */
+    public int put(int key, int value) {
+        if (key == FREE) {
+            final int previous = hasZeroKey ? zeroValue : 0;
+            zeroValue = value;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            return previous;
+        }
+        final int slot = slotFor(key);
+        if (keys[slot] != FREE) {
+            final int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        insertAt(slot, key, value);
+        return 0;
+    }
+
+    /**
+     * Dodaje increment do wartości klucza (0, gdy klucza nie było) i zwraca nową wartość.
+     */
+    public int addTo(int key, int increment) {
+        if (key == FREE) {
+            final int updated = getOrDefault(FREE, 0) + increment;
+            put(FREE, updated);
+            return updated;
+        }
+        final int slot = slotFor(key);
+        if (keys[slot] != FREE) {
+            return values[slot] += increment;
+        }
+        insertAt(slot, key, increment);
+        return increment;
+    }
+
+    public boolean remove(int key) {
+        if (key == FREE) {
+            if (!hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = false;
+            size--;
+            return true;
+        }
+        final int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        shiftKeys(slot);
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    public void forEach(EntryConsumer action) {
+        Objects.requireNonNull(action);
+        if (hasZeroKey) {
+            action.accept(FREE, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final var builder = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    private int find(int key) {
+        int slot = OpenHashing.mix(key) & mask;
+        int current;
+        while ((current = keys[slot]) != FREE) {
+            if (current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slotFor(int key) {
+        int slot = OpenHashing.mix(key) & mask;
+        int current;
+        while ((current = keys[slot]) != FREE && current != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insertAt(int slot, int key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= maxFill) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    private void shiftKeys(int slot) {
+        int last;
+        while (true) {
+            slot = ((last = slot) + 1) & mask;
+            int current;
+            while (true) {
+                if ((current = keys[slot]) == FREE) {
+                    keys[last] = FREE;
+                    return;
+                }
+                final int home = OpenHashing.mix(current) & mask;
+                if (last <= slot ? last >= home || home > slot : last >= home && home > slot) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[last] = current;
+            values[last] = values[slot];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        final int[] oldKeys = keys;
+        final int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            final int key = oldKeys[i];
+            if (key != FREE) {
+                int slot = OpenHashing.mix(key) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        maxFill = OpenHashing.maxFill(capacity, loadFactor);
+    }
+}
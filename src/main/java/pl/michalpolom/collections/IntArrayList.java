@@ -0,0 +1,269 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * <h1>IntArrayList</h1>
+ * Dynamiczna tablica typu int[] - odpowiednik ArrayList&lt;Integer&gt; bez opakowywania (boxing) elementów.<p>
+ * Każdy element zajmuje 4 bajty zamiast referencji i osobnego obiektu Integer.<p>
+ * Nie jest bezpieczna dla wielowątkowości.
+ */
+public final class IntArrayList {
+
+    private static final int[] EMPTY = {};
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private int[] elements;
+    private int size;
+    private IntListView view;
+
+    public IntArrayList() {
+        this.elements = EMPTY;
+    }
+
+    private IntArrayList(int initialCapacity) {
+        this.elements = initialCapacity == 0 ? EMPTY : new int[initialCapacity];
+    }
+
+    /**
+     * Odpowiednik Lists.newArrayListWithCapacity(int) - dokładna początkowa pojemność.
+     */
+    public static IntArrayList withCapacity(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity cannot be negative but was: " + initialCapacity);
+        }
+        return new IntArrayList(initialCapacity);
+    }
+
+    /**
+     * Odpowiednik Lists.newArrayListWithExpectedSize(int) - pojemność z zapasem wyliczonym z szacowanego rozmiaru.
+     */
+    public static IntArrayList withExpectedSize(int expectedSize) {
+        return new IntArrayList(computeCapacity(expectedSize));
+    }
+
+    public static IntArrayList of(int... values) {
+        final var list = new IntArrayList(values.length);
+        System.arraycopy(values, 0, list.elements, 0, values.length);
+        list.size = values.length;
+        return list;
+    }
+
+    static int computeCapacity(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize cannot be negative but was: " + expectedSize);
+        }
+        final long capacity = 5L + expectedSize + (expectedSize / 10);
+        return (int) Math.min(capacity, Integer.MAX_VALUE - 8);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getInt(int index) {
+        Objects.checkIndex(index, size);
+        return elements[index];
+    }
+
+    public int set(int index, int value) {
+        Objects.checkIndex(index, size);
+        final int previous = elements[index];
+        elements[index] = value;
+        return previous;
+    }
+
+    public void add(int value) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size++] = value;
+        modified();
+    }
+
+    public void add(int index, int value) {
+        Objects.checkIndex(index, size + 1);
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+        modified();
+    }
+
+    public void addAll(int... values) {
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, elements, size, values.length);
+        size += values.length;
+        modified();
+    }
+
+    public int removeAt(int index) {
+        Objects.checkIndex(index, size);
+        final int previous = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modified();
+        return previous;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    public int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void clear() {
+        size = 0;
+        modified();
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > elements.length) {
+            grow(minCapacity);
+        }
+    }
+
+    public void trimToSize() {
+        if (size < elements.length) {
+            elements = size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+        }
+    }
+
+    /**
+     * Iteracja bez alokacji - w przeciwieństwie do Iterator&lt;Integer&gt; nie tworzy obiektów Integer.
+     */
+    public void forEachInt(IntConsumer action) {
+        Objects.requireNonNull(action);
+        final int[] values = elements;
+        final int length = size;
+        for (int i = 0; i < length; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Widok List&lt;Integer&gt; na potrzeby współpracy z API kolekcji - zmiany widoku zmieniają listę i odwrotnie.
+     */
+    public List<Integer> asList() {
+        final IntListView current = view;
+        return current != null ? current : (view = new IntListView());
+    }
+
+    /**
+     * Zmiana strukturalna przez API prymitywne - podbija modCount widoku, więc jego otwarte iteratory rzucą
+     * ConcurrentModificationException jak w ArrayList.
+     */
+    private void modified() {
+        if (view != null) {
+            view.modified();
+        }
+    }
+
+    private void grow(int minCapacity) {
+        final int oldCapacity = elements.length;
+        final int newCapacity = Math.max(minCapacity, oldCapacity == 0 ? DEFAULT_CAPACITY : oldCapacity + (oldCapacity >> 1));
+        elements = Arrays.copyOf(elements, newCapacity);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntArrayList other) || size != other.size) {
+            return false;
+        }
+        return Arrays.equals(elements, 0, size, other.elements, 0, size);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + Integer.hashCode(elements[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        final var builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(elements[i]);
+        }
+        return builder.append(']').toString();
+    }
+
+    private final class IntListView extends AbstractList<Integer> implements RandomAccess {
+
+        void modified() {
+            modCount++;
+        }
+
+        @Override
+        public Integer get(int index) {
+            return getInt(index);
+        }
+
+        @Override
+        public Integer set(int index, Integer element) {
+            return IntArrayList.this.set(index, element);
+        }
+
+        @Override
+        public void add(int index, Integer element) {
+            IntArrayList.this.add(index, element);
+        }
+
+        @Override
+        public Integer remove(int index) {
+            final int previous = removeAt(index);
+            return previous;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Integer value && IntArrayList.this.contains(value);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return o instanceof Integer value ? IntArrayList.this.indexOf(value) : -1;
+        }
+
+        @Override
+        public void clear() {
+            IntArrayList.this.clear();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package pl.michalpolom.collections;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <h1>KeyUniverse</h1>
+ * Interner nadający kluczom kolejne, gęste numery (ordinal) - odpowiednik Enum.ordinal() dla wartości znanych dopiero w czasie
+ * działania programu (identyfikatory tenantów, flagi funkcji).<p>
+ * Raz nadany numer nie zmienia się i nie jest zwalniany. Odczyt numeru jest bez blokad, nadawanie nowych numerów odbywa się pod ReentrantLock (bez przypinania wątków wirtualnych).<p>
+ * Wspólny dla IndexedSet i IndexedMap - operacje zbiorowe wymagają zbiorów z tego samego uniwersum.
+ */
+public final class KeyUniverse<T> {
+
+    private final ConcurrentHashMap<T, Integer> ordinals = new ConcurrentHashMap<>();
+    private final ReentrantLock registerLock = new ReentrantLock();
+    private volatile Object[] keys = new Object[16];
+    private volatile int size;
+
+    public KeyUniverse() {
+    }
+
+    @SafeVarargs
+    public static <T> KeyUniverse<T> of(T... keys) {
+        final var universe = new KeyUniverse<T>();
+        for (T key : keys) {
+            universe.intern(key);
+        }
+        return universe;
+    }
+
+    /**
+     * Numer klucza - nadaje nowy, jeśli klucz nie był jeszcze znany.
+     */
+    public int intern(T key) {
+        final Integer ordinal = ordinals.get(Objects.requireNonNull(key));
+        return ordinal != null ? ordinal : register(key);
+    }
+
+    /**
+     * Numer klucza lub -1, jeśli klucz nie należy do uniwersum.
+     */
+    public int ordinal(Object key) {
+        final Integer ordinal = key == null ? null : ordinals.get(key);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T key(int ordinal) {
+        Objects.checkIndex(ordinal, size);
+        return (T) keys[ordinal];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int register(T key) {
+        registerLock.lock();
+        try {
+            final Integer existing = ordinals.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            final int ordinal = size;
+            Object[] current = keys;
+            if (ordinal == current.length) {
+                current = Arrays.copyOf(current, current.length << 1);
+            }
+            current[ordinal] = key;
+            keys = current;
+            size = ordinal + 1;
+            ordinals.put(key, ordinal);
+            return ordinal;
+        } finally {
+            registerLock.unlock();
+        }
+    }
+}
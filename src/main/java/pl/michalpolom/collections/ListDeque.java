@@ -0,0 +1,155 @@
+package pl.michalpolom.collections;
+
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <h1>ListDeque</h1>
+ * Kolekcja będąca jednocześnie List i Deque - tak jak LinkedList, ale z własnym typem dla reversed().<p>
+ * W Javie 21 List i Deque rozszerzają SequencedCollection i dziedziczą sprzeczne domyślne metody (addFirst, getFirst, reversed...),
+ * dlatego interfejs deklaruje je ponownie. Domyślne implementacje metod Deque opierają się na operacjach indeksowanych List.<p>
+ * Nie dopuszcza wartości null - poll/peek zwracają null dla pustej kolekcji.
+ */
+public interface ListDeque<E> extends List<E>, Deque<E> {
+
+    /**
+     * Widok w odwrotnej kolejności - zmiany widoku i oryginału są wzajemnie widoczne.
+     */
+    ListDeque<E> reversed();
+
+    @Override
+    default void addFirst(E e) {
+        add(0, e);
+    }
+
+    @Override
+    default void addLast(E e) {
+        add(size(), e);
+    }
+
+    @Override
+    default boolean offerFirst(E e) {
+        addFirst(e);
+        return true;
+    }
+
+    @Override
+    default boolean offerLast(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    default E removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return remove(0);
+    }
+
+    @Override
+    default E removeLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return remove(size() - 1);
+    }
+
+    @Override
+    default E pollFirst() {
+        return isEmpty() ? null : removeFirst();
+    }
+
+    @Override
+    default E pollLast() {
+        return isEmpty() ? null : removeLast();
+    }
+
+    @Override
+    default E getFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return get(0);
+    }
+
+    @Override
+    default E getLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return get(size() - 1);
+    }
+
+    @Override
+    default E peekFirst() {
+        return isEmpty() ? null : getFirst();
+    }
+
+    @Override
+    default E peekLast() {
+        return isEmpty() ? null : getLast();
+    }
+
+    @Override
+    default boolean removeFirstOccurrence(Object o) {
+        final int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    default boolean removeLastOccurrence(Object o) {
+        final int index = lastIndexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    default boolean offer(E e) {
+        return offerLast(e);
+    }
+
+    @Override
+    default E remove() {
+        return removeFirst();
+    }
+
+    @Override
+    default E poll() {
+        return pollFirst();
+    }
+
+    @Override
+    default E element() {
+        return getFirst();
+    }
+
+    @Override
+    default E peek() {
+        return peekFirst();
+    }
+
+    @Override
+    default void push(E e) {
+        addFirst(e);
+    }
+
+    @Override
+    default E pop() {
+        return removeFirst();
+    }
+
+    @Override
+    default Iterator<E> descendingIterator() {
+        return reversed().iterator();
+    }
+}
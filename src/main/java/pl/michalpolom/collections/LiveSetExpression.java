@@ -0,0 +1,231 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * <h1>LiveSetExpression</h1>
+ * Zmaterializowane wyrażenie na zbiorach (union, intersection, difference, symmetricDifference) nad zbiorami {@link ObservableSet}.<p>
+ * W przeciwieństwie do widoków Sets.union/intersection z Guavy wynik jest trzymany w HashSet i aktualizowany przyrostowo przy każdej
+ * zmianie źródeł - size() i contains() kosztują O(1) niezależnie od głębokości wyrażenia.<p>
+ * Zmiana elementu w źródle kosztuje O(1) na każdy węzeł wyrażenia, który od tego źródła zależy.<p>
+ * Wynik jest niemodyfikowalny. close() odłącza węzeł od jego argumentów. Nie jest bezpieczne dla wielowątkowości.
+ */
+public abstract class LiveSetExpression<E> extends AbstractSet<E> implements AutoCloseable {
+
+    private final List<Consumer<Object>> listeners = new ArrayList<>();
+
+    private LiveSetExpression() {
+    }
+
+    /**
+     * Liść wyrażenia - bieżąca zawartość zbioru źródłowego.
+     */
+    public static <E> LiveSetExpression<E> of(ObservableSet<E> source) {
+        return new Source<>(source);
+    }
+
+    public LiveSetExpression<E> union(LiveSetExpression<E> other) {
+        return new Operation<>(Operator.UNION, this, other);
+    }
+
+    public LiveSetExpression<E> intersection(LiveSetExpression<E> other) {
+        return new Operation<>(Operator.INTERSECTION, this, other);
+    }
+
+    public LiveSetExpression<E> difference(LiveSetExpression<E> other) {
+        return new Operation<>(Operator.DIFFERENCE, this, other);
+    }
+
+    public LiveSetExpression<E> symmetricDifference(LiveSetExpression<E> other) {
+        return new Operation<>(Operator.SYMMETRIC_DIFFERENCE, this, other);
+    }
+
+    @Override
+    public boolean add(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Odłącza węzeł od argumentów - wynik przestaje się aktualizować. Argumenty pozostają podłączone.
+     */
+    @Override
+    public abstract void close();
+
+    abstract void subscribe(Consumer<Object> listener);
+
+    abstract void unsubscribe(Consumer<Object> listener);
+
+    private static final class Source<E> extends LiveSetExpression<E> {
+
+        private final ObservableSet<E> source;
+
+        Source(ObservableSet<E> source) {
+            this.source = Objects.requireNonNull(source);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return source.contains(o);
+        }
+
+        @Override
+        public int size() {
+            return source.size();
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return Collections.unmodifiableSet(source).iterator();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        void subscribe(Consumer<Object> listener) {
+            source.subscribe(listener);
+        }
+
+        @Override
+        void unsubscribe(Consumer<Object> listener) {
+            source.unsubscribe(listener);
+        }
+    }
+
+    private static final class Operation<E> extends LiveSetExpression<E> {
+
+        private final Operator operator;
+        private final LiveSetExpression<E> left;
+        private final LiveSetExpression<E> right;
+        private final HashSet<E> result = new HashSet<>();
+        private final Consumer<Object> onChange = this::reevaluate;
+
+        Operation(Operator operator, LiveSetExpression<E> left, LiveSetExpression<E> right) {
+            this.operator = operator;
+            this.left = Objects.requireNonNull(left);
+            this.right = Objects.requireNonNull(right);
+            for (E element : left) {
+                if (operator.test(true, right.contains(element))) {
+                    result.add(element);
+                }
+            }
+            for (E element : right) {
+                if (operator.test(left.contains(element), true)) {
+                    result.add(element);
+                }
+            }
+            left.subscribe(onChange);
+            right.subscribe(onChange);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return result.contains(o);
+        }
+
+        @Override
+        public int size() {
+            return result.size();
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return Collections.unmodifiableSet(result).iterator();
+        }
+
+        @Override
+        public void close() {
+            left.unsubscribe(onChange);
+            right.unsubscribe(onChange);
+        }
+
+        @Override
+        void subscribe(Consumer<Object> listener) {
+            super.listeners.add(listener);
+        }
+
+        @Override
+        void unsubscribe(Consumer<Object> listener) {
+            super.listeners.remove(listener);
+        }
+
+        /**
+         * Argument zgłosił zmianę elementu - wystarczy ponownie ocenić tylko ten element.
+         * Przy współdzielonych źródłach (np. a ∪ (a ∩ b)) ostatnie powiadomienie widzi już zaktualizowane argumenty.
+         */
+        @SuppressWarnings("unchecked")
+        private void reevaluate(Object element) {
+            final boolean member = operator.test(left.contains(element), right.contains(element));
+            final boolean changed = member ? result.add((E) element) : result.remove(element);
+            if (changed) {
+                final List<Consumer<Object>> listeners = super.listeners;
+                for (int i = 0; i < listeners.size(); i++) {
+                    listeners.get(i).accept(element);
+                }
+            }
+        }
+    }
+
+    private enum Operator {
+        UNION {
+            @Override
+            boolean test(boolean inLeft, boolean inRight) {
+                return inLeft || inRight;
+            }
+        },
+        INTERSECTION {
+            @Override
+            boolean test(boolean inLeft, boolean inRight) {
+                return inLeft && inRight;
+            }
+        },
+        DIFFERENCE {
+            @Override
+            boolean test(boolean inLeft, boolean inRight) {
+                return inLeft && !inRight;
+            }
+        },
+        SYMMETRIC_DIFFERENCE {
+            @Override
+            boolean test(boolean inLeft, boolean inRight) {
+                return inLeft != inRight;
+            }
+        };
+
+        abstract boolean test(boolean inLeft, boolean inRight);
+    }
+}
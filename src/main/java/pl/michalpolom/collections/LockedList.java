@@ -0,0 +1,488 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * <h1>LockedList</h1>
+ * Bezpieczna wielowątkowo lista na ArrayList - zamiennik Vector i Collections.synchronizedList bez synchronized.<p>
+ * Odczyty biorą blokadę odczytu, więc czytelnicy nie czekają na siebie nawzajem, a zapisy blokadę zapisu (ReentrantReadWriteLock).
+ * Czekający wątek jest parkowany przez LockSupport - wątek wirtualny (Java 21) zwalnia wtedy wątek nośny, zamiast być do
+ * niego przypięty (pinning) jak przy monitorze Vector.<p>
+ * Iterator działa na kopii, więc iteracja nie wymaga zewnętrznej synchronizacji jak synchronizedList - a jego remove/set/add
+ * zmieniają listę pod blokadą zapisu (albo rzucają ConcurrentModificationException, jeśli ktoś zmienił ją w międzyczasie).
+ * removeAll, retainAll, removeIf i subList(..).clear() działają pod jedną blokadą zapisu. Operacje złożone
+ * (sprawdź i dodaj, kilka odczytów naraz) wykonuje się przez read / write zamiast synchronized (list) { ... }.
+ */
+public final class LockedList<E> extends AbstractList<E> implements RandomAccess {
+
+    private final ArrayList<E> items;
+    private final Lock readLock;
+    private final Lock writeLock;
+
+    public LockedList() {
+        this(new ArrayList<>());
+    }
+
+    public LockedList(Collection<? extends E> elements) {
+        this(new ArrayList<>(elements));
+    }
+
+    private LockedList(ArrayList<E> items) {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        this.items = items;
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+    }
+
+    /**
+     * Wykonuje kilka odczytów pod jedną blokadą odczytu - lista przekazana do funkcji nie może być modyfikowana.
+     */
+    public <R> R read(Function<? super List<E>, R> action) {
+        readLock.lock();
+        try {
+            return action.apply(Collections.unmodifiableList(items));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Wykonuje operację złożoną pod blokadą zapisu, np. list.write(l -&gt; l.contains(x) || l.add(x)).
+     */
+    public <R> R write(Function<? super List<E>, R> action) {
+        writeLock.lock();
+        try {
+            modCount++;
+            return action.apply(items);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public E get(int index) {
+        readLock.lock();
+        try {
+            return items.get(index);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        readLock.lock();
+        try {
+            return items.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        readLock.lock();
+        try {
+            return items.contains(o);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        readLock.lock();
+        try {
+            return items.indexOf(o);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        readLock.lock();
+        try {
+            return items.lastIndexOf(o);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public E set(int index, E element) {
+        writeLock.lock();
+        try {
+            return items.set(index, element);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean add(E element) {
+        writeLock.lock();
+        try {
+            modCount++;
+            return items.add(element);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void add(int index, E element) {
+        writeLock.lock();
+        try {
+            modCount++;
+            items.add(index, element);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> elements) {
+        final List<E> copy = asList(elements.toArray());
+        writeLock.lock();
+        try {
+            modCount++;
+            return items.addAll(copy);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> elements) {
+        final List<E> copy = asList(elements.toArray());
+        writeLock.lock();
+        try {
+            modCount++;
+            return items.addAll(index, copy);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public E remove(int index) {
+        writeLock.lock();
+        try {
+            modCount++;
+            return items.remove(index);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        writeLock.lock();
+        try {
+            modCount++;
+            return items.remove(o);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        writeLock.lock();
+        try {
+            modCount++;
+            return items.removeIf(filter);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> elements) {
+        writeLock.lock();
+        try {
+            modCount++;
+            return items.removeAll(elements);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> elements) {
+        writeLock.lock();
+        try {
+            modCount++;
+            return items.retainAll(elements);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Wołane przez subList(..).clear() - usuwa cały zakres pod jedną blokadą zapisu.
+     */
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        writeLock.lock();
+        try {
+            modCount++;
+            items.subList(fromIndex, toIndex).clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<E> operator) {
+        writeLock.lock();
+        try {
+            modCount++;
+            items.replaceAll(operator);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void sort(Comparator<? super E> comparator) {
+        writeLock.lock();
+        try {
+            modCount++;
+            items.sort(comparator);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        writeLock.lock();
+        try {
+            modCount++;
+            items.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        readLock.lock();
+        try {
+            items.forEach(action);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        readLock.lock();
+        try {
+            return items.toArray();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        readLock.lock();
+        try {
+            return items.toArray(a);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Iterator po kopii z chwili wywołania - przechodzenie nie rzuca ConcurrentModificationException, a remove() usuwa
+     * element z listy pod blokadą zapisu.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return listIterator(0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        readLock.lock();
+        try {
+            if (index < 0 || index > items.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + items.size());
+            }
+            return new SnapshotIterator(new ArrayList<>(items), modCount, index);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return snapshot().spliterator();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        readLock.lock();
+        try {
+            return items.equals(o);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        readLock.lock();
+        try {
+            return items.hashCode();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        readLock.lock();
+        try {
+            return items.toString();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private List<E> snapshot() {
+        return asList(toArray());
+    }
+
+    /**
+     * Przechodzi kopię listy. remove/set/add zmieniają kopię i - pod blokadą zapisu - listę pod tym samym indeksem,
+     * więc oba indeksy zgadzają się, dopóki listy nie zmieni nikt inny. Wtedy modyfikacja przez iterator rzuca
+     * ConcurrentModificationException zamiast zmienić nie ten element.
+     */
+    private final class SnapshotIterator implements ListIterator<E> {
+
+        private final ListIterator<E> copy;
+        private int expectedModCount;
+        private int last = -1;
+
+        SnapshotIterator(ArrayList<E> copy, int expectedModCount, int index) {
+            this.copy = copy.listIterator(index);
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return copy.hasNext();
+        }
+
+        @Override
+        public E next() {
+            final E element = copy.next();
+            last = copy.previousIndex();
+            return element;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return copy.hasPrevious();
+        }
+
+        @Override
+        public E previous() {
+            final E element = copy.previous();
+            last = copy.nextIndex();
+            return element;
+        }
+
+        @Override
+        public int nextIndex() {
+            return copy.nextIndex();
+        }
+
+        @Override
+        public int previousIndex() {
+            return copy.previousIndex();
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            writeLock.lock();
+            try {
+                checkForComodification();
+                items.remove(last);
+                expectedModCount = ++modCount;
+            } finally {
+                writeLock.unlock();
+            }
+            copy.remove();
+            last = -1;
+        }
+
+        @Override
+        public void set(E element) {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            writeLock.lock();
+            try {
+                checkForComodification();
+                items.set(last, element);
+            } finally {
+                writeLock.unlock();
+            }
+            copy.set(element);
+        }
+
+        @Override
+        public void add(E element) {
+            writeLock.lock();
+            try {
+                checkForComodification();
+                items.add(copy.nextIndex(), element);
+                expectedModCount = ++modCount;
+            } finally {
+                writeLock.unlock();
+            }
+            copy.add(element);
+            last = -1;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> asList(Object[] array) {
+        return (List<T>) Collections.unmodifiableList(Arrays.asList(array));
+    }
+}
@@ -0,0 +1,230 @@
+package pl.michalpolom.collections;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.LongFunction;
+
+/**
+ * <h1>Long2ObjectOpenHashMap</h1>
+ * Mapa long -&gt; V z kluczami w tablicy long[] i adresowaniem liniowym (linear probing) - bez obiektów Long jako kluczy.<p>
+ * Klucz 0 oznacza wolną komórkę, dlatego jest przechowywany osobno.<p>
+ * Pozwala na wartości null. Nie jest bezpieczna dla wielowątkowości.
+ */
+public final class Long2ObjectOpenHashMap<V> {
+
+    private static final long FREE = 0L;
+
+    private final float loadFactor;
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int maxFill;
+    private int size;
+    private boolean hasZeroKey;
+    private V zeroValue;
+
+    public Long2ObjectOpenHashMap() {
+        this(OpenHashing.DEFAULT_EXPECTED_SIZE, OpenHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public Long2ObjectOpenHashMap(int expectedSize) {
+        this(expectedSize, OpenHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public Long2ObjectOpenHashMap(int expectedSize, float loadFactor) {
+        OpenHashing.checkLoadFactor(loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(OpenHashing.capacityFor(expectedSize, loadFactor));
+    }
+
+    public static <V> Long2ObjectOpenHashMap<V> toMap(long[] keys, LongFunction<? extends V> valueFunction) {
+        Objects.requireNonNull(valueFunction);
+        final var map = new Long2ObjectOpenHashMap<V>(keys.length);
+        for (long key : keys) {
+            map.put(key, valueFunction.apply(key));
+        }
+        return map;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return key == FREE ? hasZeroKey : find(key) >= 0;
+    }
+
+    public V get(long key) {
+        return getOrDefault(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(long key, V defaultValue) {
+        if (key == FREE) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        final int slot = find(key);
+        return slot >= 0 ? (V) values[slot] : defaultValue;
+    }
+
+    /**
+     * Zwraca poprzednią wartość lub null, gdy klucza nie było w mapie.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == FREE) {
+            final V previous = zeroValue;
+            zeroValue = value;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            return previous;
+        }
+        final int slot = slotFor(key);
+        if (keys[slot] != FREE) {
+            final V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= maxFill) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Zwraca usuniętą wartość lub null, gdy klucza nie było w mapie.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == FREE) {
+            final V previous = zeroValue;
+            if (hasZeroKey) {
+                hasZeroKey = false;
+                zeroValue = null;
+                size--;
+            }
+            return previous;
+        }
+        final int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        final V previous = (V) values[slot];
+        shiftKeys(slot);
+        size--;
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        Arrays.fill(values, null);
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        Objects.requireNonNull(action);
+        if (hasZeroKey) {
+            action.accept(FREE, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final var builder = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private int find(long key) {
+        int slot = OpenHashing.mix(key) & mask;
+        long current;
+        while ((current = keys[slot]) != FREE) {
+            if (current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slotFor(long key) {
+        int slot = OpenHashing.mix(key) & mask;
+        long current;
+        while ((current = keys[slot]) != FREE && current != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void shiftKeys(int slot) {
+        int last;
+        while (true) {
+            slot = ((last = slot) + 1) & mask;
+            long current;
+            while (true) {
+                if ((current = keys[slot]) == FREE) {
+                    keys[last] = FREE;
+                    values[last] = null;
+                    return;
+                }
+                final int home = OpenHashing.mix(current) & mask;
+                if (last <= slot ? last >= home || home > slot : last >= home && home > slot) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[last] = current;
+            values[last] = values[slot];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            final long key = oldKeys[i];
+            if (key != FREE) {
+                int slot = OpenHashing.mix(key) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        maxFill = OpenHashing.maxFill(capacity, loadFactor);
+    }
+}
@@ -0,0 +1,263 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.LongConsumer;
+
+/**
+ * <h1>LongArrayList</h1>
+ * Dynamiczna tablica typu long[] na identyfikatory, znaczniki czasu i liczniki, które nie mieszczą się w int.<p>
+ * Long.valueOf buforuje tylko wartości od -128 do 127, więc w ArrayList&lt;Long&gt; prawie każdy element to osobny obiekt
+ * (ok. 16 bajtów) plus referencja - tutaj element to 8 bajtów w jednej ciągłej tablicy. Pojemność z withExpectedSize
+ * liczona jest tak samo jak w {@link IntArrayList}.<p>
+ * Nie jest bezpieczna dla wielowątkowości.
+ */
+public final class LongArrayList {
+
+    private static final long[] EMPTY = {};
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private long[] elements;
+    private int size;
+    private LongListView view;
+
+    public LongArrayList() {
+        this.elements = EMPTY;
+    }
+
+    private LongArrayList(int initialCapacity) {
+        this.elements = initialCapacity == 0 ? EMPTY : new long[initialCapacity];
+    }
+
+    /**
+     * Odpowiednik Lists.newArrayListWithCapacity(int) - dokładna początkowa pojemność.
+     */
+    public static LongArrayList withCapacity(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity cannot be negative but was: " + initialCapacity);
+        }
+        return new LongArrayList(initialCapacity);
+    }
+
+    /**
+     * Odpowiednik Lists.newArrayListWithExpectedSize(int) - pojemność z zapasem wyliczonym z szacowanego rozmiaru.
+     */
+    public static LongArrayList withExpectedSize(int expectedSize) {
+        return new LongArrayList(IntArrayList.computeCapacity(expectedSize));
+    }
+
+    public static LongArrayList of(long... values) {
+        final var list = new LongArrayList(values.length);
+        System.arraycopy(values, 0, list.elements, 0, values.length);
+        list.size = values.length;
+        return list;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getLong(int index) {
+        Objects.checkIndex(index, size);
+        return elements[index];
+    }
+
+    public long set(int index, long value) {
+        Objects.checkIndex(index, size);
+        final long previous = elements[index];
+        elements[index] = value;
+        return previous;
+    }
+
+    public void add(long value) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size++] = value;
+        modified();
+    }
+
+    public void add(int index, long value) {
+        Objects.checkIndex(index, size + 1);
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+        modified();
+    }
+
+    public void addAll(long... values) {
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, elements, size, values.length);
+        size += values.length;
+        modified();
+    }
+
+    public long removeAt(int index) {
+        Objects.checkIndex(index, size);
+        final long previous = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modified();
+        return previous;
+    }
+
+    public boolean contains(long value) {
+        return indexOf(value) >= 0;
+    }
+
+    public int indexOf(long value) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void clear() {
+        size = 0;
+        modified();
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > elements.length) {
+            grow(minCapacity);
+        }
+    }
+
+    public void trimToSize() {
+        if (size < elements.length) {
+            elements = size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+        }
+    }
+
+    /**
+     * Iteracja bez alokacji - w przeciwieństwie do Iterator&lt;Long&gt; nie tworzy obiektów Long.
+     */
+    public void forEachLong(LongConsumer action) {
+        Objects.requireNonNull(action);
+        final long[] values = elements;
+        final int length = size;
+        for (int i = 0; i < length; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Widok List&lt;Long&gt; na potrzeby współpracy z API kolekcji - zmiany widoku zmieniają listę i odwrotnie.
+     */
+    public List<Long> asList() {
+        final LongListView current = view;
+        return current != null ? current : (view = new LongListView());
+    }
+
+    /**
+     * Zmiana strukturalna przez API prymitywne - podbija modCount widoku, więc jego otwarte iteratory rzucą
+     * ConcurrentModificationException jak w ArrayList.
+     */
+    private void modified() {
+        if (view != null) {
+            view.modified();
+        }
+    }
+
+    private void grow(int minCapacity) {
+        final int oldCapacity = elements.length;
+        final int newCapacity = Math.max(minCapacity, oldCapacity == 0 ? DEFAULT_CAPACITY : oldCapacity + (oldCapacity >> 1));
+        elements = Arrays.copyOf(elements, newCapacity);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LongArrayList other) || size != other.size) {
+            return false;
+        }
+        return Arrays.equals(elements, 0, size, other.elements, 0, size);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + Long.hashCode(elements[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        final var builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(elements[i]);
+        }
+        return builder.append(']').toString();
+    }
+
+    private final class LongListView extends AbstractList<Long> implements RandomAccess {
+
+        void modified() {
+            modCount++;
+        }
+
+        @Override
+        public Long get(int index) {
+            return getLong(index);
+        }
+
+        @Override
+        public Long set(int index, Long element) {
+            return LongArrayList.this.set(index, element);
+        }
+
+        @Override
+        public void add(int index, Long element) {
+            LongArrayList.this.add(index, element);
+        }
+
+        @Override
+        public Long remove(int index) {
+            final long previous = removeAt(index);
+            return previous;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Long value && LongArrayList.this.contains(value);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return o instanceof Long value ? LongArrayList.this.indexOf(value) : -1;
+        }
+
+        @Override
+        public void clear() {
+            LongArrayList.this.clear();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
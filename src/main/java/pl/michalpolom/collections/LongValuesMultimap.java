@@ -0,0 +1,214 @@
+package pl.michalpolom.collections;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * <h1>LongValuesMultimap</h1>
+ * Odmiana ConcurrentListMultimap z wartościami long (np. listy wystąpień w indeksie odwróconym) - kubełek to long[],
+ * więc wartość kosztuje 8 bajtów zamiast obiektu Long i referencji.<p>
+ * Dopisanie blokuje tylko jeden kosz ConcurrentHashMap, a odczyt jest bez blokad i widzi spójną migawkę kubełka.<p>
+ * Nie pozwala na klucze null.
+ */
+public final class LongValuesMultimap<K> {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final ConcurrentHashMap<K, Bucket> buckets;
+    private final LongAdder size = new LongAdder();
+
+    public LongValuesMultimap() {
+        this.buckets = new ConcurrentHashMap<>();
+    }
+
+    public LongValuesMultimap(int expectedKeys) {
+        this.buckets = new ConcurrentHashMap<>(expectedKeys);
+    }
+
+    public void put(K key, long value) {
+        buckets.compute(Objects.requireNonNull(key), (k, bucket) -> {
+            final Bucket target = bucket != null ? bucket : new Bucket(new long[4], 0);
+            target.append(value);
+            return target;
+        });
+        size.increment();
+    }
+
+    public void putAll(K key, long... values) {
+        if (values.length == 0) {
+            return;
+        }
+        final long[] added = values.clone();
+        buckets.compute(Objects.requireNonNull(key), (k, bucket) -> {
+            final Bucket target = bucket != null ? bucket : new Bucket(new long[added.length], 0);
+            target.appendAll(added);
+            return target;
+        });
+        size.add(added.length);
+    }
+
+    /**
+     * Kopia wartości klucza (pusta tablica, gdy klucza nie ma).
+     */
+    public long[] get(Object key) {
+        final Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            return EMPTY;
+        }
+        final int count = bucket.size;
+        return Arrays.copyOf(bucket.items, count);
+    }
+
+    /**
+     * Przechodzi po migawce wartości klucza bez kopiowania tablicy.
+     */
+    public void forEach(Object key, LongConsumer action) {
+        final Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            final int count = bucket.size;
+            final long[] items = bucket.items;
+            for (int i = 0; i < count; i++) {
+                action.accept(items[i]);
+            }
+        }
+    }
+
+    public int count(Object key) {
+        final Bucket bucket = buckets.get(key);
+        return bucket == null ? 0 : bucket.size;
+    }
+
+    public boolean containsEntry(Object key, long value) {
+        final Bucket bucket = buckets.get(key);
+        return bucket != null && bucket.indexOf(value) >= 0;
+    }
+
+    /**
+     * Usuwa pierwsze wystąpienie wartości z listy klucza.
+     */
+    public boolean remove(Object key, long value) {
+        final boolean[] removed = new boolean[1];
+        buckets.computeIfPresent(castKey(key), (k, bucket) -> {
+            final int index = bucket.indexOf(value);
+            if (index < 0) {
+                return bucket;
+            }
+            removed[0] = true;
+            final int count = bucket.size;
+            if (count == 1) {
+                return null;
+            }
+            final long[] copy = new long[count - 1];
+            System.arraycopy(bucket.items, 0, copy, 0, index);
+            System.arraycopy(bucket.items, index + 1, copy, index, count - index - 1);
+            return new Bucket(copy, count - 1);
+        });
+        if (removed[0]) {
+            size.decrement();
+        }
+        return removed[0];
+    }
+
+    /**
+     * Usuwa klucz i zwraca wszystkie jego wartości.
+     */
+    public long[] removeAll(Object key) {
+        final Bucket removed = buckets.remove(key);
+        if (removed == null) {
+            return EMPTY;
+        }
+        final int count = removed.size;
+        size.add(-count);
+        return Arrays.copyOf(removed.items, count);
+    }
+
+    public boolean containsKey(Object key) {
+        return buckets.containsKey(key);
+    }
+
+    /**
+     * Łączna liczba wartości - przy współbieżnych zmianach przybliżona (jak ConcurrentHashMap.size()).
+     */
+    public long size() {
+        return Math.max(0, size.sum());
+    }
+
+    public boolean isEmpty() {
+        return buckets.isEmpty();
+    }
+
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(buckets.keySet());
+    }
+
+    /**
+     * Usuwa klucze po kolei i odejmuje liczbę ich wartości, jak removeAll - put wykonane w trakcie czyszczenia zostaje
+     * policzone, zamiast zniknąć z size() przy zerowaniu licznika.
+     */
+    public void clear() {
+        for (K key : buckets.keySet()) {
+            final Bucket removed = buckets.remove(key);
+            if (removed != null) {
+                size.add(-removed.size);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private K castKey(Object key) {
+        return (K) Objects.requireNonNull(key);
+    }
+
+    /**
+     * Kubełek zmieniany tylko pod blokadą kosza ConcurrentHashMap - jak w ConcurrentListMultimap: najpierw wartości, potem volatile size.
+     * Czytelnik odczytuje size przed items.
+     */
+    private static final class Bucket {
+
+        private volatile long[] items;
+        private volatile int size;
+
+        Bucket(long[] items, int size) {
+            this.items = items;
+            this.size = size;
+        }
+
+        void append(long value) {
+            long[] current = items;
+            final int count = size;
+            if (count == current.length) {
+                current = Arrays.copyOf(current, count + (count >> 1) + 1);
+            }
+            current[count] = value;
+            items = current;
+            size = count + 1;
+        }
+
+        void appendAll(long[] values) {
+            long[] current = items;
+            final int count = size;
+            if (count + values.length > current.length) {
+                current = Arrays.copyOf(current, Math.max(count + values.length, count + (count >> 1)));
+            }
+            System.arraycopy(values, 0, current, count, values.length);
+            items = current;
+            size = count + values.length;
+        }
+
+        int indexOf(long value) {
+            final int count = size;
+            final long[] current = items;
+            for (int i = 0; i < count; i++) {
+                if (current[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package pl.michalpolom.collections;
+
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <h1>MpmcArrayBlockingQueue</h1>
+ * Ograniczona kolejka wielu producentów i wielu konsumentów (MPMC) na buforze cyklicznym (ring buffer).<p>
+ * offer i poll nie używają blokad: każda komórka ma własny numer sekwencyjny, a producenci i konsumenci rezerwują komórki
+ * przez CAS na dwóch licznikach odseparowanych wypełnieniem (padding), więc nie walczą o tę samą linię cache.<p>
+ * Metody blokujące (put/take) czekają na warunku (ReentrantLock + Condition). Strona przeciwna bierze blokadę tylko
+ * wtedy, gdy ktoś czeka - sprawdza to zwykłym odczytem volatile licznika czekających, więc offer i poll bez czekających
+ * pozostają bez blokad i bez pełnej bariery.<p>
+ * remove(Object) i drainTo blokują na chwilę pojedynczą komórkę (CAS jej numeru sekwencyjnego), zamieniają element na
+ * znacznik usunięcia i zwalniają komórkę - konsumenci czekają na odblokowanie i pomijają znacznik. Numer sekwencyjny
+ * wskazuje jedno konkretne zapełnienie komórki, więc ponowne użycie komórki nie pozwoli usunąć innego elementu (ABA).
+ * Komórka zwalnia się, gdy konsument do niej dojdzie, więc do tego czasu zajmuje miejsce w kolejce.<p>
+ * Pojemność musi być potęgą dwójki. Nie pozwala na null.
+ */
+public final class MpmcArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private static final Object REMOVED = new Object();
+    private static final long LOCKED = -1L;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Object> buffer;
+    private final AtomicLongArray sequences;
+    private final PaddedSequence producerIndex = new PaddedSequence(0);
+    private final PaddedSequence consumerIndex = new PaddedSequence(0);
+    private final AtomicInteger removed = new AtomicInteger();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private volatile int waitingProducers;
+    private volatile int waitingConsumers;
+
+    public MpmcArrayBlockingQueue(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2 but was: " + capacity);
+        }
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity is too large: " + capacity);
+        }
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two but was: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.setRelease(i, i);
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        while (true) {
+            final long position = producerIndex.get();
+            final int index = (int) position & mask;
+            final long delta = sequences.getAcquire(index) - position;
+            if (delta == 0) {
+                if (producerIndex.compareAndSet(position, position + 1)) {
+                    buffer.setPlain(index, e);
+                    sequences.set(index, position + 1);
+                    signal(notEmpty, waitingConsumers);
+                    return true;
+                }
+            } else if (delta < 0) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        while (true) {
+            final long position = consumerIndex.get();
+            final int index = (int) position & mask;
+            final long sequence = sequences.getAcquire(index);
+            if (sequence == LOCKED) {
+                Thread.onSpinWait();
+                continue;
+            }
+            final long delta = sequence - (position + 1);
+            if (delta == 0) {
+                if (consumerIndex.compareAndSet(position, position + 1)) {
+                    final Object e = consume(position, index);
+                    if (e != REMOVED) {
+                        return (E) e;
+                    }
+                }
+            } else if (delta < 0) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        while (true) {
+            final long position = consumerIndex.get();
+            final int index = (int) position & mask;
+            final long sequence = sequences.getAcquire(index);
+            if (sequence == LOCKED) {
+                Thread.onSpinWait();
+                continue;
+            }
+            final long delta = sequence - (position + 1);
+            if (delta < 0) {
+                return null;
+            }
+            final Object e = buffer.get(index);
+            if (delta == 0 && e != null && consumerIndex.get() == position) {
+                if (e != REMOVED) {
+                    return (E) e;
+                }
+                if (consumerIndex.compareAndSet(position, position + 1)) {
+                    consume(position, index);
+                }
+            }
+        }
+    }
+
+    /**
+     * Dodaje elementy po kolei, dopóki jest miejsce. Zwraca liczbę dodanych elementów.
+     */
+    public int offerBatch(Collection<? extends E> elements) {
+        int added = 0;
+        for (E e : elements) {
+            if (!offer(e)) {
+                break;
+            }
+            added++;
+        }
+        return added;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (offer(e)) {
+            return;
+        }
+        lock.lockInterruptibly();
+        try {
+            waitingProducers++;
+            try {
+                VarHandle.fullFence();
+                while (!offer(e)) {
+                    notFull.await();
+                }
+            } finally {
+                waitingProducers--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (offer(e)) {
+            return true;
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            waitingProducers++;
+            try {
+                VarHandle.fullFence();
+                while (!offer(e)) {
+                    if (nanos <= 0) {
+                        return false;
+                    }
+                    nanos = notFull.awaitNanos(nanos);
+                }
+                return true;
+            } finally {
+                waitingProducers--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e = poll();
+        if (e != null) {
+            return e;
+        }
+        lock.lockInterruptibly();
+        try {
+            waitingConsumers++;
+            try {
+                VarHandle.fullFence();
+                while ((e = poll()) == null) {
+                    notEmpty.await();
+                }
+                return e;
+            } finally {
+                waitingConsumers--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = poll();
+        if (e != null) {
+            return e;
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            waitingConsumers++;
+            try {
+                VarHandle.fullFence();
+                while ((e = poll()) == null) {
+                    if (nanos <= 0) {
+                        return null;
+                    }
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+                return e;
+            } finally {
+                waitingConsumers--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wolne komórki - komórka z usuniętym elementem jest zajęta, dopóki konsument do niej nie dojdzie.
+     */
+    @Override
+    public int remainingCapacity() {
+        return capacity - occupied();
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Przenosi elementy z czoła do c. Każdy element jest dodawany do c, zanim opuści kolejkę (komórka jest wtedy
+     * zablokowana), więc wyjątek z c.add zostawia ten element w kolejce.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int drained = 0;
+        while (drained < maxElements) {
+            final long position = consumerIndex.get();
+            final int index = (int) position & mask;
+            final long sequence = sequences.getAcquire(index);
+            if (sequence == LOCKED) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (sequence - (position + 1) < 0) {
+                break;
+            }
+            if (sequence != position + 1 || !sequences.compareAndSet(index, position + 1, LOCKED)) {
+                continue;
+            }
+            try {
+                final Object e = buffer.get(index);
+                if (e != REMOVED) {
+                    c.add((E) e);
+                    buffer.set(index, REMOVED);
+                    removed.incrementAndGet();
+                    drained++;
+                }
+            } finally {
+                sequences.set(index, position + 1);
+            }
+            if (consumerIndex.compareAndSet(position, position + 1)) {
+                consume(position, index);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Przybliżony rozmiar - liczniki producentów i konsumentów czytane są osobno.
+     */
+    @Override
+    public int size() {
+        return Math.max(0, occupied() - removed.get());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Usuwa pierwsze wystąpienie o, zamieniając je w zablokowanej komórce na znacznik usunięcia - konsument, który
+     * zarezerwował tę komórkę, czeka na odblokowanie i pomija znacznik.
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        final long produced = producerIndex.get();
+        for (long position = consumerIndex.get(); position < produced; position++) {
+            if (removeAt(position, o)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Iterator po migawce elementów obecnych w kolejce w chwili wywołania (słabo spójny). remove() usuwa element
+     * z jego komórki, o ile konsument jeszcze go nie zabrał.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        final long produced = producerIndex.get();
+        final long consumed = consumerIndex.get();
+        final int length = (int) Math.max(0, Math.min(capacity, produced - consumed));
+        final long[] positions = new long[length];
+        final Object[] elements = new Object[length];
+        int count = 0;
+        for (long position = consumed; position < consumed + length; position++) {
+            final int index = (int) position & mask;
+            if (sequences.getAcquire(index) == position + 1) {
+                final Object e = buffer.get(index);
+                if (e != null && e != REMOVED) {
+                    positions[count] = position;
+                    elements[count++] = e;
+                }
+            }
+        }
+        final int snapshotSize = count;
+        return new Iterator<>() {
+            private int cursor;
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < snapshotSize;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (cursor >= snapshotSize) {
+                    throw new NoSuchElementException();
+                }
+                last = cursor++;
+                return (E) elements[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                removeAt(positions[last], elements[last]);
+                last = -1;
+            }
+        };
+    }
+
+    /**
+     * Blokuje komórkę przez CAS numeru sekwencyjnego z position + 1 - udaje się tylko dla zapełnienia z tej pozycji,
+     * więc po ponownym użyciu komórki równy element pod inną pozycją nie zostanie usunięty.
+     */
+    private boolean removeAt(long position, Object o) {
+        final int index = (int) position & mask;
+        if (sequences.getAcquire(index) != position + 1) {
+            return false;
+        }
+        final Object candidate = buffer.get(index);
+        if (candidate == null || candidate == REMOVED || !o.equals(candidate)
+                || !sequences.compareAndSet(index, position + 1, LOCKED)) {
+            return false;
+        }
+        try {
+            final Object e = buffer.get(index);
+            if (e == REMOVED || !o.equals(e)) {
+                return false;
+            }
+            buffer.set(index, REMOVED);
+            removed.incrementAndGet();
+            return true;
+        } finally {
+            sequences.set(index, position + 1);
+        }
+    }
+
+    /**
+     * Zabiera element z komórki, którą wątek zarezerwował przez CAS na consumerIndex, i oddaje ją producentom.
+     * Jeśli komórkę blokuje właśnie remove lub drainTo, czeka na jej zwolnienie.
+     */
+    private Object consume(long position, int index) {
+        while (sequences.getAcquire(index) == LOCKED) {
+            Thread.onSpinWait();
+        }
+        final Object e = buffer.getAndSet(index, null);
+        sequences.set(index, position + capacity);
+        if (e == REMOVED) {
+            removed.decrementAndGet();
+        }
+        signal(notFull, waitingProducers);
+        return e;
+    }
+
+    private int occupied() {
+        while (true) {
+            final long consumed = consumerIndex.get();
+            final long produced = producerIndex.get();
+            if (consumed == consumerIndex.get()) {
+                return (int) Math.max(0, Math.min(capacity, produced - consumed));
+            }
+        }
+    }
+
+    /**
+     * Budzi czekającego. Zapis numeru sekwencyjnego komórki (volatile) i odczyt licznika czekających (volatile) są
+     * uporządkowane przez model pamięci, a czekający po zapisie licznika stawia barierę przed ponowną próbą - któraś
+     * strona zobaczy zapis drugiej, więc budzenie nie zginie.
+     */
+    private void signal(Condition condition, int waiting) {
+        if (waiting > 0) {
+            lock.lock();
+            try {
+                condition.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
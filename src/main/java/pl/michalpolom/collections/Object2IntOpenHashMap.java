@@ -0,0 +1,218 @@
+package pl.michalpolom.collections;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * <h1>Object2IntOpenHashMap</h1>
+ * Mapa z kluczem obiektowym i wartością int - zamiennik Map&lt;String, Integer&gt; bez węzłów HashMap.Node i bez boxingu.<p>
+ * Klucze i wartości leżą w dwóch równoległych tablicach, kolizje rozwiązywane są przez adresowanie liniowe (linear probing),
+ * więc wyszukiwanie przegląda sąsiednie komórki pamięci zamiast skakać po referencjach.<p>
+ * Nie pozwala na klucze null. Nie jest bezpieczna dla wielowątkowości.
+ */
+public final class Object2IntOpenHashMap<K> {
+
+    private final float loadFactor;
+    private Object[] keys;
+    private int[] values;
+    private int mask;
+    private int maxFill;
+    private int size;
+
+    public Object2IntOpenHashMap() {
+        this(OpenHashing.DEFAULT_EXPECTED_SIZE, OpenHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public Object2IntOpenHashMap(int expectedSize) {
+        this(expectedSize, OpenHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public Object2IntOpenHashMap(int expectedSize, float loadFactor) {
+        OpenHashing.checkLoadFactor(loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(OpenHashing.capacityFor(expectedSize, loadFactor));
+    }
+
+    /**
+     * Odpowiednik Maps.toMap(keys, String::length) - wartości wyliczane raz, mapa niezależna od wejściowego zbioru.
+     */
+    public static <K> Object2IntOpenHashMap<K> toMap(Iterable<? extends K> keys, ToIntFunction<? super K> valueFunction) {
+        Objects.requireNonNull(valueFunction);
+        final var map = new Object2IntOpenHashMap<K>();
+        for (K key : keys) {
+            map.put(key, valueFunction.applyAsInt(key));
+        }
+        return map;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(Object key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Zwraca wartość dla klucza lub 0, gdy klucza nie ma w mapie.
+     */
+    public int getInt(Object key) {
+        return getOrDefault(key, 0);
+    }
+
+    public int getOrDefault(Object key, int defaultValue) {
+        final int slot = find(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Zwraca poprzednią wartość lub 0, gdy klucza nie było w mapie.
+     */
+    public int put(K key, int value) {
+        final int slot = slotFor(key);
+        if (keys[slot] != null) {
+            final int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        insertAt(slot, key, value);
+        return 0;
+    }
+
+    /**
+     * Dodaje increment do wartości klucza (0, gdy klucza nie było) i zwraca nową wartość.
+     */
+    public int addTo(K key, int increment) {
+        final int slot = slotFor(key);
+        if (keys[slot] != null) {
+            return values[slot] += increment;
+        }
+        insertAt(slot, key, increment);
+        return increment;
+    }
+
+    public boolean remove(Object key) {
+        final int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        shiftKeys(slot);
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjIntConsumer<? super K> action) {
+        Objects.requireNonNull(action);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept((K) keys[i], values[i]);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final var builder = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+
+    private int find(Object key) {
+        Objects.requireNonNull(key);
+        int slot = OpenHashing.mix(key.hashCode()) & mask;
+        Object current;
+        while ((current = keys[slot]) != null) {
+            if (current.equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Slot z kluczem albo pierwszy wolny slot, w którym klucz powinien się znaleźć.
+     */
+    private int slotFor(Object key) {
+        Objects.requireNonNull(key);
+        int slot = OpenHashing.mix(key.hashCode()) & mask;
+        Object current;
+        while ((current = keys[slot]) != null && !current.equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insertAt(int slot, K key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= maxFill) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Usuwanie bez "nagrobków" - przesuwa kolejne elementy klastra na zwolnione miejsce.
+     */
+    private void shiftKeys(int slot) {
+        int last;
+        while (true) {
+            slot = ((last = slot) + 1) & mask;
+            Object current;
+            while (true) {
+                if ((current = keys[slot]) == null) {
+                    keys[last] = null;
+                    return;
+                }
+                final int home = OpenHashing.mix(current.hashCode()) & mask;
+                if (last <= slot ? last >= home || home > slot : last >= home && home > slot) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[last] = current;
+            values[last] = values[slot];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        final Object[] oldKeys = keys;
+        final int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            final Object key = oldKeys[i];
+            if (key != null) {
+                int slot = OpenHashing.mix(key.hashCode()) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        maxFill = OpenHashing.maxFill(capacity, loadFactor);
+    }
+}
@@ -0,0 +1,105 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * <h1>ObservableSet</h1>
+ * HashSet powiadamiający słuchaczy o każdej rzeczywistej zmianie (dodaniu lub usunięciu elementu).<p>
+ * Źródło danych dla {@link LiveSetExpression} - wyrażenia aktualizują swój wynik przyrostowo zamiast przeliczać go przy każdym odczycie.<p>
+ * Pozwala na null. Nie jest bezpieczny dla wielowątkowości.
+ */
+public final class ObservableSet<E> extends AbstractSet<E> {
+
+    private final HashSet<E> elements;
+    private final List<Consumer<Object>> listeners = new ArrayList<>();
+
+    public ObservableSet() {
+        this.elements = new HashSet<>();
+    }
+
+    public ObservableSet(Collection<? extends E> elements) {
+        this.elements = new HashSet<>(elements);
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (!elements.add(e)) {
+            return false;
+        }
+        fireChanged(e);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!elements.remove(o)) {
+            return false;
+        }
+        fireChanged(o);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        final var removed = new ArrayList<>(elements);
+        elements.clear();
+        removed.forEach(this::fireChanged);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return elements.contains(o);
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        final Iterator<E> iterator = elements.iterator();
+        return new Iterator<>() {
+            private E last;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return last = iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                fireChanged(last);
+            }
+        };
+    }
+
+    /**
+     * Słuchacz dostaje element, którego przynależność do zbioru właśnie się zmieniła.
+     */
+    void subscribe(Consumer<Object> listener) {
+        listeners.add(listener);
+    }
+
+    void unsubscribe(Consumer<Object> listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireChanged(Object element) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).accept(element);
+        }
+    }
+}
@@ -0,0 +1,625 @@
+package pl.michalpolom.collections;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <h1>OffHeapHashMap</h1>
+ * Trwała mapa przechowywana w plikach mapowanych do pamięci (MappedByteBuffer) - poza stertą, więc nie obciąża GC.<p>
+ * Indeks (index.bin) to tablica z adresowaniem liniowym: każdy slot zawiera hash klucza i pozycję rekordu w pliku danych.
+ * Rekordy (data.bin) są tylko dopisywane - nadpisanie wartości dopisuje nowy rekord, a stary staje się martwy. Gdy martwe
+ * rekordy zajmują więcej niż żywe, plik danych jest przepisywany od nowa (kompaktowanie) i zmniejsza się.<p>
+ * Ponowne otwarcie mapy jedynie mapuje pliki - nic nie jest deserializowane, więc start nie zależy od rozmiaru danych.<p>
+ * Klucze porównywane są po bajtach z {@link Serializer}. Pozwala na klucz null i wartości null.
+ * Nie jest bezpieczna dla wielowątkowości.
+ */
+public final class OffHeapHashMap<K, V> extends AbstractMap<K, V> implements Closeable {
+
+    private static final String INDEX_FILE = "index.bin";
+    private static final String DATA_FILE = "data.bin";
+
+    private static final int MAGIC = 0x4F484D31;
+    private static final int HEADER_BYTES = 32;
+    private static final int SLOT_BYTES = 16;
+    /**
+     * Największa potęga dwójki, przy której indeks mieści się w jednym MappedByteBuffer (do Integer.MAX_VALUE bajtów).
+     */
+    private static final int MAX_CAPACITY = Integer.highestOneBit((Integer.MAX_VALUE - HEADER_BYTES) / SLOT_BYTES);
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_BYTES = 1L << CHUNK_SHIFT;
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final long FIRST_RECORD = 8;
+    private static final long EMPTY = 0;
+    private static final int NULL_LENGTH = -1;
+    private static final int NULL_KEY_HASH = 0x2F0B3A49;
+    /**
+     * Wynik keyBytes dla klucza innego typu niż K - porównywany przez referencję, więc nie myli się z pustym kluczem.
+     */
+    private static final byte[] FOREIGN_KEY = new byte[0];
+
+    private final Path directory;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private FileChannel dataChannel;
+    private List<MappedByteBuffer> dataChunks = new ArrayList<>();
+
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int mask;
+    private int maxFill;
+    private int size;
+    private long dataEnd;
+    private long deadBytes;
+    private int modCount;
+
+    private OffHeapHashMap(Path directory, Serializer<K> keySerializer, Serializer<V> valueSerializer, int expectedSize) throws IOException {
+        this.directory = directory;
+        this.keySerializer = Objects.requireNonNull(keySerializer);
+        this.valueSerializer = Objects.requireNonNull(valueSerializer);
+        Files.createDirectories(directory);
+        this.dataChannel = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        final Path indexPath = directory.resolve(INDEX_FILE);
+        if (Files.exists(indexPath)) {
+            indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+            if (index.getInt(0) != MAGIC) {
+                throw new IOException("Not an OffHeapHashMap index: " + indexPath);
+            }
+            setCapacity(index.getInt(4));
+            size = index.getInt(8);
+            dataEnd = index.getLong(16);
+            deadBytes = index.getLong(24);
+            ensureMapped(dataEnd);
+        } else {
+            final int capacity = OpenHashing.capacityFor(expectedSize, LOAD_FACTOR);
+            if (capacity > MAX_CAPACITY) {
+                throw new IllegalArgumentException("OffHeapHashMap cannot hold more than " + (int) (MAX_CAPACITY * LOAD_FACTOR) + " entries");
+            }
+            createIndex(indexPath, capacity);
+            dataEnd = FIRST_RECORD;
+            writeHeader();
+        }
+    }
+
+    /**
+     * Otwiera istniejącą mapę z katalogu lub tworzy nową, jeśli katalog jest pusty.
+     */
+    public static <K, V> OffHeapHashMap<K, V> open(Path directory, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        return open(directory, keySerializer, valueSerializer, OpenHashing.DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * Jak {@link #open(Path, Serializer, Serializer)}, ale nowy indeks jest od razu wymiarowany na expectedSize wpisów.
+     */
+    public static <K, V> OffHeapHashMap<K, V> open(Path directory, Serializer<K> keySerializer, Serializer<V> valueSerializer, int expectedSize) {
+        try {
+            return new OffHeapHashMap<>(directory, keySerializer, valueSerializer, expectedSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(keyBytes(key)) >= 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        final int slot = find(keyBytes(key));
+        return slot >= 0 ? readValue(slotOffset(slot)) : null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        final byte[] keyBytes = key == null ? null : keySerializer.serialize(key);
+        final byte[] valueBytes = value == null ? null : valueSerializer.serialize(value);
+        final int hash = hash(keyBytes);
+        int slot = OpenHashing.mix(hash) & mask;
+        long offset;
+        while ((offset = slotOffset(slot)) != EMPTY) {
+            if (slotHash(slot) == hash && keyEquals(offset, keyBytes)) {
+                final V previous = readValue(offset);
+                deadBytes += recordBytes(offset);
+                setSlot(slot, append(keyBytes, valueBytes), hash);
+                compactIfNeeded();
+                writeHeader();
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        setSlot(slot, append(keyBytes, valueBytes), hash);
+        size++;
+        modCount++;
+        if (size >= maxFill) {
+            resize(capacity << 1);
+        }
+        writeHeader();
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        final int slot = find(keyBytes(key));
+        if (slot < 0) {
+            return null;
+        }
+        final V previous = readValue(slotOffset(slot));
+        removeSlot(slot);
+        return previous;
+    }
+
+    /**
+     * Usuwa wszystkie wpisy i zastępuje plik danych pustym (jak przy kompaktowaniu - nowy plik podmieniany atomowo),
+     * więc plik nie rośnie przez kolejne cykle clear. Stare fragmenty zostają zmapowane na usuniętym pliku do czasu
+     * zwolnienia przez GC - skrócenie pliku pod nimi kończyłoby się błędem przy odczycie.
+     */
+    @Override
+    public void clear() {
+        final Path dataPath = directory.resolve(DATA_FILE);
+        final Path tmpPath = directory.resolve(DATA_FILE + ".tmp");
+        try {
+            indexChannel.close();
+            createIndex(directory.resolve(INDEX_FILE), OpenHashing.capacityFor(OpenHashing.DEFAULT_EXPECTED_SIZE, LOAD_FACTOR));
+            Files.deleteIfExists(tmpPath);
+            final FileChannel emptyChannel = FileChannel.open(tmpPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            dataChannel.close();
+            dataChannel = emptyChannel;
+            dataChunks = new ArrayList<>();
+            Files.move(tmpPath, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        size = 0;
+        dataEnd = FIRST_RECORD;
+        deadBytes = 0;
+        modCount++;
+        writeHeader();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Bajty zajęte w pliku danych przez nadpisane i usunięte rekordy, które czekają na kompaktowanie.
+     */
+    public long deadBytes() {
+        return deadBytes;
+    }
+
+    /**
+     * Zapisuje zmienione strony plików na dysk.
+     */
+    public void force() {
+        index.force();
+        dataChunks.forEach(MappedByteBuffer::force);
+    }
+
+    @Override
+    public void close() {
+        force();
+        try {
+            indexChannel.close();
+            dataChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Bajty klucza z get/containsKey/remove. Typu K nie da się sprawdzić po wymazaniu, więc klucz innego typu rozpoznaje
+     * ClassCastException z serializera - taki klucz nie ma wpisu, jak w kontrakcie Map.
+     */
+    private byte[] keyBytes(Object key) {
+        if (key == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked") final K typed = (K) key;
+        try {
+            return keySerializer.serialize(typed);
+        } catch (ClassCastException e) {
+            return FOREIGN_KEY;
+        }
+    }
+
+    private static int hash(byte[] keyBytes) {
+        return keyBytes == null ? NULL_KEY_HASH : Arrays.hashCode(keyBytes);
+    }
+
+    private int find(byte[] keyBytes) {
+        if (keyBytes == FOREIGN_KEY) {
+            return -1;
+        }
+        final int hash = hash(keyBytes);
+        int slot = OpenHashing.mix(hash) & mask;
+        long offset;
+        while ((offset = slotOffset(slot)) != EMPTY) {
+            if (slotHash(slot) == hash && keyEquals(offset, keyBytes)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean keyEquals(long offset, byte[] keyBytes) {
+        final MappedByteBuffer chunk = chunk(offset);
+        final int position = position(offset);
+        final int keyLength = chunk.getInt(position);
+        if (keyBytes == null || keyLength == NULL_LENGTH) {
+            return keyBytes == null && keyLength == NULL_LENGTH;
+        }
+        if (keyLength != keyBytes.length) {
+            return false;
+        }
+        for (int i = 0; i < keyLength; i++) {
+            if (chunk.get(position + RECORD_HEADER_BYTES + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private K readKey(long offset) {
+        final MappedByteBuffer chunk = chunk(offset);
+        final int position = position(offset);
+        final int keyLength = chunk.getInt(position);
+        if (keyLength == NULL_LENGTH) {
+            return null;
+        }
+        final byte[] bytes = new byte[keyLength];
+        chunk.get(position + RECORD_HEADER_BYTES, bytes);
+        return keySerializer.deserialize(bytes);
+    }
+
+    private V readValue(long offset) {
+        final MappedByteBuffer chunk = chunk(offset);
+        final int position = position(offset);
+        final int keyLength = Math.max(0, chunk.getInt(position));
+        final int valueLength = chunk.getInt(position + 4);
+        if (valueLength == NULL_LENGTH) {
+            return null;
+        }
+        final byte[] bytes = new byte[valueLength];
+        chunk.get(position + RECORD_HEADER_BYTES + keyLength, bytes);
+        return valueSerializer.deserialize(bytes);
+    }
+
+    /**
+     * Dopisuje rekord [długość klucza, długość wartości, klucz, wartość]. Rekord nigdy nie przekracza granicy fragmentu pliku.
+     */
+    private long append(byte[] keyBytes, byte[] valueBytes) {
+        final long recordBytes = RECORD_HEADER_BYTES + (keyBytes == null ? 0L : keyBytes.length) + (valueBytes == null ? 0L : valueBytes.length);
+        if (recordBytes > CHUNK_BYTES) {
+            throw new IllegalArgumentException("Entry is too large: " + recordBytes + " bytes");
+        }
+        final long offset = reserve(recordBytes);
+        final MappedByteBuffer chunk = chunk(offset);
+        final int position = position(offset);
+        chunk.putInt(position, keyBytes == null ? NULL_LENGTH : keyBytes.length);
+        chunk.putInt(position + 4, valueBytes == null ? NULL_LENGTH : valueBytes.length);
+        int cursor = position + RECORD_HEADER_BYTES;
+        if (keyBytes != null) {
+            chunk.put(cursor, keyBytes);
+            cursor += keyBytes.length;
+        }
+        if (valueBytes != null) {
+            chunk.put(cursor, valueBytes);
+        }
+        return offset;
+    }
+
+    /**
+     * Rezerwuje recordBytes bajtów na końcu pliku danych - od początku następnego fragmentu, jeśli rekord nie zmieści się w bieżącym.
+     */
+    private long reserve(long recordBytes) {
+        long offset = dataEnd;
+        if (position(offset) + recordBytes > CHUNK_BYTES) {
+            offset = ((offset >>> CHUNK_SHIFT) + 1) << CHUNK_SHIFT;
+        }
+        ensureMapped(offset + recordBytes);
+        dataEnd = offset + recordBytes;
+        return offset;
+    }
+
+    private long recordBytes(long offset) {
+        final MappedByteBuffer chunk = chunk(offset);
+        final int position = position(offset);
+        return RECORD_HEADER_BYTES + (long) Math.max(0, chunk.getInt(position)) + Math.max(0, chunk.getInt(position + 4));
+    }
+
+    private void removeSlot(int slot) {
+        deadBytes += recordBytes(slotOffset(slot));
+        shiftSlots(slot);
+        size--;
+        modCount++;
+        compactIfNeeded();
+        writeHeader();
+    }
+
+    /**
+     * Kompaktuje plik danych, gdy martwe rekordy zajmują więcej niż żywe (i co najmniej MIN_CHUNK_BYTES) - koszt
+     * przepisania rozkłada się na zapisy, które te rekordy unieważniły.
+     */
+    private void compactIfNeeded() {
+        if (deadBytes >= MIN_CHUNK_BYTES && deadBytes > dataEnd - FIRST_RECORD - deadBytes) {
+            compact();
+        }
+    }
+
+    /**
+     * Przepisuje żywe rekordy do nowego pliku danych i podmienia go atomowo. Stare fragmenty zostają zmapowane do czasu
+     * zwolnienia przez GC, więc pozycje w indeksie są zmieniane dopiero po przeniesieniu każdego rekordu.
+     */
+    private void compact() {
+        final Path dataPath = directory.resolve(DATA_FILE);
+        final Path tmpPath = directory.resolve(DATA_FILE + ".tmp");
+        final FileChannel oldChannel = dataChannel;
+        final List<MappedByteBuffer> oldChunks = dataChunks;
+        try {
+            Files.deleteIfExists(tmpPath);
+            dataChannel = FileChannel.open(tmpPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            dataChunks = new ArrayList<>();
+            dataEnd = FIRST_RECORD;
+            for (int slot = 0; slot < capacity; slot++) {
+                final long offset = slotOffset(slot);
+                if (offset != EMPTY) {
+                    final MappedByteBuffer from = oldChunks.get((int) (offset >>> CHUNK_SHIFT));
+                    final int position = position(offset);
+                    final int length = RECORD_HEADER_BYTES + Math.max(0, from.getInt(position)) + Math.max(0, from.getInt(position + 4));
+                    final long moved = reserve(length);
+                    chunk(moved).put(position(moved), from, position, length);
+                    setSlot(slot, moved, slotHash(slot));
+                }
+            }
+            dataChunks.forEach(MappedByteBuffer::force);
+            oldChannel.close();
+            Files.move(tmpPath, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        deadBytes = 0;
+        writeHeader();
+        index.force();
+    }
+
+    private MappedByteBuffer chunk(long offset) {
+        return dataChunks.get((int) (offset >>> CHUNK_SHIFT));
+    }
+
+    /**
+     * Mapuje plik danych do pozycji end. Fragmenty rosną dwukrotnie aż do CHUNK_BYTES, więc mała mapa nie zajmuje 1 GB.
+     */
+    private void ensureMapped(long end) {
+        if (end <= FIRST_RECORD) {
+            return;
+        }
+        final int lastChunk = (int) ((end - 1) >>> CHUNK_SHIFT);
+        try {
+            for (int i = 0; i <= lastChunk; i++) {
+                final long required = i < lastChunk ? CHUNK_BYTES : position(end - 1) + 1L;
+                final long mapped = i < dataChunks.size() ? dataChunks.get(i).capacity() : 0;
+                if (mapped < required) {
+                    final long length = Math.min(CHUNK_BYTES, Math.max(required, Math.max(mapped << 1, MIN_CHUNK_BYTES)));
+                    final MappedByteBuffer chunk = dataChannel.map(FileChannel.MapMode.READ_WRITE, (long) i << CHUNK_SHIFT, length);
+                    if (i < dataChunks.size()) {
+                        dataChunks.set(i, chunk);
+                    } else {
+                        dataChunks.add(chunk);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int position(long offset) {
+        return (int) (offset & (CHUNK_BYTES - 1));
+    }
+
+    /**
+     * Pozycja slotu w pliku indeksu - liczona na long, bo slot * SLOT_BYTES przekracza int przy dużych pojemnościach.
+     */
+    private static int slotPosition(int slot) {
+        return Math.toIntExact(HEADER_BYTES + (long) slot * SLOT_BYTES);
+    }
+
+    private long slotOffset(int slot) {
+        return index.getLong(slotPosition(slot));
+    }
+
+    private int slotHash(int slot) {
+        return index.getInt(slotPosition(slot) + 8);
+    }
+
+    private void setSlot(int slot, long offset, int hash) {
+        final int position = slotPosition(slot);
+        index.putLong(position, offset);
+        index.putInt(position + 8, hash);
+    }
+
+    /**
+     * Usuwanie bez "nagrobków" - przesuwa kolejne sloty klastra na zwolnione miejsce (tak jak w Object2IntOpenHashMap).
+     */
+    private void shiftSlots(int slot) {
+        int last;
+        while (true) {
+            slot = ((last = slot) + 1) & mask;
+            long offset;
+            while (true) {
+                if ((offset = slotOffset(slot)) == EMPTY) {
+                    setSlot(last, EMPTY, 0);
+                    return;
+                }
+                final int home = OpenHashing.mix(slotHash(slot)) & mask;
+                if (last <= slot ? last >= home || home > slot : last >= home && home > slot) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            setSlot(last, offset, slotHash(slot));
+        }
+    }
+
+    /**
+     * Buduje większy indeks w pliku tymczasowym na podstawie zapisanych hashy - bez deserializacji kluczy.
+     */
+    private void resize(int newCapacity) {
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("OffHeapHashMap cannot hold more than " + (int) (MAX_CAPACITY * LOAD_FACTOR) + " entries");
+        }
+        try {
+            final Path indexPath = directory.resolve(INDEX_FILE);
+            final Path tmpPath = directory.resolve(INDEX_FILE + ".tmp");
+            final MappedByteBuffer oldIndex = index;
+            final FileChannel oldChannel = indexChannel;
+            final int oldCapacity = capacity;
+            createIndex(tmpPath, newCapacity);
+            for (int i = 0; i < oldCapacity; i++) {
+                final long offset = oldIndex.getLong(slotPosition(i));
+                if (offset != EMPTY) {
+                    final int hash = oldIndex.getInt(slotPosition(i) + 8);
+                    int slot = OpenHashing.mix(hash) & mask;
+                    while (slotOffset(slot) != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    setSlot(slot, offset, hash);
+                }
+            }
+            writeHeader();
+            index.force();
+            oldChannel.close();
+            Files.move(tmpPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void createIndex(Path path, int newCapacity) throws IOException {
+        Files.deleteIfExists(path);
+        indexChannel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) newCapacity * SLOT_BYTES);
+        setCapacity(newCapacity);
+    }
+
+    private void setCapacity(int newCapacity) {
+        capacity = newCapacity;
+        mask = newCapacity - 1;
+        maxFill = OpenHashing.maxFill(newCapacity, LOAD_FACTOR);
+    }
+
+    private void writeHeader() {
+        index.putInt(0, MAGIC);
+        index.putInt(4, capacity);
+        index.putInt(8, size);
+        index.putLong(16, dataEnd);
+        index.putLong(24, deadBytes);
+    }
+
+    /**
+     * Przechodzi sloty cyklicznie od pierwszego pustego - żaden klaster nie zawija się wtedy przez koniec przejścia, więc
+     * remove() przesuwa wpisy tylko na bieżący slot lub dalej i żaden wpis nie jest pominięty ani zwrócony dwa razy.
+     */
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private final int start = firstEmpty();
+        private int expectedModCount = modCount;
+        private int step;
+        private int current = -1;
+        private int next = advance(1);
+
+        @Override
+        public boolean hasNext() {
+            return next < capacity;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            step = next;
+            current = (start + step) & mask;
+            next = advance(step + 1);
+            final long offset = slotOffset(current);
+            return new SimpleImmutableEntry<>(readKey(offset), readValue(offset));
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeSlot(current);
+            expectedModCount = modCount;
+            current = -1;
+            next = advance(step);
+        }
+
+        private int firstEmpty() {
+            int slot = 0;
+            while (slotOffset(slot) != EMPTY) {
+                slot++;
+            }
+            return slot;
+        }
+
+        private int advance(int from) {
+            int position = from;
+            while (position < capacity && slotOffset((start + position) & mask) == EMPTY) {
+                position++;
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package pl.michalpolom.collections;
+
+/**
+ * Wspólne obliczenia dla map z adresowaniem otwartym (linear probing).
+ */
+final class OpenHashing {
+
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private OpenHashing() {
+    }
+
+    /**
+     * Miesza bity hasha, aby sąsiednie klucze (np. kolejne id) nie trafiały do sąsiednich slotów.
+     */
+    static int mix(int hash) {
+        final int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int mix(long key) {
+        return mix((int) (key ^ (key >>> 32)));
+    }
+
+    static void checkLoadFactor(float loadFactor) {
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1) but was: " + loadFactor);
+        }
+    }
+
+    /**
+     * Najmniejsza potęga dwójki, która pomieści expectedSize elementów bez przekroczenia loadFactor.
+     */
+    static int capacityFor(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize cannot be negative but was: " + expectedSize);
+        }
+        final long needed = Math.max(2, (long) Math.ceil(expectedSize / (double) loadFactor));
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("expectedSize is too large: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    static int maxFill(int capacity, float loadFactor) {
+        return Math.min(capacity - 1, (int) Math.ceil(capacity * (double) loadFactor));
+    }
+}
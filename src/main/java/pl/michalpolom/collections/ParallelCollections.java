@@ -0,0 +1,380 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <h1>ParallelCollections</h1>
+ * Odpowiedniki Lists.partition, Lists.cartesianProduct i Sets.cartesianProduct, których spliteratory dzielą się dokładnie
+ * na połowy zakresu indeksów - parallelStream() rozkłada pracę równo między wątki ForkJoinPool.<p>
+ * Spliterator iloczynu kartezjańskiego liczy indeksy składowych raz na początku zakresu, a dalej przesuwa je jak licznik
+ * (bez dzielenia i modulo na każdy element, jak w get(index)).<p>
+ * parallelFilterInto sprawdza predykat równolegle, a wyniki dopisuje do docelowej kolekcji lub mapy w kolejności źródła
+ * z jednego wątku - więc cel nie musi być bezpieczny wielowątkowo i może być wcześniej zaalokowany z odpowiednim rozmiarem.
+ */
+public final class ParallelCollections {
+
+    private ParallelCollections() {
+    }
+
+    /**
+     * Kolejne podlisty (widoki subList) po size elementów, ostatnia może być krótsza - jak Lists.partition.
+     */
+    public static <T> List<List<T>> partition(List<T> list, int size) {
+        Objects.requireNonNull(list);
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        return new Partition<>(list, size);
+    }
+
+    /**
+     * Iloczyn kartezjański list - ostatnia lista zmienia się najszybciej, jak w Lists.cartesianProduct.
+     * Listy są kopiowane, elementy wyniku są niemodyfikowalne. Nie pozwala na null.
+     */
+    public static <T> List<List<T>> cartesianProduct(List<? extends List<? extends T>> lists) {
+        return new CartesianList<>(axes(lists));
+    }
+
+    /**
+     * Iloczyn kartezjański zbiorów (w kolejności iteracji zbiorów) - jak Sets.cartesianProduct.
+     */
+    public static <T> Set<List<T>> cartesianProductOfSets(List<? extends Set<? extends T>> sets) {
+        return new CartesianSet<>(new CartesianList<>(axes(sets)), List.copyOf(sets));
+    }
+
+    /**
+     * Spliterator dzielący listę o dostępie swobodnym po indeksach - także dla widoków, które same dzielą się źle.
+     */
+    public static <T> Spliterator<T> spliterator(List<T> list) {
+        if (!(list instanceof RandomAccess)) {
+            return list.spliterator();
+        }
+        return new IndexSpliterator<>(list::get, 0, list.size(), Spliterator.ORDERED);
+    }
+
+    public static <T> Stream<T> parallelStream(Collection<T> collection) {
+        if (collection instanceof List<T> list) {
+            return StreamSupport.stream(spliterator(list), true);
+        }
+        return collection.parallelStream();
+    }
+
+    /**
+     * Dopisuje do target elementy spełniające predykat, w kolejności źródła.
+     */
+    public static <T, C extends Collection<? super T>> C parallelFilterInto(Collection<? extends T> source,
+                                                                              Predicate<? super T> predicate,
+                                                                              C target) {
+        Objects.requireNonNull(predicate);
+        if (source instanceof List<? extends T> list && list instanceof RandomAccess) {
+            final int[] matches = IntStream.range(0, list.size()).parallel().filter(i -> predicate.test(list.get(i))).toArray();
+            for (int index : matches) {
+                target.add(list.get(index));
+            }
+            return target;
+        }
+        final Object[] matches = parallelStream(source).filter(predicate).toArray();
+        for (Object match : matches) {
+            @SuppressWarnings("unchecked") final T element = (T) match;
+            target.add(element);
+        }
+        return target;
+    }
+
+    /**
+     * Dopisuje do target wpisy, których klucz spełnia predykat - jak Maps.filterKeys, ale bez widoku.
+     */
+    public static <K, V, M extends Map<? super K, ? super V>> M parallelFilterKeysInto(Map<K, V> source,
+                                                                                      Predicate<? super K> predicate,
+                                                                                      M target) {
+        return parallelFilterEntriesInto(source, entry -> predicate.test(entry.getKey()), target);
+    }
+
+    public static <K, V, M extends Map<? super K, ? super V>> M parallelFilterValuesInto(Map<K, V> source,
+                                                                                        Predicate<? super V> predicate,
+                                                                                        M target) {
+        return parallelFilterEntriesInto(source, entry -> predicate.test(entry.getValue()), target);
+    }
+
+    public static <K, V, M extends Map<? super K, ? super V>> M parallelFilterEntriesInto(Map<K, V> source,
+                                                                                         Predicate<? super Map.Entry<K, V>> predicate,
+                                                                                         M target) {
+        Objects.requireNonNull(predicate);
+        final Object[] matches = source.entrySet().parallelStream().filter(predicate).toArray();
+        for (Object match : matches) {
+            @SuppressWarnings("unchecked") final Map.Entry<K, V> entry = (Map.Entry<K, V>) match;
+            target.put(entry.getKey(), entry.getValue());
+        }
+        return target;
+    }
+
+    private static Object[][] axes(List<? extends Collection<?>> collections) {
+        final Object[][] axes = new Object[collections.size()][];
+        for (int i = 0; i < axes.length; i++) {
+            axes[i] = collections.get(i).toArray();
+            for (Object element : axes[i]) {
+                Objects.requireNonNull(element);
+            }
+        }
+        return axes;
+    }
+
+    private static final class Partition<T> extends AbstractList<List<T>> implements RandomAccess {
+
+        private final List<T> list;
+        private final int chunk;
+
+        Partition(List<T> list, int chunk) {
+            this.list = list;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public List<T> get(int index) {
+            Objects.checkIndex(index, size());
+            final int from = index * chunk;
+            return list.subList(from, Math.min(from + chunk, list.size()));
+        }
+
+        @Override
+        public int size() {
+            return (int) (((long) list.size() + chunk - 1) / chunk);
+        }
+
+        @Override
+        public Spliterator<List<T>> spliterator() {
+            return new IndexSpliterator<>(this::get, 0, size(), Spliterator.ORDERED | Spliterator.NONNULL);
+        }
+    }
+
+    private static final class CartesianList<T> extends AbstractList<List<T>> implements RandomAccess {
+
+        private final Object[][] axes;
+        private final int size;
+
+        CartesianList(Object[][] axes) {
+            this.axes = axes;
+            long size = 1;
+            for (Object[] axis : axes) {
+                size *= axis.length;
+                if (size > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("cartesian product too large: more than " + Integer.MAX_VALUE + " elements");
+                }
+            }
+            this.size = (int) size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<T> get(int index) {
+            Objects.checkIndex(index, size);
+            final Object[] tuple = new Object[axes.length];
+            for (int axis = axes.length - 1; axis >= 0; axis--) {
+                final int length = axes[axis].length;
+                tuple[axis] = axes[axis][index % length];
+                index /= length;
+            }
+            return (List<T>) List.of(tuple);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Spliterator<List<T>> spliterator() {
+            return new CartesianSpliterator<>(axes, 0, size, Spliterator.ORDERED);
+        }
+    }
+
+    private static final class CartesianSet<T> extends AbstractSet<List<T>> {
+
+        private final CartesianList<T> product;
+        private final List<Set<? extends T>> sets;
+
+        CartesianSet(CartesianList<T> product, List<Set<? extends T>> sets) {
+            this.product = product;
+            this.sets = sets;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof List<?> tuple) || tuple.size() != sets.size()) {
+                return false;
+            }
+            for (int i = 0; i < tuple.size(); i++) {
+                if (!sets.get(i).contains(tuple.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Iterator<List<T>> iterator() {
+            return product.iterator();
+        }
+
+        @Override
+        public int size() {
+            return product.size();
+        }
+
+        @Override
+        public Spliterator<List<T>> spliterator() {
+            return new CartesianSpliterator<>(product.axes, 0, product.size, Spliterator.ORDERED | Spliterator.DISTINCT);
+        }
+    }
+
+    /**
+     * Zakres [from, to) listy - trySplit oddaje pierwszą połowę, więc podział jest dokładny.
+     */
+    private static final class IndexSpliterator<T> implements Spliterator<T> {
+
+        private final IntFunction<T> get;
+        private final int characteristics;
+        private int from;
+        private final int to;
+
+        IndexSpliterator(IntFunction<T> get, int from, int to, int characteristics) {
+            this.get = get;
+            this.from = from;
+            this.to = to;
+            this.characteristics = characteristics | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (from >= to) {
+                return false;
+            }
+            action.accept(get.apply(from++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            for (int i = from; i < to; i++) {
+                action.accept(get.apply(i));
+            }
+            from = to;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            final int middle = (from + to) >>> 1;
+            if (middle <= from) {
+                return null;
+            }
+            final Spliterator<T> prefix = new IndexSpliterator<>(get, from, middle, characteristics);
+            from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+    }
+
+    /**
+     * Zakres [from, to) iloczynu kartezjańskiego - indeksy składowych (digits) wyliczane przy pierwszym elemencie,
+     * potem zwiększane jak licznik.
+     */
+    private static final class CartesianSpliterator<T> implements Spliterator<List<T>> {
+
+        private final Object[][] axes;
+        private final int characteristics;
+        private int from;
+        private final int to;
+        private int[] digits;
+
+        CartesianSpliterator(Object[][] axes, int from, int to, int characteristics) {
+            this.axes = axes;
+            this.from = from;
+            this.to = to;
+            this.characteristics = characteristics | Spliterator.SIZED | Spliterator.SUBSIZED
+                    | Spliterator.IMMUTABLE | Spliterator.NONNULL;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super List<T>> action) {
+            if (from >= to) {
+                return false;
+            }
+            action.accept(next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super List<T>> action) {
+            while (from < to) {
+                action.accept(next());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<T> next() {
+            if (digits == null) {
+                digits = new int[axes.length];
+                int index = from;
+                for (int axis = axes.length - 1; axis >= 0; axis--) {
+                    digits[axis] = index % axes[axis].length;
+                    index /= axes[axis].length;
+                }
+            }
+            final Object[] tuple = new Object[axes.length];
+            for (int axis = 0; axis < axes.length; axis++) {
+                tuple[axis] = axes[axis][digits[axis]];
+            }
+            from++;
+            for (int axis = axes.length - 1; axis >= 0 && ++digits[axis] == axes[axis].length; axis--) {
+                digits[axis] = 0;
+            }
+            return (List<T>) List.of(tuple);
+        }
+
+        @Override
+        public Spliterator<List<T>> trySplit() {
+            final int middle = (from + to) >>> 1;
+            if (middle <= from) {
+                return null;
+            }
+            final Spliterator<List<T>> prefix = new CartesianSpliterator<>(axes, from, middle, characteristics);
+            from = middle;
+            digits = null;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+    }
+}
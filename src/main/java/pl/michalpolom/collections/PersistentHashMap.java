@@ -0,0 +1,556 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <h1>PersistentHashMap</h1>
+ * Niemodyfikowalna mapa (jak Map.of()) z trwałymi wersjami: with/without zwracają nową mapę w O(log32 n),
+ * współdzieląc z poprzednią wersją wszystkie niezmienione węzły (structural sharing) zamiast kopiować całość.<p>
+ * Struktura to HAMT (hash array mapped trie) w wariancie CHAMP: każdy poziom drzewa zużywa 5 bitów hasha,
+ * a węzeł trzyma osobne bitmapy dla wpisów i poddrzew.<p>
+ * Do masowego ładowania służy {@link #builder()} - modyfikuje węzły w miejscu, dopóki należą do tego samego buildera.<p>
+ * Nie dopuszcza wartości null. Metody put/remove rzucają UnsupportedOperationException.
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int HASH_BITS = 32;
+    private static final Object NOT_FOUND = new Object();
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentHashMap<?, ?> persistent) {
+            return (PersistentHashMap<K, V>) persistent;
+        }
+        final Builder<K, V> builder = builder();
+        map.forEach(builder::put);
+        return builder.build();
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>(empty());
+    }
+
+    /**
+     * Builder zaczynający od tej wersji mapy - ta wersja pozostaje niezmieniona.
+     */
+    public Builder<K, V> toBuilder() {
+        return new Builder<>(this);
+    }
+
+    /**
+     * Nowa wersja mapy z dodanym lub zastąpionym wpisem.
+     */
+    public PersistentHashMap<K, V> with(K key, V value) {
+        final var change = new Change();
+        final Node newRoot = root.put(null, Objects.requireNonNull(key), Objects.requireNonNull(value), hash(key), 0, change);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size + (change.sizeDelta));
+    }
+
+    /**
+     * Nowa wersja mapy bez wpisu dla klucza.
+     */
+    public PersistentHashMap<K, V> without(Object key) {
+        final var change = new Change();
+        final Node newRoot = root.remove(null, Objects.requireNonNull(key), hash(key), 0, change);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size + change.sizeDelta);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && root.find(key, hash(key), 0) != NOT_FOUND;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null) {
+            return null;
+        }
+        final Object value = root.find(key, hash(key), 0);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        return OpenHashing.mix(key.hashCode());
+    }
+
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    /**
+     * Tymczasowa, modyfikowalna wersja mapy do masowego ładowania. Po build() dalsze zmiany nie wpływają na zbudowaną mapę.
+     */
+    public static final class Builder<K, V> {
+
+        private Object owner = new Object();
+        private Node root;
+        private int size;
+
+        private Builder(PersistentHashMap<K, V> map) {
+            this.root = map.root;
+            this.size = map.size;
+        }
+
+        public Builder<K, V> put(K key, V value) {
+            final var change = new Change();
+            root = root.put(owner, Objects.requireNonNull(key), Objects.requireNonNull(value), hash(key), 0, change);
+            size += change.sizeDelta;
+            return this;
+        }
+
+        public Builder<K, V> remove(Object key) {
+            final var change = new Change();
+            root = root.remove(owner, Objects.requireNonNull(key), hash(key), 0, change);
+            size += change.sizeDelta;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public PersistentHashMap<K, V> build() {
+            owner = new Object();
+            return size == 0 ? empty() : new PersistentHashMap<>(root, size);
+        }
+    }
+
+    private static final class Change {
+        int sizeDelta;
+    }
+
+    private abstract static class Node {
+
+        abstract Object find(Object key, int hash, int shift);
+
+        abstract Node put(Object owner, Object key, Object value, int hash, int shift, Change change);
+
+        abstract Node remove(Object owner, Object key, int hash, int shift, Change change);
+
+        abstract int payloadArity();
+
+        abstract int nodeArity();
+
+        abstract Object keyAt(int index);
+
+        abstract Object valueAt(int index);
+
+        abstract Node nodeAt(int index);
+
+        boolean isSingleEntry() {
+            return payloadArity() == 1 && nodeArity() == 0;
+        }
+    }
+
+    /**
+     * Węzeł CHAMP: content = [k0, v0, k1, v1, ..., poddrzewo_n, ..., poddrzewo_0].
+     */
+    private static final class BitmapNode extends Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(null, 0, 0, new Object[0]);
+
+        private final Object owner;
+        private int dataMap;
+        private int nodeMap;
+        private Object[] content;
+
+        BitmapNode(Object owner, int dataMap, int nodeMap, Object[] content) {
+            this.owner = owner;
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            final int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                final int index = dataIndex(bit);
+                return key.equals(content[2 * index]) ? content[2 * index + 1] : NOT_FOUND;
+            }
+            if ((nodeMap & bit) != 0) {
+                return subNode(bit).find(key, hash, shift + BITS);
+            }
+            return NOT_FOUND;
+        }
+
+        @Override
+        Node put(Object owner, Object key, Object value, int hash, int shift, Change change) {
+            final int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                final int index = dataIndex(bit);
+                final Object currentKey = content[2 * index];
+                if (key.equals(currentKey)) {
+                    if (value.equals(content[2 * index + 1])) {
+                        return this;
+                    }
+                    final BitmapNode editable = editable(owner, content.clone());
+                    editable.content[2 * index + 1] = value;
+                    return editable;
+                }
+                final Object currentValue = content[2 * index + 1];
+                final Node merged = mergeTwo(owner, currentKey, currentValue, hash(currentKey), key, value, hash, shift + BITS);
+                change.sizeDelta = 1;
+                return migrateInlineToNode(owner, bit, merged);
+            }
+            if ((nodeMap & bit) != 0) {
+                final Node subNode = subNode(bit);
+                final Node newSubNode = subNode.put(owner, key, value, hash, shift + BITS, change);
+                return newSubNode == subNode ? this : setNode(owner, bit, newSubNode);
+            }
+            change.sizeDelta = 1;
+            return insertValue(owner, bit, key, value);
+        }
+
+        @Override
+        Node remove(Object owner, Object key, int hash, int shift, Change change) {
+            final int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                final int index = dataIndex(bit);
+                if (!key.equals(content[2 * index])) {
+                    return this;
+                }
+                change.sizeDelta = -1;
+                if (payloadArity() == 2 && nodeArity() == 0) {
+                    // zostaje jeden wpis - węzeł z bitem poziomu 0, aby rodzic mógł go wciągnąć (albo mógł zostać korzeniem)
+                    final int remaining = index == 0 ? 1 : 0;
+                    final int newDataMap = shift == 0 ? dataMap ^ bit : bitpos(hash, 0);
+                    return new BitmapNode(owner, newDataMap, 0, new Object[]{content[2 * remaining], content[2 * remaining + 1]});
+                }
+                return removeValue(owner, bit, index);
+            }
+            if ((nodeMap & bit) != 0) {
+                final Node subNode = subNode(bit);
+                final Node newSubNode = subNode.remove(owner, key, hash, shift + BITS, change);
+                if (newSubNode == subNode) {
+                    return this;
+                }
+                if (newSubNode.isSingleEntry()) {
+                    if (payloadArity() == 0 && nodeArity() == 1) {
+                        return newSubNode;
+                    }
+                    return migrateNodeToInline(owner, bit, newSubNode);
+                }
+                return setNode(owner, bit, newSubNode);
+            }
+            return this;
+        }
+
+        private static Node mergeTwo(Object owner, Object key0, Object value0, int hash0, Object key1, Object value1, int hash1, int shift) {
+            if (shift >= HASH_BITS) {
+                return new CollisionNode(hash0, new Object[]{key0, value0, key1, value1});
+            }
+            final int mask0 = (hash0 >>> shift) & 31;
+            final int mask1 = (hash1 >>> shift) & 31;
+            if (mask0 != mask1) {
+                final int dataMap = (1 << mask0) | (1 << mask1);
+                return mask0 < mask1
+                        ? new BitmapNode(owner, dataMap, 0, new Object[]{key0, value0, key1, value1})
+                        : new BitmapNode(owner, dataMap, 0, new Object[]{key1, value1, key0, value0});
+            }
+            final Node subNode = mergeTwo(owner, key0, value0, hash0, key1, value1, hash1, shift + BITS);
+            return new BitmapNode(owner, 0, 1 << mask0, new Object[]{subNode});
+        }
+
+        private BitmapNode editable(Object owner, Object[] newContent) {
+            if (owner != null && owner == this.owner) {
+                content = newContent;
+                return this;
+            }
+            return new BitmapNode(owner, dataMap, nodeMap, newContent);
+        }
+
+        private Node insertValue(Object owner, int bit, Object key, Object value) {
+            final int index = 2 * dataIndex(bit);
+            final Object[] newContent = new Object[content.length + 2];
+            System.arraycopy(content, 0, newContent, 0, index);
+            newContent[index] = key;
+            newContent[index + 1] = value;
+            System.arraycopy(content, index, newContent, index + 2, content.length - index);
+            final BitmapNode node = editable(owner, newContent);
+            node.dataMap = dataMap | bit;
+            return node;
+        }
+
+        private Node removeValue(Object owner, int bit, int dataIndex) {
+            final int index = 2 * dataIndex;
+            final Object[] newContent = new Object[content.length - 2];
+            System.arraycopy(content, 0, newContent, 0, index);
+            System.arraycopy(content, index + 2, newContent, index, content.length - index - 2);
+            final BitmapNode node = editable(owner, newContent);
+            node.dataMap = dataMap ^ bit;
+            return node;
+        }
+
+        private Node setNode(Object owner, int bit, Node newSubNode) {
+            final int index = content.length - 1 - nodeIndex(bit);
+            if (owner != null && owner == this.owner) {
+                content[index] = newSubNode;
+                return this;
+            }
+            final Object[] newContent = content.clone();
+            newContent[index] = newSubNode;
+            return new BitmapNode(owner, dataMap, nodeMap, newContent);
+        }
+
+        private Node migrateInlineToNode(Object owner, int bit, Node subNode) {
+            final int oldIndex = 2 * dataIndex(bit);
+            final int newIndex = content.length - 2 - nodeIndex(bit);
+            final Object[] newContent = new Object[content.length - 1];
+            System.arraycopy(content, 0, newContent, 0, oldIndex);
+            System.arraycopy(content, oldIndex + 2, newContent, oldIndex, newIndex - oldIndex);
+            newContent[newIndex] = subNode;
+            System.arraycopy(content, newIndex + 2, newContent, newIndex + 1, content.length - newIndex - 2);
+            final BitmapNode node = editable(owner, newContent);
+            node.dataMap = dataMap ^ bit;
+            node.nodeMap = nodeMap | bit;
+            return node;
+        }
+
+        private Node migrateNodeToInline(Object owner, int bit, Node subNode) {
+            final int oldIndex = content.length - 1 - nodeIndex(bit);
+            final int newIndex = 2 * dataIndex(bit);
+            final Object[] newContent = new Object[content.length + 1];
+            System.arraycopy(content, 0, newContent, 0, newIndex);
+            newContent[newIndex] = subNode.keyAt(0);
+            newContent[newIndex + 1] = subNode.valueAt(0);
+            System.arraycopy(content, newIndex, newContent, newIndex + 2, oldIndex - newIndex);
+            System.arraycopy(content, oldIndex + 1, newContent, oldIndex + 2, content.length - oldIndex - 1);
+            final BitmapNode node = editable(owner, newContent);
+            node.dataMap = dataMap | bit;
+            node.nodeMap = nodeMap ^ bit;
+            return node;
+        }
+
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit) {
+            return Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        private Node subNode(int bit) {
+            return (Node) content[content.length - 1 - nodeIndex(bit)];
+        }
+
+        @Override
+        int payloadArity() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        int nodeArity() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        Object keyAt(int index) {
+            return content[2 * index];
+        }
+
+        @Override
+        Object valueAt(int index) {
+            return content[2 * index + 1];
+        }
+
+        @Override
+        Node nodeAt(int index) {
+            return (Node) content[content.length - 1 - index];
+        }
+    }
+
+    /**
+     * Węzeł dla kluczy o identycznym 32-bitowym hashu.
+     */
+    private static final class CollisionNode extends Node {
+
+        private final int hash;
+        private final Object[] content;
+
+        CollisionNode(int hash, Object[] content) {
+            this.hash = hash;
+            this.content = content;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            final int index = indexOf(key);
+            return index < 0 ? NOT_FOUND : content[2 * index + 1];
+        }
+
+        @Override
+        Node put(Object owner, Object key, Object value, int hash, int shift, Change change) {
+            final int index = indexOf(key);
+            if (index >= 0) {
+                if (value.equals(content[2 * index + 1])) {
+                    return this;
+                }
+                final Object[] newContent = content.clone();
+                newContent[2 * index + 1] = value;
+                return new CollisionNode(hash, newContent);
+            }
+            final Object[] newContent = Arrays.copyOf(content, content.length + 2);
+            newContent[content.length] = key;
+            newContent[content.length + 1] = value;
+            change.sizeDelta = 1;
+            return new CollisionNode(hash, newContent);
+        }
+
+        @Override
+        Node remove(Object owner, Object key, int hash, int shift, Change change) {
+            final int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+            change.sizeDelta = -1;
+            if (payloadArity() == 2) {
+                final int remaining = index == 0 ? 1 : 0;
+                return new BitmapNode(owner, bitpos(hash, 0), 0, new Object[]{content[2 * remaining], content[2 * remaining + 1]});
+            }
+            final Object[] newContent = new Object[content.length - 2];
+            System.arraycopy(content, 0, newContent, 0, 2 * index);
+            System.arraycopy(content, 2 * index + 2, newContent, 2 * index, content.length - 2 * index - 2);
+            return new CollisionNode(hash, newContent);
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < content.length; i += 2) {
+                if (key.equals(content[i])) {
+                    return i / 2;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        int payloadArity() {
+            return content.length / 2;
+        }
+
+        @Override
+        int nodeArity() {
+            return 0;
+        }
+
+        @Override
+        Object keyAt(int index) {
+            return content[2 * index];
+        }
+
+        @Override
+        Object valueAt(int index) {
+            return content[2 * index + 1];
+        }
+
+        @Override
+        Node nodeAt(int index) {
+            throw new IndexOutOfBoundsException(index);
+        }
+    }
+
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        private final ArrayDeque<Node> pending = new ArrayDeque<>();
+        private Node current;
+        private int payloadIndex;
+
+        EntryIterator(Node root) {
+            current = root;
+            pushChildren(root);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+            final var entry = new SimpleImmutableEntry<>((K) current.keyAt(payloadIndex), (V) current.valueAt(payloadIndex));
+            payloadIndex++;
+            advance();
+            return entry;
+        }
+
+        private void advance() {
+            while (current != null && payloadIndex >= current.payloadArity()) {
+                current = pending.poll();
+                payloadIndex = 0;
+                if (current != null) {
+                    pushChildren(current);
+                }
+            }
+        }
+
+        private void pushChildren(Node node) {
+            for (int i = 0; i < node.nodeArity(); i++) {
+                pending.push(node.nodeAt(i));
+            }
+        }
+    }
+}
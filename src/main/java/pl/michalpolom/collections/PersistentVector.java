@@ -0,0 +1,264 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * <h1>PersistentVector</h1>
+ * Niemodyfikowalna lista (jak List.of()) z trwałymi wersjami: with/withoutLast zwracają nową listę w O(log32 n),
+ * współdzieląc niezmienione węzły z poprzednią wersją zamiast kopiować całą tablicę.<p>
+ * Elementy leżą w drzewie o stopniu 32 (bit-partitioned trie), a ostatnie do 32 elementów w osobnym "ogonie" (tail),
+ * więc dopisywanie na końcu kopiuje zwykle tylko ogon.<p>
+ * Do masowego ładowania służy {@link #builder()} - buduje drzewo od liści w O(n).<p>
+ * Nie dopuszcza wartości null. Metody add/set/remove rzucają UnsupportedOperationException.
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> copyOf(Collection<? extends E> elements) {
+        if (elements instanceof PersistentVector<?> persistent) {
+            return (PersistentVector<E>) persistent;
+        }
+        final Builder<E> builder = builder();
+        elements.forEach(builder::add);
+        return builder.build();
+    }
+
+    public static <E> Builder<E> builder() {
+        return new Builder<>();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return (E) leafFor(index)[index & MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Nowa wersja listy z elementem dopisanym na końcu.
+     */
+    public PersistentVector<E> with(E element) {
+        Objects.requireNonNull(element);
+        if (size - tailOffset() < WIDTH) {
+            final Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+        final Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[]{element});
+    }
+
+    /**
+     * Nowa wersja listy z elementem zastąpionym na pozycji index.
+     */
+    public PersistentVector<E> with(int index, E element) {
+        Objects.checkIndex(index, size);
+        Objects.requireNonNull(element);
+        if (index >= tailOffset()) {
+            final Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, assoc(shift, root, index, element), tail);
+    }
+
+    /**
+     * Nowa wersja listy bez ostatniego elementu.
+     */
+    public PersistentVector<E> withoutLast() {
+        if (size == 0) {
+            throw new IllegalStateException("Vector is empty");
+        }
+        if (size == 1) {
+            return empty();
+        }
+        if (size - tailOffset() > 1) {
+            return new PersistentVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+        final Object[] newTail = leafFor(size - 2);
+        Object[] newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = EMPTY_NODE;
+        }
+        if (shift > BITS && newRoot[1] == null) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(size - 1, newShift, newRoot, newTail);
+    }
+
+    @Override
+    public boolean add(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E remove(int index) {
+        throw new UnsupportedOperationException();
+    }
+
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] leafFor(int index) {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        final int subIndex = ((size - 1) >>> level) & MASK;
+        final Object[] result = parent.clone();
+        final Object[] toInsert;
+        if (level == BITS) {
+            toInsert = tailNode;
+        } else {
+            final Object[] child = (Object[]) parent[subIndex];
+            toInsert = child != null ? pushTail(level - BITS, child, tailNode) : newPath(level - BITS, tailNode);
+        }
+        result[subIndex] = toInsert;
+        return result;
+    }
+
+    private static Object[] newPath(int level, Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        final Object[] result = new Object[WIDTH];
+        result[0] = newPath(level - BITS, node);
+        return result;
+    }
+
+    private static Object[] assoc(int level, Object[] node, int index, Object element) {
+        final Object[] result = node.clone();
+        if (level == 0) {
+            result[index & MASK] = element;
+        } else {
+            final int subIndex = (index >>> level) & MASK;
+            result[subIndex] = assoc(level - BITS, (Object[]) node[subIndex], index, element);
+        }
+        return result;
+    }
+
+    private Object[] popTail(int level, Object[] node) {
+        final int subIndex = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            final Object[] newChild = popTail(level - BITS, (Object[]) node[subIndex]);
+            if (newChild == null && subIndex == 0) {
+                return null;
+            }
+            final Object[] result = node.clone();
+            result[subIndex] = newChild;
+            return result;
+        }
+        if (subIndex == 0) {
+            return null;
+        }
+        final Object[] result = node.clone();
+        result[subIndex] = null;
+        return result;
+    }
+
+    /**
+     * Zbiera elementy do tablicy, a build() składa z niej drzewo od liści w O(n) - bez kopiowania ścieżek przy każdym dodaniu.
+     */
+    public static final class Builder<E> {
+
+        private Object[] elements = new Object[WIDTH];
+        private int size;
+
+        private Builder() {
+        }
+
+        public Builder<E> add(E element) {
+            Objects.requireNonNull(element);
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, elements.length << 1);
+            }
+            elements[size++] = element;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public PersistentVector<E> build() {
+            if (size == 0) {
+                return empty();
+            }
+            final int tailOffset = size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+            final Object[] tail = Arrays.copyOfRange(elements, tailOffset, size);
+            Object[] level = new Object[tailOffset >>> BITS];
+            for (int i = 0; i < level.length; i++) {
+                level[i] = Arrays.copyOfRange(elements, i << BITS, (i + 1) << BITS);
+            }
+            int shift = BITS;
+            while (level.length > WIDTH) {
+                final Object[] parents = new Object[(level.length + MASK) >>> BITS];
+                for (int i = 0; i < parents.length; i++) {
+                    final Object[] parent = new Object[WIDTH];
+                    System.arraycopy(level, i << BITS, parent, 0, Math.min(WIDTH, level.length - (i << BITS)));
+                    parents[i] = parent;
+                }
+                level = parents;
+                shift += BITS;
+            }
+            final Object[] root = level.length == 0 ? EMPTY_NODE : Arrays.copyOf(level, WIDTH);
+            return new PersistentVector<>(size, shift, root, tail);
+        }
+    }
+}
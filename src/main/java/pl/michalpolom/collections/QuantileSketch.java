@@ -0,0 +1,236 @@
+package pl.michalpolom.collections;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * <h1>QuantileSketch</h1>
+ * Przybliżone kwantyle (mediana, p99) strumienia liczb w stałej pamięci - szkic KLL (Karnin, Lang, Liberty).<p>
+ * Wartości trafiają do poziomu 0. Pełny poziom jest sortowany, a co druga wartość (losowo parzyste albo nieparzyste pozycje)
+ * przechodzi poziom wyżej z podwójną wagą. Pojemności poziomów maleją geometrycznie od góry (k, 2/3 k, ...), więc pamięć
+ * to O(k) niezależnie od liczby wartości. Błąd rangi to około 1.7 / k - dla domyślnego k = 200 poniżej 1% N.
+ * Minimum i maksimum są dokładne.<p>
+ * merge łączy poziomy dwóch szkiców i kompaktuje - tak łączy się częściowe wyniki wątków. Nie jest bezpieczny dla wielowątkowości.
+ */
+public final class QuantileSketch {
+
+    public static final int DEFAULT_K = 200;
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+    private final int k;
+    private final SplittableRandom random;
+    private double[][] levels = new double[1][];
+    private int[] sizes = new int[1];
+    private long count;
+    private int retained;
+    private int maxRetained;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public QuantileSketch() {
+        this(DEFAULT_K, new SplittableRandom());
+    }
+
+    public QuantileSketch(int k) {
+        this(k, new SplittableRandom());
+    }
+
+    /**
+     * Szkic z podanym źródłem losowości - powtarzalne wyniki w testach.
+     */
+    public QuantileSketch(int k, SplittableRandom random) {
+        if (k < 8) {
+            throw new IllegalArgumentException("k must be at least 8: " + k);
+        }
+        this.k = k;
+        this.random = random;
+        levels[0] = new double[capacity(0)];
+        maxRetained = capacity(0);
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("NaN is not a valid value");
+        }
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        count++;
+        append(0, value);
+        retained++;
+        if (retained >= maxRetained) {
+            compress();
+        }
+    }
+
+    /**
+     * Wartość, poniżej której leży ułamek fraction (0..1) wszystkich wartości.
+     */
+    public double quantile(double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("fraction must be between 0 and 1: " + fraction);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (fraction == 0) {
+            return min;
+        }
+        if (fraction == 1) {
+            return max;
+        }
+        final double[] values = new double[retained];
+        final long[] weights = new long[retained];
+        sortedWithWeights(values, weights);
+        final double target = fraction * count;
+        long cumulative = 0;
+        for (int i = 0; i < values.length; i++) {
+            cumulative += weights[i];
+            if (cumulative >= target) {
+                return values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Szacowany ułamek wartości mniejszych lub równych value.
+     */
+    public double rank(double value) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long below = 0;
+        for (int level = 0; level < levels.length; level++) {
+            for (int i = 0; i < sizes[level]; i++) {
+                if (levels[level][i] <= value) {
+                    below += 1L << level;
+                }
+            }
+        }
+        return (double) below / count;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    /**
+     * Liczba przechowywanych wartości - rośnie jak O(k log(N / k)) w najgorszym razie, praktycznie stała.
+     */
+    public int retained() {
+        return retained;
+    }
+
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return this;
+        }
+        while (levels.length < other.levels.length) {
+            grow();
+        }
+        for (int level = 0; level < other.levels.length; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+        retained += other.retained;
+        while (retained >= maxRetained) {
+            compress();
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "QuantileSketch{count=" + count + ", median=" + quantile(0.5) + ", retained=" + retained + "}";
+    }
+
+    /**
+     * Kompaktuje najniższy przepełniony poziom - sortuje go i przenosi co drugą wartość wyżej.
+     */
+    private void compress() {
+        for (int level = 0; level < levels.length; level++) {
+            if (sizes[level] < capacity(level)) {
+                continue;
+            }
+            if (level + 1 >= levels.length) {
+                grow();
+            }
+            final double[] values = levels[level];
+            final int size = sizes[level];
+            Arrays.sort(values, 0, size);
+            final int pairs = size / 2;
+            final int offset = random.nextBoolean() ? 1 : 0;
+            final int start = size - 2 * pairs;
+            for (int i = 0; i < pairs; i++) {
+                append(level + 1, values[start + 2 * i + offset]);
+            }
+            sizes[level] = start;
+            retained -= pairs;
+            return;
+        }
+    }
+
+    private void grow() {
+        final int height = levels.length + 1;
+        levels = Arrays.copyOf(levels, height);
+        sizes = Arrays.copyOf(sizes, height);
+        levels[height - 1] = new double[Math.max(2, capacity(height - 1))];
+        maxRetained = 0;
+        for (int level = 0; level < height; level++) {
+            maxRetained += capacity(level);
+        }
+    }
+
+    /**
+     * Pojemność poziomu - najwyższy ma k, każdy niższy 2/3 poprzedniego (co najmniej 2).
+     */
+    private int capacity(int level) {
+        final int depth = levels.length - level - 1;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private void append(int level, double value) {
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], Math.max(4, levels[level].length * 2));
+        }
+        levels[level][sizes[level]++] = value;
+    }
+
+    private void sortedWithWeights(double[] values, long[] weights) {
+        final double[] all = new double[retained];
+        final int[] levelOf = new int[retained];
+        int n = 0;
+        for (int level = 0; level < levels.length; level++) {
+            for (int i = 0; i < sizes[level]; i++) {
+                all[n] = levels[level][i];
+                levelOf[n++] = level;
+            }
+        }
+        final Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (left, right) -> Double.compare(all[left], all[right]));
+        for (int i = 0; i < n; i++) {
+            values[i] = all[order[i]];
+            weights[i] = 1L << levelOf[order[i]];
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package pl.michalpolom.collections;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Zamiana obiektu na bajty i z powrotem - używana przez kolekcje trzymające dane poza stertą lub na dysku.<p>
+ * Serializacja musi być deterministyczna: równe obiekty muszą dawać identyczne bajty.
+ */
+public interface Serializer<T> {
+
+    byte[] serialize(T value);
+
+    T deserialize(byte[] bytes);
+
+    static Serializer<String> strings() {
+        return new Serializer<>() {
+            @Override
+            public byte[] serialize(String value) {
+                return value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String deserialize(byte[] bytes) {
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    static Serializer<Integer> integers() {
+        return new Serializer<>() {
+            @Override
+            public byte[] serialize(Integer value) {
+                return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+            }
+
+            @Override
+            public Integer deserialize(byte[] bytes) {
+                return ByteBuffer.wrap(bytes).getInt();
+            }
+        };
+    }
+
+    static Serializer<Long> longs() {
+        return new Serializer<>() {
+            @Override
+            public byte[] serialize(Long value) {
+                return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+            }
+
+            @Override
+            public Long deserialize(byte[] bytes) {
+                return ByteBuffer.wrap(bytes).getLong();
+            }
+        };
+    }
+}
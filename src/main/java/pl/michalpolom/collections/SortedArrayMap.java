@@ -0,0 +1,390 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collector;
+
+/**
+ * <h1>SortedArrayMap</h1>
+ * Zamrożony (niemodyfikowalny) odpowiednik TreeMap dla danych czytanych niemal wyłącznie.<p>
+ * Klucze i wartości leżą w dwóch równoległych posortowanych tablicach, a wyszukiwanie to wyszukiwanie binarne po kluczach -
+ * bez węzłów drzewa czerwono-czarnego (ok. 40 bajtów na wpis) i bez skakania po wskaźnikach.<p>
+ * Podmapy (subMap, headMap, tailMap) i descendingMap współdzielą tablice i kosztują O(log n). Zakresy wychodzące poza
+ * podmapę są przycinane.<p>
+ * Porządek naturalny lub Comparator (np. Comparator.reverseOrder()) - tak jak w TreeMap. Nie pozwala na klucze null.
+ */
+public final class SortedArrayMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+
+    private final Object[] keys;
+    private final Object[] values;
+    private final Comparator<? super K> comparator;
+    private final int from;
+    private final int to;
+    private final boolean descending;
+
+    private SortedArrayMap(Object[] keys, Object[] values, Comparator<? super K> comparator, int from, int to, boolean descending) {
+        this.keys = keys;
+        this.values = values;
+        this.comparator = comparator;
+        this.from = from;
+        this.to = to;
+        this.descending = descending;
+    }
+
+    /**
+     * Kopia mapy posortowanej (np. TreeMap) z zachowaniem jej komparatora.
+     */
+    public static <K, V> SortedArrayMap<K, V> copyOf(SortedMap<K, ? extends V> map) {
+        final Object[] keys = new Object[map.size()];
+        final Object[] values = new Object[map.size()];
+        int i = 0;
+        for (Entry<K, ? extends V> entry : map.entrySet()) {
+            keys[i] = entry.getKey();
+            values[i++] = entry.getValue();
+        }
+        return new SortedArrayMap<>(keys, values, map.comparator(), 0, keys.length, false);
+    }
+
+    /**
+     * Sortuje wpisy według komparatora (null oznacza porządek naturalny). Klucze równe według komparatora są niedozwolone.
+     */
+    public static <K, V> SortedArrayMap<K, V> copyOf(Map<? extends K, ? extends V> map, Comparator<? super K> comparator) {
+        return sorted(new ArrayList<>(map.entrySet()), comparator);
+    }
+
+    public static <T, K, V> Collector<T, ?, SortedArrayMap<K, V>> toSortedArrayMap(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> comparator) {
+        return Collector.<T, ArrayList<Entry<K, V>>, SortedArrayMap<K, V>>of(
+                ArrayList::new,
+                (list, element) -> list.add(new SimpleImmutableEntry<>(keyMapper.apply(element), valueMapper.apply(element))),
+                (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                },
+                list -> sorted(list, comparator));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> SortedArrayMap<K, V> sorted(ArrayList<? extends Entry<? extends K, ? extends V>> entries, Comparator<? super K> comparator) {
+        final Comparator<? super K> order = SortedArrays.order(comparator);
+        entries.sort((a, b) -> order.compare(Objects.requireNonNull(a.getKey()), Objects.requireNonNull(b.getKey())));
+        final Object[] keys = new Object[entries.size()];
+        final Object[] values = new Object[entries.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = entries.get(i).getKey();
+            values[i] = entries.get(i).getValue();
+            if (i > 0 && order.compare((K) keys[i - 1], (K) keys[i]) == 0) {
+                throw new IllegalArgumentException("Duplicate key: " + keys[i]);
+            }
+        }
+        return new SortedArrayMap<>(keys, values, comparator, 0, keys.length, false);
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return SortedArrays.search(keys, from, to, key, comparator) >= 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        final int index = SortedArrays.search(keys, from, to, key, comparator);
+        return index >= 0 ? valueAt(index) : null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new IndexIterator<>(index -> new SimpleImmutableEntry<>(keyAt(index), valueAt(index)));
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new IndexIterator<>(SortedArrayMap.this::valueAt);
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
+    }
+
+    @Override
+    public SortedArraySet<K> keySet() {
+        return navigableKeySet();
+    }
+
+    @Override
+    public SortedArraySet<K> navigableKeySet() {
+        return new SortedArraySet<>(keys, comparator, from, to, descending);
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    @Override
+    public Entry<K, V> lowerEntry(K key) {
+        return entryOrNull(lowerIndex(key));
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return keyOrNull(lowerIndex(key));
+    }
+
+    @Override
+    public Entry<K, V> floorEntry(K key) {
+        return entryOrNull(floorIndex(key));
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return keyOrNull(floorIndex(key));
+    }
+
+    @Override
+    public Entry<K, V> ceilingEntry(K key) {
+        return entryOrNull(ceilingIndex(key));
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return keyOrNull(ceilingIndex(key));
+    }
+
+    @Override
+    public Entry<K, V> higherEntry(K key) {
+        return entryOrNull(higherIndex(key));
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return keyOrNull(higherIndex(key));
+    }
+
+    @Override
+    public Entry<K, V> firstEntry() {
+        return isEmpty() ? null : entryOrNull(firstIndex());
+    }
+
+    @Override
+    public Entry<K, V> lastEntry() {
+        return isEmpty() ? null : entryOrNull(lastIndex());
+    }
+
+    @Override
+    public Entry<K, V> pollFirstEntry() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Entry<K, V> pollLastEntry() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public K firstKey() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return keyAt(firstIndex());
+    }
+
+    @Override
+    public K lastKey() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return keyAt(lastIndex());
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return descending ? SortedArrays.reversedOrder(comparator) : comparator;
+    }
+
+    /**
+     * Widok w odwrotnej kolejności na tych samych tablicach - odwraca tylko kierunek indeksów, więc kosztuje O(1).
+     * Podwójne odwrócenie przywraca pierwotny porządek (i comparator()).
+     */
+    @Override
+    public SortedArrayMap<K, V> descendingMap() {
+        return new SortedArrayMap<>(keys, values, comparator, from, to, !descending);
+    }
+
+    @Override
+    public SortedArrayMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        if (SortedArrays.order(comparator()).compare(fromKey, toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        if (descending) {
+            return slice(toKey, toInclusive, fromKey, fromInclusive);
+        }
+        return slice(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    @Override
+    public SortedArrayMap<K, V> headMap(K toKey, boolean inclusive) {
+        return descending ? tail(toKey, inclusive) : head(toKey, inclusive);
+    }
+
+    @Override
+    public SortedArrayMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        return descending ? head(fromKey, inclusive) : tail(fromKey, inclusive);
+    }
+
+    @Override
+    public SortedArrayMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedArrayMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedArrayMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    /**
+     * Zakres tablic w porządku fizycznym (rosnącym według comparator), niezależnie od kierunku widoku.
+     */
+    private SortedArrayMap<K, V> slice(K low, boolean lowInclusive, K high, boolean highInclusive) {
+        final int newFrom = SortedArrays.rangeStart(keys, from, to, low, lowInclusive, comparator);
+        final int newTo = SortedArrays.rangeEnd(keys, from, to, high, highInclusive, comparator);
+        return new SortedArrayMap<>(keys, values, comparator, newFrom, Math.max(newFrom, newTo), descending);
+    }
+
+    private SortedArrayMap<K, V> head(K high, boolean inclusive) {
+        return new SortedArrayMap<>(keys, values, comparator, from, SortedArrays.rangeEnd(keys, from, to, high, inclusive, comparator), descending);
+    }
+
+    private SortedArrayMap<K, V> tail(K low, boolean inclusive) {
+        return new SortedArrayMap<>(keys, values, comparator, SortedArrays.rangeStart(keys, from, to, low, inclusive, comparator), to, descending);
+    }
+
+    private int lowerIndex(K key) {
+        return descending
+                ? SortedArrays.higherIndex(keys, from, to, key, comparator)
+                : SortedArrays.lowerIndex(keys, from, to, key, comparator);
+    }
+
+    private int floorIndex(K key) {
+        return descending
+                ? SortedArrays.ceilingIndex(keys, from, to, key, comparator)
+                : SortedArrays.floorIndex(keys, from, to, key, comparator);
+    }
+
+    private int ceilingIndex(K key) {
+        return descending
+                ? SortedArrays.floorIndex(keys, from, to, key, comparator)
+                : SortedArrays.ceilingIndex(keys, from, to, key, comparator);
+    }
+
+    private int higherIndex(K key) {
+        return descending
+                ? SortedArrays.lowerIndex(keys, from, to, key, comparator)
+                : SortedArrays.higherIndex(keys, from, to, key, comparator);
+    }
+
+    private int firstIndex() {
+        return descending ? to - 1 : from;
+    }
+
+    private int lastIndex() {
+        return descending ? from : to - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K keyAt(int index) {
+        return (K) keys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    private K keyOrNull(int index) {
+        return index < 0 ? null : keyAt(index);
+    }
+
+    private Entry<K, V> entryOrNull(int index) {
+        return index < 0 ? null : new SimpleImmutableEntry<>(keyAt(index), valueAt(index));
+    }
+
+    private final class IndexIterator<T> implements Iterator<T> {
+
+        private final IntFunction<T> mapper;
+        private int remaining = to - from;
+
+        IndexIterator(IntFunction<T> mapper) {
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public T next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            return mapper.apply(descending ? from + --remaining : to - remaining--);
+        }
+    }
+}
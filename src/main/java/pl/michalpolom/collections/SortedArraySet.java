@@ -0,0 +1,252 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.stream.Collector;
+
+/**
+ * <h1>SortedArraySet</h1>
+ * Zamrożony (niemodyfikowalny) odpowiednik TreeSet dla danych czytanych niemal wyłącznie.<p>
+ * Elementy leżą w jednej posortowanej tablicy, a wyszukiwanie to wyszukiwanie binarne - bez węzłów drzewa czerwono-czarnego
+ * (ok. 40 bajtów na element) i bez skakania po wskaźnikach.<p>
+ * Podzbiory (subSet, headSet, tailSet) i descendingSet współdzielą tablicę i kosztują O(log n). Zakresy wychodzące poza
+ * podzbiór są przycinane.<p>
+ * Porządek naturalny lub Comparator (np. Comparator.reverseOrder()) - tak jak w TreeSet. Nie pozwala na null.
+ */
+public final class SortedArraySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+
+    private final Object[] elements;
+    private final Comparator<? super E> comparator;
+    private final int from;
+    private final int to;
+    private final boolean descending;
+
+    SortedArraySet(Object[] elements, Comparator<? super E> comparator, int from, int to, boolean descending) {
+        this.elements = elements;
+        this.comparator = comparator;
+        this.from = from;
+        this.to = to;
+        this.descending = descending;
+    }
+
+    /**
+     * Kopia zbioru posortowanego (np. TreeSet) z zachowaniem jego komparatora.
+     */
+    public static <E> SortedArraySet<E> copyOf(SortedSet<E> set) {
+        final Object[] elements = set.toArray();
+        return new SortedArraySet<>(elements, set.comparator(), 0, elements.length, false);
+    }
+
+    /**
+     * Sortuje elementy i usuwa duplikaty (równe według komparatora). Komparator null oznacza porządek naturalny.
+     */
+    public static <E> SortedArraySet<E> copyOf(Collection<? extends E> elements, Comparator<? super E> comparator) {
+        final Object[] sorted = elements.toArray();
+        for (Object element : sorted) {
+            Objects.requireNonNull(element);
+        }
+        @SuppressWarnings("unchecked") final Comparator<Object> order = (Comparator<Object>) SortedArrays.order(comparator);
+        Arrays.sort(sorted, order);
+        int size = 0;
+        for (Object element : sorted) {
+            if (size == 0 || order.compare(sorted[size - 1], element) != 0) {
+                sorted[size++] = element;
+            }
+        }
+        return new SortedArraySet<>(Arrays.copyOf(sorted, size), comparator, 0, size, false);
+    }
+
+    public static <E> Collector<E, ?, SortedArraySet<E>> toSortedArraySet(Comparator<? super E> comparator) {
+        return Collector.<E, ArrayList<E>, SortedArraySet<E>>of(
+                ArrayList::new,
+                ArrayList::add,
+                (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                },
+                list -> copyOf(list, comparator));
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return SortedArrays.search(elements, from, to, Objects.requireNonNull(o), comparator) >= 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int remaining = to - from;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public E next() {
+                if (remaining <= 0) {
+                    throw new NoSuchElementException();
+                }
+                return elementAt(descending ? from + --remaining : to - remaining--);
+            }
+        };
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public E lower(E e) {
+        return elementOrNull(descending
+                ? SortedArrays.higherIndex(elements, from, to, e, comparator)
+                : SortedArrays.lowerIndex(elements, from, to, e, comparator));
+    }
+
+    @Override
+    public E floor(E e) {
+        return elementOrNull(descending
+                ? SortedArrays.ceilingIndex(elements, from, to, e, comparator)
+                : SortedArrays.floorIndex(elements, from, to, e, comparator));
+    }
+
+    @Override
+    public E ceiling(E e) {
+        return elementOrNull(descending
+                ? SortedArrays.floorIndex(elements, from, to, e, comparator)
+                : SortedArrays.ceilingIndex(elements, from, to, e, comparator));
+    }
+
+    @Override
+    public E higher(E e) {
+        return elementOrNull(descending
+                ? SortedArrays.lowerIndex(elements, from, to, e, comparator)
+                : SortedArrays.higherIndex(elements, from, to, e, comparator));
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E pollFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E pollLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E first() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elementAt(descending ? to - 1 : from);
+    }
+
+    @Override
+    public E last() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elementAt(descending ? from : to - 1);
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return descending ? SortedArrays.reversedOrder(comparator) : comparator;
+    }
+
+    /**
+     * Widok w odwrotnej kolejności na tej samej tablicy - odwraca tylko kierunek indeksów, więc kosztuje O(1).
+     * Podwójne odwrócenie przywraca pierwotny porządek (i comparator()).
+     */
+    @Override
+    public SortedArraySet<E> descendingSet() {
+        return new SortedArraySet<>(elements, comparator, from, to, !descending);
+    }
+
+    @Override
+    public SortedArraySet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        if (SortedArrays.order(comparator()).compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+        if (descending) {
+            return slice(toElement, toInclusive, fromElement, fromInclusive);
+        }
+        return slice(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    @Override
+    public SortedArraySet<E> headSet(E toElement, boolean inclusive) {
+        return descending ? tail(toElement, inclusive) : head(toElement, inclusive);
+    }
+
+    @Override
+    public SortedArraySet<E> tailSet(E fromElement, boolean inclusive) {
+        return descending ? head(fromElement, inclusive) : tail(fromElement, inclusive);
+    }
+
+    @Override
+    public SortedArraySet<E> subSet(E fromElement, E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedArraySet<E> headSet(E toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedArraySet<E> tailSet(E fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    /**
+     * Zakres tablicy w porządku fizycznym (rosnącym według comparator), niezależnie od kierunku widoku.
+     */
+    private SortedArraySet<E> slice(E low, boolean lowInclusive, E high, boolean highInclusive) {
+        final int newFrom = SortedArrays.rangeStart(elements, from, to, low, lowInclusive, comparator);
+        final int newTo = SortedArrays.rangeEnd(elements, from, to, high, highInclusive, comparator);
+        return new SortedArraySet<>(elements, comparator, newFrom, Math.max(newFrom, newTo), descending);
+    }
+
+    private SortedArraySet<E> head(E high, boolean inclusive) {
+        return new SortedArraySet<>(elements, comparator, from, SortedArrays.rangeEnd(elements, from, to, high, inclusive, comparator), descending);
+    }
+
+    private SortedArraySet<E> tail(E low, boolean inclusive) {
+        return new SortedArraySet<>(elements, comparator, SortedArrays.rangeStart(elements, from, to, low, inclusive, comparator), to, descending);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(int index) {
+        return (E) elements[index];
+    }
+
+    private E elementOrNull(int index) {
+        return index < 0 ? null : elementAt(index);
+    }
+}
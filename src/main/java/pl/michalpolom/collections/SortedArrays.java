@@ -0,0 +1,87 @@
+package pl.michalpolom.collections;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Wyszukiwanie binarne w zakresie [from, to) posortowanej tablicy - wspólne dla SortedArraySet i SortedArrayMap.<p>
+ * Metody *Index zwracają -1, gdy szukany element nie istnieje.
+ */
+final class SortedArrays {
+
+    private SortedArrays() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Comparator<? super T> order(Comparator<? super T> comparator) {
+        return comparator != null ? comparator : (Comparator<? super T>) Comparator.naturalOrder();
+    }
+
+    static <T> Comparator<? super T> reversedOrder(Comparator<? super T> comparator) {
+        return comparator == null ? Collections.reverseOrder() : Collections.reverseOrder(comparator);
+    }
+
+    /**
+     * Jak Arrays.binarySearch: indeks klucza albo -(punkt wstawienia) - 1.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> int search(Object[] array, int from, int to, Object key, Comparator<? super T> comparator) {
+        Objects.requireNonNull(key);
+        final Comparator<Object> order = (Comparator<Object>) order(comparator);
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int cmp = order.compare(array[mid], key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    static <T> int ceilingIndex(Object[] array, int from, int to, Object key, Comparator<? super T> comparator) {
+        final int index = search(array, from, to, key, comparator);
+        return checked(index >= 0 ? index : -index - 1, from, to);
+    }
+
+    static <T> int higherIndex(Object[] array, int from, int to, Object key, Comparator<? super T> comparator) {
+        final int index = search(array, from, to, key, comparator);
+        return checked(index >= 0 ? index + 1 : -index - 1, from, to);
+    }
+
+    static <T> int floorIndex(Object[] array, int from, int to, Object key, Comparator<? super T> comparator) {
+        final int index = search(array, from, to, key, comparator);
+        return checked(index >= 0 ? index : -index - 2, from, to);
+    }
+
+    static <T> int lowerIndex(Object[] array, int from, int to, Object key, Comparator<? super T> comparator) {
+        final int index = search(array, from, to, key, comparator);
+        return checked(index >= 0 ? index - 1 : -index - 2, from, to);
+    }
+
+    /**
+     * Pierwszy indeks zakresu zaczynającego się od key.
+     */
+    static <T> int rangeStart(Object[] array, int from, int to, Object key, boolean inclusive, Comparator<? super T> comparator) {
+        final int index = search(array, from, to, key, comparator);
+        return index >= 0 ? (inclusive ? index : index + 1) : -index - 1;
+    }
+
+    /**
+     * Indeks za ostatnim elementem zakresu kończącego się na key.
+     */
+    static <T> int rangeEnd(Object[] array, int from, int to, Object key, boolean inclusive, Comparator<? super T> comparator) {
+        final int index = search(array, from, to, key, comparator);
+        return index >= 0 ? (inclusive ? index + 1 : index) : -index - 1;
+    }
+
+    private static int checked(int index, int from, int to) {
+        return index >= from && index < to ? index : -1;
+    }
+}
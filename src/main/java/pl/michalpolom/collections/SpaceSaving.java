@@ -0,0 +1,172 @@
+package pl.michalpolom.collections;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <h1>SpaceSaving</h1>
+ * Licznik najczęstszych elementów strumienia (heavy hitters) w stałej pamięci - algorytm Space-Saving (Metwally i in.).<p>
+ * Śledzi najwyżej capacity liczników. Nowy element, gdy wszystkie są zajęte, przejmuje licznik o najmniejszej wartości min
+ * i dziedziczy ją jako błąd. Dlatego count(e) nigdy nie zaniża, a zawyża najwyżej o error(e) &lt;= N / capacity,
+ * gdzie N to liczba zliczeń. Każdy element o częstości większej niż N / capacity jest na pewno śledzony.<p>
+ * Liczniki są w kopcu z uchwytami (IndexedPriorityQueue), więc zliczenie kosztuje O(log capacity).<p>
+ * merge łączy częściowe wyniki wątków: element nieobecny w jednym podsumowaniu dostaje jego minimum jako górne oszacowanie.
+ * Nie pozwala na null. Nie jest bezpieczny dla wielowątkowości.
+ */
+public final class SpaceSaving<E> {
+
+    private final int capacity;
+    private final Map<E, IndexedPriorityQueue.Handle<Counter<E>>> counters;
+    private final IndexedPriorityQueue<Counter<E>> byCount;
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.byCount = new IndexedPriorityQueue<>(Comparator.comparingLong(counter -> counter.count));
+    }
+
+    /**
+     * Szacunek częstości elementu z górnym ograniczeniem błędu - prawdziwa częstość należy do [count - error, count].
+     */
+    public record Estimate<E>(E element, long count, long error) {
+
+        public long lowerBound() {
+            return count - error;
+        }
+    }
+
+    public void add(E element) {
+        add(element, 1);
+    }
+
+    public void add(E element, long count) {
+        Objects.requireNonNull(element);
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        total += count;
+        final IndexedPriorityQueue.Handle<Counter<E>> handle = counters.get(element);
+        if (handle != null) {
+            handle.element().count += count;
+            byCount.updatePriority(handle);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(element, byCount.offerWithHandle(new Counter<>(element, count, 0)));
+            return;
+        }
+        final Counter<E> evicted = byCount.poll();
+        counters.remove(evicted.element);
+        counters.put(element, byCount.offerWithHandle(new Counter<>(element, evicted.count + count, evicted.count)));
+    }
+
+    /**
+     * Górne oszacowanie częstości - dla elementu nieśledzonego to najmniejszy licznik (0, gdy liczniki nie są pełne).
+     */
+    public long count(Object element) {
+        final IndexedPriorityQueue.Handle<Counter<E>> handle = counters.get(element);
+        if (handle != null) {
+            return handle.element().count;
+        }
+        return minimum();
+    }
+
+    public long error(Object element) {
+        final IndexedPriorityQueue.Handle<Counter<E>> handle = counters.get(element);
+        return handle != null ? handle.element().error : minimum();
+    }
+
+    /**
+     * Liczba wszystkich zliczeń (N).
+     */
+    public long total() {
+        return total;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * k elementów o największych licznikach, od najczęstszego.
+     */
+    public List<Estimate<E>> top(int k) {
+        final List<Estimate<E>> estimates = new ArrayList<>(counters.size());
+        for (IndexedPriorityQueue.Handle<Counter<E>> handle : counters.values()) {
+            final Counter<E> counter = handle.element();
+            estimates.add(new Estimate<>(counter.element, counter.count, counter.error));
+        }
+        estimates.sort(Comparator.comparingLong((Estimate<E> estimate) -> estimate.count).reversed());
+        return List.copyOf(estimates.subList(0, Math.min(k, estimates.size())));
+    }
+
+    /**
+     * Elementy, których częstość na pewno przekracza fraction * N (dolne oszacowanie powyżej progu).
+     */
+    public List<Estimate<E>> heavyHitters(double fraction) {
+        final double threshold = fraction * total;
+        return top(capacity).stream().filter(estimate -> estimate.lowerBound() > threshold).toList();
+    }
+
+    /**
+     * Łączy z innym podsumowaniem (o dowolnej pojemności) - wynik ma pojemność tego obiektu.
+     */
+    public SpaceSaving<E> merge(SpaceSaving<? extends E> other) {
+        final long ownMinimum = minimum();
+        final long otherMinimum = other.minimum();
+        final Set<E> elements = new HashSet<>(counters.keySet());
+        elements.addAll(other.counters.keySet());
+
+        final List<Counter<E>> merged = new ArrayList<>(elements.size());
+        for (E element : elements) {
+            final var own = counters.get(element);
+            final var theirs = other.counters.get(element);
+            final long count = (own != null ? own.element().count : ownMinimum)
+                    + (theirs != null ? theirs.element().count : otherMinimum);
+            final long error = (own != null ? own.element().error : ownMinimum)
+                    + (theirs != null ? theirs.element().error : otherMinimum);
+            merged.add(new Counter<>(element, count, error));
+        }
+        merged.sort(Comparator.comparingLong((Counter<E> counter) -> counter.count).reversed());
+
+        counters.clear();
+        byCount.clear();
+        for (Counter<E> counter : merged.subList(0, Math.min(capacity, merged.size()))) {
+            counters.put(counter.element, byCount.offerWithHandle(counter));
+        }
+        total += other.total;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "SpaceSaving{total=" + total + ", top=" + top(10) + "}";
+    }
+
+    private long minimum() {
+        return counters.size() < capacity || byCount.isEmpty() ? 0 : byCount.peek().count;
+    }
+
+    private static final class Counter<E> {
+
+        final E element;
+        long count;
+        final long error;
+
+        Counter(E element, long count, long error) {
+            this.element = element;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
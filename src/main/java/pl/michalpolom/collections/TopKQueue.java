@@ -0,0 +1,263 @@
+package pl.michalpolom.collections;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * <h1>TopKQueue</h1>
+ * Kolejka o stałej pojemności k, która zachowuje tylko k największych elementów (wg porządku naturalnego lub Comparator) -
+ * zamiast trzymać cały zbiór w PriorityQueue i zdejmować z niej k razy.<p>
+ * Wewnętrznie to kopiec minimum na tablicy: czoło (peek/poll) jest najsłabszym z zachowanych elementów. Nowy element
+ * słabszy lub równy czołu pełnej kolejki jest odrzucany w O(1), mocniejszy zastępuje czoło w O(log k).<p>
+ * merge dokłada elementy innej kolejki - wynik to top k z obu, więc częściowe wyniki wątków można łączyć.
+ * Nie pozwala na null. Nie jest bezpieczna dla wielowątkowości.
+ */
+public final class TopKQueue<E> extends AbstractQueue<E> {
+
+    private final Comparator<? super E> comparator;
+    private final Object[] heap;
+    private int size;
+    private int modCount;
+
+    private TopKQueue(int k, Comparator<? super E> comparator) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.comparator = Objects.requireNonNull(comparator);
+        this.heap = new Object[k];
+    }
+
+    public static <E extends Comparable<? super E>> TopKQueue<E> of(int k) {
+        return new TopKQueue<>(k, Comparator.naturalOrder());
+    }
+
+    public static <E> TopKQueue<E> of(int k, Comparator<? super E> comparator) {
+        return new TopKQueue<>(k, comparator);
+    }
+
+    public int capacity() {
+        return heap.length;
+    }
+
+    /**
+     * Dodaje element, jeśli mieści się w top k - zwraca false, gdy został odrzucony.
+     */
+    @Override
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+        if (size < heap.length) {
+            siftUp(size++, element);
+            modCount++;
+            return true;
+        }
+        if (comparator.compare(element, elementAt(0)) <= 0) {
+            return false;
+        }
+        siftDown(0, element);
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Jak offer - odrzucenie elementu spoza top k nie jest błędem, więc nie rzuca IllegalStateException jak AbstractQueue.add.
+     */
+    @Override
+    public boolean add(E element) {
+        return offer(element);
+    }
+
+    /**
+     * Zdejmuje najsłabszy z zachowanych elementów.
+     */
+    @Override
+    public E poll() {
+        if (size == 0) {
+            return null;
+        }
+        final E head = elementAt(0);
+        final E last = elementAt(--size);
+        heap[size] = null;
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        modCount++;
+        return head;
+    }
+
+    @Override
+    public E peek() {
+        return size == 0 ? null : elementAt(0);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(heap, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Dokłada elementy other - merge(this) niczego nie zmienia, zamiast dokładać kolejkę do samej siebie w trakcie iteracji.
+     */
+    public TopKQueue<E> merge(TopKQueue<? extends E> other) {
+        if (other == this) {
+            return this;
+        }
+        for (int i = 0; i < other.size; i++) {
+            offer(other.elementAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Zachowane elementy od najlepszego - bez zmiany kolejki.
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> toSortedList() {
+        final E[] sorted = (E[]) Arrays.copyOf(heap, size);
+        Arrays.sort(sorted, comparator.reversed());
+        return List.of(sorted);
+    }
+
+    /**
+     * Iteruje w kolejności kopca (nie posortowanej). remove() działa jak w PriorityQueue - element, który po usunięciu
+     * przesunął się w górę przed kursor, jest zwracany na końcu iteracji.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int expectedModCount = modCount;
+            private int cursor;
+            private int lastIndex = -1;
+            private E lastSkipped;
+            private ArrayDeque<E> skipped;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size || (skipped != null && !skipped.isEmpty());
+            }
+
+            @Override
+            public E next() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (cursor < size) {
+                    lastIndex = cursor;
+                    return elementAt(cursor++);
+                }
+                if (skipped != null) {
+                    lastIndex = -1;
+                    lastSkipped = skipped.poll();
+                    if (lastSkipped != null) {
+                        return lastSkipped;
+                    }
+                }
+                throw new NoSuchElementException();
+            }
+
+            @Override
+            public void remove() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (lastIndex >= 0) {
+                    final E moved = removeAt(lastIndex);
+                    lastIndex = -1;
+                    if (moved == null) {
+                        cursor--;
+                    } else {
+                        if (skipped == null) {
+                            skipped = new ArrayDeque<>();
+                        }
+                        skipped.add(moved);
+                    }
+                } else if (lastSkipped != null) {
+                    removeAt(indexOfSame(lastSkipped));
+                    lastSkipped = null;
+                } else {
+                    throw new IllegalStateException();
+                }
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(int index) {
+        return (E) heap[index];
+    }
+
+    private int indexOfSame(Object element) {
+        for (int i = 0; i < size; i++) {
+            if (heap[i] == element) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Usuwa element spod index - zwraca ostatni element kopca, jeśli po przeniesieniu na to miejsce przesunął się w górę.
+     */
+    private E removeAt(int index) {
+        modCount++;
+        final int last = --size;
+        if (last == index) {
+            heap[last] = null;
+            return null;
+        }
+        final E moved = elementAt(last);
+        heap[last] = null;
+        siftDown(index, moved);
+        if (heap[index] == moved) {
+            siftUp(index, moved);
+            if (heap[index] != moved) {
+                return moved;
+            }
+        }
+        return null;
+    }
+
+    private void siftUp(int index, E element) {
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            final E parentElement = elementAt(parent);
+            if (comparator.compare(element, parentElement) >= 0) {
+                break;
+            }
+            heap[index] = parentElement;
+            index = parent;
+        }
+        heap[index] = element;
+    }
+
+    private void siftDown(int index, E element) {
+        final int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            final int right = child + 1;
+            if (right < size && comparator.compare(elementAt(right), elementAt(child)) < 0) {
+                child = right;
+            }
+            if (comparator.compare(element, elementAt(child)) <= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = element;
+    }
+}
@@ -0,0 +1,286 @@
+package pl.michalpolom.collections;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Wspólna część CompactStringSet i CompactStringMap: klucze zakodowane w UTF-8 leżą jeden za drugim w jednej tablicy
+ * bajtów (arenie) jako [długość varint][bajty], a tablica mieszająca z adresowaniem otwartym (sondowanie liniowe) trzyma
+ * tylko przesunięcia w arenie i hashe kluczy. Usunięcie zostawia w tablicy znacznik, a w arenie martwe bajty - odzyskuje
+ * je przebudowa przy rozszerzaniu tablicy albo przy wstawianiu, gdy martwych bajtów jest więcej niż żywych (i więcej niż
+ * slotów, żeby koszt przebudowy rozłożył się na usunięte klucze).
+ */
+final class Utf8Table {
+
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+    private static final int MAX_ARENA = Integer.MAX_VALUE - 8;
+
+    private byte[] arena;
+    private int arenaSize;
+    private int deadBytes;
+    private int[] offsets;
+    private int[] hashes;
+    private Object[] values;
+    private final boolean withValues;
+    private int size;
+    private int occupied;
+    int modCount;
+
+    Utf8Table(int expectedSize, boolean withValues) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must not be negative: " + expectedSize);
+        }
+        this.withValues = withValues;
+        allocate(tableCapacity(expectedSize), Math.max(64, expectedSize * 8));
+    }
+
+    static byte[] encode(Object key) {
+        if (!(key instanceof CharSequence text)) {
+            return null;
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * FNV-1a po bajtach klucza wzmocniony finalizerem MurmurHash3 (fmix32).
+     */
+    static int hash(byte[] bytes, int from, int length) {
+        int hash = 0x811c9dc5;
+        for (int i = from; i < from + length; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    static int writeVarint(byte[] target, int position, int value) {
+        while ((value & ~0x7f) != 0) {
+            target[position++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        target[position++] = (byte) value;
+        return position;
+    }
+
+    static int varintSize(int value) {
+        int bytes = 1;
+        while ((value & ~0x7f) != 0) {
+            value >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+
+    /**
+     * Czyta varint spod position - zwraca wartość w młodszych 32 bitach i pozycję za nim w starszych.
+     */
+    static long readVarint(byte[] source, int position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = source[position++];
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return ((long) position << 32) | (value & 0xffffffffL);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Slot klucza albo -1, gdy go nie ma.
+     */
+    int find(byte[] key) {
+        final int hash = hash(key, 0, key.length);
+        final int mask = offsets.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            final int offset = offsets[slot];
+            if (offset == EMPTY) {
+                return -1;
+            }
+            if (offset != DELETED && hashes[slot] == hash && keyEquals(offset - 1, key)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Slot istniejącego klucza albo -(slot + 1), gdy klucz został właśnie dodany - jak Arrays.binarySearch.
+     */
+    int insert(byte[] key) {
+        final int existing = find(key);
+        if (existing >= 0) {
+            return existing;
+        }
+        if (occupied + 1 > offsets.length - (offsets.length >>> 2)) {
+            rebuild(size + 1 > offsets.length >>> 1 ? offsets.length << 1 : offsets.length);
+        } else if (deadBytes > arenaSize - deadBytes && deadBytes > offsets.length) {
+            rebuild(offsets.length);
+        }
+        final int hash = hash(key, 0, key.length);
+        final int slot = freeSlot(hash);
+        if (offsets[slot] == EMPTY) {
+            occupied++;
+        }
+        offsets[slot] = append(key) + 1;
+        hashes[slot] = hash;
+        size++;
+        modCount++;
+        return -slot - 1;
+    }
+
+    void removeAt(int slot) {
+        deadBytes += recordBytes(arena, offsets[slot] - 1);
+        offsets[slot] = DELETED;
+        if (withValues) {
+            values[slot] = null;
+        }
+        size--;
+        modCount++;
+    }
+
+    void clear() {
+        Arrays.fill(offsets, EMPTY);
+        if (withValues) {
+            Arrays.fill(values, null);
+        }
+        arenaSize = 0;
+        deadBytes = 0;
+        size = 0;
+        occupied = 0;
+        modCount++;
+    }
+
+    /**
+     * Pierwszy zajęty slot od from włącznie albo -1.
+     */
+    int nextSlot(int from) {
+        for (int slot = from; slot < offsets.length; slot++) {
+            if (offsets[slot] > 0) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    String keyAt(int slot) {
+        final long header = readVarint(arena, offsets[slot] - 1);
+        return new String(arena, (int) (header >>> 32), (int) header, StandardCharsets.UTF_8);
+    }
+
+    Object valueAt(int slot) {
+        return values[slot];
+    }
+
+    void setValueAt(int slot, Object value) {
+        values[slot] = value;
+    }
+
+    /**
+     * Zajęte bajty areny - razem z martwymi bajtami usuniętych kluczy.
+     */
+    int arenaBytes() {
+        return arenaSize;
+    }
+
+    /**
+     * Dopasowuje tablicę i arenę do obecnej zawartości (odzyskuje miejsce po usuniętych kluczach).
+     */
+    void trimToSize() {
+        rebuild(tableCapacity(size));
+        arena = Arrays.copyOf(arena, arenaSize);
+    }
+
+    private static int tableCapacity(int expectedSize) {
+        final long needed = Math.max(8L, (long) Math.ceil(expectedSize / 0.75) + 1);
+        if (needed > 1 << 30) {
+            throw new IllegalArgumentException("too many keys: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private void allocate(int capacity, int arenaCapacity) {
+        offsets = new int[capacity];
+        hashes = new int[capacity];
+        values = withValues ? new Object[capacity] : null;
+        arena = new byte[arenaCapacity];
+        arenaSize = 0;
+        deadBytes = 0;
+        occupied = 0;
+    }
+
+    private int freeSlot(int hash) {
+        final int mask = offsets.length - 1;
+        int slot = hash & mask;
+        while (offsets[slot] > 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Długość rekordu [długość varint][bajty] zaczynającego się pod offset.
+     */
+    private static int recordBytes(byte[] source, int offset) {
+        final long header = readVarint(source, offset);
+        return (int) (header >>> 32) + (int) header - offset;
+    }
+
+    private boolean keyEquals(int offset, byte[] key) {
+        final long header = readVarint(arena, offset);
+        final int start = (int) (header >>> 32);
+        return (int) header == key.length && Arrays.equals(arena, start, start + key.length, key, 0, key.length);
+    }
+
+    private int append(byte[] key) {
+        final int needed = varintSize(key.length) + key.length;
+        if ((long) arenaSize + needed > MAX_ARENA) {
+            throw new IllegalStateException("key arena exceeds 2 GB");
+        }
+        if (arenaSize + needed > arena.length) {
+            arena = Arrays.copyOf(arena, (int) Math.min(MAX_ARENA, Math.max((long) arena.length * 2, arenaSize + needed)));
+        }
+        final int offset = arenaSize;
+        arenaSize = writeVarint(arena, offset, key.length);
+        System.arraycopy(key, 0, arena, arenaSize, key.length);
+        arenaSize += key.length;
+        return offset;
+    }
+
+    /**
+     * Przepisuje żywe klucze do nowej tablicy i zwartej areny - hashe są zapamiętane, więc kluczy nie trzeba haszować ponownie.
+     */
+    private void rebuild(int capacity) {
+        final byte[] oldArena = arena;
+        final int oldArenaSize = arenaSize;
+        final int[] oldOffsets = offsets;
+        final int[] oldHashes = hashes;
+        final Object[] oldValues = values;
+        allocate(capacity, Math.max(64, oldArenaSize));
+        for (int i = 0; i < oldOffsets.length; i++) {
+            if (oldOffsets[i] <= 0) {
+                continue;
+            }
+            final int from = oldOffsets[i] - 1;
+            final int length = recordBytes(oldArena, from);
+            final int slot = freeSlot(oldHashes[i]);
+            System.arraycopy(oldArena, from, arena, arenaSize, length);
+            offsets[slot] = arenaSize + 1;
+            hashes[slot] = oldHashes[i];
+            if (withValues) {
+                values[slot] = oldValues[i];
+            }
+            arenaSize += length;
+            occupied++;
+        }
+        modCount++;
+    }
+}
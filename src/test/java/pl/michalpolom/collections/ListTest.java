@@ -1,13 +1,21 @@
 package pl.michalpolom.collections;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.junit.jupiter.api.Test;
+import pl.michalpolom.collections.footprint.MeasureFootprint;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.TreeMap;
 import java.util.Vector;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
@@ -16,6 +24,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+@MeasureFootprint
 class ListTest {
 
 
@@ -137,6 +146,80 @@ class ListTest {
         );
     }
 
+    /**
+     * <h1>ChunkedDeque <i>implements List, Deque (Queue)</i></h1>
+     * Elementy w tablicach po 64 elementy, a tablice w pierścieniowym katalogu - zamiast węzła na każdy element jak w LinkedList.<p>
+     * Dodawanie i usuwanie na obu końcach O(1), get(int) O(1) - łączy zalety LinkedList i ArrayDeque.<p>
+     * Wstawianie w środku przesuwa krótszą część kolekcji.
+     */
+    @Test
+    void chunkedDeque() {
+
+        final var names = new ChunkedDeque<String>();
+
+        names.add("Alice");
+        names.addLast("Bob");
+        names.addFirst("John");
+
+        final var reversed = names.reversed();
+
+        final var random = new Random(7);
+        final var deque = new ChunkedDeque<Integer>();
+        final var expected = new ArrayList<Integer>();
+        for (int i = 0; i < 20_000; i++) {
+            final int operation = random.nextInt(6);
+            if (operation == 0) {
+                deque.addFirst(i);
+                expected.add(0, i);
+            } else if (operation == 1) {
+                deque.addLast(i);
+                expected.add(i);
+            } else if (operation == 2 && !expected.isEmpty()) {
+                assertEquals(expected.remove(0), deque.pollFirst());
+            } else if (operation == 3 && !expected.isEmpty()) {
+                assertEquals(expected.remove(expected.size() - 1), deque.pollLast());
+            } else if (operation == 4) {
+                final int index = random.nextInt(expected.size() + 1);
+                deque.add(index, i);
+                expected.add(index, i);
+            } else if (!expected.isEmpty()) {
+                final int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), deque.remove(index));
+            }
+        }
+
+        assertAll(
+                () -> assertTrue(names.contains("John")),
+
+                // GET
+                () -> assertEquals("John", names.getFirst()),
+                () -> assertEquals("Alice", names.get(1)),                                      // <-- Różnica z ArrayDeque
+                () -> assertEquals("Bob", names.getLast()),
+                () -> assertEquals("[Bob, Alice, John]", reversed.toString()),
+                () -> assertEquals("Bob", reversed.peekFirst()),
+
+                // PEEK, POLL
+                () -> assertEquals("John", names.peek()),
+                () -> assertEquals("John", names.poll()),
+                () -> assertEquals("Alice", names.pollFirst()),
+                () -> assertEquals("Bob", names.pollLast()),
+                () -> assertEquals(0, names.size()),
+                () -> assertTrue(reversed.isEmpty()),
+
+                () -> assertEquals(null, names.peekFirst()),
+                () -> assertEquals(null, names.pollFirst()),
+                () -> assertThrows(NoSuchElementException.class, () -> names.pop()),
+                () -> assertThrows(NoSuchElementException.class, () -> names.getFirst()),
+                () -> assertThrows(IndexOutOfBoundsException.class, () -> names.get(0)),
+
+                // null
+                () -> assertThrows(NullPointerException.class, () -> names.add(null)),            // <-- Różnica z LinkedList
+
+                () -> assertEquals(expected, deque),
+                () -> assertEquals(expected.size(), deque.size())
+        );
+    }
+
     /**
      * <h1>Vector</h1>
      * Podobny do ArrayList, ale jest zsynchronizowany, co oznacza, że jest bezpieczny dla wątków (ang. thread-safe).<p>
@@ -164,6 +247,171 @@ class ListTest {
         );
     }
 
+    /**
+     * <h1>LockedList</h1>
+     * Bezpieczna wielowątkowo lista jak Vector, ale na ReentrantReadWriteLock zamiast synchronized - czytelnicy nie blokują
+     * się nawzajem, a wątki wirtualne nie są przypinane do nośnika.<p>
+     * Iterator działa na kopii, operacje złożone wykonuje się przez read / write.<p>
+     */
+    @Test
+    void lockedList() throws InterruptedException {
+        final var names = new LockedList<String>();
+
+        names.add("Alice");
+        names.add("Bob");
+        names.add(0, "John");
+
+        final var numbers = new LockedList<Integer>();
+        final var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    final int value = i;
+                    numbers.write(list -> list.contains(value) || list.add(value));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        final var iterator = names.iterator();
+        names.add("Zbigniew");
+
+        final var letters = new LockedList<>(List.of("a", "b", "c", "d", "e", "f", "g", "h"));
+        letters.removeAll(List.of("a", "h"));
+        letters.retainAll(List.of("b", "c", "d", "e", "f"));
+        letters.subList(0, 2).clear();
+        for (var it = letters.iterator(); it.hasNext(); ) {
+            if (it.next().equals("e")) {
+                it.remove();
+            }
+        }
+        final var stale = letters.iterator();
+        stale.next();
+        letters.add("x");
+
+        assertAll(
+                () -> assertTrue(names.contains("John")),
+
+                // GET
+                () -> assertEquals("John", names.get(0)),
+                () -> assertEquals("Alice", names.get(1)),
+                () -> assertEquals("Bob", names.get(2)),
+
+                // kopia zamiast ConcurrentModificationException
+                () -> assertEquals("John", iterator.next()),
+                () -> assertEquals(List.of("John", "Alice", "Bob", "Zbigniew"), names),
+                () -> assertEquals(Integer.valueOf(2), names.read(list -> list.indexOf("Bob"))),
+
+                // usuwanie zbiorcze i przez iterator pod blokadą zapisu
+                () -> assertEquals(List.of("d", "f", "x"), letters),
+                () -> assertThrows(ConcurrentModificationException.class, stale::remove),
+
+                // sprawdź i dodaj atomowo z 8 wątków
+                () -> assertEquals(1_000, numbers.size()),
+                () -> assertEquals(999 * 1_000 / 2, numbers.stream().mapToInt(Integer::intValue).sum()),
+
+                // null
+                () -> assertDoesNotThrow(() -> names.add(null))
+        );
+    }
+
+    /**
+     * <h1>IntArrayList / LongArrayList</h1>
+     * Odpowiednik ArrayList&lt;Integer&gt; przechowujący wartości w tablicy prymitywów - bez opakowywania (boxing).<p>
+     * Metody withCapacity/withExpectedSize działają jak Lists.newArrayListWithCapacity/newArrayListWithExpectedSize.<p>
+     * asList() zwraca widok List&lt;Integer&gt; do współpracy z resztą API kolekcji.
+     */
+    @Test
+    void primitiveArrayList() {
+
+        final var ids = IntArrayList.withCapacity(5);
+        ids.addAll(1, 2, 3, 4, 5);
+        ids.add(11);
+
+        final var longIds = LongArrayList.withExpectedSize(5);
+        longIds.addAll(6L, 7L, 8L, 9L, 10L);
+        longIds.add(0, 11L);
+
+        final var view = ids.asList();
+        final var sum = new long[1];
+
+        assertAll(
+                () -> assertEquals(6, ids.size()),
+                () -> assertEquals(11, ids.getInt(5)),
+                () -> assertTrue(ids.contains(3)),
+                () -> assertEquals("[1, 2, 3, 4, 5, 11]", ids.toString()),
+                () -> assertEquals("[11, 6, 7, 8, 9, 10]", longIds.toString()),
+                () -> assertEquals(8L, longIds.removeAt(3)),
+                () -> assertThrows(IndexOutOfBoundsException.class, () -> ids.getInt(6)),
+                () -> assertThrows(IllegalArgumentException.class, () -> IntArrayList.withExpectedSize(-1)),
+
+                // widok List<Integer>
+                () -> assertEquals(List.of(1, 2, 3, 4, 5, 11), view),
+                () -> assertTrue(view.remove(Integer.valueOf(11))),
+                () -> assertEquals(5, ids.size()),
+                () -> assertThrows(NullPointerException.class, () -> view.add(null)),
+                () -> {
+                    final var open = longIds.asList().iterator();
+                    open.next();
+                    longIds.add(12L);
+                    assertThrows(ConcurrentModificationException.class, open::next);   // widok widzi zmiany przez API prymitywne
+                },
+
+                // forEachInt - bez alokacji
+                () -> {
+                    ids.forEachInt(value -> sum[0] += value);
+                    assertEquals(15, sum[0]);
+                }
+        );
+    }
+
+    /**
+     * <h1>PersistentVector</h1>
+     * Niemodyfikowalna lista jak List.of(), ale "zmiana" (with, withoutLast) zwraca nową wersję w O(log32 n)
+     * zamiast kopiować całą listę - nowa i stara wersja współdzielą niezmienione fragmenty drzewa.<p>
+     * Nie dopuszcza wartości null.
+     */
+    @Test
+    void persistentVector() {
+
+        final var names = PersistentVector.<String>empty().with("John").with("Alice").with("Bob");
+        final var renamed = names.with(0, "Marcin");
+
+        var numbers = PersistentVector.<Integer>empty();
+        final var expected = new ArrayList<Integer>();
+        for (int i = 0; i < 40_000; i++) {
+            numbers = numbers.with(i);
+            expected.add(i);
+        }
+        final var appended = numbers;
+        final var updated = numbers.with(12_345, -1).withoutLast();
+        final var builder = PersistentVector.<Integer>builder();
+        expected.forEach(builder::add);
+        final var built = builder.build();
+        var shrunk = built;
+        for (int i = 0; i < 39_000; i++) {
+            shrunk = shrunk.withoutLast();
+        }
+        final var afterShrink = shrunk;
+
+        assertAll(
+                () -> assertEquals(List.of("John", "Alice", "Bob"), names),
+                () -> assertEquals(List.of("Marcin", "Alice", "Bob"), renamed),
+                () -> assertThrows(UnsupportedOperationException.class, () -> names.add("Marcin")),
+                () -> assertThrows(NullPointerException.class, () -> names.with(null)),
+                () -> assertThrows(IndexOutOfBoundsException.class, () -> names.get(3)),
+
+                () -> assertEquals(expected, built),
+                () -> assertEquals(-1, updated.get(12_345)),
+                () -> assertEquals(12_345, appended.get(12_345)),
+                () -> assertEquals(39_999, updated.size()),
+                () -> assertEquals(expected.subList(0, 1_000), afterShrink),
+                () -> assertEquals(List.of(0), afterShrink.subList(0, 1))
+        );
+    }
+
     /**
      * <h1>Lists from Guava</h1>
      * Jest to klasa pomocnicza zawierająca różne metody do tworzenia i manipulowania listami
@@ -211,4 +459,97 @@ class ListTest {
              * Jest użyteczna, gdy liczba elementów do dodania do listy jest tylko szacunkowa, a nie dokładna.
          */
     }
-}
\ No newline at end of file
+
+    /**
+     * <h1>ParallelCollections</h1>
+     * Odpowiedniki Lists.partition i Lists/Sets.cartesianProduct ze spliteratorami dzielącymi zakres indeksów na równe połowy,
+     * więc parallelStream() równo rozkłada pracę. <p>
+     * parallelFilterInto sprawdza predykat równolegle i dopisuje wyniki do wcześniej zaalokowanej kolekcji w kolejności źródła.
+     */
+    @Test
+    void parallelCollections() {
+        final var numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 1_000; i++) {
+            numbers.add(i);
+        }
+
+        final var partitioned = ParallelCollections.partition(numbers, 7);
+        final var partitionSums = partitioned.parallelStream()
+                .map(part -> part.stream().mapToInt(Integer::intValue).sum())
+                .toList();
+
+        final var axis = numbers.subList(0, 300);
+        final var product = ParallelCollections.cartesianProduct(List.of(axis, axis));
+        final var spliterator = product.spliterator();
+        final var prefix = spliterator.trySplit();
+        final long productSum = product.parallelStream().mapToLong(pair -> pair.get(0) * 1_000L + pair.get(1)).sum();
+
+        final var names = ParallelCollections.cartesianProductOfSets(List.of(Set.of("Alice", "Bob"), Set.of(1, 2, 3)));
+
+        final var even = ParallelCollections.parallelFilterInto(numbers, n -> n % 2 == 0, new ArrayList<Integer>(500));
+        final var lengths = ParallelCollections.parallelFilterKeysInto(
+                Map.of("Alice", 5, "Bob", 3, "John", 4), name -> name.length() > 3, new TreeMap<String, Integer>());
+
+        assertAll(
+                () -> assertEquals(Lists.partition(numbers, 7), partitioned),
+                () -> assertEquals(143, partitionSums.size()),
+                () -> assertEquals(999 * 1_000 / 2, partitionSums.stream().mapToInt(Integer::intValue).sum()),
+
+                () -> assertEquals(Lists.cartesianProduct(axis, axis), product),
+                () -> assertEquals(45_000, prefix.estimateSize()),
+                () -> assertEquals(45_000, spliterator.estimateSize()),
+                () -> assertEquals(List.of(150, 0), collect(spliterator).get(0)),
+                () -> assertEquals(300L * 299 / 2 * 300 * 1_000 + 300L * 299 / 2 * 300, productSum),
+
+                () -> assertEquals(6, names.size()),
+                () -> assertTrue(names.contains(List.of("Bob", 2))),
+                () -> assertEquals(Set.copyOf(Sets.cartesianProduct(Set.of("Alice", "Bob"), Set.of(1, 2, 3))), names),
+
+                () -> assertEquals(500, even.size()),
+                () -> assertEquals(List.of(0, 2, 4), even.subList(0, 3)),
+                () -> assertEquals("{Alice=5, John=4}", lengths.toString()),
+                () -> assertThrows(IllegalArgumentException.class, () -> ParallelCollections.partition(numbers, 0))
+        );
+    }
+
+    private static <T> ArrayList<T> collect(Spliterator<T> spliterator) {
+        final var result = new ArrayList<T>();
+        spliterator.forEachRemaining(result::add);
+        return result;
+    }
+
+    /**
+     * <h1>CollectionFootprint</h1>
+     * Szacowany rozmiar sterty kolekcji: totalBytes z elementami, structureBytes bez nich. <p>
+     * ArrayList płaci za element jedną referencję w tablicy, LinkedList dodatkowo cały węzeł (nagłówek i trzy referencje),
+     * a IntArrayList nie ma obiektów elementów - tylko int[]. <p>
+     * MeasureFootprint sprawdza, ile bajtów zaalokował sam test.
+     */
+    @Test
+    @MeasureFootprint(maxAllocatedBytes = 64 * 1024 * 1024)
+    void collectionFootprint() {
+        final var arrayList = new ArrayList<Integer>();
+        final var linkedList = new LinkedList<Integer>();
+        final var intArrayList = new IntArrayList();
+        for (int i = 1_000; i < 11_000; i++) {
+            arrayList.add(i);
+            linkedList.add(i);
+            intArrayList.add(i);
+        }
+        arrayList.trimToSize();
+        intArrayList.trimToSize();
+
+        final var array = CollectionFootprint.of(arrayList);
+        final var linked = CollectionFootprint.of(linkedList);
+
+        assertAll(
+                () -> assertEquals(10_000, array.elements()),
+                () -> assertEquals(1 + 10_000 + 10_000, linked.objects()),
+                () -> assertTrue(array.overheadPerElement() < 8),
+                () -> assertTrue(linked.overheadPerElement() >= 24),
+                () -> assertTrue(array.totalBytes() - array.structureBytes() >= 10_000 * 16),
+                () -> assertTrue(CollectionFootprint.retainedSize(intArrayList) < array.structureBytes() + 64),
+                () -> assertTrue(CollectionFootprint.retainedSize(intArrayList) < array.totalBytes() / 4)
+        );
+    }
+}
@@ -10,24 +10,39 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import pl.michalpolom.collections.entity.Names;
+import pl.michalpolom.collections.footprint.MeasureFootprint;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+@MeasureFootprint
 class MapTest {
 
 
@@ -55,6 +70,72 @@ class MapTest {
         );
     }
 
+    /**
+     * <h1>CompactStringMap</h1>
+     * Klucze String zakodowane w UTF-8 w jednej tablicy bajtów, wartości w tablicy równoległej do slotów - bez węzłów
+     * i bez obiektów String w środku. <p>
+     * Nie pozwala na null jako klucz, pozwala na null jako wartość.
+     */
+    @Test
+    void compactStringMap() {
+
+        final var names = new CompactStringMap<String>();
+
+        names.put("Alice", "test1");
+        names.put("Bob", "test2");
+        names.put("John", "test3");
+        names.put("John", "test4");
+
+        final var hashMap = new HashMap<String, Integer>();
+        final var compact = new CompactStringMap<Integer>();
+        for (int i = 0; i < 10_000; i++) {
+            hashMap.put("user" + i, i % 100);
+            compact.put("user" + i, i % 100);
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            hashMap.remove("user" + i);
+            compact.remove("user" + i);
+        }
+        compact.trimToSize();
+
+        final var churn = new CompactStringMap<Integer>();
+        for (int i = 0; i < 100_000; i++) {
+            churn.put("key", i);
+            churn.remove("key");
+        }
+
+        final var rehashed = new CompactStringMap<Integer>();
+        rehashed.put("first", 1);
+        final var entry = rehashed.entrySet().iterator().next();
+        final var expected = new HashMap<String, Integer>(Map.of("first", 42));
+        for (int i = 0; i < 100; i++) {
+            rehashed.put("key" + i, i);
+            expected.put("key" + i, i);
+        }
+        rehashed.put("first", 7);
+        final var beforeSet = entry.getValue();
+        final var previous = entry.setValue(42);
+
+        assertAll(
+                () -> assertEquals(Map.of("Alice", "test1", "Bob", "test2", "John", "test4"), names),
+
+                () -> assertEquals("test4", names.get("John")),
+                () -> assertThrows(NullPointerException.class, () -> names.put(null, null)),
+                () -> assertDoesNotThrow(() -> names.put("Adam", null)),
+                () -> assertTrue(names.containsKey("Adam")),
+                () -> assertEquals(4, names.size()),
+                () -> assertFalse(names.isEmpty()),
+
+                () -> assertEquals(hashMap, compact),
+                () -> assertEquals(5_000 * 9, compact.arenaBytes(), 5_000),
+                () -> assertTrue(churn.isEmpty()),
+                () -> assertTrue(churn.arenaBytes() < 1_000, "arena " + churn.arenaBytes()),   // martwe bajty są odzyskiwane
+                () -> assertEquals(expected, rehashed),   // setValue po przebudowie trafia w nowy slot klucza
+                () -> assertEquals(7, beforeSet),   // wpis czyta bieżącą wartość z mapy
+                () -> assertEquals(7, previous),
+                () -> assertTrue(CollectionFootprint.retainedSize(compact) * 2 < CollectionFootprint.retainedSize(hashMap))
+        );
+    }
 
     /**
      * <h1>LinkedHashMap extends HashMap</h1>
@@ -82,6 +163,168 @@ class MapTest {
         );
     }
 
+    /**
+     * <h1>ConcurrentLinkedHashMap</h1>
+     * Współbieżny odpowiednik LinkedHashMap - indeks ConcurrentHashMap i dopisywany bez blokad dziennik kolejności dodawania,
+     * kompaktowany po usunięciach. <p>
+     * Spliterator dzieli dziennik po równo, więc entrySet().parallelStream() działa równolegle. Nie pozwala na null.
+     */
+    @Test
+    void concurrentLinkedHashMap() throws InterruptedException {
+
+        final var names = new ConcurrentLinkedHashMap<String, String>();
+
+        names.put("Alice", "test1");
+        names.put("Bob", "test2");
+        names.put("John", "test3");
+        names.put("John", "test4");
+        names.put("Adam", "test5");
+        names.remove("Adam");
+        names.put("Adam", "test6");
+
+        final var numbers = new ConcurrentLinkedHashMap<Integer, Integer>();
+        final var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t * 10_000;
+            threads.add(new Thread(() -> {
+                for (int i = offset; i < offset + 10_000; i++) {
+                    numbers.put(i, i);
+                    if (i % 2 == 1) {
+                        numbers.remove(i - 1);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        final var perThreadOrdered = numbers.keySet().stream()
+                .collect(Collectors.groupingBy(key -> key / 10_000)).values().stream()
+                .allMatch(keys -> keys.equals(keys.stream().sorted().toList()));
+        final var split = numbers.entrySet().spliterator();
+        final var prefix = split.trySplit();
+
+        final var set = ConcurrentLinkedHashMap.<String>newKeySet();
+        set.add("John");
+        set.add("Alice");
+        set.add("John");
+
+        assertAll(
+                () -> assertEquals("{Alice=test1, Bob=test2, John=test4, Adam=test6}", names.toString()),
+
+                () -> assertEquals("test4", names.get("John")),
+                () -> assertThrows(NullPointerException.class, () -> names.put(null, null)),
+                () -> assertEquals(4, names.size()),
+                () -> assertFalse(names.isEmpty()),
+
+                () -> assertEquals(20_000, numbers.size()),
+                () -> assertTrue(perThreadOrdered),
+                () -> assertEquals(20_000L * 20_000, numbers.entrySet().parallelStream().mapToLong(Map.Entry::getValue).sum()),
+                () -> assertTrue(prefix != null && prefix.estimateSize() > 0),
+                () -> assertEquals(names.keySet().stream().toList(), names.keySet().parallelStream().toList()),
+                () -> assertEquals("[John, Alice]", set.toString())
+        );
+    }
+
+    /**
+     * <h1>BoundedCache</h1>
+     * Cache ograniczony rozmiarem lub wagą z polityką W-TinyLFU - nowe klucze muszą wygrać porównanie częstości z ofiarą,
+     * więc jednorazowe skanowanie nie wypiera popularnych wpisów (LinkedHashMap z accessOrder by je wyparł). <p>
+     * Wpisy mogą wygasać po czasie od zapisu lub dostępu, a stats() zwraca trafienia, chybienia, ładowania i eksmisje.
+     */
+    @Test
+    void boundedCache() {
+
+        final var cache = BoundedCache.<String, String>builder().maximumSize(100).build();
+        cache.put("Alice", "test1");
+        for (int i = 0; i < 10; i++) {
+            cache.getIfPresent("Alice");
+        }
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("scan" + i, "value" + i);
+        }
+
+        final var lru = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > 100;
+            }
+        };
+        lru.put("Alice", "test1");
+        for (int i = 0; i < 10; i++) {
+            lru.get("Alice");
+        }
+        for (int i = 0; i < 1_000; i++) {
+            lru.put("scan" + i, "value" + i);
+        }
+
+        final var weighted = BoundedCache.<String, String>builder()
+                .maximumWeight(10, (name, value) -> value.length())
+                .build();
+        weighted.put("Alice", "test1");
+        weighted.put("Bob", "test2");
+        weighted.put("John", "test3");
+
+        final var time = new AtomicLong();
+        final var expiring = BoundedCache.<String, String>builder()
+                .maximumSize(10)
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .ticker(time::get)
+                .build();
+        expiring.put("Alice", "test1");
+        final var beforeExpiry = expiring.getIfPresent("Alice");
+        time.addAndGet(Duration.ofMinutes(2).toNanos());
+
+        // wpisy zapisane dawno, ale czytane niedawno, leżą za świeższym wpisem w kolejce dostępu
+        final var writeOrder = BoundedCache.<String, String>builder()
+                .maximumSize(100)
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .ticker(time::get)
+                .build();
+        for (int i = 0; i < 10; i++) {
+            writeOrder.put("old" + i, "value" + i);
+        }
+        time.addAndGet(Duration.ofSeconds(30).toNanos());
+        writeOrder.put("late", "test2");
+        writeOrder.put("filler", "test3");
+        writeOrder.getIfPresent("late");
+        for (int i = 0; i < 10; i++) {
+            writeOrder.getIfPresent("old" + i);
+        }
+        time.addAndGet(Duration.ofSeconds(40).toNanos());
+        writeOrder.put("trigger", "test4");   // obsługa zapisu usuwa wszystkie wygasłe wpisy, nie tylko z czół kolejek dostępu
+
+        final var loading = BoundedCache.<String, Integer>builder().maximumSize(10).build();
+        loading.get("Alice", String::length);
+        loading.get("Alice", String::length);
+        final var stats = loading.stats();
+
+        assertAll(
+                () -> assertEquals("test1", cache.getIfPresent("Alice")),
+                () -> assertNull(lru.get("Alice")),
+                () -> assertEquals(100, cache.estimatedSize()),
+                () -> assertEquals(901, cache.stats().evictionCount()),
+
+                () -> assertEquals(5, weighted.weightedSize()),
+                () -> assertEquals("test1", weighted.getIfPresent("Alice")),
+                () -> assertNull(weighted.getIfPresent("John")),
+
+                () -> assertEquals("test1", beforeExpiry),
+                () -> assertNull(expiring.getIfPresent("Alice")),
+                () -> assertEquals(0, expiring.estimatedSize()),
+                () -> assertEquals(3, writeOrder.estimatedSize()),
+                () -> assertEquals("test2", writeOrder.getIfPresent("late")),
+
+                () -> assertEquals(1, stats.hitCount()),
+                () -> assertEquals(1, stats.missCount()),
+                () -> assertEquals(1, stats.loadSuccessCount()),
+                () -> assertEquals(0.5, stats.hitRate()),
+                () -> assertThrows(NullPointerException.class, () -> cache.put("Bob", null)),
+                () -> assertThrows(IllegalStateException.class, () -> BoundedCache.builder().build())
+        );
+    }
+
     /**
      * <h1>TreeMap</h1>
      * Bazuje na strukturze danych drzewa czerwono-czarnego (red-black tree). <p>
@@ -132,6 +375,142 @@ class MapTest {
         );
     }
 
+    /**
+     * <h1>ConcurrentLongSkipListMap</h1>
+     * Bezblokadowa lista z przeskokami o kluczach long - jak ConcurrentSkipListMap, ale bez opakowywania kluczy.<p>
+     * Zakresy przegląda się kursorem wielokrotnego użytku, także malejąco (jak TreeMap z Comparator.reverseOrder()).<p>
+     */
+    @Test
+    void concurrentLongSkipListMap() throws InterruptedException {
+
+        final var ids = new ConcurrentLongSkipListMap<String>();
+        final var reference = new TreeMap<Long, String>(Comparator.reverseOrder());
+        final var threads = new ArrayList<Thread>();
+        final var start = new CountDownLatch(1);
+        for (int t = 0; t < 8; t++) {
+            final long offset = t;
+            threads.add(new Thread(() -> {
+                assertDoesNotThrow(() -> start.await());
+                for (long key = offset; key < 8_000; key += 8) {
+                    ids.put(key, "v" + key);
+                    if (key % 3 == 0) {
+                        ids.remove(key);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (long key = 0; key < 8_000; key++) {
+            if (key % 3 != 0) {
+                reference.put(key, "v" + key);
+            }
+        }
+        ids.put(-5, "minus");
+        reference.put(-5L, "minus");
+
+        final var cursor = ids.cursor();
+        final var descending = new ArrayList<Long>();
+        cursor.subMap(100, true, 110, false).descending();
+        while (cursor.next()) {
+            descending.add(cursor.key());
+        }
+        long ascendingSum = 0;
+        int ascendingCount = 0;
+        cursor.tailMap(7_990, false);
+        while (cursor.next()) {
+            ascendingSum += cursor.key();
+            ascendingCount++;
+        }
+        final var head = new ArrayList<String>();
+        cursor.headMap(2, true).descending();
+        while (cursor.next()) {
+            head.add(cursor.value());
+        }
+        final var all = new ArrayList<Long>();
+        cursor.all().descending();
+        while (cursor.next()) {
+            all.add(cursor.key());
+        }
+        final long tailSum = ascendingSum;
+        final int tailCount = ascendingCount;
+        final long expectedSum = reference.headMap(7_990L, false).keySet().stream().mapToLong(Long::longValue).sum();
+        final int expectedCount = reference.headMap(7_990L, false).size();
+
+        assertAll(
+                () -> assertEquals(new ArrayList<>(reference.subMap(109L, true, 100L, true).keySet()), descending),
+                () -> assertEquals(List.of(109L, 107L, 106L, 104L, 103L, 101L, 100L), descending),
+                () -> assertEquals(expectedSum, tailSum),
+                () -> assertEquals(expectedCount, tailCount),
+                () -> assertEquals(List.of("v2", "v1", "minus"), head),
+                () -> assertEquals(new ArrayList<>(reference.keySet()), all),
+
+                () -> assertEquals("v7", ids.get(7)),
+                () -> assertNull(ids.get(9)),
+                () -> assertEquals(reference.size(), ids.size()),
+                () -> assertEquals(-5, ids.firstKey()),
+                () -> assertEquals(7_999, ids.lastKey()),
+                () -> assertThrows(NullPointerException.class, () -> ids.put(1, null)),
+                () -> assertEquals("v1", ids.putIfAbsent(1, "other")),
+                () -> assertFalse(ids.remove(1, "other")),
+                () -> assertFalse(cursor.next()),
+                () -> assertFalse(new ConcurrentLongSkipListMap<String>().cursor().headMap(Long.MIN_VALUE, false).next())
+        );
+    }
+
+    /**
+     * <h1>SortedArrayMap</h1>
+     * Zamrożona kopia TreeMap - klucze i wartości w dwóch równoległych posortowanych tablicach, wyszukiwanie binarne.<p>
+     * Niemodyfikowalna. Podmapy współdzielą tablice z oryginałem.<p>
+     */
+    @Test
+    void sortedArrayMap() {
+
+        final var tree = new TreeMap<String, String>();
+        tree.put("Bob", "test2");
+        tree.put("John", "test4");
+        tree.put("Alice", "test1");
+
+        final var names = SortedArrayMap.copyOf(tree);
+        final var reversed = SortedArrayMap.copyOf(tree, Comparator.<String>reverseOrder());
+        final var descending = names.descendingMap();   // widok na tych samych tablicach, bez kopii
+        final var treeDescending = tree.descendingMap();
+
+        assertAll(
+                () -> assertEquals("{Alice=test1, Bob=test2, John=test4}", names.toString()),
+                () -> assertEquals("{John=test4, Bob=test2, Alice=test1}", reversed.toString()),
+                () -> assertEquals(tree, names),
+                () -> assertEquals(names, reversed.descendingMap()),
+                () -> assertEquals(treeDescending.toString(), descending.toString()),
+                () -> assertEquals(null, descending.descendingMap().comparator()),
+                () -> assertEquals("[Alice, Bob, John]", descending.descendingMap().keySet().toString()),
+                () -> assertEquals("John", descending.firstKey()),
+                () -> assertEquals(treeDescending.ceilingKey("Bill"), descending.ceilingKey("Bill")),
+                () -> assertEquals(treeDescending.lowerEntry("Bob"), descending.lowerEntry("Bob")),
+                () -> assertEquals(treeDescending.subMap("John", true, "Alice", false), descending.subMap("John", true, "Alice", false)),
+                () -> assertEquals("{Bob=test2, Alice=test1}", descending.tailMap("Bob").toString()),
+                () -> assertEquals("[John]", descending.headMap("Bob").keySet().toString()),
+                () -> assertEquals("[John, Bob, Alice]", names.descendingKeySet().toString()),
+                () -> assertThrows(IllegalArgumentException.class, () -> descending.subMap("Alice", "John")),
+
+                () -> assertEquals("test4", names.get("John")),
+                () -> assertEquals(null, names.get("Adam")),
+                () -> assertThrows(NullPointerException.class, () -> names.get(null)),
+                () -> assertThrows(UnsupportedOperationException.class, () -> names.put("Adam", "test5")),
+                () -> assertEquals(3, names.size()),
+                () -> assertEquals("Bob", names.ceilingKey("Bill")),
+                () -> assertEquals("Alice", reversed.ceilingKey("Bill")),
+                () -> assertEquals("{Bob=test2}", names.subMap("Bill", "John").toString()),
+                () -> assertEquals("[Alice, Bob, John]", names.navigableKeySet().toString()),
+                () -> assertEquals("[test1, test2, test4]", names.values().toString()),
+                () -> assertEquals("{Alice=1, Bob=1}", names.keySet().stream().filter(name -> name.compareTo("C") < 0)
+                        .collect(SortedArrayMap.toSortedArrayMap(name -> name, name -> 1, null)).toString())
+        );
+    }
+
     /**
      * <h1>EnumMap</h1>
      * Może przechowywać tylko elementy wyliczenia jako klucze.<p>
@@ -160,6 +539,38 @@ class MapTest {
         );
     }
 
+    /**
+     * <h1>IndexedMap</h1>
+     * Odpowiednik EnumMap dla kluczy znanych dopiero w czasie działania - wartość leży w tablicy pod numerem klucza z KeyUniverse.<p>
+     * Kolejność iteracji to kolejność nadania numerów.<p>
+     */
+    @Test
+    void indexedMap() {
+
+        final var tenants = KeyUniverse.of("BOB", "JOHN", "ALICE");
+        final var names = new IndexedMap<String, String>(tenants);
+
+        names.put("JOHN", "test1");
+        names.put("ALICE", "test2");
+        names.put("BOB", "test3");
+        names.put("BOB", "test4");
+        names.put("EVE", null);
+
+        assertAll(
+                () -> assertEquals("{BOB=test4, JOHN=test1, ALICE=test2, EVE=null}", names.toString()),
+                () -> assertTrue(names.containsKey("EVE")),
+                () -> assertEquals(3, tenants.ordinal("EVE")),
+                () -> assertThrows(NullPointerException.class, () -> names.put(null, null)),
+                () -> assertEquals(4, names.size()),
+                () -> assertEquals("test1", names.remove("JOHN")),
+                () -> assertEquals(null, names.remove("JOHN")),
+                () -> assertEquals(Set.of("BOB", "ALICE", "EVE"), names.keysCopy()),
+                () -> assertEquals(Map.of("BOB", "test4", "ALICE", "test2"), names.entrySet().stream()
+                        .filter(entry -> entry.getValue() != null)
+                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)))
+        );
+    }
+
     /**
      * <h1>ConcurrentHashMap</h1>
      * Bezpieczna dla wielowątkowości. <p>
@@ -202,6 +613,226 @@ class MapTest {
         );
     }
 
+    /**
+     * <h1>Object2IntOpenHashMap</h1>
+     * Zamiennik Map&lt;String, Integer&gt; - klucze i wartości int w równoległych tablicach, adresowanie liniowe. <p>
+     * Brak węzłów HashMap.Node i obiektów Integer. Nie pozwala na klucze null.
+     */
+    @Test
+    void object2IntOpenHashMap() {
+
+        final var names = new Object2IntOpenHashMap<String>(4, 0.5f);
+
+        names.put("Alice", 1);
+        names.put("Bob", 2);
+        names.put("John", 3);
+        names.put("John", 4);
+
+        final var lengths = Object2IntOpenHashMap.toMap(Sets.newHashSet("one", "two", "three"), String::length);
+
+        assertAll(
+                () -> assertEquals(4, names.getInt("John")),
+                () -> assertEquals(-1, names.getOrDefault("Marcin", -1)),
+                () -> assertEquals(3, names.size()),
+                () -> assertEquals(5, names.addTo("Alice", 4)),
+                () -> assertThrows(NullPointerException.class, () -> names.put(null, 0)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new Object2IntOpenHashMap<String>(4, 1f)),
+
+                () -> assertEquals(5, lengths.getInt("three")),
+                () -> assertEquals(3, lengths.getInt("one")),
+
+                () -> assertTrue(names.remove("Bob")),
+                () -> assertFalse(names.remove("Bob")),
+                () -> assertFalse(names.containsKey("Bob")),
+                () -> assertEquals(2, names.size())
+        );
+    }
+
+    /**
+     * <h1>Int2IntOpenHashMap</h1>
+     * Mapa int -&gt; int na dwóch tablicach int[]. Klucz 0 jest obsługiwany osobno, bo oznacza wolną komórkę.
+     */
+    @Test
+    void int2IntOpenHashMap() {
+
+        final var ids = new Int2IntOpenHashMap();
+        final var expected = new HashMap<Integer, Integer>();
+        final var random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            final int key = random.nextInt(2_000) - 1_000;
+            if (random.nextBoolean()) {
+                ids.put(key, i);
+                expected.put(key, i);
+            } else {
+                assertEquals(expected.remove(key) != null, ids.remove(key));
+            }
+        }
+
+        assertAll(
+                () -> assertEquals(expected.size(), ids.size()),
+                () -> expected.forEach((key, value) -> assertEquals(value, ids.getOrDefault(key, -1))),
+                () -> ids.forEach((key, value) -> assertEquals(expected.get(key), value)),
+                () -> assertEquals(-1, ids.getOrDefault(5_000, -1)),
+                () -> assertEquals(7, Int2IntOpenHashMap.toMap(new int[]{0, 7}, key -> key).getOrDefault(7, -1))
+        );
+    }
+
+    /**
+     * <h1>Long2ObjectOpenHashMap</h1>
+     * Mapa long -&gt; V bez obiektów Long jako kluczy. Pozwala na wartości null.
+     */
+    @Test
+    void long2ObjectOpenHashMap() {
+
+        final var names = new Long2ObjectOpenHashMap<String>();
+
+        names.put(0L, "Alice");
+        names.put(1L, "Bob");
+        names.put(2L, "John");
+        names.put(2L, "test4");
+
+        assertAll(
+                () -> assertEquals("Alice", names.get(0L)),
+                () -> assertEquals("test4", names.get(2L)),
+                () -> assertEquals("none", names.getOrDefault(3L, "none")),
+                () -> assertDoesNotThrow(() -> names.put(Long.MAX_VALUE, null)),
+                () -> assertTrue(names.containsKey(Long.MAX_VALUE)),
+                () -> assertEquals(4, names.size()),
+                () -> assertEquals("Alice", names.remove(0L)),
+                () -> assertEquals(null, names.remove(0L)),
+                () -> assertEquals("Bob", Long2ObjectOpenHashMap.toMap(new long[]{1L, 2L}, names::get).get(1L))
+        );
+    }
+
+    /**
+     * <h1>OffHeapHashMap</h1>
+     * Mapa przechowywana w plikach mapowanych do pamięci (MappedByteBuffer) - dane leżą poza stertą i nie obciążają GC. <p>
+     * Po ponownym otwarciu dane są dostępne od razu, bez deserializacji całej mapy. <p>
+     * Klucze i wartości zamieniane są na bajty przez Serializer. Pozwala na klucz null i wartości null.
+     */
+    @Test
+    void offHeapHashMap(@TempDir Path directory) {
+
+        try (final var names = OffHeapHashMap.open(directory, Serializer.strings(), Serializer.strings())) {
+            names.put("Alice", "test1");
+            names.put("Bob", "test2");
+            names.put("John", "test3");
+            names.put("John", "test4");
+
+            assertAll(
+                    () -> assertEquals("test4", names.get("John")),
+                    () -> assertDoesNotThrow(() -> names.put(null, null)),
+                    () -> assertEquals(4, names.size()),
+                    () -> assertFalse(names.isEmpty()),
+                    () -> assertEquals("test2", names.remove("Bob")),
+                    () -> assertEquals(null, names.remove("Bob")),
+                    () -> assertTrue(names.containsKey(null)),
+
+                    // klucz innego typu - brak wpisu zamiast ClassCastException
+                    () -> assertEquals(null, names.get(42)),
+                    () -> assertFalse(names.containsKey(42)),
+                    () -> assertEquals(null, names.remove(42))
+            );
+        }
+
+        try (final var names = OffHeapHashMap.open(directory, Serializer.strings(), Serializer.strings())) {
+            for (int i = 0; i < 10_000; i++) {
+                names.put("name" + i, "value" + i);
+            }
+            assertAll(
+                    () -> assertEquals("test4", names.get("John")),
+                    () -> assertEquals(10_003, names.size()),
+                    () -> assertEquals("value9999", names.get("name9999")),
+                    () -> assertEquals(10_003, names.entrySet().stream().count())
+            );
+
+            names.keySet().remove("Alice");
+            names.entrySet().removeIf(entry -> entry.getKey() != null && entry.getKey().startsWith("name1"));
+            for (int i = 0; i < 300_000; i++) {
+                names.put("John", "value" + i);
+            }
+            assertAll(
+                    () -> assertFalse(names.containsKey("Alice")),
+                    () -> assertFalse(names.containsKey("name1234")),
+                    () -> assertEquals("value999", names.get("name999")),
+                    () -> assertEquals(10_002 - 1_111, names.size()),
+                    () -> assertEquals(names.size(), names.keySet().stream().count()),
+                    () -> assertEquals("value299999", names.get("John")),
+                    () -> assertTrue(names.deadBytes() < 1 << 20),
+                    () -> assertTrue(Files.size(directory.resolve("data.bin")) < 4 << 20)
+            );
+
+            for (int cycle = 0; cycle < 5; cycle++) {
+                names.clear();
+                for (int i = 0; i < 20_000; i++) {
+                    names.put("cycle" + cycle + "-" + i, "value" + i);
+                }
+            }
+            names.clear();
+            assertAll(
+                    () -> assertTrue(names.isEmpty()),
+                    () -> assertEquals(0, Files.size(directory.resolve("data.bin"))),   // clear skraca plik danych
+                    () -> assertDoesNotThrow(() -> names.put("Alice", "test5")),
+                    () -> assertEquals("test5", names.get("Alice"))
+            );
+        }
+    }
+
+    /**
+     * <h1>PersistentHashMap</h1>
+     * Niemodyfikowalna mapa jak Map.of(), ale "zmiana" (with, without) zwraca nową wersję w O(log32 n)
+     * zamiast kopiować całą mapę - wersje współdzielą niezmienione węzły drzewa (HAMT).<p>
+     * builder() służy do szybkiego ładowania wielu wpisów. Nie dopuszcza wartości null.
+     */
+    @Test
+    void persistentHashMap() {
+
+        final var names = PersistentHashMap.<String, String>empty()
+                .with("John", "test1")
+                .with("Alice", "test2")
+                .with("Bob", "test3");
+        final var changed = names.with("Bob", "test4").without("John");
+
+        // "Aa" i "BB" mają ten sam hashCode
+        final var collisions = names.with("Aa", "1").with("BB", "2").without("Aa");
+
+        final var expected = new HashMap<Integer, Integer>();
+        final var builder = PersistentHashMap.<Integer, Integer>builder();
+        var snapshot = PersistentHashMap.<Integer, Integer>empty();
+        final var random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            final int key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                builder.remove(key);
+                snapshot = snapshot.without(key);
+            } else {
+                expected.put(key, i);
+                builder.put(key, i);
+                snapshot = snapshot.with(key, i);
+            }
+        }
+        final var built = builder.build();
+        final var finalSnapshot = snapshot;
+
+        assertAll(
+                () -> assertEquals(Map.of("John", "test1", "Alice", "test2", "Bob", "test3"), names),
+                () -> assertEquals(Map.of("Alice", "test2", "Bob", "test4"), changed),
+                () -> assertEquals("test3", names.get("Bob")),
+                () -> assertEquals("2", collisions.get("BB")),
+                () -> assertFalse(collisions.containsKey("Aa")),
+                () -> assertThrows(UnsupportedOperationException.class, () -> names.put("Marcin", "test4")),
+                () -> assertThrows(NullPointerException.class, () -> names.with(null, "test5")),
+                () -> assertThrows(NullPointerException.class, () -> names.with("Marcin", null)),
+
+                () -> assertEquals(expected, built),
+                () -> assertEquals(expected, finalSnapshot),
+                () -> assertEquals(expected.size(), built.size()),
+                () -> assertEquals(expected.hashCode(), finalSnapshot.hashCode())
+        );
+    }
+
     /**
      * <h1>Maps from Guava</h1>
      * Jest to klasa pomocnicza zawierająca różne metody do tworzenia i manipulowania mapami
@@ -249,6 +880,98 @@ class MapTest {
         System.out.println("Map after adding a key to the original set: " + toMap1);
     }
 
+    /**
+     * <h1>ComputingMap</h1>
+     * Jak Maps.asMap(keys, function), ale wynik funkcji jest zapamiętywany, a współbieżne chybienia tego samego klucza
+     * czekają na jedno wywołanie loadera. <p>
+     * getAll łączy chybienia w jedno wywołanie bulkLoadera, a refreshAfterWrite przeładowuje stare wartości w tle.
+     */
+    @Test
+    void computingMap() throws InterruptedException {
+        final var calls = new AtomicInteger();
+        final var lengths = ComputingMap.<String, Integer>of(name -> {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return name.length();
+        });
+
+        final var start = new CountDownLatch(1);
+        final var results = new ConcurrentLinkedQueue<Integer>();
+        final var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 64; t++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                results.add(lengths.get("Alice"));
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        final var batches = new AtomicInteger();
+        final var batched = ComputingMap.<String, Integer>builder(String::length)
+                .bulkLoader(names -> {
+                    batches.incrementAndGet();
+                    return names.stream().collect(Collectors.toMap(name -> name, String::length));
+                })
+                .build();
+        batched.put("Alice", 5);
+        final var all = batched.getAll(List.of("Alice", "Bob", "John", "Bob"));
+
+        // nieudane getAll nie może zostawić niezakończonych ładowań - get nie zawiśnie, tylko załaduje ponownie
+        final var broken = ComputingMap.<String, Integer>builder(String::length).bulkLoader(names -> null).build();
+        final var failing = ComputingMap.<String, Integer>of(name -> {
+            if (name.equals("Bob")) {
+                throw new LinkageError("Bob");
+            }
+            return name.length();
+        });
+
+        final var time = new AtomicLong();
+        final var version = new AtomicInteger();
+        final var refreshing = ComputingMap.<String, Integer>builder(name -> version.incrementAndGet())
+                .refreshAfterWrite(Duration.ofMinutes(1))
+                .executor(Runnable::run)
+                .ticker(time::get)
+                .build();
+        final var first = refreshing.get("Alice");
+        time.addAndGet(Duration.ofMinutes(2).toNanos());
+        final var stale = refreshing.get("Alice");
+
+        assertAll(
+                () -> assertEquals(1, calls.get()),
+                () -> assertEquals(64, results.size()),
+                () -> assertTrue(results.stream().allMatch(length -> length == 5)),
+                () -> assertEquals("{Alice=5}", lengths.toString()),
+
+                () -> assertEquals(Map.of("Alice", 5, "Bob", 3, "John", 4), all),
+                () -> assertEquals(1, batches.get()),
+                () -> assertThrows(NullPointerException.class, () -> broken.getAll(List.of("Alice", "Bob"))),
+                () -> assertEquals(3, broken.get("Bob")),
+                () -> assertThrows(LinkageError.class, () -> failing.getAll(List.of("Alice", "Bob", "John"))),
+                () -> assertEquals(4, failing.get("John")),
+
+                () -> assertEquals(1, first),
+                () -> assertEquals(1, stale),
+                () -> assertEquals(2, refreshing.get("Alice")),
+
+                () -> assertFalse(lengths.containsKey("Bob")),
+                () -> assertThrows(NullPointerException.class, () -> lengths.get(null))
+        );
+    }
+
     /**
      * <h1>BiMaps from Guava</h1>
      * Reprezentuje mapę dwukierunkową (dwustronną), gdzie każda para klucz-wartość ma unikalne odwzorowanie na parę wartość-klucz. W praktyce oznacza to, że BiMap pozwala na szybkie wyszukiwanie wartości na podstawie klucza, a także klucza na podstawie wartości. <p>
@@ -282,6 +1005,67 @@ class MapTest {
         );
     }
 
+    /**
+     * <h1>ConcurrentBiMap</h1>
+     * Bezpieczny wielowątkowo odpowiednik HashBiMap - indeksy klucz -&gt; wpis i wartość -&gt; wpis w ConcurrentHashMap.<p>
+     * Odczyty w obu kierunkach są bez blokad, zapisy zmieniają oba kierunki jednocześnie.<p>
+     * Tak jak HashBiMap gwarantuje unikalność wartości, ale nie pozwala na null.
+     */
+    @Test
+    void concurrentBiMap() throws InterruptedException {
+        final var biMap = new ConcurrentBiMap<String, Integer>();
+
+        biMap.put("one", 1);
+        biMap.put("two", 2);
+        biMap.put("three", 3);
+
+        final var sessions = new ConcurrentBiMap<Integer, Integer>();
+        final var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final var random = new Random(t);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    final int session = random.nextInt(500);
+                    final int connection = random.nextInt(500);
+                    if (random.nextInt(4) == 0) {
+                        sessions.remove(session);
+                    } else {
+                        sessions.forcePut(session, connection);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertAll(
+                // GET
+                () -> assertEquals(1, biMap.get("one")),
+                () -> assertEquals("one", biMap.inverse().get(1)),
+
+                // PUT
+                () -> assertThrows(IllegalArgumentException.class, () -> biMap.put("one2", 1)),
+                () -> assertDoesNotThrow(() -> biMap.put("one", 10)),
+                () -> assertEquals(null, biMap.inverse().get(1)),
+
+                // FORCE PUT
+                () -> assertDoesNotThrow(() -> biMap.forcePut("one2", 10)),
+                () -> assertEquals(null, biMap.get("one")),
+                () -> assertEquals("one2", biMap.inverse().get(10)),
+
+                () -> assertThrows(NullPointerException.class, () -> biMap.put(null, null)),  // <--- różnica z HashBiMap
+                () -> assertEquals(3, biMap.size()),
+                () -> assertEquals(Set.of(2, 3, 10), biMap.values()),
+
+                () -> assertEquals(sessions.size(), sessions.inverse().size()),
+                () -> sessions.forEach((session, connection) -> assertEquals(session, sessions.inverse().get(connection)))
+        );
+    }
+
     /**
      * <h1>Multimap from Guava</h1>
      * Interfejs w bibliotece Guava, który reprezentuje mapę, gdzie jeden klucz może być mapowany na wiele wartości. <p>
@@ -306,6 +1090,75 @@ class MapTest {
         );
     }
 
+    /**
+     * <h1>ConcurrentListMultimap</h1>
+     * Bezpieczny wielowątkowo odpowiednik ArrayListMultimap - każdy klucz ma własny kubełek w ConcurrentHashMap,
+     * więc dopisywanie do różnych kluczy nie czeka na jedną wspólną blokadę. <p>
+     * get(key) zwraca niemodyfikowalną migawkę. LongValuesMultimap trzyma wartości jako long[] bez pudełkowania.
+     */
+    @Test
+    void concurrentListMultimap() throws InterruptedException {
+        final var multimap = new ConcurrentListMultimap<String, Integer>();
+
+        multimap.put("one", 1);
+        multimap.put("two", 2);
+        multimap.put("three", 3);
+        multimap.put("three", 33);
+
+        final var snapshot = multimap.get("three");
+        multimap.put("three", 333);
+
+        final var postings = new LongValuesMultimap<String>();
+        final var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final long document = t * 10_000L;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    postings.put("term" + (i % 16), document + i);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // clear w trakcie dopisywania nie może rozjechać size() z zawartością
+        final var cleared = new ConcurrentListMultimap<Integer, Integer>();
+        final var writer = new Thread(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                cleared.put(i % 64, i);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            cleared.clear();
+        }
+        writer.join();
+        final long remaining = cleared.keySet().stream().mapToLong(key -> cleared.get(key).size()).sum();
+
+        assertAll(
+                () -> assertEquals(remaining, cleared.size()),
+                () -> assertEquals("[3, 33]", snapshot.toString()),
+                () -> assertEquals("[3, 33, 333]", multimap.get("three").toString()),
+                () -> assertTrue(multimap.remove("three", 3)),
+                () -> assertEquals("[33, 333]", multimap.get("three").toString()),
+                () -> assertEquals(List.of(), multimap.get("four")),
+                () -> assertEquals(4, multimap.size()),
+                () -> assertThrows(UnsupportedOperationException.class, () -> multimap.get("one").add(11)),
+                () -> assertThrows(NullPointerException.class, () -> multimap.put(null, null)),
+
+                () -> assertEquals(80_000, postings.size()),
+                () -> assertEquals(5_000, postings.count("term0")),
+                () -> assertTrue(postings.containsEntry("term1", 70_001L)),
+                () -> assertEquals(80_000, postings.keySet().stream().mapToLong(key -> postings.get(key).length).sum()),
+                () -> assertTrue(postings.remove("term1", 70_001L)),
+                () -> assertFalse(postings.containsEntry("term1", 70_001L))
+        );
+    }
+
     /**
      * <h1>Table from Guava</h1>
      * Reprezentuje dwuwymiarową tablicę, gdzie wartości są indeksowane zarówno przez wiersz, jak i kolumnę. <p>
@@ -329,4 +1182,56 @@ class MapTest {
                 () -> assertEquals(1, table.remove("R1", "C1"))
         );
     }
+
+    /**
+     * <h1>ColumnarTable</h1>
+     * Gęsta tabela przechowywana kolumnami - klucze wierszy i kolumn mają kolejne numery, a kolumna to jedna tablica. <p>
+     * Odmiany OfInt, OfLong i OfDouble trzymają prymitywy i mają operacje zbiorcze sumColumn i mapColumn.
+     */
+    @Test
+    void columnarTable() {
+        final var table = ColumnarTable.<String, String, Integer>create();
+        table.put("R1", "C1", 1);
+        table.put("R1", "C2", 2);
+        table.put("R2", "C1", 3);
+        table.put("R2", "C2", 4);
+
+        final var metrics = ColumnarTable.<Integer, String>ofDoubles();
+        final var counters = ColumnarTable.<Integer, String>ofInts();
+        for (int host = 0; host < 1_000; host++) {
+            metrics.putDouble(host, "cpu", 0.5);
+            metrics.putDouble(host, "memory", host);
+            counters.putInt(host, "requests", host);
+        }
+        counters.mapColumn("requests", requests -> requests * 2);
+        final var wide = ColumnarTable.<String, Integer>ofLongs();
+        for (int column = 0; column < 1_000; column++) {
+            wide.putLong("total", column, column);
+        }
+
+        assertAll(
+                () -> assertEquals("{R1={C1=1, C2=2}, R2={C1=3, C2=4}}", table.toString()),
+
+                () -> assertEquals(2, table.get("R1", "C2")),
+                () -> assertEquals("{R1=2, R2=4}", table.column("C2").toString()),
+                () -> assertEquals("{C1=1, C2=2}", table.row("R1").toString()),
+
+                () -> assertEquals(1, table.remove("R1", "C1")),
+                () -> assertEquals("{C2=2}", table.row("R1").toString()),
+                () -> assertEquals(3, table.size()),
+                () -> assertThrows(NullPointerException.class, () -> table.put("R3", "C1", null)),
+
+                () -> assertEquals(500.0, metrics.sumColumn("cpu")),
+                () -> assertEquals(499_500.0, metrics.sumColumn("memory")),
+                () -> assertEquals(Map.of("cpu", 500.0, "memory", 499_500.0), metrics.sumColumns()),
+                () -> assertEquals(10.5, metrics.sumRow(10)),
+                () -> assertEquals(999_000L, counters.sumColumn("requests")),
+                () -> assertEquals(20, counters.getInt(10, "requests")),
+                () -> assertEquals(0, counters.getInt(10, "errors")),
+                () -> assertThrows(IllegalArgumentException.class, () -> counters.sumColumn("errors")),
+                () -> assertEquals(499_500L, wide.sumRow("total")),
+                () -> assertEquals(1_000, wide.row("total").size()),
+                () -> assertEquals(999L, wide.getLong("total", 999))
+        );
+    }
 }
\ No newline at end of file
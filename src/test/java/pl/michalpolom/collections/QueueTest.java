@@ -1,17 +1,35 @@
 package pl.michalpolom.collections;
 
+import com.google.common.collect.Queues;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.michalpolom.collections.footprint.MeasureFootprint;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+@MeasureFootprint
 class QueueTest {
 
     /**
@@ -82,6 +100,363 @@ class QueueTest {
         );
     }
 
+    /**
+     * <h1>ExternalPriorityQueue</h1>
+     * Kolejka priorytetowa dla danych większych niż sterta - po przekroczeniu budżetu pamięci posortowane przebiegi trafiają
+     * do plików tymczasowych, a poll() scala je k-drogowo z kopcem w pamięci. <p>
+     * Porządek jak w PriorityQueue, także z Comparator.reverseOrder().
+     */
+    @Test
+    void externalPriorityQueue(@TempDir Path directory) throws IOException {
+
+        final var names = ExternalPriorityQueue.builder(Serializer.strings(), Comparator.<String>reverseOrder())
+                .memoryBudget(2)
+                .directory(directory)
+                .build();
+
+        names.add("Bob");
+        names.add("Alice");
+        names.add("John");
+        names.add("Zbigniew");
+
+        final var random = new Random(42);
+        final var expected = new ArrayList<Integer>();
+        var removedAll = true;
+        final var numbers = ExternalPriorityQueue.builder(Serializer.integers())
+                .memoryBudget(1_000)
+                .maxOpenRuns(4)
+                .bufferSize(256)
+                .directory(directory)
+                .build();
+        for (int i = 0; i < 20_000; i++) {
+            final int number = random.nextInt();
+            numbers.add(number);
+            expected.add(number);
+            if (i % 3 == 0) {
+                expected.remove(numbers.peek());
+                numbers.poll();
+            }
+            if (i % 50 == 49) {
+                final Integer victim = expected.get(random.nextInt(expected.size()));
+                expected.remove(victim);
+                removedAll &= numbers.remove(victim);
+            }
+        }
+        numbers.removeIf(number -> number % 5 == 0);
+        expected.removeIf(number -> number % 5 == 0);
+        final var absentRemoved = numbers.remove(10);
+        expected.sort(Comparator.naturalOrder());
+        final var polled = new ArrayList<Integer>();
+        final var sizeBeforePolling = numbers.size();
+        final var removedAllCopy = removedAll;
+        while (!numbers.isEmpty()) {
+            polled.add(numbers.poll());
+        }
+        numbers.close();
+
+        final var merged = ExternalPriorityQueue.builder(Serializer.integers())
+                .memoryBudget(10)
+                .maxOpenRuns(4)
+                .directory(directory)
+                .build();
+        for (int i = 0; i < 20_000; i++) {
+            merged.add(random.nextInt());
+        }
+        final var mergedElements = merged.mergedElements();
+        merged.close();
+        final long filesAfterClose;
+        try (var files = Files.list(directory)) {
+            filesAfterClose = files.count();
+        }
+
+        assertAll(
+                () -> assertTrue(names.contains("John")),
+                () -> assertEquals(4, names.size()),
+                () -> assertEquals(2, names.spilledRuns()),
+
+                // PEEK (get)
+                () -> assertEquals("Zbigniew", names.peek()),
+
+                // POLL (get and remove)
+                () -> assertEquals("Zbigniew", names.poll()),
+                () -> assertEquals("John", names.poll()),
+                () -> assertEquals("Bob", names.poll()),
+                () -> assertEquals("Alice", names.poll()),
+                () -> assertEquals(null, names.poll()),
+
+                () -> assertEquals(expected.size(), sizeBeforePolling),
+                () -> assertEquals(expected, polled),
+                () -> assertTrue(removedAllCopy),
+                () -> assertFalse(absentRemoved),
+                // 2000 przebiegów po 10 - scalanie poziomami przepisuje każdy element ~log4(2000) razy
+                () -> assertTrue(mergedElements < 20_000 * 7, "merged " + mergedElements),
+                () -> assertEquals(2, filesAfterClose),   // zostały tylko przebiegi kolejki names
+                () -> assertThrows(NullPointerException.class, () -> names.add(null)),
+                () -> assertThrows(IllegalStateException.class, numbers::poll)
+        );
+        names.close();
+    }
+
+    /**
+     * <h1>TopKQueue</h1>
+     * Zachowuje tylko k największych elementów - kopiec minimum o stałym rozmiarze zamiast całej PriorityQueue. <p>
+     * Element słabszy od czoła pełnej kolejki jest odrzucany, mocniejszy zastępuje czoło w O(log k).
+     */
+    @Test
+    void topKQueue() {
+        final var random = new Random(42);
+        final var all = new ArrayList<Integer>();
+        final var top = TopKQueue.<Integer>of(10);
+        final var firstHalf = TopKQueue.<Integer>of(10);
+        final var secondHalf = TopKQueue.<Integer>of(10);
+        final var bottom = TopKQueue.of(3, Comparator.<Integer>reverseOrder());
+        for (int i = 0; i < 100_000; i++) {
+            final int number = random.nextInt();
+            all.add(number);
+            top.add(number);
+            bottom.add(number);
+            (i % 2 == 0 ? firstHalf : secondHalf).add(number);
+        }
+        all.sort(Comparator.reverseOrder());
+
+        final var names = TopKQueue.<String>of(2);
+        names.add("Bob");
+        names.add("Alice");
+        names.add("John");
+        names.add("Zbigniew");
+
+        final var thousand = TopKQueue.<Integer>of(1_000);
+        all.subList(0, 1_000).forEach(thousand::add);
+        final var expected = new ArrayList<>(all.subList(0, 1_000));
+        thousand.removeIf(number -> number % 3 == 0);
+        expected.removeIf(number -> number % 3 == 0);
+        final var removedPresent = thousand.remove(expected.get(0));
+        expected.remove(0);
+
+        assertAll(
+                () -> assertEquals(10, top.size()),
+                () -> assertEquals(all.subList(0, 10), top.merge(top).toSortedList()),   // merge z samą sobą nic nie dokłada
+
+                // REMOVE - przez remove() iteratora
+                () -> assertTrue(removedPresent),
+                () -> assertEquals(expected, thousand.toSortedList()),
+                () -> assertEquals(all.subList(0, 10), top.toSortedList()),
+                () -> assertEquals(all.subList(0, 10), firstHalf.merge(secondHalf).toSortedList()),
+                () -> assertEquals(List.of(all.get(all.size() - 1), all.get(all.size() - 2), all.get(all.size() - 3)), bottom.toSortedList()),
+
+                // PEEK - najsłabszy z zachowanych
+                () -> assertEquals("John", names.peek()),
+                () -> assertEquals(List.of("Zbigniew", "John"), names.toSortedList()),
+                () -> assertFalse(names.offer("Alice")),
+                () -> assertThrows(NullPointerException.class, () -> names.add(null))
+        );
+    }
+
+    /**
+     * <h1>SpaceSaving</h1>
+     * Najczęstsze elementy strumienia w stałej pamięci - capacity liczników zamiast mapy wszystkich elementów. <p>
+     * count(e) nigdy nie zaniża, a zawyża najwyżej o N / capacity.
+     */
+    @Test
+    void spaceSaving() {
+        final var random = new Random(42);
+        final var exact = new HashMap<Integer, Long>();
+        final var summary = new SpaceSaving<Integer>(100);
+        final var firstHalf = new SpaceSaving<Integer>(100);
+        final var secondHalf = new SpaceSaving<Integer>(100);
+        for (int i = 0; i < 200_000; i++) {
+            // rozkład zbliżony do Zipfa na 10 000 elementów
+            final int element = (int) Math.floor(Math.pow(10_000, random.nextDouble()));
+            exact.merge(element, 1L, Long::sum);
+            summary.add(element);
+            (i % 2 == 0 ? firstHalf : secondHalf).add(element);
+        }
+        final var exactTop = exact.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed())
+                .limit(5)
+                .map(Map.Entry::getKey)
+                .toList();
+        final long bound = summary.total() / summary.capacity();
+        final var merged = firstHalf.merge(secondHalf);
+
+        assertAll(
+                () -> assertEquals(exactTop, summary.top(5).stream().map(SpaceSaving.Estimate::element).toList()),
+                () -> assertTrue(summary.top(100).stream().allMatch(estimate ->
+                        estimate.count() >= exact.get(estimate.element())
+                                && estimate.count() - exact.get(estimate.element()) <= bound)),
+                () -> assertEquals(exactTop, merged.top(5).stream().map(SpaceSaving.Estimate::element).toList()),
+                () -> assertEquals(200_000, merged.total()),
+                () -> assertTrue(summary.heavyHitters(0.05).stream().allMatch(estimate -> exact.get(estimate.element()) > 10_000))
+        );
+    }
+
+    /**
+     * <h1>QuantileSketch</h1>
+     * Przybliżone kwantyle (mediana, p99) w stałej pamięci - szkic KLL zamiast sortowania wszystkich wartości. <p>
+     * Błąd rangi to około 1.7 / k, częściowe szkice można łączyć przez merge.
+     */
+    @Test
+    void quantileSketch() {
+        final var random = new SplittableRandom(42);
+        final var values = new double[1_000_000];
+        final var sketch = new QuantileSketch(200, new SplittableRandom(1));
+        final var parts = new ArrayList<QuantileSketch>();
+        for (int p = 0; p < 4; p++) {
+            parts.add(new QuantileSketch(200, new SplittableRandom(p + 2)));
+        }
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 100;
+            sketch.add(values[i]);
+            parts.get(i % 4).add(values[i]);
+        }
+        final var merged = parts.get(0);
+        parts.subList(1, 4).forEach(merged::merge);
+        final var sorted = values.clone();
+        Arrays.sort(sorted);
+
+        assertAll(
+                () -> assertEquals(1_000_000, sketch.count()),
+                () -> assertEquals(sorted[0], sketch.min()),
+                () -> assertEquals(sorted[sorted.length - 1], sketch.max()),
+                () -> assertTrue(sketch.retained() < 1_000),
+                () -> {
+                    for (double fraction : new double[]{0.01, 0.25, 0.5, 0.75, 0.99}) {
+                        assertEquals(fraction, rankOf(sorted, sketch.quantile(fraction)), 0.02);
+                        assertEquals(fraction, rankOf(sorted, merged.quantile(fraction)), 0.02);
+                        assertEquals(rankOf(sorted, sorted[(int) (fraction * sorted.length)]),
+                                sketch.rank(sorted[(int) (fraction * sorted.length)]), 0.02);
+                    }
+                }
+        );
+    }
+
+    private static double rankOf(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return (double) index / sorted.length;
+    }
+
+    /**
+     * <h1>IndexedPriorityQueue</h1>
+     * Kolejka priorytetowa na kopcu 4-arnym. Zachowuje semantykę PriorityQueue (porządek naturalny lub Comparator). <p>
+     * offerWithHandle zwraca uchwyt, przez który zmiana priorytetu (decreaseKey, updatePriority) i usunięcie działają w O(log n).
+     */
+    @Test
+    void indexedPriorityQueue() {
+
+        final var names = new IndexedPriorityQueue<String>();
+
+        names.add("Bob");
+        names.add("Alice");
+        final var john = names.offerWithHandle("John");
+        final var zbigniew = names.offerWithHandle("Zbigniew");
+
+        final var random = new Random(7);
+        final var numbers = new IndexedPriorityQueue<Integer>();
+        final var expected = new ArrayList<Integer>();
+        for (int i = 0; i < 1_000; i++) {
+            final int number = random.nextInt(10_000);
+            numbers.add(number);
+            expected.add(number);
+        }
+        numbers.removeIf(number -> number % 3 == 0);
+        expected.removeIf(number -> number % 3 == 0);
+        expected.sort(Comparator.naturalOrder());
+        final var polled = new ArrayList<Integer>();
+        while (!numbers.isEmpty()) {
+            polled.add(numbers.poll());
+        }
+
+        assertAll(
+                // removeIf przez remove() iteratora
+                () -> assertEquals(expected, polled),
+
+                () -> assertTrue(names.contains("John")),
+                () -> assertEquals("Alice", names.peek()),
+
+                // DECREASE KEY - zmiana priorytetu bez remove + add
+                () -> names.decreaseKey(zbigniew, "Adam"),
+                () -> assertEquals("Adam", names.peek()),
+                () -> assertThrows(IllegalArgumentException.class, () -> names.decreaseKey(john, "Marcin")),
+                () -> names.updatePriority(john, "Aaron"),
+                () -> assertTrue(names.remove(zbigniew)),
+                () -> assertFalse(names.remove(zbigniew)),
+
+                // POLL (get and remove)
+                () -> assertEquals("Aaron", names.poll()),
+                () -> assertEquals("Alice", names.poll()),
+                () -> assertEquals("Bob", names.poll()),
+                () -> assertFalse(john.isQueued()),
+
+                // SIZE
+                () -> assertEquals(0, names.size()),
+
+                // null
+                () -> assertThrows(NullPointerException.class, () -> names.add(null))
+        );
+    }
+
+    /**
+     * <h1>ConcurrentIndexedPriorityQueue</h1>
+     * Bezpieczna wielowątkowo kolejka priorytetowa na ConcurrentSkipListMap ze zmianą priorytetu przez uchwyt. <p>
+     * Równe priorytety zwracane są w kolejności FIFO.
+     */
+    @Test
+    void concurrentIndexedPriorityQueue() throws InterruptedException {
+
+        final var names = new ConcurrentIndexedPriorityQueue<String>(Comparator.reverseOrder());
+
+        names.add("Bob");
+        final var alice = names.offerWithHandle("Alice");
+        names.add("John");
+        names.add("Zbigniew");
+
+        final var tasks = new ConcurrentIndexedPriorityQueue<Integer>();
+        final var handles = new ArrayList<ConcurrentIndexedPriorityQueue.Handle<Integer>>();
+        for (int i = 0; i < 1_000; i++) {
+            handles.add(tasks.offerWithHandle(i));
+        }
+        final var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t;
+            threads.add(new Thread(() -> {
+                for (int i = offset; i < handles.size(); i += 4) {
+                    tasks.updatePriority(handles.get(i), -i);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertAll(
+                () -> assertTrue(names.contains("John")),
+
+                // PEEK (get)
+                () -> assertEquals("Zbigniew", names.peek()),
+                () -> assertTrue(names.updatePriority(alice, "Zzz")),
+                () -> assertEquals("Zzz", names.peek()),
+
+                // POLL (get and remove)
+                () -> assertEquals("Zzz", names.poll()),
+                () -> assertEquals("Zbigniew", names.poll()),
+                () -> assertEquals("John", names.poll()),
+                () -> assertEquals("Bob", names.poll()),
+                () -> assertFalse(names.updatePriority(alice, "Alice")),
+
+                // SIZE
+                () -> assertEquals(0, names.size()),
+
+                // wielowątkowa zmiana priorytetów
+                () -> assertEquals(1_000, tasks.size()),
+                () -> assertEquals(-999, tasks.poll()),
+                () -> assertEquals(-998, tasks.poll())
+        );
+    }
+
     /**
      * <h1>ArrayDeque</h1>
      * Zapewnia efektywne dodawanie i usuwanie elementów na obu końcach deque.<p>
@@ -149,6 +524,78 @@ class QueueTest {
         );
     }
 
+    /**
+     * <h1>ArrayBlockingDeque</h1>
+     * Ograniczona kolejka dwustronna blokująca na buforze cyklicznym - jak LinkedBlockingDeque, ale bez węzła na element.<p>
+     * Czeka na ReentrantLock i Condition zamiast synchronized i wait/notify, więc nie przypina wątków wirtualnych. Nie pozwala na null.
+     */
+    @Test
+    void arrayBlockingDeque() throws InterruptedException {
+
+        final var names = new ArrayBlockingDeque<String>(3);
+
+        names.add("Alice");
+        names.addLast("Bob");
+        names.addFirst("John");
+
+        final var full = names.offerLast("Zbigniew");
+        final var timedOut = names.offerFirst("Zbigniew", 10, TimeUnit.MILLISECONDS);
+        final var descending = new ArrayList<String>();
+        names.descendingIterator().forEachRemaining(descending::add);
+
+        final var numbers = new ArrayBlockingDeque<Integer>(16);
+        final var producers = new ArrayList<Thread>();
+        for (int p = 0; p < 4; p++) {
+            final boolean first = p % 2 == 0;
+            producers.add(new Thread(() -> {
+                try {
+                    for (int i = 1; i <= 10_000; i++) {
+                        if (first) {
+                            numbers.putFirst(i);
+                        } else {
+                            numbers.putLast(i);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        long sum = 0;
+        for (int i = 0; i < 40_000; i++) {
+            sum += i % 2 == 0 ? numbers.takeFirst() : numbers.takeLast();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        final long total = sum;
+
+        assertAll(
+                () -> assertEquals("[John, Alice, Bob]", names.toString()),
+                () -> assertEquals(List.of("Bob", "Alice", "John"), descending),
+                () -> assertFalse(full),
+                () -> assertFalse(timedOut),
+                () -> assertThrows(IllegalStateException.class, () -> names.add("Zbigniew")),
+                () -> assertEquals(0, names.remainingCapacity()),
+
+                // PEEK, POLL
+                () -> assertEquals("John", names.peekFirst()),
+                () -> assertEquals("Bob", names.pollLast()),
+                () -> assertEquals("John", names.pop()),
+                () -> assertEquals("Alice", names.poll(10, TimeUnit.MILLISECONDS)),
+                () -> assertEquals(null, names.pollLast(10, TimeUnit.MILLISECONDS)),
+                () -> assertThrows(NoSuchElementException.class, () -> names.getFirst()),
+
+                // null
+                () -> assertThrows(NullPointerException.class, () -> names.add(null)),
+
+                // 4 producentów na obu końcach, 1 konsument
+                () -> assertEquals(4 * 10_000L * 10_001 / 2, total),
+                () -> assertTrue(numbers.isEmpty())
+        );
+    }
+
     /**
      * <h1>LinkedList <i>implements Set, Deque (Queue)</i></h1>
      * Lista dwukierunkowa, w której każdy element ma wskaźnik na poprzedni i następny element.<p>
@@ -167,8 +614,108 @@ class QueueTest {
      * Jest to klasa pomocnicza zawierająca różne metody do tworzenia i manipulowania kolejkami
      */
     @Test
-    void queues() {
-        //Queues.
+    void queues() throws InterruptedException {
+
+        final BlockingQueue<String> names = Queues.newArrayBlockingQueue(3);
+        final var drained = new ArrayList<String>();
+
+        names.add("Bob");
+        names.add("Alice");
+        names.add("John");
+
+        assertAll(
+                () -> assertFalse(names.offer("Zbigniew")),
+                () -> assertThrows(IllegalStateException.class, () -> names.add("Zbigniew")),
+
+                // Queues.drain - pobiera do bufora co najmniej numElements elementów lub czeka do upływu timeoutu
+                () -> assertEquals(2, Queues.drain(names, drained, 2, Duration.ofMillis(10))),
+                () -> assertEquals("[Bob, Alice]", drained.toString()),
+                () -> assertEquals(1, Queues.drain(names, drained, 2, Duration.ofMillis(10))),
+                () -> assertEquals(0, names.size())
+        );
+    }
+
+    /**
+     * <h1>MpmcArrayBlockingQueue</h1>
+     * Ograniczona kolejka wielu producentów i wielu konsumentów na buforze cyklicznym - bez blokad (CAS). <p>
+     * Liczniki producentów i konsumentów są odseparowane wypełnieniem, aby uniknąć false sharing. <p>
+     * Pojemność musi być potęgą dwójki. Nie pozwala na null.
+     */
+    @Test
+    void mpmcArrayBlockingQueue() throws InterruptedException {
+
+        final var names = new MpmcArrayBlockingQueue<String>(4);
+
+        final var offered = names.offerBatch(List.of("Bob", "Alice", "John", "Zbigniew", "Marcin"));
+        final var drained = new ArrayList<String>();
+
+        final var numbers = new MpmcArrayBlockingQueue<Integer>(64);
+        final var producers = new ArrayList<Thread>();
+        for (int p = 0; p < 4; p++) {
+            producers.add(new Thread(() -> {
+                try {
+                    for (int i = 1; i <= 10_000; i++) {
+                        numbers.put(i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        long sum = 0;
+        for (int i = 0; i < 40_000; i++) {
+            sum += numbers.take();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        final long total = sum;
+
+        final var letters = new MpmcArrayBlockingQueue<String>(8);
+        letters.addAll(List.of("a", "b", "c", "d", "e", "f"));
+        final var removedB = letters.remove("b");
+        letters.removeIf(letter -> letter.compareTo("d") > 0);
+
+        assertAll(
+                () -> assertEquals(4, names.capacity()),
+                () -> assertEquals(4, offered),
+                () -> assertFalse(names.offer("Marcin")),
+                () -> assertEquals("[Bob, Alice, John, Zbigniew]", names.toString()),
+
+                // PEEK, POLL
+                () -> assertEquals("Bob", names.peek()),
+                () -> assertEquals("Bob", names.poll()),
+
+                // DRAIN
+                () -> assertEquals(2, names.drainTo(drained, 2)),
+                () -> assertEquals("[Alice, John]", drained.toString()),
+                () -> assertEquals(1, names.size()),
+                () -> assertEquals(3, names.remainingCapacity()),
+                () -> assertEquals("Zbigniew", names.poll(10, TimeUnit.MILLISECONDS)),
+                () -> assertEquals(null, names.poll(10, TimeUnit.MILLISECONDS)),
+
+                // REMOVE - komórki usuniętych elementów są pomijane przez konsumentów
+                () -> assertTrue(removedB),
+                () -> assertFalse(letters.remove("x")),
+                () -> assertThrows(UnsupportedOperationException.class, () -> letters.drainTo(List.of())),   // element zostaje w kolejce
+                () -> assertEquals("[a, c, d]", letters.toString()),
+                () -> assertEquals(3, letters.size()),
+                () -> assertEquals("a", letters.poll()),
+                () -> assertEquals("c", letters.poll()),
+                () -> assertEquals("d", letters.peek()),
+                () -> assertEquals("d", letters.poll()),
+                () -> assertEquals(null, letters.poll()),
+                () -> assertTrue(letters.isEmpty()),
+
+                // null
+                () -> assertThrows(NullPointerException.class, () -> names.add(null)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new MpmcArrayBlockingQueue<String>(3)),
+
+                // 4 producentów, 1 konsument
+                () -> assertEquals(4 * 10_000L * 10_001 / 2, total),
+                () -> assertTrue(numbers.isEmpty())
+        );
     }
 
 }
\ No newline at end of file
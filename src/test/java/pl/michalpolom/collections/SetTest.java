@@ -3,7 +3,9 @@ package pl.michalpolom.collections;
 import com.google.common.collect.Sets;
 import org.junit.jupiter.api.Test;
 import pl.michalpolom.collections.entity.Names;
+import pl.michalpolom.collections.footprint.MeasureFootprint;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashSet;
@@ -17,9 +19,11 @@ import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+@MeasureFootprint
 class SetTest {
 
 
@@ -52,6 +56,95 @@ class SetTest {
     }
 
 
+    /**
+     * <h1>CompactStringSet</h1>
+     * Napisy zakodowane w UTF-8 w jednej tablicy bajtów, tablica mieszająca trzyma tylko przesunięcia - bez obiektów String w środku. <p>
+     * freeze() daje posortowany FrontCodedStringSet (kodowanie przyrostowe) z zapytaniami o prefiks.
+     */
+    @Test
+    void compactStringSet() {
+
+        final var names = new CompactStringSet();
+
+        names.add("Alice");
+        names.add("Bob");
+        names.add("John");
+        names.add("John");
+        names.add("Łucja");
+
+        final var hashSet = new HashSet<String>();
+        final var compact = new CompactStringSet();
+        for (int i = 0; i < 10_000; i++) {
+            hashSet.add("user" + i);
+            compact.add("user" + i);
+        }
+        compact.trimToSize();
+        final var frozen = compact.freeze();
+        final var sorted = new TreeSet<>(hashSet);
+
+        assertAll(
+                () -> assertTrue(names.contains("John")),
+                () -> assertTrue(names.contains(new StringBuilder("Łucja"))),
+                () -> assertThrows(NullPointerException.class, () -> names.add(null)),
+                () -> assertEquals(4, names.size()),
+                () -> assertEquals(Set.of("Alice", "Bob", "John", "Łucja"), names),
+                () -> assertTrue(names.remove("John")),
+                () -> assertFalse(names.remove("John")),
+                () -> assertEquals("[Alice, Bob, Łucja]", names.freeze().toString()),
+
+                () -> assertEquals(hashSet, compact),
+                () -> assertTrue(CollectionFootprint.retainedSize(compact) * 3 < CollectionFootprint.retainedSize(hashSet)),
+                () -> assertTrue(CollectionFootprint.retainedSize(frozen) * 3 < CollectionFootprint.retainedSize(compact)),
+                () -> assertEquals(new ArrayList<>(sorted), new ArrayList<>(frozen)),
+                () -> assertEquals(sorted.headSet("user1").size(), frozen.indexOf("user1")),
+                () -> assertEquals(-1, frozen.indexOf("user10000")),
+                () -> assertEquals(1_111, frozen.countWithPrefix("user9")),
+                () -> assertEquals(List.of("user999", "user9990", "user9991"), frozen.withPrefix("user999").subList(0, 3)),
+                () -> assertEquals(10_000, frozen.countWithPrefix("")),
+                () -> assertEquals(0, frozen.countWithPrefix("admin"))
+        );
+    }
+
+    /**
+     * <h1>HyperLogLog</h1>
+     * Przybliżona liczba różnych elementów bez przechowywania samych elementów - 2^14 rejestrów (16 KB) zamiast HashSetu. <p>
+     * Błąd względny około 1.04 / sqrt(2^precision), merge daje liczność sumy zbiorów.
+     */
+    @Test
+    void hyperLogLog() {
+        final var distinct = new HyperLogLog();
+        final var exact = new HashSet<Integer>();
+        for (int i = 0; i < 1_000_000; i++) {
+            distinct.add(i);
+            distinct.add(i);
+            if (i < 1_000) {
+                exact.add(i);
+            }
+        }
+
+        final var small = new HyperLogLog();
+        exact.forEach(small::add);
+        final var names = new HyperLogLog();
+        List.of("Alice", "Bob", "John", "Bob").forEach(names::add);
+
+        final var left = new HyperLogLog();
+        final var right = new HyperLogLog();
+        for (long i = 0; i < 600_000; i++) {
+            left.add(i);
+            right.add(i + 400_000);
+        }
+        final long union = left.merge(right).cardinality();
+
+        final double tolerance = 3 * distinct.standardError();
+        assertAll(
+                () -> assertEquals(1_000_000, distinct.cardinality(), 1_000_000 * tolerance),
+                () -> assertEquals(1_000, small.cardinality(), 1_000 * 0.02),
+                () -> assertEquals(3, names.cardinality()),
+                () -> assertEquals(1_000_000, union, 1_000_000 * tolerance),
+                () -> assertThrows(IllegalArgumentException.class, () -> left.merge(new HyperLogLog(10)))
+        );
+    }
+
     /**
      * <h1>LinkedHashSet extends HashSet</h1>
      * Zachowuje kolejność wstawiania elementów. <p>
@@ -130,6 +223,49 @@ class SetTest {
         );
     }
 
+    /**
+     * <h1>SortedArraySet</h1>
+     * Zamrożona kopia TreeSet - jedna posortowana tablica i wyszukiwanie binarne zamiast węzłów drzewa.<p>
+     * Niemodyfikowalny. Podzbiory współdzielą tablicę z oryginałem.<p>
+     */
+    @Test
+    void sortedArraySet() {
+
+        final var tree = new TreeSet<String>();
+        tree.add("Bob");
+        tree.add("John");
+        tree.add("Alice");
+
+        final var names = SortedArraySet.copyOf(tree);
+        final var reversed = SortedArraySet.copyOf(List.of("Bob", "John", "John", "Alice"), Comparator.reverseOrder());
+
+        assertAll(
+                () -> assertEquals("[Alice, Bob, John]", names.toString()),
+                () -> assertEquals("[John, Bob, Alice]", reversed.toString()),
+                () -> assertEquals(tree, names),
+                () -> assertEquals(names, reversed),
+
+                () -> assertTrue(names.contains("John")),
+                () -> assertFalse(names.contains("Adam")),
+                () -> assertThrows(NullPointerException.class, () -> names.contains(null)),
+                () -> assertEquals(3, names.size()),
+                () -> assertEquals("Bob", names.ceiling("Bill")),
+                () -> assertEquals("Alice", reversed.ceiling("Bill")),
+                () -> assertEquals("Bob", reversed.floor("Bill")),
+                () -> assertNull(names.higher("John")),
+                () -> assertEquals("[Bob, John]", names.tailSet("Bill").toString()),
+                () -> assertEquals("[Bob]", names.tailSet("Bill").headSet("John").toString()),
+                () -> assertEquals("[John, Bob, Alice]", names.descendingSet().toString()),
+                () -> assertEquals(tree.descendingSet().headSet("Alice"), names.descendingSet().headSet("Alice")),
+                () -> assertEquals("Alice", names.descendingSet().higher("Bob")),
+                () -> assertEquals(null, names.descendingSet().descendingSet().comparator()),
+                () -> assertEquals("[Alice, Bob]", names.stream().filter(name -> name.compareTo("C") < 0)
+                        .collect(SortedArraySet.toSortedArraySet(null)).toString()),
+                () -> assertThrows(UnsupportedOperationException.class, () -> names.add("Adam")),
+                () -> assertThrows(UnsupportedOperationException.class, () -> names.remove("John"))
+        );
+    }
+
     /**
      * <h1>EnumSet</h1>
      * EnumSet to specjalna implementacja interfejsu Set w Java Collections Framework, przeznaczona wyłącznie do przechowywania elementów wyliczenia (ang. enum). EnumSet zapewnia wydajność i kompaktowość w porównaniu z innymi implementacjami Set w przypadku przechowywania elementów wyliczen. <p>
@@ -169,6 +305,71 @@ class SetTest {
         );
     }
 
+    /**
+     * <h1>IndexedSet</h1>
+     * Odpowiednik EnumSet dla wartości znanych dopiero w czasie działania (np. identyfikatory tenantów).<p>
+     * KeyUniverse nadaje kluczom kolejne numery, a zbiór to bitset long[] z operacjami and/or/andNot.<p>
+     */
+    @Test
+    void indexedSet() {
+
+        final var tenants = KeyUniverse.of("BOB", "JOHN", "ALICE");
+        final var tenantsAll = IndexedSet.allOf(tenants);
+        final var tenantsRange = IndexedSet.range(tenants, "JOHN", "ALICE");
+
+        final var names = IndexedSet.of(tenants, "BOB", "BOB", "ALICE", "JOHN");
+        names.add("BOB");
+
+        final var large = new KeyUniverse<Integer>();
+        final var even = IndexedSet.noneOf(large);
+        final var divisibleByThree = IndexedSet.noneOf(large);
+        for (int i = 0; i < 10_000; i++) {
+            large.intern(i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 2 == 0) {
+                even.add(i);
+            }
+            if (i % 3 == 0) {
+                divisibleByThree.add(i);
+            }
+        }
+        final var divisibleBySix = even.copy();
+        divisibleBySix.and(divisibleByThree);
+        final var evenOrDivisibleByThree = even.copy();
+        evenOrDivisibleByThree.or(divisibleByThree);
+        final var evenNotDivisibleByThree = even.copy();
+        evenNotDivisibleByThree.andNot(divisibleByThree);
+
+        assertAll(
+                () -> assertTrue(names.contains("BOB")),
+                () -> assertThrows(NullPointerException.class, () -> names.add(null)),
+                () -> assertEquals(3, names.size()),
+                () -> assertEquals("[BOB, JOHN, ALICE]", names.toString()), // kolejność numerów z KeyUniverse
+                () -> assertTrue(names.remove("JOHN")),
+                () -> assertFalse(names.remove("JOHN")),
+                () -> assertFalse(names.contains("UNKNOWN")),
+                () -> assertFalse(names.contains(null)),
+                () -> assertFalse(names.remove(null)),
+
+                () -> assertEquals(Set.of("BOB", "JOHN", "ALICE"), tenantsAll),
+                () -> assertFalse(tenantsRange.contains("BOB")),
+                () -> assertTrue(tenantsRange.contains("ALICE")),
+                () -> assertTrue(tenantsRange.contains("JOHN")),
+                () -> assertEquals(Set.of("BOB"), IndexedSet.complementOf(tenantsRange)),
+
+                () -> assertEquals(1667, divisibleBySix.size()),
+                () -> assertEquals(6667, evenOrDivisibleByThree.size()),
+                () -> assertEquals(3333, evenNotDivisibleByThree.size()),
+                () -> assertTrue(divisibleBySix.contains(9996)),
+                () -> assertFalse(evenNotDivisibleByThree.contains(6)),
+                () -> assertTrue(even.containsAll(divisibleBySix)),
+                () -> assertThrows(IllegalArgumentException.class, () -> names.and(IndexedSet.allOf(KeyUniverse.of("BOB")))),
+                () -> assertThrows(IllegalArgumentException.class, () -> IndexedSet.range(tenants, "BOB", "EVE")),
+                () -> assertEquals(3, tenants.size())   // range nie dopisał "EVE" do uniwersum
+        );
+    }
+
     /**
      * <h1>CopyOnWriteArraySet</h1>
      * Przeznaczona do współdzielenia przez wiele wątków w środowiskach, w których operacje odczytu są znacznie częstsze niż operacje modyfikacji. CopyOnWriteArraySet używa mechanizmu "copy-on-write", co oznacza, że każda modyfikująca operacja, taka jak dodawanie, usuwanie lub aktualizacja elementów, powoduje utworzenie nowej kopii wewnętrznej struktury danych. W rezultacie operacje odczytu są wykonywane na niewspółdzielonym, niezmienionym obiekcie, co eliminuje konieczność stosowania blokad. <p>
@@ -198,6 +399,59 @@ class SetTest {
         );
     }
 
+    /**
+     * <h1>ConcurrentStripedHashSet</h1>
+     * Alternatywa dla CopyOnWriteArraySet przy dużych zbiorach z częstymi zapisami. <p>
+     * Zachowuje kolejność wstawiania, contains() działa w O(1) bez blokad, a add/remove nie kopiują całej tablicy. <p>
+     * Indeks to ConcurrentHashMap (blokada na pojedynczy kubełek), kolejność - ConcurrentSkipListMap (CAS).
+     */
+    @Test
+    void concurrentStripedHashSet() throws InterruptedException {
+
+        final var names = new ConcurrentStripedHashSet<String>();
+
+        names.add("Bob");
+        names.add("John");
+        names.add("John");
+        names.add("John");
+        names.add("Alice");
+
+        final var subscribers = new ConcurrentStripedHashSet<Integer>();
+        final var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t * 1_000;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    subscribers.add(offset + i);
+                    subscribers.add(i);
+                    subscribers.remove(offset + i - 1);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertAll(
+                () -> assertEquals("[Bob, John, Alice]", names.toString()),
+
+                () -> assertTrue(names.contains("John")),
+                () -> assertDoesNotThrow(() -> names.add(null)),
+                () -> assertEquals(4, names.size()),
+                () -> assertFalse(names.isEmpty()),
+                () -> assertTrue(names.remove("John")),
+                () -> assertFalse(names.remove("John")),
+                () -> assertEquals("[Bob, Alice, null]", names.toString()),
+
+                () -> assertEquals(subscribers.size(), subscribers.stream().count()),
+                () -> assertTrue(subscribers.contains(3_999)),
+                () -> assertFalse(subscribers.contains(3_998))
+        );
+    }
+
     /**
      * <h1>Set.of()</h1>
      * Zbiór utworzona za pomocą Set.of() jest niemodyfikowalny.<p>
@@ -261,4 +515,44 @@ class SetTest {
         Set<List<String>> cartesianProduct = Sets.cartesianProduct(set3, set4);
         System.out.println("Iloczyn kartezjański zbiorów: " + cartesianProduct);
     }
+
+    /**
+     * <h1>LiveSetExpression</h1>
+     * Zmaterializowana alternatywa dla widoków Sets.union/intersection/difference.<p>
+     * Wynik aktualizuje się przyrostowo przy zmianach źródeł (ObservableSet), a size() i contains() kosztują O(1).<p>
+     */
+    @Test
+    void liveSetExpression() {
+        final var set1 = new ObservableSet<>(List.of("A", "B", "C"));
+        final var set2 = new ObservableSet<>(List.of("B", "C", "D"));
+        final var set3 = new ObservableSet<>(List.of("X"));
+
+        final var a = LiveSetExpression.of(set1);
+        final var b = LiveSetExpression.of(set2);
+        final var union = a.union(b);
+        final var intersection = a.intersection(b);
+        final var difference = a.difference(b);
+        final var symmetricDifference = a.symmetricDifference(b);
+        final var nested = union.union(LiveSetExpression.of(set3)).difference(intersection);
+
+        final var before = Set.copyOf(nested);
+
+        set1.add("E");
+        set2.remove("C");
+        set3.add("B");
+        set3.remove("X");
+
+        assertAll(
+                () -> assertEquals(Set.of("A", "D", "X"), before),
+
+                () -> assertEquals(Sets.union(set1, set2), union),
+                () -> assertEquals(Sets.intersection(set1, set2), intersection),
+                () -> assertEquals(Sets.difference(set1, set2), difference),
+                () -> assertEquals(Sets.symmetricDifference(set1, set2), symmetricDifference),
+                () -> assertEquals(Set.of("A", "C", "D", "E"), nested),
+                () -> assertEquals(4, nested.size()),
+                () -> assertTrue(nested.contains("E")),
+                () -> assertThrows(UnsupportedOperationException.class, () -> union.add("Z"))
+        );
+    }
 }
\ No newline at end of file
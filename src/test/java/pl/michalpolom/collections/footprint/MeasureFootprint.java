@@ -0,0 +1,22 @@
+package pl.michalpolom.collections.footprint;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mierzy bajty zaalokowane przez test (w wątku testu, ThreadMXBean.getCurrentThreadAllocatedBytes) i zgłasza je
+ * jako report entry "allocatedBytes" - bez zaśmiecania logu budowania. Przekroczony limit trafia do komunikatu błędu.<p>
+ * Na klasie dotyczy wszystkich testów - adnotacja na metodzie ma pierwszeństwo. Test przekraczający maxAllocatedBytes
+ * kończy się błędem, domyślnie limitu nie ma.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(MeasureFootprintExtension.class)
+public @interface MeasureFootprint {
+
+    long maxAllocatedBytes() default Long.MAX_VALUE;
+}
@@ -0,0 +1,47 @@
+package pl.michalpolom.collections.footprint;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Obsługa {@link MeasureFootprint} - licznik alokacji wątku odczytany przed i po samym teście (bez @BeforeEach/@AfterEach).
+ * Alokacje innych wątków uruchomionych przez test nie są liczone.
+ */
+public final class MeasureFootprintExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(MeasureFootprintExtension.class);
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if (THREADS.isThreadAllocatedMemorySupported()) {
+            THREADS.setThreadAllocatedMemoryEnabled(true);
+            context.getStore(NAMESPACE).put(context.getUniqueId(), THREADS.getCurrentThreadAllocatedBytes());
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        final Long start = context.getStore(NAMESPACE).remove(context.getUniqueId(), Long.class);
+        if (start == null) {
+            return;
+        }
+        final long allocated = THREADS.getCurrentThreadAllocatedBytes() - start;
+        context.publishReportEntry("allocatedBytes", Long.toString(allocated));
+
+        final long budget = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), MeasureFootprint.class)
+                .or(() -> AnnotationSupport.findAnnotation(context.getRequiredTestClass(), MeasureFootprint.class))
+                .map(MeasureFootprint::maxAllocatedBytes)
+                .orElse(Long.MAX_VALUE);
+        if (allocated > budget) {
+            fail(context.getDisplayName() + " allocated " + allocated + " bytes, budget is " + budget);
+        }
+    }
+}